@@ -1,9 +1,4 @@
-# Keep AndroidGPS interface for JavaScript access
--keep class com.euscagency.itrack.AndroidGPS {
-    public *;
-}
-
-# Keep all methods annotated with @JavascriptInterface
+# Keep all methods annotated with @JavascriptInterface (MainActivity e expusă în WebView ca "AndroidGPS")
 -keepclassmembers class * {
     @android.webkit.JavascriptInterface <methods>;
 }
@@ -18,5 +13,18 @@
     public *;
 }
 
+# CAPACITOR: Bridge-ul găsește plugin-urile și metodele lor prin reflecție (adnotări + nume apelate din JS)
+-keep class com.getcapacitor.** { *; }
+-keep @com.getcapacitor.annotation.CapacitorPlugin public class * { *; }
+-keep public class * extends com.getcapacitor.Plugin { *; }
+-keep class org.apache.cordova.** { *; }
+-keep public class * extends org.apache.cordova.CordovaPlugin { *; }
+
 # Disable obfuscation for debugging
--dontobfuscate
\ No newline at end of file
+-dontobfuscate
+
+# LOGGING: Release e minificat (build.gradle) - apelurile GpsLog.d dispar complet, inclusiv evaluarea
+# argumentelor; nivelul DEBUG rămâne oricum dezactivat la runtime în release
+-assumenosideeffects class com.euscagency.itrack.GpsLog {
+    public static void d(...);
+}
@@ -0,0 +1,139 @@
+package com.euscagency.itrack;
+
+/**
+ * SAMPLING ADAPTIV - alege intervalul GPS după viteză, schimbări de direcție și staționare
+ * Autostradă și viraje → interval scurt; vehicul oprit (viteză mică + fără deplasare dincolo de
+ * precizia fix-ului) → interval din ce în ce mai lung. Politica întoarce true doar când treapta se
+ * schimbă, astfel încât LocationRequest să fie re-emis rar. Pragurile au histerezis ca să nu oscileze.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class AdaptiveSamplingPolicy {
+
+    public enum Tier {
+        TURNING(3000, 1000),
+        HIGHWAY(5000, 2000),
+        NORMAL(10000, 3000),
+        STATIONARY(30000, 10000),
+        PARKED(120000, 30000);
+
+        public final long intervalMs;
+        public final long fastestIntervalMs;
+
+        Tier(long intervalMs, long fastestIntervalMs) {
+            this.intervalMs = intervalMs;
+            this.fastestIntervalMs = fastestIntervalMs;
+        }
+
+        // Livrare grupată (setMaxWaitTime): câteva fix-uri per callback, CPU-ul doarme între batch-uri.
+        // Plafonat la fereastra de upload - punctele nu întârzie mai mult decât ar sta oricum în batch.
+        public long maxWaitMs() {
+            if (intervalMs >= BATCH_DELIVERY_WINDOW_MS) {
+                return intervalMs;
+            }
+            return Math.min(intervalMs * BATCH_DELIVERY_FIXES, BATCH_DELIVERY_WINDOW_MS);
+        }
+    }
+
+    static final long BATCH_DELIVERY_WINDOW_MS = 30000;
+    static final int BATCH_DELIVERY_FIXES = 3;
+
+    // Viteze în m/s
+    static final float HIGHWAY_ENTER_SPEED = 22.2f; // 80 km/h
+    static final float HIGHWAY_EXIT_SPEED = 19.4f;  // 70 km/h
+    static final float MOVING_SPEED = 1.5f;         // ~5 km/h
+    static final float TURN_MIN_SPEED = 2.0f;
+    static final float TURN_DEGREES = 30f;
+    static final long TURN_HOLD_MS = 30000;
+    static final long STATIONARY_AFTER_MS = 2 * 60 * 1000;
+    static final long PARKED_AFTER_MS = 10 * 60 * 1000;
+    static final double MIN_STATIONARY_RADIUS_METERS = 25;
+
+    private Tier tier = Tier.NORMAL;
+    private GpsFix previous;
+    private GpsFix anchor;          // Primul fix al opririi curente
+    private long stationarySince = -1;
+    private long turnUntil = -1;
+
+    public Tier getTier() {
+        return tier;
+    }
+
+    // Un fix nou - true dacă treapta s-a schimbat și LocationRequest trebuie re-emis
+    public boolean onFix(GpsFix fix) {
+        Tier next = evaluate(fix);
+        previous = fix;
+        if (next == tier) {
+            return false;
+        }
+        tier = next;
+        return true;
+    }
+
+    // Cursă nouă / reluată - revine la intervalul normal până la primele fix-uri
+    public boolean reset() {
+        previous = null;
+        anchor = null;
+        stationarySince = -1;
+        turnUntil = -1;
+        if (tier == Tier.NORMAL) {
+            return false;
+        }
+        tier = Tier.NORMAL;
+        return true;
+    }
+
+    private Tier evaluate(GpsFix fix) {
+        long now = fix.timeMillis;
+
+        if (isStationary(fix)) {
+            turnUntil = -1;
+            if (stationarySince < 0) {
+                stationarySince = now;
+            }
+            long stoppedFor = now - stationarySince;
+            if (stoppedFor >= PARKED_AFTER_MS) {
+                return Tier.PARKED;
+            }
+            if (stoppedFor >= STATIONARY_AFTER_MS) {
+                return Tier.STATIONARY;
+            }
+            return Tier.NORMAL;
+        }
+        stationarySince = -1;
+        anchor = null;
+
+        if (previous != null && fix.speedMps >= TURN_MIN_SPEED && previous.speedMps >= TURN_MIN_SPEED
+                && GeoMath.headingDelta(previous.bearing, fix.bearing) >= TURN_DEGREES) {
+            turnUntil = now + TURN_HOLD_MS;
+        }
+        if (now < turnUntil) {
+            return Tier.TURNING;
+        }
+
+        float highwayThreshold = tier == Tier.HIGHWAY ? HIGHWAY_EXIT_SPEED : HIGHWAY_ENTER_SPEED;
+        if (fix.speedMps >= highwayThreshold) {
+            return Tier.HIGHWAY;
+        }
+        return Tier.NORMAL;
+    }
+
+    // Oprit = viteză mică ȘI poziția nu a ieșit din cercul de incertitudine al opririi
+    private boolean isStationary(GpsFix fix) {
+        if (fix.speedMps >= MOVING_SPEED) {
+            return false;
+        }
+        if (anchor == null) {
+            anchor = fix;
+            return true;
+        }
+        double radius = Math.max(MIN_STATIONARY_RADIUS_METERS, Math.max(anchor.accuracy, fix.accuracy));
+        if (GeoMath.distanceMeters(anchor, fix) <= radius) {
+            return true;
+        }
+        // Deplasare lentă (coloană, manevră) - oprirea începe din nou de aici
+        anchor = fix;
+        stationarySince = -1;
+        return true;
+    }
+}
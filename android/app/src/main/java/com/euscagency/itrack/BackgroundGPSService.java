@@ -29,59 +29,161 @@ import android.app.Notification;
 public class BackgroundGPSService extends Service {
     private static final String TAG = "GPS_Fundal";
     private static final long GPS_INTERVAL_SECONDS = 10;
+    private static final double TRAJECTORY_TOLERANCE_METERS = 10; // Abaterea maximă a traseului trimis față de fix-uri
+    private static final long TRAJECTORY_MAX_GAP_MS = 60000; // Heartbeat - cel puțin un punct pe minut în mișcare
+    private static final int TRAJECTORY_MAX_WINDOW = 32; // Fix-uri reținute per cursă între punctele trimise
+    private static final boolean LOCATION_SMOOTHING_ENABLED = false; // Kalman opțional după filtrele de calitate
     private static final int NOTIFICATION_ID = 2002;
     private static final String CHANNEL_ID = "BackgroundGPSChannel";
     private static final int RETRY_INITIAL_DELAY = 30;
     private static final int RETRY_MAX_DELAY = 300;
-    private static final int MAX_OFFLINE_QUEUE_SIZE = 1000;
+    private static final long MAX_OFFLINE_JOURNAL_BYTES = 4 * 1024 * 1024; // ~15.000 puncte GPS pe disc
+    private static final String OFFLINE_JOURNAL_FILE = "gps_offline.journal";
+    private static final String SEQUENCE_PREFS = "itrack_sequence";
+    private static final long MAX_DEAD_LETTER_BYTES = 1024 * 1024;
+    private static final String DEAD_LETTER_FILE = "gps_dead_letter.journal";
+    private static final int DRAIN_BATCH_SIZE = 50;
+    private static final int DRAIN_MAX_CONCURRENT_BATCHES = 2; // httpThreadPool rămâne liber pentru trafic live
+    private static final int DRAIN_MAX_BATCHES_PER_SECOND = 4;
+    private static final int LOCATION_TIMING_REPORT_EVERY = 30; // Callback-uri grupate (9-30s în mers) => raport la ~5-15 minute
+    private static final String GPS_ENDPOINT = "https://www.euscagency.com/etsm_prod/platforme/transport/apk/gps.php";
+    private static final int BATCH_MAX_POINTS = 30; // ~5 curse x 6 fix-uri
+    private static final long BATCH_MAX_AGE_MS = 30000; // Punctele nu așteaptă mai mult de 30s în batch
+    // GpsBinaryCodec negociat - pornește doar după ce gps.php anunță suportul (header X-iTrack-Binary); false = doar JSON.
+    // Compromis: ~10x mai puțini bytes pe fir (radio activ mai puțin pe semnal slab), dar encodarea unui batch
+    // (re-parsare JSON + deflate) costă zeci de µs față de ~1.5 µs pentru JSON array (PayloadBenchmark)
+    private static final boolean BINARY_UPLOAD_ENABLED = true;
+    private static final int MAX_ANALYTICS_COURSES = 50; // Curse oprite păstrate pentru istoricul din JS
+    private static final int BRIDGE_EVENT_CAPACITY = 256; // Evenimente păstrate pentru pull după revenirea din background
+    private static final long BRIDGE_EVENT_WINDOW_MS = 250; // Un singur dispatch către WebView per fereastră
+    private static final long WAKELOCK_TIMEOUT_MS = 60 * 60 * 1000; // Modul continuu - reînarmat cât durează tura
+    private static final long WAKELOCK_SAFETY_TIMEOUT_MS = 2 * 60 * 1000; // Duty-cycle - acoperă un POST lent (45s) cu rezervă
+    private static final long BOUND_CALL_TIMEOUT_MS = 5000; // Apel JS blocat cel mult atât pe main thread
+    private static final long ACCELEROMETER_MAX_LATENCY_MS = 10000; // Probe grupate în FIFO-ul senzorului - CPU-ul doarme
+    private static final boolean WAKELOCK_DUTY_CYCLE_ENABLED = true; // false = wakelock ținut continuu (comparații de consum)
+    // Livrare grupată - primul fix dintr-un batch Fusion are deja vechimea ferestrei de așteptare
+    private static final long STALE_FIX_MAX_AGE_MS =
+        LocationFilterPipeline.DEFAULT_MAX_AGE_MS + AdaptiveSamplingPolicy.BATCH_DELIVERY_WINDOW_MS;
+    private static final int MAX_PENDING_CAPTURE_TIMES = 5000; // Payload-uri live urmărite pentru fix-to-ack
     
     // CRASH FIX: Flag static pentru a bloca toate operațiile când logout e în progres
     private static volatile boolean isServiceLoggingOut = false;
+    private volatile boolean serviceDestroyed = false; // LocalBinder rămâne la MainActivity după onDestroy
+    // AUTH HOLD: Serverul a refuzat token-ul (401/403) - coada offline stă până la un token nou
+    private volatile boolean authRejected = false;
+    private final LocalBinder localBinder = new LocalBinder();
+    private final android.os.Handler mainHandler = new android.os.Handler(android.os.Looper.getMainLooper());
+    
+    // COURSE ANALYTICS: Statistici native per cursă (uniqueKey) - statice ca să poată fi citite din MainActivity
+    // și după STOP-ul cursei; se șterg doar la logout
+    private static final java.util.concurrent.ConcurrentHashMap<String, CourseAnalytics> courseAnalytics = new java.util.concurrent.ConcurrentHashMap<>();
+    
+    // BRIDGE EVENTS: Canalul serviciu → WebView - MainActivity îl atașează cât timp e vizibilă, JS face pull după cursor
+    private static final BridgeEventChannel bridgeEvents = new BridgeEventChannel(BRIDGE_EVENT_CAPACITY, BRIDGE_EVENT_WINDOW_MS);
+    
+    // METRICS: Registrul e per proces (supraviețuiește recreării serviciului); metricile se țin în câmpuri,
+    // pe calea fierbinte doar add()/record() - snapshot-ul se construiește doar la getServiceStatus
+    private static final MetricsRegistry metrics = new MetricsRegistry(System.currentTimeMillis());
+    private static volatile long lastTransmissionMillis = 0;
+    // TELEMETRY: Baterie/semnal/rețea din evenimente - payload-ul citește instantaneul, nu sistemul
+    private static final DeviceTelemetry deviceTelemetry = new DeviceTelemetry();
+    private android.content.BroadcastReceiver batteryReceiver;
+    private Object telephonyListener; // PhoneStateListener sau TelephonyCallback (API 31+)
     
     private FusedLocationProviderClient fusedLocationClient;
     private LocationRequest locationRequest;
     private LocationCallback locationCallback;
     private PowerManager.WakeLock wakeLock;
-    private java.util.Map<String, CourseData> activeCourses = new java.util.concurrent.ConcurrentHashMap<>();
+    // Cursele serviciului - indexate după cheie/ikRoTrans/UIT real, status schimbat prin CAS, număr ACTIVE menținut
+    private final CourseRegistry courseRegistry = new CourseRegistry();
     private String globalToken;
     private java.util.concurrent.ThreadPoolExecutor httpThreadPool;
+    // BENZI PER CURSĂ: Ordine FIFO per UIT peste httpThreadPool - recreate odată cu pool-ul
+    private volatile StripedExecutor courseLanes;
     private java.util.concurrent.ScheduledExecutorService retryExecutor;
     private String globalVehicle;
     private java.util.concurrent.atomic.AtomicBoolean isGPSRunning = new java.util.concurrent.atomic.AtomicBoolean(false);
     private java.util.concurrent.atomic.AtomicBoolean locationUpdatesActive = new java.util.concurrent.atomic.AtomicBoolean(false);
     private java.util.concurrent.atomic.AtomicBoolean isRetryRunning = new java.util.concurrent.atomic.AtomicBoolean(false);
-    private java.util.concurrent.ConcurrentLinkedQueue<OfflineGPSData> offlineQueue = new java.util.concurrent.ConcurrentLinkedQueue<>();
-    
+    private RetryScheduler<OfflineGPSData> offlineQueue; // Ordonată după momentul de retry, nu după sosire
+    // Cursele cu backlog scos din coadă și netrimis încă - un singur batch offline per cursă odată
+    private final java.util.Set<String> drainingCourses = new java.util.HashSet<>();
+    private android.net.ConnectivityManager.NetworkCallback connectivityCallback;
+    private final java.util.Set<android.net.Network> availableNetworks =
+        java.util.Collections.newSetFromMap(new java.util.concurrent.ConcurrentHashMap<android.net.Network, Boolean>());
+    private long reconciledJournalEvictions = 0;
+    private GpsJournal offlineJournal;
+    private GpsJournal deadLetterJournal; // Payload-uri refuzate definitiv de server (4xx) - păstrate pentru diagnostic
+    private final StripedCounter fixesReceived = metrics.counter("fixes.received");
+    private final StripedCounter pointsQueued = metrics.counter("points.queued");
+    private final StripedCounter pointsSent = metrics.counter("points.sent");
+    private final StripedCounter pointsFailed = metrics.counter("points.failed");
+    private final StripedCounter offlinePointsSent = metrics.counter("points.offline_sent");
+    private final StripedCounter retryQueuedCount = metrics.counter("points.retry_queued");
+    private final StripedCounter deadLetterCount = metrics.counter("points.dead_lettered");
+    private final StripedCounter rejectedTaskCount = metrics.counter("http.rejected_tasks");
+    private final LatencyHistogram fixToAckMs = metrics.histogram("points.fix_to_ack_ms");
+    // METRICS: Momentul capturii per payload live - aceeași instanță String revine în listener-ul batch-ului
+    private final java.util.Map<String, Long> pendingCaptureTimes =
+        java.util.Collections.synchronizedMap(new java.util.IdentityHashMap<String, Long>());
+    private WakeLockDutyCycle wakeLockDutyCycle; // Creat în onCreate, înaintea oricărui callback sau upload
+    private GpsTransport gpsTransport;
+    private GpsBatchUploader batchUploader;
+    private PointSequencer pointSequencer; // NUMEROTARE: seq per cursă + point_id, atribuite la captură
+    private final GpsPayloadEncoder gpsPayloadEncoder = new GpsPayloadEncoder(); // Doar pe thread-ul callback-ului GPS
+    private android.os.HandlerThread locationThread;
+    private volatile GpsFix lastFix; // Ultima locație cunoscută - citită instant de status updates
+    private final CallbackTimingStats locationCallbackTiming = new CallbackTimingStats();
+    private final AdaptiveSamplingPolicy samplingPolicy = new AdaptiveSamplingPolicy(); // Doar prin motionState
+    // MOTION STATE: Staționare confirmată de senzori → request balanced cu heartbeat lent; GNSS-on măsurat pe tură
+    private final MotionStateMachine motionState = new MotionStateMachine(samplingPolicy);
+    private android.hardware.SensorEventListener accelerometerListener;
+    private android.hardware.TriggerEventListener significantMotionListener;
+    private android.hardware.Sensor significantMotionSensor;
+    private final LocationFilterPipeline locationFilter = LocationFilterPipeline.standard(LOCATION_SMOOTHING_ENABLED, STALE_FIX_MAX_AGE_MS); // Doar pe thread-ul GPS
+    // TRAJECTORY: Un simplificator per cursă (uniqueKey) - memorie fixă, punctele redundante nu mai pleacă la server
+    private final java.util.concurrent.ConcurrentHashMap<String, TrajectorySimplifier> trajectorySimplifiers = new java.util.concurrent.ConcurrentHashMap<>();
+    private OfflineDrainEngine<OfflineGPSData> offlineDrainEngine;
+    private java.util.concurrent.ExecutorService drainExecutor;
     
-    // Clasă pentru datele cursei
-    private static class CourseData {
-        String courseId; // ikRoTrans - identificator unic pentru HashMap
-        int status; // 2=ACTIV, 3=PAUZA, 4=STOP
-        String realUit; // UIT real pentru transmisia către server
-        String vehicleNumber; // Numărul mașinii specific pentru această cursă
-        
-        CourseData(String courseId, int status) {
-            this.courseId = courseId;
-            this.status = status;
-            this.realUit = courseId; // Fallback pentru compatibilitate
-            this.vehicleNumber = null;
-        }
-        
-        CourseData(String courseId, int status, String realUit, String vehicleNumber) {
-            this.courseId = courseId;
-            this.status = status;
-            this.realUit = realUit != null ? realUit : courseId; // UIT real sau fallback
-            this.vehicleNumber = vehicleNumber; // Vehiculul specific pentru cursă
-        }
-    }
     
     @Override
     public void onCreate() {
         super.onCreate();
-        Log.e(TAG, "🚀 Serviciul BackgroundGPS Creat");
+        installLogging(this);
+        GpsLog.i(TAG, "🚀 Serviciul BackgroundGPS Creat");
         
         // Initialize HTTP Thread Pool pentru rate limiting
         initializeHttpThreadPool();
+        
+        // OFFLINE RETRY: Un singur timer pe durata serviciului - wake-uri one-shot doar când un retry e scadent
+        retryExecutor = Executors.newSingleThreadScheduledExecutor();
+        offlineQueue = new RetryScheduler<>(retryExecutor, new RetryScheduler.DueListener() {
+            @Override
+            public void onItemsDue() {
+                // CRASH FIX: Verifică flag-ul în callback
+                if (isServiceLoggingOut || offlineDrainEngine == null) {
+                    return;
+                }
+                offlineDrainEngine.trigger();
+            }
+        });
+        
+        // OFFLINE JOURNAL: Reia punctele GPS rămase pe disc după moartea procesului
+        openOfflineJournal();
+        
+        // NUMEROTARE: Contoarele continuă de la plafonul salvat - un retry nu poate deveni punct nou
+        initializePointSequencer();
+        
+        // TRANSPORT: Un singur client HTTP (keep-alive + HTTP/2) partajat de toate trimiterile
+        // METRICS: Latența, bytes pe fir și codurile HTTP pentru tot traficul către gps.php
+        gpsTransport = new MeteredGpsTransport(new OkHttpGpsTransport(GPS_ENDPOINT), metrics);
+        
+        // BATCH UPLOAD: Un singur POST pentru punctele tuturor curselor active
+        initializeBatchUploader();
+        
+        // OFFLINE DRAIN: Golește backlog-ul în paralel imediat ce rețeaua revine
+        initializeOfflineDrainEngine();
                
         // FUSION GPS: Inițializare Google Play Services Location
         fusedLocationClient = LocationServices.getFusedLocationProviderClient(this);
@@ -93,12 +195,40 @@ public class BackgroundGPSService extends Service {
             "iTrack:FusionGPS:DeepSleep"
         );
         
-        // ELIMINAT: HandlerThread - FusedLocationProviderClient gestionează propriul thread
+        // WAKELOCK DUTY-CYCLE: Numărarea deținătorilor e în WakeLockDutyCycle - PowerManager vede un singur wakelock
+        wakeLock.setReferenceCounted(false);
+        final PowerManager.WakeLock powerLock = wakeLock;
+        wakeLockDutyCycle = new WakeLockDutyCycle(
+            new WakeLockDutyCycle.Lock() {
+                @Override
+                public void acquire(long timeoutMs) {
+                    powerLock.acquire(timeoutMs);
+                }
+                
+                @Override
+                public void release() {
+                    // Timeout-ul de siguranță poate să-l fi eliberat deja
+                    if (powerLock.isHeld()) {
+                        powerLock.release();
+                    }
+                }
+            },
+            () -> android.os.SystemClock.elapsedRealtime(),
+            WAKELOCK_DUTY_CYCLE_ENABLED ? WAKELOCK_SAFETY_TIMEOUT_MS : WAKELOCK_TIMEOUT_MS,
+            metrics
+        );
+        
+        // LOCATION THREAD: Callback-urile Fusion GPS se procesează pe thread propriu, nu pe main looper-ul WebView-ului
+        locationThread = new android.os.HandlerThread("iTrack-LocationProcessing", android.os.Process.THREAD_PRIORITY_BACKGROUND);
+        locationThread.start();
+        
+        startDeviceTelemetry();
+        registerMetricGauges();
         
         createNotificationChannel();
         startForeground(NOTIFICATION_ID, createNotification());
         
-        Log.e(TAG, "✅ Serviciul GPS de Fundal este Gata");
+        GpsLog.i(TAG, "✅ Serviciul GPS de Fundal este Gata");
     }
     
     // CRITICAL SECURITY FIX: HTTP Thread Pool cu coadă LIMITATĂ pentru memory safety
@@ -117,175 +247,254 @@ public class BackgroundGPSService extends Service {
                     new java.util.concurrent.RejectedExecutionHandler() {
                         @Override
                         public void rejectedExecution(Runnable r, java.util.concurrent.ThreadPoolExecutor executor) {
-                            Log.e(TAG, "🚨 HTTP Thread Pool FULL - cerere respinsă pentru memory safety");
+                            GpsLog.e(TAG, "🚨 HTTP Thread Pool FULL - cerere respinsă pentru memory safety");
                             // Salvează în offline queue în loc să consume memoria
+                            divertRejectedTask(r);
                         }
                     }
                 );
-                Log.e(TAG, "🔧 SECURE HTTP Thread Pool: 3 threads, coadă max 1000, memory protected");
+                courseLanes = new StripedExecutor(httpThreadPool);
+                GpsLog.i(TAG, "🔧 SECURE HTTP Thread Pool: 3 threads, coadă max 1000, memory protected");
             }
         } catch (Exception e) {
-            Log.e(TAG, "❌ Eroare inițializare HTTP Thread Pool: " + e.getMessage());
+            GpsLog.e(TAG, "❌ Eroare inițializare HTTP Thread Pool: {}", e.getMessage());
         }
     }
     
-    @Override
-    public int onStartCommand(Intent intent, int flags, int startId) {
-        Log.e(TAG, "onStartCommand apelat cu acțiune: " + (intent != null ? intent.getAction() : "null"));
-        
-        if (intent != null && "START_BACKGROUND_GPS".equals(intent.getAction())) {
-            // CRASH FIX: Resetăm flag-ul de logout când serviciul e pornit din nou
-            isServiceLoggingOut = false;
-            Log.e(TAG, "🔓 isServiceLoggingOut = false - GPS service starting");
-            
-            String uitId = intent.getStringExtra("uit"); // ikRoTrans ca identificator HashMap
-            String realUit = intent.getStringExtra("extra_uit"); // UIT real pentru server
-            globalToken = intent.getStringExtra("token");
-            globalVehicle = intent.getStringExtra("vehicle");
-            int courseStatus = intent.getIntExtra("status", 2); // Default ACTIVE
-            
-            // CRASH FIX: Verifică dacă avem date valide ÎNAINTE de a continua
-            if (globalToken == null || globalToken.isEmpty()) {
-                Log.e(TAG, "❌ CRASH PREVENTED: globalToken is null - cannot start GPS");
-                return START_STICKY;
+    // REJECTED TASK: Payload-ul unui task respins (pool plin/oprit) intră în coada offline în loc să fie pierdut
+    private void divertRejectedTask(Runnable task) {
+        rejectedTaskCount.increment();
+        StripedExecutor.LaneTask laneTask = null;
+        if (task instanceof StripedExecutor.LaneTask) {
+            laneTask = (StripedExecutor.LaneTask) task;
+            task = laneTask.getTask();
+        }
+        // WAKELOCK DUTY-CYCLE: Task-ul nu mai rulează - deținătorul luat la predare se închide aici
+        if (task instanceof WakeLockDutyCycle.Wakeful) {
+            WakeLockDutyCycle.Wakeful wakeful = (WakeLockDutyCycle.Wakeful) task;
+            wakeful.cancel();
+            task = wakeful.getTask();
+        }
+        if (task instanceof GpsBatchUploader.BatchTask) {
+            for (String pointJson : ((GpsBatchUploader.BatchTask) task).getPoints()) {
+                addToOfflineQueue(pointJson);
             }
-            if (globalVehicle == null || globalVehicle.isEmpty()) {
-                Log.e(TAG, "❌ CRASH PREVENTED: globalVehicle is null - cannot start GPS");
-                return START_STICKY;
+        } else if (task instanceof StatusUploadTask) {
+            addToOfflineQueue(((StatusUploadTask) task).statusDataJson);
+        }
+        // BENZI PER CURSĂ: Banda trece la următorul task al cursei abia după ce payload-ul e în coada offline
+        if (laneTask != null) {
+            laneTask.cancel();
+        }
+    }
+    
+    // LOGOUT: Task-urile scoase din coadă de shutdownNow nu mai rulează - benzile și wakelock-ul lor se închid
+    private void cancelDroppedTasks(java.util.List<Runnable> dropped) {
+        for (Runnable task : dropped) {
+            if (task instanceof StripedExecutor.LaneTask) {
+                StripedExecutor.LaneTask laneTask = (StripedExecutor.LaneTask) task;
+                task = laneTask.getTask();
+                laneTask.cancel();
             }
-            if (uitId == null || uitId.isEmpty()) {
-                Log.e(TAG, "❌ CRASH PREVENTED: uitId is null - cannot start GPS");
-                return START_STICKY;
+            if (task instanceof WakeLockDutyCycle.Wakeful) {
+                ((WakeLockDutyCycle.Wakeful) task).cancel();
             }
+        }
+    }
+    
+    // OFFLINE JOURNAL: Coada offline e persistată pe disc - offlineQueue ține doar setul de lucru din memorie
+    private void openOfflineJournal() {
+        try {
+            java.io.File journalFile = new java.io.File(getFilesDir(), OFFLINE_JOURNAL_FILE);
+            offlineJournal = GpsJournal.open(journalFile, MAX_OFFLINE_JOURNAL_BYTES);
             
-            // CRITICAL: Creează key unic pentru HashMap pentru a evita conflictul între mașini
-            // CONFLICT PREVENTION: Adăugăm și token-ul pentru a evita conflictele între utilizatori
-            String deviceId = android.provider.Settings.Secure.getString(getContentResolver(), android.provider.Settings.Secure.ANDROID_ID);
-            if (deviceId == null) deviceId = "unknown"; // CRASH FIX: deviceId null check
-            String tokenHash = String.valueOf(Math.abs(globalToken.hashCode())); // Acum safe - globalToken verificat mai sus
-            String uniqueKey = globalVehicle + "_" + uitId + "_" + deviceId.substring(0, Math.min(8, deviceId.length())) + "_" + tokenHash.substring(0, Math.min(8, tokenHash.length())); // Vehicul + UIT + Device + Token = key COMPLET unic
-            
-            Log.e(TAG, "⚡ MULTI-VEHICLE MULTI-COURSE - Adăugare cursă:");
-            Log.e(TAG, "   ikRoTrans original: " + uitId);
-            Log.e(TAG, "   HashMap unique key: " + uniqueKey);
-            Log.e(TAG, "   UIT real (server): " + realUit);
-            Log.e(TAG, "   Vehicle: " + globalVehicle);
-            Log.e(TAG, "   Status: " + courseStatus);
-            
-            // CRITICAL FIX: VERIFICARE UIT REAL - dacă realUit este null, folosește uitId
-            String validRealUit = (realUit != null && !realUit.trim().isEmpty()) ? realUit : uitId;
-            Log.e(TAG, "🔧 CRITICAL UIT VALIDATION: realUit='" + realUit + "' → validRealUit='" + validRealUit + "'");
-            
-            // Adaugă cursa la lista activă cu key unic (vehicul + ikRoTrans), păstrează toate datele
-            activeCourses.put(uniqueKey, new CourseData(uitId, courseStatus, validRealUit, globalVehicle));
-            Log.e(TAG, "📋 Total curse active: " + activeCourses.size());
-            
-            // FIXED: Folosește NOTIFICATION_ID consistent (2002)
-            updateNotification();
-            Log.e(TAG, "📱 Notificare serviciu fundal actualizată");
-            
-            if (courseStatus == 2) {
-                // CRITICAL FIX: Garantează că LocationCallback este ÎNTOTDEAUNA înregistrat pentru curse ACTIVE
-                ensureLocationUpdatesRegistered();
-            } else {
-                Log.e(TAG, "GPS not started - course status is " + courseStatus + " (not ACTIVE)");
+            if (offlineJournal.getTruncatedBytes() > 0) {
+                GpsLog.w(TAG, "⚠️ Offline journal: {} bytes incompleți tăiați (proces oprit în timpul scrierii)", offlineJournal.getTruncatedBytes());
             }
             
-        } else if (intent != null && "UPDATE_COURSE_STATUS".equals(intent.getAction())) {
-            int newStatus = intent.getIntExtra("status", 0);
-            String specificUIT = intent.getStringExtra("uit");
-            String vehicleForUpdate = intent.getStringExtra("vehicle"); // Vehicul pentru status update
-            
-            Log.i(TAG, "Actualizare status: " + specificUIT + " → " + newStatus);
-            
-            // CRITICAL: Verifică că token nu s-a schimbat
-            if (globalToken == null) {
-                Log.e(TAG, "❌ Nu pot actualiza status - globalToken este null");
-                return START_STICKY;
+            int replayed = 0;
+            for (GpsJournal.Entry entry : offlineJournal.pending()) {
+                try {
+                    // Eligibile imediat - se trimit de îndată ce există rețea
+                    offlineQueue.offer(new OfflineGPSData(entry.id, new org.json.JSONObject(entry.payload), entry.createdAt), entry.createdAt);
+                    replayed++;
+                } catch (org.json.JSONException e) {
+                    offlineJournal.ack(entry.id); // Rând ilizibil - nu îl mai reluăm
+                }
+            }
+            GpsLog.i(TAG, "💾 Offline journal deschis: {} puncte GPS reluate ({} bytes)", replayed, offlineJournal.getLiveBytes());
+        } catch (Exception e) {
+            offlineJournal = null;
+            GpsLog.e(TAG, "❌ Eroare deschidere offline journal - coada rămâne doar în memorie: {}", e.getMessage());
+        }
+        
+        try {
+            deadLetterJournal = GpsJournal.open(new java.io.File(getFilesDir(), DEAD_LETTER_FILE), MAX_DEAD_LETTER_BYTES);
+        } catch (Exception e) {
+            deadLetterJournal = null;
+            GpsLog.e(TAG, "❌ Eroare deschidere dead-letter store: {}", e.getMessage());
+        }
+    }
+    
+    // NUMEROTARE: seq per cursă + point_id per dispozitiv - plafoanele rezervate stau în SharedPreferences
+    private void initializePointSequencer() {
+        final android.content.SharedPreferences prefs = getSharedPreferences(SEQUENCE_PREFS, Context.MODE_PRIVATE);
+        String deviceId = android.provider.Settings.Secure.getString(getContentResolver(), android.provider.Settings.Secure.ANDROID_ID);
+        if (deviceId == null || deviceId.isEmpty()) {
+            // Fără ANDROID_ID - un ID aleator, generat o singură dată și păstrat
+            deviceId = prefs.getString("device_id", null);
+            if (deviceId == null) {
+                deviceId = Long.toHexString(new java.security.SecureRandom().nextLong() | Long.MIN_VALUE);
+                prefs.edit().putString("device_id", deviceId).commit();
+            }
+        }
+        pointSequencer = new PointSequencer(deviceId, new PointSequencer.Store() {
+            @Override
+            public long load(String key) {
+                return prefs.getLong(key, 0);
             }
             
-            // SIMPLE SEARCH: Găsește cursa după orice identificator  
-            CourseData courseData = null;
-            String foundKey = null;
-            
-            // FIXED: Caută și după HashMap key pentru maximum compatibility
-            for (java.util.Map.Entry<String, CourseData> entry : activeCourses.entrySet()) {
-                CourseData course = entry.getValue();
-                String mapKey = entry.getKey();
-                
-                if (course.courseId.equals(specificUIT) || 
-                    course.realUit.equals(specificUIT) ||
-                    mapKey.contains(specificUIT)) {  // Extra fallback pentru key search
-                    courseData = course;
-                    foundKey = entry.getKey();
-                    break;
-                }
+            @Override
+            public void save(String key, long reservedUpTo) {
+                // commit(), nu apply(): plafonul trebuie să fie pe disc înainte să emitem valori de sub el
+                prefs.edit().putLong(key, reservedUpTo).commit();
             }
             
-            if (courseData != null) {
-                int oldStatus = courseData.status;
-                Log.i(TAG, "Status: " + oldStatus + " → " + newStatus + " pentru " + specificUIT);
-                
-                if (newStatus == 2) { // ACTIVE/RESUME
-                    courseData.status = 2;
-                    Log.i(TAG, "🟢 RESUME: GPS reactivat pentru " + specificUIT);
-                    
-                    // CRITICAL FIX: TRIMITE status RESUME la server
-                    sendStatusUpdateToServer(newStatus, foundKey);
-                    
-                    // CRITICAL FIX: Garantează LocationCallback înregistrat pentru RESUME
-                    ensureLocationUpdatesRegistered();
-                } else if (newStatus == 3) { // PAUSE
-                    courseData.status = 3;
-                    Log.e(TAG, "🔶 PAUSE: UIT " + specificUIT + " status → 3 (PAUSE)");
-                    
-                    // CRITICAL FIX: TRIMITE status PAUSE la server (a lipsit!)
-                    sendStatusUpdateToServer(newStatus, foundKey);
-                    
-                    // CRITICAL FIX: Verifică dacă mai sunt curse ACTIVE pentru a opri GPS
-                    int activeCourseCount = 0;
-                    for (CourseData course : activeCourses.values()) {
-                        if (course.status == 2) {
-                            activeCourseCount++;
-                        }
-                    }
-                    Log.e(TAG, "📊 PAUSE: " + activeCourseCount + " curse rămân ACTIVE");
-                    
-                    // CRITICAL FIX: Dacă nu mai sunt curse ACTIVE, oprește LocationUpdates
-                    if (activeCourseCount == 0) {
-                        Log.e(TAG, "🛑 TOATE cursele în PAUZĂ/STOP - opresc LocationUpdates");
-                        stopLocationUpdates();
-                    }
-                } else if (newStatus == 4) { // STOP
-                    // CRITICAL FIX: TRIMITE status STOP la server ÎNAINTE de eliminare
-                    sendStatusUpdateToServer(newStatus, foundKey);
-                    
-                    activeCourses.remove(foundKey);
-                    Log.e(TAG, "✅ STOP: Status trimis + cursă eliminată din GPS tracking pentru " + specificUIT);
+            @Override
+            public void remove(String key) {
+                // apply() ajunge: o cheie rămasă după crash doar continuă numerotarea, nu repetă valori
+                prefs.edit().remove(key).apply();
+            }
+        });
+    }
+    
+    // BATCH UPLOAD: Uploader-ul trimite prin httpThreadPool curent (pool-ul e recreat la restart GPS)
+    private void initializeBatchUploader() {
+        batchUploader = new GpsBatchUploader(
+            gpsTransport,
+            BATCH_MAX_POINTS,
+            BATCH_MAX_AGE_MS,
+            command -> {
+                if (isServiceLoggingOut) {
+                    GpsLog.d(TAG, "📵 GPS batch SKIPPED - logout in progress");
+                    return;
+                }
+                java.util.concurrent.ThreadPoolExecutor pool = httpThreadPool;
+                StripedExecutor lanes = courseLanes;
+                if (pool != null && !pool.isShutdown() && lanes != null) {
+                    // BENZI PER CURSĂ: Batch-ul pornește după tot ce s-a predat înainte pentru cursele lui
+                    java.util.Set<String> uits = ((GpsBatchUploader.BatchTask) command).getKeys();
+                    lanes.execute(uits, wakeLockDutyCycle.wrap(command)); // Treaz de la predare până la răspunsul serverului
+                } else {
+                    divertRejectedTask(command);
+                }
+            },
+            new GpsBatchUploader.Listener() {
+                @Override
+                public void onPointsDelivered(java.util.List<String> points, int responseCode) {
+                    pointsSent.add(points.size());
+                    lastTransmissionMillis = System.currentTimeMillis();
+                    recordFixToAck(points);
+                    GpsLog.i(TAG, "✅ GPS batch livrat: {} puncte - cod: {}", points.size(), responseCode);
+                    publishBridgeEvent(BridgeEventChannel.Type.TRANSMISSION, "ANDROID_TRANSMISSION:" + responseCode);
                     
-                    // CRITICAL FIX: Verifică dacă mai sunt curse ACTIVE pentru GPS
-                    int activeCourseCount = 0;
-                    for (CourseData course : activeCourses.values()) {
-                        if (course.status == 2) {
-                            activeCourseCount++;
-                        }
+                    // Serverul răspunde din nou - pornește drenarea backlog-ului fără să aștepte tick-ul de retry
+                    // AUTH HOLD: Un upload live reușit arată că token-ul curent e acceptat din nou
+                    authRejected = false;
+                    if (!offlineQueue.isEmpty()) {
+                        offlineDrainEngine.trigger();
                     }
-                    
-                    if (activeCourseCount == 0) {
-                        Log.e(TAG, "🛑 TOATE cursele STOP - opresc LocationUpdates");
-                        stopLocationUpdates();
-                    } else {
-                        Log.e(TAG, "⚡ GPS continuă pentru " + activeCourseCount + " curse ACTIVE rămase");
+                }
+                
+                @Override
+                public void onPointsFailed(java.util.List<String> points, int responseCode, Exception error) {
+                    pointsFailed.add(points.size());
+                    forgetCaptureTimes(points);
+                    GpsLog.e(TAG, "Eroare transmisie GPS batch ({} puncte) - cod: {}", points.size(), responseCode);
+                    if (error != null) {
+                        GpsLog.e(TAG, "Eroare transmisie GPS batch: {}", error.getMessage());
                     }
+                    publishBridgeEvent(BridgeEventChannel.Type.TRANSMISSION, "ANDROID_TRANSMISSION:" + responseCode);
+                    handleFailedPayloads(points, responseCode);
                 }
-            } else {
-                Log.e(TAG, "❌ UIT " + specificUIT + " nu găsit în curse active!");
             }
+        );
+        // BINARY UPLOAD: JSON până când gps.php anunță formatul compact într-un răspuns; apoi 415 sau 400/422
+        // urmat de JSON livrat → JSON permanent
+        if (BINARY_UPLOAD_ENABLED) {
+            batchUploader.allowBinaryNegotiation();
+        }
+        GpsLog.i(TAG, "🔧 GPS Batch Uploader: max {} puncte / {}s per POST", BATCH_MAX_POINTS, BATCH_MAX_AGE_MS / 1000);
+        GpsLog.i(TAG, "🔧 GPS Batch Uploader: format binar {}", BINARY_UPLOAD_ENABLED ? "negociat cu serverul" : "dezactivat");
+    }
+    
+    // OFFLINE DRAIN: Thread-uri proprii - backlog-ul nu stă în coada httpThreadPool înaintea punctelor live
+    private void initializeOfflineDrainEngine() {
+        drainExecutor = Executors.newFixedThreadPool(DRAIN_MAX_CONCURRENT_BATCHES);
+        final java.util.concurrent.ExecutorService drainPool = drainExecutor;
+        // WAKELOCK DUTY-CYCLE: Fiecare batch de drenare ține CPU-ul treaz până la răspuns
+        java.util.concurrent.Executor wakefulDrainExecutor = command -> {
+            WakeLockDutyCycle.Wakeful wakeful = wakeLockDutyCycle.wrap(command);
+            try {
+                drainPool.execute(wakeful);
+            } catch (java.util.concurrent.RejectedExecutionException e) {
+                wakeful.cancel();
+                throw e;
+            }
+        };
+        offlineDrainEngine = new OfflineDrainEngine<>(
+            new OfflineDrainEngine.Backlog<OfflineGPSData>() {
+                @Override
+                public java.util.List<OfflineGPSData> takeReady(int max) {
+                    return takeReadyOfflineBatch(max);
+                }
+                
+                @Override
+                public int size() {
+                    return offlineQueue.size();
+                }
+            },
+            batch -> sendOfflineBatch(batch),
+            () -> batchUploader.getInFlightCount() > 0,
+            new OfflineDrainEngine.ProgressListener() {
+                @Override
+                public void onProgress(int delivered, int processed, int remaining) {
+                    // BRIDGE: Notifică JavaScript progresul sincronizării Android queue
+                    publishBridgeEvent(BridgeEventChannel.Type.SYNC_PROGRESS, "ANDROID_SYNC_PROGRESS:" + delivered + "/" + processed + "/" + remaining);
+                }
+                
+                @Override
+                public void onDrainFinished(int delivered, int processed, int remaining) {
+                    GpsLog.i(TAG, "📊 Offline drain terminat: {} items ({} success)", processed, delivered);
+                    GpsLog.i(TAG, "📊 Offline drain: {} rămase", remaining);
+                }
+            },
+            wakefulDrainExecutor,
+            DRAIN_BATCH_SIZE,
+            DRAIN_MAX_CONCURRENT_BATCHES,
+            DRAIN_MAX_BATCHES_PER_SECOND
+        );
+    }
+    
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        GpsLog.i(TAG, "onStartCommand apelat cu acțiune: {}", (intent != null ? intent.getAction() : "null"));
+        
+        if (intent != null && "START_BACKGROUND_GPS".equals(intent.getAction())) {
+            addCourse(
+                intent.getStringExtra("uit"), // ikRoTrans ca identificator HashMap
+                intent.getStringExtra("extra_uit"), // UIT real pentru server
+                intent.getStringExtra("token"),
+                intent.getStringExtra("vehicle"),
+                intent.getIntExtra("status", 2)); // Default ACTIVE
+            
+        } else if (intent != null && "UPDATE_COURSE_STATUS".equals(intent.getAction())) {
+            updateCourseStatus(intent.getStringExtra("uit"), intent.getIntExtra("status", 0));
             
         } else if (intent != null && "STOP_BACKGROUND_GPS".equals(intent.getAction())) {
             // CRASH FIX: Setăm flag-ul ÎNAINTE de orice pentru a bloca toate callback-urile
             isServiceLoggingOut = true;
-            Log.e(TAG, "🔒 isServiceLoggingOut = true - STOP GPS requested");
+            GpsLog.i(TAG, "🔒 isServiceLoggingOut = true - STOP GPS requested");
             stopBackgroundGPS();
             // Oprim serviciul imediat pentru a preveni orice callback
             stopSelf();
@@ -294,23 +503,166 @@ public class BackgroundGPSService extends Service {
         return START_STICKY;
     }
     
+    // START: Cursă nouă / repornită - din intent (serviciul nu rula) sau direct prin LocalBinder
+    private CommandResult addCourse(String uitId, String realUit, String token, String vehicle, int courseStatus) {
+        // CRASH FIX: Resetăm flag-ul de logout când serviciul e pornit din nou
+        isServiceLoggingOut = false;
+        GpsLog.i(TAG, "🔓 isServiceLoggingOut = false - GPS service starting");
+        
+        if (token != null && !token.equals(globalToken)) {
+            authRejected = false; // AUTH HOLD: token nou - coada offline poate încerca din nou
+        }
+        globalToken = token;
+        globalVehicle = vehicle;
+        gpsTransport.setAuthToken(globalToken);
+        
+        // CRASH FIX: Verifică dacă avem date valide ÎNAINTE de a continua
+        if (globalToken == null || globalToken.isEmpty()) {
+            GpsLog.e(TAG, "❌ CRASH PREVENTED: globalToken is null - cannot start GPS");
+            return CommandResult.error("token lipsă");
+        }
+        if (globalVehicle == null || globalVehicle.isEmpty()) {
+            GpsLog.e(TAG, "❌ CRASH PREVENTED: globalVehicle is null - cannot start GPS");
+            return CommandResult.error("vehicul lipsă");
+        }
+        if (uitId == null || uitId.isEmpty()) {
+            GpsLog.e(TAG, "❌ CRASH PREVENTED: uitId is null - cannot start GPS");
+            return CommandResult.error("cursă lipsă");
+        }
+        
+        // CRITICAL: Creează key unic pentru HashMap pentru a evita conflictul între mașini
+        // CONFLICT PREVENTION: Adăugăm și token-ul pentru a evita conflictele între utilizatori
+        String deviceId = android.provider.Settings.Secure.getString(getContentResolver(), android.provider.Settings.Secure.ANDROID_ID);
+        if (deviceId == null) deviceId = "unknown"; // CRASH FIX: deviceId null check
+        String tokenHash = String.valueOf(Math.abs(globalToken.hashCode())); // Acum safe - globalToken verificat mai sus
+        String uniqueKey = globalVehicle + "_" + uitId + "_" + deviceId.substring(0, Math.min(8, deviceId.length())) + "_" + tokenHash.substring(0, Math.min(8, tokenHash.length())); // Vehicul + UIT + Device + Token = key COMPLET unic
+        
+        GpsLog.i(TAG, "⚡ MULTI-VEHICLE MULTI-COURSE - Adăugare cursă:");
+        GpsLog.i(TAG, "   ikRoTrans original: {}", uitId);
+        GpsLog.i(TAG, "   HashMap unique key: {}", uniqueKey);
+        GpsLog.i(TAG, "   UIT real (server): {}", realUit);
+        GpsLog.d(TAG, "   Vehicle: {}", globalVehicle);
+        GpsLog.i(TAG, "   Status: {}", courseStatus);
+        
+        // CRITICAL FIX: VERIFICARE UIT REAL - dacă realUit este null, folosește uitId
+        String validRealUit = (realUit != null && !realUit.trim().isEmpty()) ? realUit : uitId;
+        GpsLog.i(TAG, "🔧 CRITICAL UIT VALIDATION: realUit='{}' → validRealUit='{}'", realUit, validRealUit);
+        
+        // Adaugă cursa la lista activă cu key unic (vehicul + ikRoTrans), păstrează toate datele
+        courseRegistry.put(uniqueKey, uitId, validRealUit, globalVehicle, courseStatus);
+        trajectorySimplifiers.remove(uniqueKey); // Cursă (re)pornită - primul fix pleacă imediat
+        startCourseAnalytics(uniqueKey, uitId, validRealUit, globalVehicle, courseStatus);
+        GpsLog.i(TAG, "📋 Total curse active: {}", courseRegistry.size());
+        
+        // FIXED: Folosește NOTIFICATION_ID consistent (2002)
+        updateNotification();
+        GpsLog.i(TAG, "📱 Notificare serviciu fundal actualizată");
+        
+        if (courseStatus == 2) {
+            // CRITICAL FIX: Garantează că LocationCallback este ÎNTOTDEAUNA înregistrat pentru curse ACTIVE
+            ensureLocationUpdatesRegistered();
+        } else {
+            GpsLog.i(TAG, "GPS not started - course status is {} (not ACTIVE)", courseStatus);
+        }
+        return CommandResult.ok("BACKGROUND GPS started for " + uitId);
+    }
+    
+    // UPDATE: 2=ACTIVE/RESUME, 3=PAUSE, 4=STOP - din intent sau direct prin LocalBinder
+    private CommandResult updateCourseStatus(String specificUIT, int newStatus) {
+        GpsLog.i(TAG, "Actualizare status: {} → {}", specificUIT, newStatus);
+        
+        // CRITICAL: Verifică că token nu s-a schimbat
+        if (globalToken == null) {
+            GpsLog.e(TAG, "❌ Nu pot actualiza status - globalToken este null");
+            return CommandResult.error("token lipsă");
+        }
+        
+        // INDEXED SEARCH: Cheie unică, ikRoTrans sau UIT real - potrivire exactă, fără scanare
+        CourseRegistry.Course courseData = courseRegistry.find(specificUIT);
+        String foundKey = courseData != null ? courseData.key : null;
+        
+        if (courseData != null) {
+            int oldStatus = courseData.status;
+            GpsLog.i(TAG, "Status: {} → {}", oldStatus, newStatus);
+            
+            // COURSE ANALYTICS: Pauzele și STOP-ul se contorizează nativ, fără round-trip prin WebView
+            CourseAnalytics analytics = courseAnalytics.get(foundKey);
+            if (analytics != null) {
+                analytics.onStatus(newStatus, System.currentTimeMillis());
+            }
+            
+            if (newStatus == 2) { // ACTIVE/RESUME
+                courseRegistry.updateStatus(foundKey, 2);
+                GpsLog.i(TAG, "🟢 RESUME: GPS reactivat pentru {}", specificUIT);
+                
+                // CRITICAL FIX: TRIMITE status RESUME la server
+                sendStatusUpdateToServer(newStatus, foundKey);
+                
+                // CRITICAL FIX: Garantează LocationCallback înregistrat pentru RESUME
+                ensureLocationUpdatesRegistered();
+            } else if (newStatus == 3) { // PAUSE
+                courseRegistry.updateStatus(foundKey, 3);
+                GpsLog.i(TAG, "🔶 PAUSE: UIT {} status → 3 (PAUSE)", specificUIT);
+                
+                // CRITICAL FIX: TRIMITE status PAUSE la server (a lipsit!)
+                sendStatusUpdateToServer(newStatus, foundKey);
+                
+                // CRITICAL FIX: Verifică dacă mai sunt curse ACTIVE pentru a opri GPS
+                int activeCourseCount = courseRegistry.getActiveCount();
+                GpsLog.i(TAG, "📊 PAUSE: {} curse rămân ACTIVE", activeCourseCount);
+                
+                // CRITICAL FIX: Dacă nu mai sunt curse ACTIVE, oprește LocationUpdates
+                if (activeCourseCount == 0) {
+                    GpsLog.i(TAG, "🛑 TOATE cursele în PAUZĂ/STOP - opresc LocationUpdates");
+                    stopLocationUpdates();
+                }
+            } else if (newStatus == 4) { // STOP
+                // CRITICAL FIX: TRIMITE status STOP la server ÎNAINTE de eliminare
+                sendStatusUpdateToServer(newStatus, foundKey);
+                
+                CourseRegistry.Course stopped = courseRegistry.remove(foundKey);
+                if (stopped != null) {
+                    pointSequencer.forget(stopped.realUit);
+                }
+                GpsLog.i(TAG, "✅ STOP: Status trimis + cursă eliminată din GPS tracking pentru {}", specificUIT);
+                
+                // CRITICAL FIX: Verifică dacă mai sunt curse ACTIVE pentru GPS
+                int activeCourseCount = courseRegistry.getActiveCount();
+                
+                if (activeCourseCount == 0) {
+                    GpsLog.i(TAG, "🛑 TOATE cursele STOP - opresc LocationUpdates");
+                    stopLocationUpdates();
+                } else {
+                    GpsLog.i(TAG, "⚡ GPS continuă pentru {} curse ACTIVE rămase", activeCourseCount);
+                }
+            }
+            return CommandResult.ok("BACKGROUND GPS status " + statusName(newStatus) + " for " + specificUIT);
+        }
+        GpsLog.e(TAG, "❌ UIT {} nu găsit în curse active!", specificUIT);
+        return CommandResult.error("cursa " + specificUIT + " nu e în tracking");
+    }
+    
+    private static String statusName(int status) {
+        return (status == 2) ? "ACTIVE" : (status == 3) ? "PAUSE" : (status == 4) ? "STOP" : "UNKNOWN";
+    }
+    
     // ELIMINAT: Handler manual - FusedLocationProviderClient face callback-uri automate
     
     private void startBackgroundGPS() {
-        Log.e(TAG, "startBackgroundGPS called, isGPSRunning: " + isGPSRunning.get());
+        GpsLog.i(TAG, "startBackgroundGPS called, isGPSRunning: {}", isGPSRunning.get());
         
         if (isGPSRunning.get()) {
-            Log.e(TAG, "GPS already running, skipping");
+            GpsLog.i(TAG, "GPS already running, skipping");
             return;
         }
         
-        if (activeCourses.isEmpty()) {
-            Log.e(TAG, "❌ Cannot start GPS - NO ACTIVE COURSES");
+        if (courseRegistry.isEmpty()) {
+            GpsLog.e(TAG, "❌ Cannot start GPS - NO ACTIVE COURSES");
             return;
         }
         
         if (globalToken == null) {
-            Log.e(TAG, "❌ Cannot start GPS - NO TOKEN available");
+            GpsLog.e(TAG, "❌ Cannot start GPS - NO TOKEN available");
             return;
         }
         
@@ -319,10 +671,11 @@ public class BackgroundGPSService extends Service {
             initializeHttpThreadPool(); // Folosește metoda securizată cu coadă limitată
         }
         
-        // WAKE LOCK FIXED: Folosește doar pentru deep sleep protection cu Fusion GPS
-        if (wakeLock != null && !wakeLock.isHeld()) {
-            wakeLock.acquire(60 * 60 * 1000); // 1 oră max pentru safety
-            Log.e(TAG, "✅ WakeLock acquired pentru deep sleep protection cu Fusion GPS");
+        // WAKELOCK DUTY-CYCLE: Implicit wakelock-ul se ia doar în callback-uri și upload-uri; modul continuu
+        // (comportamentul vechi) rămâne pentru comparații - wakelock.held_ms_per_hour arată diferența
+        if (!WAKELOCK_DUTY_CYCLE_ENABLED) {
+            wakeLockDutyCycle.setContinuous(true);
+            GpsLog.i(TAG, "✅ WakeLock continuu pentru deep sleep protection cu Fusion GPS");
         }
         
         
@@ -332,253 +685,567 @@ public class BackgroundGPSService extends Service {
         startFusionGPS();
         startOfflineRetrySystem();
         
-        Log.e(TAG, "✅ FUSION GPS PORNIT - Google gestionează totul automat la " + GPS_INTERVAL_SECONDS + "s");
-        sendLogToJavaScript("✅ FUSION GPS - Google triangulare automată");
+        // OFFLINE DRAIN: Puncte reluate din jurnal după restart - încearcă imediat
+        offlineDrainEngine.trigger();
+        
+        GpsLog.i(TAG, "✅ FUSION GPS PORNIT - Google gestionează totul automat la {}s", GPS_INTERVAL_SECONDS);
+        publishBridgeEvent(BridgeEventChannel.Type.LOG, "✅ FUSION GPS - Google triangulare automată");
     }
     
     private void stopBackgroundGPS() {
-        Log.e(TAG, "🛑 === STOP BACKGROUND GPS CALLED ===");
+        GpsLog.i(TAG, "🛑 === STOP BACKGROUND GPS CALLED ===");
         
         // CRASH FIX: Setăm flag-ul PRIMUL pentru a bloca TOATE callback-urile
         isServiceLoggingOut = true;
         isGPSRunning.set(false);
         
         // CRASH FIX: Null checks pentru logging safe
-        Log.e(TAG, "🛑 Active courses: " + (activeCourses != null ? activeCourses.size() : "null"));
+        GpsLog.i(TAG, "🛑 Active courses: {}", courseRegistry.size());
         
         // OPRIRE: Fusion GPS IMEDIAT pentru a opri callback-urile
         try {
             stopFusionGPS();
         } catch (Exception e) {
-            Log.e(TAG, "🛑 stopFusionGPS error (ignored): " + e.getMessage());
+            GpsLog.w(TAG, "🛑 stopFusionGPS error (ignored): {}", e.getMessage());
         }
         
-        // CRASH FIX: Oprește retryExecutor IMEDIAT pentru a preveni callback-uri
+        // MOTION STATE: Bilanțul turei - cât a stat GNSS-ul pornit față de consumul redus
+        long shiftEnd = System.currentTimeMillis();
+        GpsLog.i(TAG, "🛰️ GNSS-on tură: {}s, consum redus {}s",
+            motionState.getGnssOnMillis(shiftEnd) / 1000, motionState.getLowPowerMillis(shiftEnd) / 1000);
+        
+        // CRASH FIX: Oprește callback-ul de conectivitate IMEDIAT pentru a preveni wake-uri de retry
         try {
-            if (retryExecutor != null && !retryExecutor.isShutdown()) {
-                retryExecutor.shutdownNow();
-                Log.e(TAG, "🛑 Retry Executor force stopped");
-            }
-            retryExecutor = null;
+            stopOfflineRetrySystem();
+        } catch (Exception e) {
+            GpsLog.w(TAG, "🛑 stopOfflineRetrySystem error (ignored): {}", e.getMessage());
+        }
+        
+        // CRASH FIX: Curăță cursele pentru a preveni iterații
+        try {
+            courseRegistry.clear();
+            trajectorySimplifiers.clear();
+            courseAnalytics.clear();
+            bridgeEvents.clear();
+            pendingCaptureTimes.clear();
+            GpsLog.i(TAG, "🛑 Active courses cleared");
         } catch (Exception e) {
-            Log.e(TAG, "🛑 retryExecutor shutdown error (ignored): " + e.getMessage());
+            GpsLog.w(TAG, "🛑 courseRegistry clear error (ignored): {}", e.getMessage());
         }
         
-        // CRASH FIX: Curăță activeCourses pentru a preveni iterații
+        // BATCH UPLOAD: Renunță la punctele neexpediate
         try {
-            if (activeCourses != null) {
-                activeCourses.clear();
-                Log.e(TAG, "🛑 Active courses cleared");
+            if (batchUploader != null) {
+                int dropped = batchUploader.clear().size();
+                GpsLog.i(TAG, "🛑 GPS batch cleared ({} puncte)", dropped);
             }
         } catch (Exception e) {
-            Log.e(TAG, "🛑 activeCourses clear error (ignored): " + e.getMessage());
+            GpsLog.w(TAG, "🛑 batchUploader clear error (ignored): {}", e.getMessage());
         }
         
         // CRASH FIX: Curăță offline queue
         try {
             if (offlineQueue != null) {
                 offlineQueue.clear();
-                Log.e(TAG, "🛑 Offline queue cleared");
+                GpsLog.i(TAG, "🛑 Offline queue cleared");
+            }
+            if (offlineJournal != null) {
+                offlineJournal.clear();
+                GpsLog.i(TAG, "🛑 Offline journal cleared");
             }
         } catch (Exception e) {
-            Log.e(TAG, "🛑 offlineQueue clear error (ignored): " + e.getMessage());
+            GpsLog.w(TAG, "🛑 offlineQueue clear error (ignored): {}", e.getMessage());
         }
         
-        // WakeLock release (fără sendLogToJavaScript - ar fi blocat oricum)
+        // WakeLock release (fără evenimente către WebView - ar fi blocate oricum)
         try {
-            if (wakeLock != null && wakeLock.isHeld()) {
-                wakeLock.release();
-                Log.e(TAG, "🛑 WakeLock released");
+            if (wakeLockDutyCycle != null) {
+                wakeLockDutyCycle.releaseAll();
+                GpsLog.i(TAG, "🛑 WakeLock released");
             }
         } catch (Exception e) {
-            Log.e(TAG, "🛑 wakeLock release error (ignored): " + e.getMessage());
+            GpsLog.w(TAG, "🛑 wakeLock release error (ignored): {}", e.getMessage());
         }
         
         // Stop HTTP Thread Pool IMEDIAT
         try {
             if (httpThreadPool != null && !httpThreadPool.isShutdown()) {
-                httpThreadPool.shutdownNow(); // Force stop, nu mai așteptăm
-                Log.e(TAG, "🛑 HTTP Thread Pool force stopped");
+                cancelDroppedTasks(httpThreadPool.shutdownNow()); // Force stop, nu mai așteptăm
+                GpsLog.i(TAG, "🛑 HTTP Thread Pool force stopped");
             }
             httpThreadPool = null;
+            courseLanes = null;
         } catch (Exception e) {
-            Log.e(TAG, "🛑 httpThreadPool shutdown error (ignored): " + e.getMessage());
+            GpsLog.w(TAG, "🛑 httpThreadPool shutdown error (ignored): {}", e.getMessage());
         }
         
-        Log.e(TAG, "🛑 FUSION GPS Service oprit complet - toate callback-urile blocate");
+        GpsLog.i(TAG, "🛑 FUSION GPS Service oprit complet - toate callback-urile blocate");
     }
     
     
     private void startFusionGPS() {
-        Log.e(TAG, "🚀 PORNIRE FUSION GPS cu triangulare inteligentă");
+        GpsLog.i(TAG, "🚀 PORNIRE FUSION GPS cu triangulare inteligentă");
         
         // Verifică permisiuni
         if (ActivityCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
-            Log.e(TAG, "❌ Permisiuni GPS lipsă pentru Fusion GPS");
+            GpsLog.e(TAG, "❌ Permisiuni GPS lipsă pentru Fusion GPS");
             return;
         }
         
-        // FUSION GPS: Configurație PREMIUM pentru tracking REAL vehicule
-        locationRequest = LocationRequest.create()
-            .setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY) // GPS satellite priority
-            .setInterval(GPS_INTERVAL_SECONDS * 1000) // 10 secunde
-            .setFastestInterval(3000) // Minim 3 secunde pentru răspuns rapid
-            .setSmallestDisplacement(0f) // Orice mișcare (pentru vehicule oprite)
-            .setMaxWaitTime(GPS_INTERVAL_SECONDS * 1000); // Wait time pentru batch GPS
+        // FUSION GPS: Configurație PREMIUM pentru tracking REAL vehicule - pornește pe treapta NORMAL (10s)
+        locationRequest = buildLocationRequest(AdaptiveSamplingPolicy.Tier.NORMAL, false);
+        resetSamplingPolicy();
             
-        // ENTERPRISE: Request GPS satellite explicit
-        Log.e(TAG, "🛰️ GPS REQUEST: Satellite priority, 10s interval, 3s fastest, no displacement filter");
+        // Request-ul inițial efectiv - schimbările ulterioare de treaptă le loghează applyLocationRequest()
+        GpsLog.i(TAG, "🛰️ GPS REQUEST: high accuracy, interval {}ms, fastest {}ms", locationRequest.getInterval(), locationRequest.getFastestInterval());
             
         // FUSION GPS: Callback inteligent cu auto-retry
         locationCallback = new LocationCallback() {
             @Override
             public void onLocationResult(LocationResult locationResult) {
-                // CRASH FIX: Nu procesa dacă logout e în progres
-                if (isServiceLoggingOut) {
-                    Log.d(TAG, "📵 onLocationResult SKIPPED - logout in progress");
-                    return;
-                }
-                if (locationResult == null) return;
-                
-                for (Location location : locationResult.getLocations()) {
-                    if (location != null) {
-                        // CRITICAL DEBUG: Verifică calitatea GPS-ului
-                        float accuracy = location.getAccuracy();
-                        String provider = location.getProvider();
-                        long age = System.currentTimeMillis() - location.getTime();
-                        boolean hasSpeed = location.hasSpeed();
-                        boolean hasBearing = location.hasBearing();
-                        
-                        Log.e(TAG, "🎯 GPS DEBUG: lat=" + location.getLatitude() + ", lng=" + location.getLongitude());
-                        Log.e(TAG, "📍 GPS CALITATE: precizie=" + (int)accuracy + "m, provider=" + provider + ", age=" + age + "ms");
-                        Log.e(TAG, "🚗 GPS SENZORI: viteza=" + hasSpeed + ", directie=" + hasBearing);
-                        
-                        // QUALITY CHECK: Respinge GPS cu precizie slabă
-                        if (accuracy > 100.0f) {
-                            Log.w(TAG, "⚠️ GPS PRECIZIE SLABĂ: " + (int)accuracy + "m - posibil WiFi/cellular în loc de satellite");
-                        }
-                        
-                        if (age > 30000) { // Mai vechi de 30s
-                            Log.w(TAG, "⚠️ GPS VECHI: " + age + "ms - posibil coordonate cached");
-                        }
-                        
-                        if (!"gps".equals(provider)) {
-                            Log.w(TAG, "⚠️ GPS NU E SATELLITE: provider=" + provider + " (nu 'gps')");
-                        }
-                        
-                        // Verifică curse active
-                        int activeCourseCount = 0;
-                        for (CourseData course : activeCourses.values()) {
-                            if (course.status == 2) activeCourseCount++;
-                        }
-                        
-                        if (activeCourseCount > 0) {
-                            Log.e(TAG, "📡 FUSION GPS transmite pentru " + activeCourseCount + " curse ACTIVE");
-                            transmitGPSDataToAllActiveCourses(location);
-                        } else {
-                            Log.e(TAG, "⏸️ FUSION GPS: Nu sunt curse ACTIVE - skip transmisie");
-                        }
-                    }
+                long callbackStart = System.nanoTime();
+                // WAKELOCK DUTY-CYCLE: CPU-ul rămâne treaz cât se procesează batch-ul; upload-urile își iau propriul deținător
+                wakeLockDutyCycle.acquire();
+                try {
+                    processLocationResult(locationResult);
+                } finally {
+                    recordLocationCallbackTiming(System.nanoTime() - callbackStart);
+                    wakeLockDutyCycle.release();
                 }
             }
         };
         
+        // LAST LOCATION CACHE: pornește cu ultima locație Fusion (asincron, fără blocare)
+        primeLastLocationCache();
+        
         // PORNIRE: Fusion GPS cu update-uri automate continue
-        fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, android.os.Looper.getMainLooper());
+        fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, getLocationLooper());
         locationUpdatesActive.set(true); // CRITICAL FIX: Marchează că LocationCallback este înregistrat
+        startMotionTracking();
         
-        Log.e(TAG, "✅ FUSION GPS PORNIT - triangulare automată GPS+WiFi+Cellular la " + GPS_INTERVAL_SECONDS + "s");
-        sendLogToJavaScript("✅ FUSION GPS activ - triangulare inteligentă la " + GPS_INTERVAL_SECONDS + "s");
+        GpsLog.i(TAG, "✅ FUSION GPS PORNIT - triangulare automată GPS+WiFi+Cellular la {}s", GPS_INTERVAL_SECONDS);
+        publishBridgeEvent(BridgeEventChannel.Type.LOG, "✅ FUSION GPS activ - triangulare inteligentă la " + GPS_INTERVAL_SECONDS + "s");
     }
     
-    private void stopFusionGPS() {
-        if (fusedLocationClient != null && locationCallback != null) {
-            fusedLocationClient.removeLocationUpdates(locationCallback);
-            locationUpdatesActive.set(false); // CRITICAL FIX: Marchează că LocationCallback nu mai e înregistrat
-            Log.e(TAG, "🛑 FUSION GPS oprit - LocationUpdates deactivated");
+    // FUSION GPS: Procesarea unui LocationResult - rulează pe locationThread
+    private void processLocationResult(LocationResult locationResult) {
+        // CRASH FIX: Nu procesa dacă logout e în progres
+        if (isServiceLoggingOut) {
+            GpsLog.d(TAG, "📵 processLocationResult SKIPPED - logout in progress");
+            return;
         }
-    }
-    
-    // CRITICAL FIX: Oprește LocationUpdates fără a opri complet serviciul
-    private void stopLocationUpdates() {
-        if (fusedLocationClient != null && locationCallback != null && locationUpdatesActive.get()) {
-            fusedLocationClient.removeLocationUpdates(locationCallback);
-            locationUpdatesActive.set(false);
-            Log.e(TAG, "🛑 LOCATION UPDATES OPRITE - nu mai sunt curse ACTIVE");
+        if (locationResult == null) return;
+        
+        for (Location location : locationResult.getLocations()) {
+            if (location != null) {
+                fixesReceived.increment();
+                
+                // CRITICAL DEBUG: Verifică calitatea GPS-ului
+                float accuracy = location.getAccuracy();
+                String provider = location.getProvider();
+                long age = System.currentTimeMillis() - location.getTime();
+                boolean hasSpeed = location.hasSpeed();
+                boolean hasBearing = location.hasBearing();
+                
+                // LOGGING: Detaliile per fix doar în debug - în release nu se construiește niciun mesaj
+                GpsLog.d(TAG, "🎯 GPS DEBUG: lat={}, lng={}", location.getLatitude(), location.getLongitude());
+                GpsLog.d(TAG, "📍 GPS CALITATE: precizie={}m, age={}ms", (long) accuracy, age);
+                GpsLog.d(TAG, "🚗 GPS SENZORI: provider={}, viteza={}", provider, hasSpeed);
+                GpsLog.d(TAG, "🚗 GPS SENZORI: directie={}", hasBearing);
+                
+                // QUALITY CHECK: Fix-urile vechi, duplicate, imprecise sau cu salturi imposibile nu ajung la server
+                GpsFix fix = locationFilter.accept(toGpsFix(location), System.currentTimeMillis());
+                if (fix == null) {
+                    GpsLog.i(TAG, "⚠️ GPS RESPINS: {} - precizie={}m", locationFilter.getLastRejection(), (int) accuracy);
+                    continue;
+                }
+                
+                // LAST LOCATION CACHE: status updates citesc de aici fără Tasks.await
+                lastFix = fix;
+                
+                // ADAPTIVE SAMPLING + MOTION STATE: LocationRequest re-emis doar când se schimbă treapta sau modul
+                if (motionState.onFix(fix)) {
+                    applyLocationRequest();
+                }
+                
+                // Verifică curse active - numărător menținut de registru, fără iterare per fix
+                int activeCourseCount = courseRegistry.getActiveCount();
+                
+                if (activeCourseCount > 0) {
+                    GpsLog.d(TAG, "📡 FUSION GPS transmite pentru {} curse ACTIVE", activeCourseCount);
+                    transmitGPSDataToAllActiveCourses(fix);
+                } else {
+                    GpsLog.d(TAG, "⏸️ FUSION GPS: Nu sunt curse ACTIVE - skip transmisie");
+                }
+            }
         }
     }
     
-    // CRITICAL FIX: Garantează că LocationUpdates sunt înregistrate când există curse ACTIVE
-    private void ensureLocationUpdatesRegistered() {
-        // Verifică curse active
-        int activeCount = 0;
-        for (CourseData course : activeCourses.values()) {
-            if (course.status == 2) {
-                activeCount++;
+    private TrajectorySimplifier trajectoryFor(String uniqueKey) {
+        TrajectorySimplifier simplifier = trajectorySimplifiers.get(uniqueKey);
+        if (simplifier == null) {
+            simplifier = new TrajectorySimplifier(TRAJECTORY_TOLERANCE_METERS, TRAJECTORY_MAX_GAP_MS, TRAJECTORY_MAX_WINDOW);
+            TrajectorySimplifier existing = trajectorySimplifiers.putIfAbsent(uniqueKey, simplifier);
+            if (existing != null) {
+                simplifier = existing;
             }
         }
-        
-        if (activeCount == 0) {
+        return simplifier;
+    }
+    
+    // TRAJECTORY: 2→3 și →4 trimit punctul reținut (încă status 2); 3→2 reia traseul de la primul fix nou
+    private void settleTrajectory(int newStatus, String uniqueKey, CourseRegistry.Course courseData, GpsPayloadEncoder encoder) {
+        TrajectorySimplifier simplifier = trajectorySimplifiers.get(uniqueKey);
+        if (simplifier == null) {
             return;
         }
-        
-        // Pornește GPS service complet dacă nu rulează
-        if (!isGPSRunning.get()) {
-            Log.e(TAG, "📍 ENSURE LOCATION: GPS service oprit - pornesc complet");
-            startBackgroundGPS();
+        if (newStatus == 2) {
+            simplifier.reset();
             return;
         }
-        
-        // GPS service rulează dar LocationUpdates nu sunt active - re-înregistrează
-        Log.e(TAG, "📍 ENSURE LOCATION: GPS service activ dar LocationUpdates oprite - RE-ÎNREGISTREZ");
-        
-        // Verifică permisiuni
-        if (ActivityCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
-            Log.e(TAG, "❌ ENSURE LOCATION: Permisiuni GPS lipsă");
-            return;
+        GpsFix pendingFix = simplifier.flush();
+        if (pendingFix != null) {
+            String gpsPayload = encoder.encode(courseData.realUit, courseData.vehicleNumber, pendingFix,
+                deviceTelemetry.snapshot(), 2, pendingFix.timeMillis, pointSequencer.next(courseData.realUit));
+            queueGPSForBatchUpload(gpsPayload, courseData.realUit, pendingFix.timeMillis);
         }
-        
-        // Re-înregistrează LocationCallback
-        if (fusedLocationClient != null && locationRequest != null && locationCallback != null) {
-            try {
-                fusedLocationClient.removeLocationUpdates(locationCallback);
-            } catch (Exception e) {
-                // Ignoră eroarea dacă nu erau active
-            }
-            
-            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, android.os.Looper.getMainLooper());
-            locationUpdatesActive.set(true);
-            Log.i(TAG, "✅ GPS LocationUpdates reactivate");
-        } else {
-            startBackgroundGPS();
+        if (newStatus == 4) {
+            trajectorySimplifiers.remove(uniqueKey);
         }
+        GpsLog.d(TAG, "📐 TRAJECTORY: {}/{} puncte trimise", simplifier.getKeptCount(), simplifier.getOfferedCount());
     }
     
-    private void transmitGPSDataToAllActiveCourses(Location location) {
-        // CRASH FIX: Nu procesa dacă logout e în progres
-        if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 transmitGPSDataToAllActiveCourses SKIPPED - logout in progress");
-            return;
+    // COURSE ANALYTICS: START pe o cursă oprită (sau nouă) pornește statistici noi; pe o cursă în pauză o reia
+    private void startCourseAnalytics(String uniqueKey, String ikRoTrans, String realUit, String vehicle, int courseStatus) {
+        long now = System.currentTimeMillis();
+        CourseAnalytics analytics = courseAnalytics.get(uniqueKey);
+        if (analytics == null || analytics.getStatus() == CourseRegistry.STATUS_STOPPED) {
+            evictStoppedCourseAnalytics();
+            analytics = new CourseAnalytics(realUit, ikRoTrans, vehicle, now);
+            courseAnalytics.put(uniqueKey, analytics);
+        } else if (courseStatus == CourseRegistry.STATUS_ACTIVE) {
+            analytics.onStatus(courseStatus, now);
+        }
+    }
+    
+    // Memorie limitată: peste MAX_ANALYTICS_COURSES se renunță la cursa oprită cel mai demult
+    private static void evictStoppedCourseAnalytics() {
+        while (courseAnalytics.size() >= MAX_ANALYTICS_COURSES) {
+            String oldestKey = null;
+            long oldestUpdate = Long.MAX_VALUE;
+            for (java.util.Map.Entry<String, CourseAnalytics> entry : courseAnalytics.entrySet()) {
+                CourseAnalytics analytics = entry.getValue();
+                if (analytics.getStatus() == CourseRegistry.STATUS_STOPPED && analytics.getLastUpdateMillis() < oldestUpdate) {
+                    oldestKey = entry.getKey();
+                    oldestUpdate = analytics.getLastUpdateMillis();
+                }
+            }
+            if (oldestKey == null) {
+                return;
+            }
+            courseAnalytics.remove(oldestKey);
+        }
+    }
+    
+    // Instantaneu JSON pentru JS: cheie unică, ikRoTrans sau UIT real (la duplicate - cursa cea mai recentă)
+    static String getCourseAnalyticsJson(String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+        CourseAnalytics found = courseAnalytics.get(identifier);
+        long foundUpdate = -1;
+        if (found == null) {
+            for (CourseAnalytics analytics : courseAnalytics.values()) {
+                if (identifier.equals(analytics.ikRoTrans) || identifier.equals(analytics.realUit)) {
+                    long lastUpdate = analytics.getLastUpdateMillis();
+                    if (lastUpdate > foundUpdate) {
+                        found = analytics;
+                        foundUpdate = lastUpdate;
+                    }
+                }
+            }
+        }
+        if (found == null) {
+            return null;
+        }
+        try {
+            return found.snapshot(System.currentTimeMillis(), true).toJson().toString();
+        } catch (org.json.JSONException e) {
+            GpsLog.e(TAG, "❌ Course analytics snapshot error: {}", e.getMessage());
+            return null;
+        }
+    }
+    
+    // Toate cursele, fără traseu - pentru istoric
+    static String getAllCourseAnalyticsJson() {
+        org.json.JSONArray all = new org.json.JSONArray();
+        long now = System.currentTimeMillis();
+        for (CourseAnalytics analytics : courseAnalytics.values()) {
+            try {
+                all.put(analytics.snapshot(now, false).toJson());
+            } catch (org.json.JSONException e) {
+                GpsLog.e(TAG, "❌ Course analytics snapshot error: {}", e.getMessage());
+            }
+        }
+        return all.toString();
+    }
+    
+    // ADAPTIVE SAMPLING: Interval scurt la autostradă/viraje, lung la staționare - fără filtru de deplasare
+    // MOTION STATE: Staționar confirmat de senzori - fără GNSS dedicat, un fix WiFi/celular la câteva minute
+    private LocationRequest buildLocationRequest(AdaptiveSamplingPolicy.Tier tier, boolean lowPower) {
+        if (lowPower) {
+            return LocationRequest.create()
+                .setPriority(LocationRequest.PRIORITY_BALANCED_POWER_ACCURACY)
+                .setInterval(MotionStateMachine.HEARTBEAT_INTERVAL_MS)
+                .setFastestInterval(MotionStateMachine.HEARTBEAT_FASTEST_INTERVAL_MS) // Fix-urile altor aplicații, gratis
+                .setSmallestDisplacement(0f)
+                .setMaxWaitTime(MotionStateMachine.HEARTBEAT_INTERVAL_MS);
+        }
+        return LocationRequest.create()
+            .setPriority(LocationRequest.PRIORITY_HIGH_ACCURACY) // GPS satellite priority
+            .setInterval(tier.intervalMs)
+            .setFastestInterval(tier.fastestIntervalMs)
+            .setSmallestDisplacement(0f) // Orice mișcare - staționarea e detectată de politică, nu de Fusion
+            .setMaxWaitTime(tier.maxWaitMs()); // Livrare grupată - CPU-ul doarme între batch-uri
+    }
+    
+    // Rulează pe locationThread - același callback, request nou (înlocuiește request-ul anterior)
+    private void applyLocationRequest() {
+        if (isServiceLoggingOut || fusedLocationClient == null || locationCallback == null || !locationUpdatesActive.get()) {
+            return;
+        }
+        try {
+            AdaptiveSamplingPolicy.Tier tier = motionState.getTier();
+            boolean lowPower = motionState.isLowPower();
+            locationRequest = buildLocationRequest(tier, lowPower);
+            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, getLocationLooper());
+            long gnssOnMs = motionState.getGnssOnMillis(System.currentTimeMillis());
+            if (lowPower) {
+                GpsLog.i(TAG, "🅿️ MOTION STATE: staționar - request balanced, heartbeat {}s", MotionStateMachine.HEARTBEAT_INTERVAL_MS / 1000);
+            } else {
+                GpsLog.i(TAG, "🎚️ ADAPTIVE SAMPLING: treapta {} - interval {}s", tier, (tier.intervalMs / 1000));
+                publishBridgeEvent(BridgeEventChannel.Type.DIAGNOSTICS, "sampling", "ANDROID_SAMPLING_TIER:" + tier + "/" + tier.intervalMs);
+            }
+            publishBridgeEvent(BridgeEventChannel.Type.DIAGNOSTICS, "motion", "ANDROID_MOTION_STATE:" + motionState.getState() + "/" + gnssOnMs);
+        } catch (SecurityException e) {
+            GpsLog.e(TAG, "❌ ADAPTIVE SAMPLING: permisiune GPS lipsă - {}", e.getMessage());
+        }
+    }
+    
+    // Cursă nouă / reluată - înapoi la 10s; politica se atinge doar de pe thread-ul GPS
+    private void resetSamplingPolicy() {
+        new android.os.Handler(getLocationLooper()).post(new Runnable() {
+            @Override
+            public void run() {
+                if (motionState.reset(System.currentTimeMillis())) {
+                    applyLocationRequest();
+                }
+            }
+        });
+    }
+    
+    // MOTION STATE: Accelerometru cu livrare grupată (nu trezește CPU-ul) confirmă staționarea; significant motion
+    // (senzor wake-up, one-shot, re-armat după fiecare declanșare) anunță pornirea fără să aștepte heartbeat-ul
+    private void startMotionTracking() {
+        motionState.startTracking(System.currentTimeMillis());
+        if (accelerometerListener != null || significantMotionListener != null) {
+            return;
+        }
+        final android.hardware.SensorManager sensorManager =
+            (android.hardware.SensorManager) getSystemService(Context.SENSOR_SERVICE);
+        if (sensorManager == null) {
+            GpsLog.w(TAG, "⚠️ MOTION STATE: SensorManager indisponibil - doar politica pe fix-uri");
+            return;
         }
-        
         try {
-            Log.i(TAG, "Pregătesc transmisia GPS pentru " + activeCourses.size() + " curse");
+            android.hardware.Sensor accelerometer = sensorManager.getDefaultSensor(android.hardware.Sensor.TYPE_ACCELEROMETER);
+            if (accelerometer != null) {
+                accelerometerListener = new android.hardware.SensorEventListener() {
+                    @Override
+                    public void onSensorChanged(android.hardware.SensorEvent event) {
+                        long timeMillis = sensorTimeToWallMillis(event.timestamp);
+                        if (motionState.onAccelerometer(timeMillis, event.values[0], event.values[1], event.values[2])) {
+                            GpsLog.i(TAG, "🚚 MOTION STATE: mișcare detectată de accelerometru - revin la GNSS");
+                            applyLocationRequest();
+                        }
+                    }
+                    
+                    @Override
+                    public void onAccuracyChanged(android.hardware.Sensor sensor, int accuracy) {
+                    }
+                };
+                // Aceeași buclă ca fix-urile - mașina de stări vede evenimentele în ordine, pe un singur thread
+                sensorManager.registerListener(accelerometerListener, accelerometer,
+                    android.hardware.SensorManager.SENSOR_DELAY_NORMAL,
+                    (int) TimeUnit.MILLISECONDS.toMicros(ACCELEROMETER_MAX_LATENCY_MS),
+                    new android.os.Handler(getLocationLooper()));
+            }
             
-            // Timestamp România
-            java.util.TimeZone romaniaTimeZone = java.util.TimeZone.getTimeZone("Europe/Bucharest");
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            sdf.setTimeZone(romaniaTimeZone);
-            String timestamp = sdf.format(new java.util.Date());
+            significantMotionSensor = sensorManager.getDefaultSensor(android.hardware.Sensor.TYPE_SIGNIFICANT_MOTION);
+            if (significantMotionSensor != null) {
+                significantMotionListener = new android.hardware.TriggerEventListener() {
+                    @Override
+                    public void onTrigger(android.hardware.TriggerEvent event) {
+                        final android.hardware.TriggerEventListener self = this;
+                        final long timeMillis = sensorTimeToWallMillis(event.timestamp);
+                        // Wake-up: CPU-ul rămâne treaz până comută request-ul pe thread-ul GPS
+                        wakeLockDutyCycle.acquire();
+                        new android.os.Handler(getLocationLooper()).post(new Runnable() {
+                            @Override
+                            public void run() {
+                                try {
+                                    if (motionState.onSignificantMotion(timeMillis)) {
+                                        GpsLog.i(TAG, "🚚 MOTION STATE: significant motion - revin la GNSS");
+                                        applyLocationRequest();
+                                    }
+                                    android.hardware.Sensor sensor = significantMotionSensor;
+                                    if (significantMotionListener == self && sensor != null) {
+                                        sensorManager.requestTriggerSensor(self, sensor);
+                                    }
+                                } finally {
+                                    wakeLockDutyCycle.release();
+                                }
+                            }
+                        });
+                    }
+                };
+                sensorManager.requestTriggerSensor(significantMotionListener, significantMotionSensor);
+            }
+            GpsLog.i(TAG, "✅ MOTION STATE: accelerometru={}, significant motion={}", accelerometer != null, significantMotionSensor != null);
+        } catch (Exception e) {
+            GpsLog.w(TAG, "⚠️ MOTION STATE: senzori indisponibili - {}", e.getMessage());
+        }
+    }
+    
+    private void stopMotionTracking() {
+        motionState.stopTracking(System.currentTimeMillis());
+        android.hardware.SensorManager sensorManager =
+            (android.hardware.SensorManager) getSystemService(Context.SENSOR_SERVICE);
+        if (sensorManager == null) {
+            return;
+        }
+        try {
+            if (accelerometerListener != null) {
+                sensorManager.unregisterListener(accelerometerListener);
+            }
+            if (significantMotionListener != null && significantMotionSensor != null) {
+                sensorManager.cancelTriggerSensor(significantMotionListener, significantMotionSensor);
+            }
+        } catch (Exception e) {
+            GpsLog.w(TAG, "⚠️ MOTION STATE: unregister senzori: {}", e.getMessage());
+        }
+        accelerometerListener = null;
+        significantMotionListener = null;
+        significantMotionSensor = null;
+    }
+    
+    // Timestamp-ul senzorului e pe ceasul elapsedRealtime - fix-urile sunt pe ceasul de perete
+    private static long sensorTimeToWallMillis(long eventNanos) {
+        long ageNanos = android.os.SystemClock.elapsedRealtimeNanos() - eventNanos;
+        return System.currentTimeMillis() - TimeUnit.NANOSECONDS.toMillis(Math.max(0, ageNanos));
+    }
+    
+    // METRIC: Timp per callback - pe main thread trebuie să rămână 0 (WebView-ul nu e blocat de GPS)
+    private void recordLocationCallbackTiming(long elapsedNanos) {
+        boolean onMainThread = android.os.Looper.myLooper() == android.os.Looper.getMainLooper();
+        long callbacks = locationCallbackTiming.record(elapsedNanos, onMainThread);
+        if (callbacks % LOCATION_TIMING_REPORT_EVERY == 0) {
+            publishBridgeEvent(BridgeEventChannel.Type.DIAGNOSTICS, "timing", "ANDROID_LOCATION_TIMING:" + locationCallbackTiming.snapshot().toBridgeString());
+            publishBridgeEvent(BridgeEventChannel.Type.DIAGNOSTICS, "filter", "ANDROID_LOCATION_FILTER:" + locationFilter.toBridgeString());
+        }
+    }
+    
+    // Looper-ul thread-ului de procesare GPS - main looper doar dacă thread-ul nu (mai) rulează
+    private android.os.Looper getLocationLooper() {
+        android.os.HandlerThread thread = locationThread;
+        if (thread != null && thread.isAlive() && thread.getLooper() != null) {
+            return thread.getLooper();
+        }
+        GpsLog.w(TAG, "⚠️ Location thread indisponibil - callback-uri pe main looper");
+        return android.os.Looper.getMainLooper();
+    }
+    
+    private void stopFusionGPS() {
+        if (fusedLocationClient != null && locationCallback != null) {
+            fusedLocationClient.removeLocationUpdates(locationCallback);
+            locationUpdatesActive.set(false); // CRITICAL FIX: Marchează că LocationCallback nu mai e înregistrat
+            stopMotionTracking();
+            GpsLog.i(TAG, "🛑 FUSION GPS oprit - LocationUpdates deactivated");
+        }
+    }
+    
+    // CRITICAL FIX: Oprește LocationUpdates fără a opri complet serviciul
+    private void stopLocationUpdates() {
+        if (fusedLocationClient != null && locationCallback != null && locationUpdatesActive.get()) {
+            fusedLocationClient.removeLocationUpdates(locationCallback);
+            locationUpdatesActive.set(false);
+            stopMotionTracking();
+            GpsLog.i(TAG, "🛑 LOCATION UPDATES OPRITE - nu mai sunt curse ACTIVE");
+        }
+    }
+    
+    // CRITICAL FIX: Garantează că LocationUpdates sunt înregistrate când există curse ACTIVE
+    private void ensureLocationUpdatesRegistered() {
+        // Verifică curse active
+        if (courseRegistry.getActiveCount() == 0) {
+            return;
+        }
+        
+        // Pornește GPS service complet dacă nu rulează
+        if (!isGPSRunning.get()) {
+            GpsLog.i(TAG, "📍 ENSURE LOCATION: GPS service oprit - pornesc complet");
+            startBackgroundGPS();
+            return;
+        }
+        
+        // GPS service rulează dar LocationUpdates nu sunt active - re-înregistrează
+        GpsLog.i(TAG, "📍 ENSURE LOCATION: GPS service activ dar LocationUpdates oprite - RE-ÎNREGISTREZ");
+        
+        // Verifică permisiuni
+        if (ActivityCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+            GpsLog.e(TAG, "❌ ENSURE LOCATION: Permisiuni GPS lipsă");
+            return;
+        }
+        
+        // Re-înregistrează LocationCallback
+        if (fusedLocationClient != null && locationRequest != null && locationCallback != null) {
+            // Cursa pornește/reia din mers - nu rămâne pe treapta de staționare
+            resetSamplingPolicy();
+
+            try {
+                fusedLocationClient.removeLocationUpdates(locationCallback);
+            } catch (Exception e) {
+                // Ignoră eroarea dacă nu erau active
+            }
             
-            // Senzori
-            int networkSignal = getNetworkSignal();
-            String batteryLevel = getBatteryLevel();
+            fusedLocationClient.requestLocationUpdates(locationRequest, locationCallback, getLocationLooper());
+            locationUpdatesActive.set(true);
+            startMotionTracking();
+            GpsLog.i(TAG, "✅ GPS LocationUpdates reactivate");
+        } else {
+            startBackgroundGPS();
+        }
+    }
+    
+    private void transmitGPSDataToAllActiveCourses(GpsFix fix) {
+        // CRASH FIX: Nu procesa dacă logout e în progres
+        if (isServiceLoggingOut) {
+            GpsLog.d(TAG, "📵 transmitGPSDataToAllActiveCourses SKIPPED - logout in progress");
+            return;
+        }
+        
+        try {
+            // Instantaneu imutabil - statusul citit aici nu se mai schimbă sub iterație
+            java.util.List<CourseRegistry.Course> courses = courseRegistry.snapshot();
+            GpsLog.d(TAG, "Pregătesc transmisia GPS pentru {} curse", courses.size());
+            
+            // Senzori - instantaneul cache-uit, fără registerReceiver/ConnectivityManager per fix
+            DeviceTelemetry.Snapshot telemetry = deviceTelemetry.snapshot();
             
             int coursesTransmitting = 0;
             
-            for (java.util.Map.Entry<String, CourseData> entry : activeCourses.entrySet()) {
-                String uniqueKey = entry.getKey();
-                CourseData courseData = entry.getValue();
+            for (CourseRegistry.Course courseData : courses) {
+                String uniqueKey = courseData.key;
                 
                 
                 // SIMPLE & CLEAR: DOAR status 2 (ACTIVE) transmite GPS la server
@@ -588,36 +1255,34 @@ public class BackgroundGPSService extends Service {
                 }
                 
                 // DOAR Status 2 (ACTIVE) ajunge aici
-                Log.e(TAG, "✅ TRANSMIT: UIT " + courseData.realUit + " status 2 ACTIVE - TRIMIT LA SERVER");
+                GpsLog.d(TAG, "✅ TRANSMIT: UIT {} status 2 ACTIVE - TRIMIT LA SERVER", courseData.realUit);
                 
                 coursesTransmitting++;
                 
-                // Pregătește datele GPS pentru această cursă
-                org.json.JSONObject gpsData = new org.json.JSONObject();
-                gpsData.put("uit", courseData.realUit); // UIT real pentru server
-                gpsData.put("numar_inmatriculare", courseData.vehicleNumber); // Numărul vehiculului
-                gpsData.put("lat", location.getLatitude());
-                gpsData.put("lng", location.getLongitude());
-                gpsData.put("viteza", (int) (location.getSpeed() * 3.6));
-                gpsData.put("directie", (int) location.getBearing());
-                gpsData.put("altitudine", (int) location.getAltitude());
-                gpsData.put("hdop", (int) location.getAccuracy());
-                gpsData.put("gsm_signal", networkSignal);
-                gpsData.put("baterie", batteryLevel);
-                gpsData.put("status", courseData.status);
-                gpsData.put("timestamp", timestamp);
-                
-                // CRITICAL: Transmite folosind unique key pentru identificare locală, dar UIT real pentru server
-                transmitSingleCourseGPS(gpsData, uniqueKey, courseData.realUit);
+                // TRAJECTORY: Doar punctele care schimbă forma traseului pleacă la server - de obicei fix-ul anterior,
+                // trimis cu propriul timestamp (momentul capturii, nu al transmisiei)
+                GpsFix keptFix = trajectoryFor(uniqueKey).offer(fix);
+                if (keptFix != null) {
+                    // Pregătește datele GPS pentru această cursă - UIT real pentru server, fără JSONObject intermediar
+                    String gpsPayload = gpsPayloadEncoder.encode(courseData.realUit, courseData.vehicleNumber, keptFix,
+                        telemetry, courseData.status, keptFix.timeMillis, pointSequencer.next(courseData.realUit));
+                    
+                    // BATCH UPLOAD: Punctul intră în batch-ul comun - flush la dimensiune/vârstă/status
+                    queueGPSForBatchUpload(gpsPayload, courseData.realUit, keptFix.timeMillis);
+                }
                 
-                // CRITICAL GPS→MAP CONNECTION: Salvează coordonatele și în courseAnalyticsService pentru hartă
-                // FIXED: Trimite TOATE identificatorii pentru matching în JS
-                sendGPSToAnalyticsService(gpsData, courseData.realUit, uniqueKey, courseData.courseId);
+                // COURSE ANALYTICS: Statisticile și traseul pentru hartă primesc fiecare fix, nativ, O(1) -
+                // simplificarea privește doar upload-ul; JS citește instantaneul la cerere (getCourseAnalytics)
+                CourseAnalytics analytics = courseAnalytics.get(uniqueKey);
+                if (analytics != null) {
+                    analytics.onFix(fix);
+                    publishBridgeEvent(BridgeEventChannel.Type.ANALYTICS, uniqueKey, "ANDROID_COURSE_ANALYTICS:" + courseData.realUit);
+                }
             }
             
             if (coursesTransmitting > 0) {
-                Log.i(TAG, "GPS transmis pentru " + coursesTransmitting + " curse din " + activeCourses.size() + " total");
-                sendLogToJavaScript("GPS transmis - " + coursesTransmitting + " curse");
+                GpsLog.i(TAG, "GPS transmis pentru {} curse din {} total", coursesTransmitting, courses.size());
+                publishBridgeEvent(BridgeEventChannel.Type.DIAGNOSTICS, "transmit", "GPS transmis - " + coursesTransmitting + " curse");
             }
             
         } catch (Exception e) {
@@ -625,397 +1290,689 @@ public class BackgroundGPSService extends Service {
         }
     }
     
-    private void transmitSingleCourseGPS(org.json.JSONObject gpsData, String uniqueKey, String realUit) {
+    private void queueGPSForBatchUpload(String gpsPayload, String realUit, long capturedAtMillis) {
         // CRASH FIX: Nu executa dacă logout e în progres
         if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 transmitSingleCourseGPS SKIPPED - logout in progress");
+            GpsLog.d(TAG, "📵 queueGPSForBatchUpload SKIPPED - logout in progress");
             return;
         }
         
         try {
-            String gpsDataJson = gpsData.toString();
-            
-            httpThreadPool.execute(new Runnable() {
-                @Override
-                public void run() {
-                    // CRASH FIX: Verifică și în thread
-                    if (isServiceLoggingOut) {
-                        Log.d(TAG, "📵 GPS HTTP thread SKIPPED - logout in progress");
-                        return;
-                    }
-                    try {
-                        java.net.URL url = new java.net.URL("https://www.euscagency.com/etsm_prod/platforme/transport/apk/gps.php");
-                        javax.net.ssl.HttpsURLConnection conn = (javax.net.ssl.HttpsURLConnection) url.openConnection();
-                        conn.setRequestMethod("POST");
-                        conn.setRequestProperty("Content-Type", "application/json");
-                        conn.setRequestProperty("Authorization", "Bearer " + globalToken);
-                        conn.setRequestProperty("Accept", "application/json");
-                        conn.setRequestProperty("User-Agent", "iTrack-BackgroundGPS/1.0");
-                        conn.setDoOutput(true);
-                        conn.setConnectTimeout(15000);
-                        conn.setReadTimeout(15000);
-                        
-                        // Trimite datele JSON
-                        try (java.io.OutputStream os = conn.getOutputStream()) {
-                            byte[] input = gpsDataJson.getBytes("utf-8");
-                            os.write(input, 0, input.length);
-                        }
-                        
-                        int responseCode = conn.getResponseCode();
-                        
-                        if (responseCode >= 200 && responseCode < 300) {
-                                        
-                            // CRITICAL: Actualizează analytics cu coordonatele GPS pentru harta
-                            try {
-                                // Extract GPS data for analytics
-                                double lat = gpsData.getDouble("lat");
-                                double lng = gpsData.getDouble("lng");
-                                double speed = gpsData.getDouble("viteza"); // km/h
-                                double accuracy = gpsData.getDouble("hdop");
-                                int currentStatus = gpsData.getInt("status");
-                                
-                                // IMPORTANT: Aceste coordonate sunt trimise DOAR pentru status 2 (ACTIVE)
-                                boolean isManualPause = false; // Nu avem pauze în datele trimise la server
-                                
-                                // Call analytics update prin bridge log pentru JavaScript capture
-                                String analyticsCall = "window.courseAnalyticsService && window.courseAnalyticsService.updateCourseStatistics('" + uniqueKey + "', " + 
-                                    lat + ", " + lng + ", " + speed + ", " + accuracy + ", " + isManualPause + ");";
-                                    
-                                Log.e("JS_ANALYTICS_BRIDGE", analyticsCall);
-                                                
-                            } catch (Exception analyticsError) {
-                                Log.e(TAG, "❌ Analytics update failed: " + analyticsError.getMessage());
-                            }
-                        } else {
-                            Log.w(TAG, "GPS eșuat pentru " + realUit + " - cod: " + responseCode);
-                        }
-                        
-                    } catch (Exception e) {
-                        Log.e(TAG, "Eroare transmisie GPS pentru " + realUit + ": " + e.getMessage());
-                        
-                        // UNIFIED OFFLINE: Salvează DOAR în JavaScript - sistemul unificat
-                        try {
-                            // CRITICAL: Trimite direct la JavaScript pentru gestionare unificată
-                            sendGPSToOfflineService(gpsData, realUit);
-                            
-                            Log.e(TAG, "💾 GPS coordinate sent to unified JavaScript offline system");
-                        } catch (Exception offlineError) {
-                            Log.e(TAG, "Eroare trimitere GPS la sistemul offline unificat: " + offlineError.getMessage());
+            // METRICS: Punctele deviate în coada offline nu se confirmă aici - limita ține map-ul mic
+            if (pendingCaptureTimes.size() >= MAX_PENDING_CAPTURE_TIMES) {
+                pendingCaptureTimes.clear();
+            }
+            pendingCaptureTimes.put(gpsPayload, capturedAtMillis);
+            pointsQueued.increment();
+            batchUploader.add(gpsPayload, realUit);
+            
+            // BATCH UPLOAD: Primul punct dintr-un batch nou - flush garantat la vârsta maximă chiar dacă fix-urile se opresc
+            if (batchUploader.getPendingCount() == 1) {
+                retryExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (!isServiceLoggingOut) {
+                            batchUploader.flushIfExpired();
                         }
                     }
-                }
-            });
-            
+                }, BATCH_MAX_AGE_MS, java.util.concurrent.TimeUnit.MILLISECONDS);
+            }
         } catch (Exception e) {
-            Log.e(TAG, "Eroare executare GPS pentru " + realUit + ": " + e.getMessage());
+            GpsLog.e(TAG, "Eroare adăugare GPS în batch pentru {}: {}", realUit, e.getMessage());
         }
     }
     
-    // GPS→OFFLINE BRIDGE: Trimite coordonatele către offlineGPSService pentru consistență
-    private void sendGPSToOfflineService(org.json.JSONObject gpsData, String realUit) {
-        // CRASH FIX: Nu executa dacă logout e în progres
-        if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 sendGPSToOfflineService SKIPPED - logout in progress");
-            return;
+    // FAILURE PIPELINE: Clasifică eșecul - rețea/5xx/429/401/403 → coada offline nativă, alte 4xx → dead-letter
+    private void handleFailedPayloads(java.util.List<String> payloads, int responseCode) {
+        TransmissionOutcome outcome = TransmissionOutcome.classify(responseCode);
+        if (outcome == TransmissionOutcome.AUTH) {
+            holdForNewToken(responseCode);
         }
-        
-        try {
-            // CRITICAL: Bridge către JavaScript offline service pentru sync unified
-            String offlineMessage = "GPS_OFFLINE_SAVE:" + gpsData.toString();
-            sendLogToJavaScript(offlineMessage);
-            
-            Log.e(TAG, "🌉 BRIDGE→JS: GPS coordinate sent to JavaScript offline service");
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ BRIDGE ERROR: Failed to send GPS to JavaScript offline service: " + e.getMessage());
+        for (String payload : payloads) {
+            if (outcome == TransmissionOutcome.DEAD_LETTER) {
+                addToDeadLetter(payload, responseCode);
+            } else {
+                addToOfflineQueue(payload);
+            }
         }
     }
     
-    // GPS→MAP CONNECTION: Trimite coordonatele către courseAnalyticsService pentru vizualizare
-    private void sendGPSToAnalyticsService(org.json.JSONObject gpsData, String realUit, String uniqueKey, String ikRoTrans) {
-        // CRASH FIX: Nu executa dacă logout e în progres
-        if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 sendGPSToAnalyticsService SKIPPED - logout in progress");
+    // AUTH HOLD: Token expirat/revocat - punctele rămân în coadă, drain-ul se reia la următorul token
+    private void holdForNewToken(int responseCode) {
+        if (!authRejected) {
+            authRejected = true;
+            GpsLog.e(TAG, "🔑 Token refuzat (cod {}) - coada offline așteaptă un token nou", responseCode);
+            publishBridgeEvent(BridgeEventChannel.Type.ERROR, "ANDROID_AUTH:" + responseCode);
+        }
+    }
+    
+    // DEAD LETTER: Payload refuzat de server - nu se mai retrimite, dar rămâne pe disc pentru diagnostic
+    private void addToDeadLetter(String payload, int responseCode) {
+        deadLetterCount.increment();
+        GpsLog.e(TAG, "☠️ GPS dead-letter (cod {})", responseCode);
+        GpsLog.d(TAG, "☠️ GPS dead-letter: {}", payload);
+        publishBridgeEvent(BridgeEventChannel.Type.ERROR, "ANDROID_DEAD_LETTER:" + responseCode);
+        if (deadLetterJournal == null) {
             return;
         }
-        
         try {
-            // CRITICAL FIX: JavaScript bridge cu TOATE identificatorii pentru matching
-            org.json.JSONObject enrichedData = new org.json.JSONObject(gpsData.toString());
-            enrichedData.put("realUit", realUit);
-            enrichedData.put("uniqueKey", uniqueKey);
-            enrichedData.put("ikRoTrans", ikRoTrans);
-            
-            String analyticsMessage = "GPS_ANALYTICS:" + enrichedData.toString();
-            sendLogToJavaScript(analyticsMessage);
-            
-            // DEBUG: Confirmă că coordonatele se trimit pentru hartă
-            double lat = gpsData.getDouble("lat");
-            double lng = gpsData.getDouble("lng");
-            Log.e(TAG, "📍 GPS→HARTA: UIT " + realUit + " la (" + lat + ", " + lng + ") trimis prin bridge");
-            
+            deadLetterJournal.append("{\"code\":" + responseCode + ",\"payload\":" + payload + "}", System.currentTimeMillis());
         } catch (Exception e) {
-            Log.e(TAG, "❌ Eroare GPS→Analytics: " + e.getMessage());
+            GpsLog.e(TAG, "❌ Dead-letter store error: {}", e.getMessage());
         }
     }
     
+    // Copiază o singură dată per fix valorile folosite de encoder (Location e mutabil și legat de Android)
+    private static GpsFix toGpsFix(Location location) {
+        return new GpsFix(location.getLatitude(), location.getLongitude(), location.getSpeed(),
+            location.getBearing(), location.getAltitude(), location.getAccuracy(), location.getTime());
+    }
+    
     private void sendStatusUpdateToServer(int newStatus, String uniqueKey) {
         // CRASH FIX: Nu executa dacă logout e în progres
         if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 sendStatusUpdateToServer SKIPPED - logout in progress");
+            GpsLog.d(TAG, "📵 sendStatusUpdateToServer SKIPPED - logout in progress");
             return;
         }
         
         try {
-            Log.e(TAG, "📤 === PREPARING STATUS UPDATE FROM ANDROID SERVICE ===");
+            GpsLog.i(TAG, "📤 === PREPARING STATUS UPDATE FROM ANDROID SERVICE ===");
             
             // CRITICAL FIX: uniqueKey este vehicul_ikRoTrans, extrag datele cursei
-            CourseData courseData = activeCourses.get(uniqueKey);
+            CourseRegistry.Course courseData = courseRegistry.get(uniqueKey);
             if (courseData == null) {
-                Log.e(TAG, "❌ Nu găsesc courseData pentru unique key: " + uniqueKey);
+                GpsLog.e(TAG, "❌ Nu găsesc courseData pentru unique key: {}", uniqueKey);
                 return;
             }
             
             String realUit = courseData.realUit;
-            String originalUitId = courseData.courseId;
-            Log.e(TAG, "🔧 CRITICAL FIX: unique key=" + uniqueKey + " (ikRoTrans: " + originalUitId + ") → realUit=" + realUit + " (pentru server)");
+            String originalUitId = courseData.ikRoTrans;
+            GpsLog.i(TAG, "🔧 CRITICAL FIX: unique key={} → realUit={} (pentru server)", uniqueKey, realUit);
             
             // Create status update JSON cu exact aceeași structură ca GPS
-            org.json.JSONObject statusData = new org.json.JSONObject();
-            statusData.put("uit", realUit); // FIXED: Trimite realUit la server, NU ikRoTrans
-            statusData.put("numar_inmatriculare", courseData.vehicleNumber); // Vehicul specific pentru cursă
-            // Obține coordonate GPS reale pentru status update
-            Location lastLocation = getLastKnownLocation();
-            if (lastLocation != null) {
-                statusData.put("lat", lastLocation.getLatitude());
-                statusData.put("lng", lastLocation.getLongitude());
-                statusData.put("viteza", (int) (lastLocation.getSpeed() * 3.6));
-                statusData.put("directie", (int) lastLocation.getBearing());
-                statusData.put("altitudine", (int) lastLocation.getAltitude());
-                statusData.put("hdop", (int) lastLocation.getAccuracy());
-            } else {
-                // Fallback doar dacă nu avem GPS
-                statusData.put("lat", 0);
-                statusData.put("lng", 0);
-                statusData.put("viteza", 0);
-                statusData.put("directie", 0);
-                statusData.put("altitudine", 0);
-                statusData.put("hdop", 0);
-            }
-            statusData.put("gsm_signal", getNetworkSignal());
-            statusData.put("baterie", getBatteryLevel());
-            statusData.put("status", newStatus); // PAUSE (3) sau STOP (4)
+            // Obține coordonate GPS reale pentru status update - fallback 0 doar dacă nu avem GPS
+            GpsFix statusFix = getLastKnownFix();
+            
+            // Encoder propriu - statusul vine pe alt thread decât callback-ul GPS
+            GpsPayloadEncoder statusEncoder = new GpsPayloadEncoder();
+            
+            // TRAJECTORY: Ultimul punct dinaintea tranziției intră în batch înaintea statusului
+            // (și primește seq-ul dinaintea lui)
+            settleTrajectory(newStatus, uniqueKey, courseData, statusEncoder);
             
-            // Romania timestamp
-            java.util.TimeZone romaniaTimeZone = java.util.TimeZone.getTimeZone("Europe/Bucharest");
-            java.text.SimpleDateFormat sdf = new java.text.SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
-            sdf.setTimeZone(romaniaTimeZone);
-            String timestamp = sdf.format(new java.util.Date());
-            statusData.put("timestamp", timestamp);
+            long timestampMillis = System.currentTimeMillis();
+            // FIXED: Trimite realUit la server, NU ikRoTrans; status PAUSE (3) sau STOP (4)
+            String statusDataJson = statusEncoder.encode(realUit, courseData.vehicleNumber, statusFix,
+                deviceTelemetry.snapshot(), newStatus, timestampMillis, pointSequencer.next(realUit));
+            String timestamp = statusEncoder.formatTimestamp(timestampMillis);
             
-            Log.e(TAG, "📊 Status Data prepared for status " + newStatus + ":");
-            Log.e(TAG, "   unique key: " + uniqueKey + " → ikRoTrans: " + originalUitId + " → realUIT: " + realUit); // FIXED: Log all values
-            Log.e(TAG, "   Vehicle: " + courseData.vehicleNumber);
-            Log.e(TAG, "   Status: " + newStatus);
-            Log.e(TAG, "   Timestamp: " + timestamp);
-            Log.e(TAG, "📤 Full JSON: " + statusData.toString());
+            GpsLog.i(TAG, "📊 Status Data prepared for status {}:", newStatus);
+            GpsLog.i(TAG, "   ikRoTrans: {} → realUIT: {}", originalUitId, realUit); // FIXED: Log all values
+            GpsLog.d(TAG, "   Vehicle: {}", courseData.vehicleNumber);
+            GpsLog.i(TAG, "   Status: {}", newStatus);
+            GpsLog.d(TAG, "   Timestamp: {}", timestamp);
+            GpsLog.d(TAG, "📤 Full JSON: {}", statusDataJson);
+            
+            // BATCH UPLOAD: Punctele deja colectate pleacă înaintea statusului - banda cursei
+            // garantează că POST-ul statusului începe abia după ce batch-ul a primit răspuns
+            batchUploader.flush();
             
             // CORECTARE: Transmisie HTTP directă pentru status updates!
-            sendStatusHTTPDirect(statusData.toString());
+            sendStatusHTTPDirect(statusDataJson, realUit);
+            
+        } catch (Exception e) {
+            GpsLog.e(TAG, "❌ Status update preparation error: {}", e.getMessage());
+            e.printStackTrace();
+        }
+    }
+    
+    private void sendStatusHTTPDirect(String statusDataJson, String realUit) {
+        // CRASH FIX: Nu executa dacă logout e în progres
+        if (isServiceLoggingOut) {
+            GpsLog.d(TAG, "📵 sendStatusHTTPDirect SKIPPED - logout in progress");
+            return;
+        }
+        
+        try {
+            GpsLog.i(TAG, "🔄 === STARTING STATUS HTTP TRANSMISSION ===");
+            GpsLog.i(TAG, "🔗 URL: https://www.euscagency.com/etsm_prod/platforme/transport/apk/gps.php");
+            GpsLog.d(TAG, "📊 Status Data: {}", statusDataJson);
+            
+            // CRITICAL: Use thread pool pentru rate limiting - status updates use same pool as GPS
+            StatusUploadTask task = new StatusUploadTask(statusDataJson, realUit);
+            java.util.concurrent.ThreadPoolExecutor pool = httpThreadPool;
+            StripedExecutor lanes = courseLanes;
+            if (pool != null && !pool.isShutdown() && lanes != null) {
+                // BENZI PER CURSĂ: PAUZA/STOP nu depășește punctele cursei predate înainte și nici backlog-ul ei offline
+                lanes.execute(realUit, wakeLockDutyCycle.wrap(task));
+            } else {
+                divertRejectedTask(task);
+            }
             
         } catch (Exception e) {
-            Log.e(TAG, "❌ Status update preparation error: " + e.getMessage());
+            GpsLog.e(TAG, "❌ Status HTTP bridge call failed: {}", e.getMessage());
             e.printStackTrace();
         }
     }
     
-    private void sendStatusHTTPDirect(String statusDataJson) {
-        // CRASH FIX: Nu executa dacă logout e în progres
-        if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 sendStatusHTTPDirect SKIPPED - logout in progress");
-            return;
+    // Task pentru status update - payload-ul e expus pentru ca un task respins să ajungă în coada offline
+    private class StatusUploadTask implements Runnable {
+        final String statusDataJson;
+        final String realUit;
+        
+        StatusUploadTask(String statusDataJson, String realUit) {
+            this.statusDataJson = statusDataJson;
+            this.realUit = realUit;
+        }
+        
+        @Override
+        public void run() {
+            // CRASH FIX: Verifică și în thread
+            if (isServiceLoggingOut) {
+                GpsLog.d(TAG, "📵 Status HTTP thread SKIPPED - logout in progress");
+                return;
+            }
+            if (!sendCourseBacklog(realUit)) {
+                // Punctele capturate înaintea statusului sunt încă în coada offline - drenarea le trimite în ordinea seq
+                GpsLog.i(TAG, "⏳ Status {} așteaptă backlog-ul offline al cursei", realUit);
+                addToOfflineQueue(statusDataJson);
+                return;
+            }
+            int responseCode = -1;
+            try {
+                GpsLog.i(TAG, "📡 Status HTTP thread started from thread pool");
+                
+                // TRANSPORT: Conexiune keep-alive din pool-ul comun (aceeași sesiune TLS ca GPS)
+                GpsTransport.Response response = gpsTransport.post(statusDataJson, "iTrack-StatusUpdate/1.0");
+                responseCode = response.code;
+                
+                GpsLog.i(TAG, "📡 === STATUS HTTP RESPONSE ===");
+                GpsLog.i(TAG, "📊 Response Code: {}", responseCode);
+                GpsLog.d(TAG, "📝 Response Message: {}", response.message);
+                GpsLog.d(TAG, "📄 Status Response Body: {}", response.body);
+            } catch (Exception e) {
+                GpsLog.e(TAG, "❌ Status HTTP error: {}", e.getMessage());
+            }
+            
+            if (responseCode >= 200 && responseCode < 300) {
+                GpsLog.i(TAG, "✅ === STATUS TRANSMISSION SUCCESS ===");
+            } else {
+                GpsLog.e(TAG, "❌ === STATUS TRANSMISSION FAILED ===");
+                handleFailedPayloads(java.util.Collections.singletonList(statusDataJson), responseCode);
+            }
+        }
+    }
+    
+    // ELIMINAT: sendOfflineGPSToJavaScript - avem offline queue nativ mai eficient
+    
+    // BRIDGE EVENTS: Evenimentul intră în buffer-ul canalului - livrarea către WebView e grupată pe fereastră
+    private void publishBridgeEvent(BridgeEventChannel.Type type, String message) {
+        publishBridgeEvent(type, null, message);
+    }
+    
+    // coalesceKey - pentru tipurile "valoare curentă" cu mai multe surse (cursă, raport de diagnostic)
+    private void publishBridgeEvent(BridgeEventChannel.Type type, String coalesceKey, String message) {
+        // CRASH FIX: Nu publica nimic dacă logout e în progres
+        if (isServiceLoggingOut) {
+            GpsLog.d(TAG, "📵 publishBridgeEvent SKIPPED - logout in progress: {}", message);
+            return;
+        }
+        
+        try {
+            if (coalesceKey != null) {
+                bridgeEvents.publish(type, coalesceKey, message);
+            } else {
+                bridgeEvents.publish(type, message);
+            }
+        } catch (Exception e) {
+            GpsLog.e(TAG, "Failed to publish bridge event: {}", e.getMessage());
+        }
+    }
+    
+    static BridgeEventChannel getBridgeEvents() {
+        return bridgeEvents;
+    }
+    
+    // METRICS: Adâncimi de cozi și stare - citite doar la snapshot, nu costă nimic pe calea fierbinte
+    private void registerMetricGauges() {
+        metrics.gauge("service.running", () -> isGPSRunning.get() ? 1 : 0);
+        metrics.gauge("courses.active", () -> courseRegistry.getActiveCount());
+        metrics.gauge("courses.total", () -> courseRegistry.size());
+        metrics.gauge("device.battery_percent", () -> deviceTelemetry.snapshot().batteryPercent);
+        metrics.gauge("device.signal_level", () -> deviceTelemetry.snapshot().signalLevel);
+        metrics.gauge("queue.http", () -> {
+            java.util.concurrent.ThreadPoolExecutor pool = httpThreadPool;
+            return pool != null ? pool.getQueue().size() : 0;
+        });
+        metrics.gauge("http.active_workers", () -> {
+            java.util.concurrent.ThreadPoolExecutor pool = httpThreadPool;
+            return pool != null ? pool.getActiveCount() : 0;
+        });
+        metrics.gauge("queue.batch_pending", () -> batchUploader != null ? batchUploader.getPendingCount() : 0);
+        metrics.gauge("http.batches_in_flight", () -> batchUploader != null ? batchUploader.getInFlightCount() : 0);
+        metrics.gauge("http.course_lanes", () -> {
+            StripedExecutor lanes = courseLanes;
+            return lanes != null ? lanes.getLaneCount() : 0;
+        });
+        metrics.gauge("queue.offline", () -> offlineQueue != null ? offlineQueue.size() : 0);
+        metrics.gauge("network.online", () -> offlineQueue == null || offlineQueue.isOnline() ? 1 : 0);
+        metrics.gauge("fixes.accepted", () -> locationFilter.getAcceptedCount());
+        metrics.gauge("gps.gnss_on_ms", () -> motionState.getGnssOnMillis(System.currentTimeMillis()));
+        metrics.gauge("gps.low_power_ms", () -> motionState.getLowPowerMillis(System.currentTimeMillis()));
+        for (final LocationFilterPipeline.Rejection reason : LocationFilterPipeline.Rejection.values()) {
+            metrics.gauge("fixes.filtered." + reason.name().toLowerCase(java.util.Locale.US),
+                () -> locationFilter.getRejectedCount(reason));
+        }
+    }
+    
+    // METRICS: Cât a stat punctul între captură și confirmarea serverului (include așteptarea în batch)
+    private void recordFixToAck(java.util.List<String> points) {
+        long now = System.currentTimeMillis();
+        for (String point : points) {
+            Long capturedAt = pendingCaptureTimes.remove(point);
+            if (capturedAt != null) {
+                fixToAckMs.record(now - capturedAt);
+            }
+        }
+    }
+    
+    private void forgetCaptureTimes(java.util.List<String> points) {
+        for (String point : points) {
+            pendingCaptureTimes.remove(point);
+        }
+    }
+    
+    // METRICS: Starea reală pentru MainActivity.getServiceStatus - câmpurile vechi + snapshot-ul complet
+    static String getServiceStatusJson() {
+        long now = System.currentTimeMillis();
+        return "{\"isActive\":" + (metrics.gaugeValue("service.running", 0) == 1)
+            + ",\"activeCourses\":" + metrics.gaugeValue("courses.active", 0)
+            + ",\"offlineCount\":" + metrics.gaugeValue("queue.offline", 0)
+            + ",\"networkStatus\":" + (metrics.gaugeValue("network.online", 1) == 1)
+            + ",\"lastTransmission\":" + lastTransmissionMillis
+            + ",\"telemetry\":" + deviceTelemetry.snapshot().toJson(now)
+            + ",\"metrics\":" + metrics.toJson(now)
+            + "}";
+    }
+    
+    // LOGGING: logcat complet doar în build-urile debuggable; release păstrează WARN+ în logcat,
+    // iar INFO+ ajunge oricum în flight recorder
+    static void installLogging(Context context) {
+        boolean debuggable = (context.getApplicationInfo().flags & android.content.pm.ApplicationInfo.FLAG_DEBUGGABLE) != 0;
+        GpsLog.configure(debuggable ? GpsLog.DEBUG : GpsLog.WARN, new GpsLog.Output() {
+            @Override
+            public void write(int level, String tag, String message, Throwable error) {
+                if (error != null) {
+                    Log.println(level, tag, message + '\n' + Log.getStackTraceString(error));
+                } else {
+                    Log.println(level, tag, message);
+                }
+            }
+        });
+    }
+    
+    // FLIGHT RECORDER: Ultimele evenimente ale serviciului, la cerere din JS (MainActivity.dumpFlightRecorder)
+    static String dumpFlightRecorder() {
+        return GpsLog.recorder().dump();
+    }
+    
+
+    
+    // TELEMETRY: O singură abonare - bateria (sticky broadcast), semnalul și generația conexiunii de date;
+    // tipul rețelei implicite vine din NetworkCallback-ul sistemului de retry
+    private void startDeviceTelemetry() {
+        try {
+            batteryReceiver = new android.content.BroadcastReceiver() {
+                @Override
+                public void onReceive(Context context, Intent intent) {
+                    updateBatteryTelemetry(intent);
+                }
+            };
+            // Broadcast sticky - valoarea curentă vine imediat, apoi doar la schimbări
+            Intent batteryStatus = registerReceiver(batteryReceiver, new android.content.IntentFilter(Intent.ACTION_BATTERY_CHANGED));
+            if (batteryStatus != null) {
+                updateBatteryTelemetry(batteryStatus);
+            }
+        } catch (Exception e) {
+            batteryReceiver = null;
+            GpsLog.e(TAG, "❌ Telemetrie baterie indisponibilă: {}", e.getMessage());
+        }
+        
+        try {
+            android.telephony.TelephonyManager telephonyManager =
+                (android.telephony.TelephonyManager) getSystemService(Context.TELEPHONY_SERVICE);
+            if (telephonyManager != null) {
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S) {
+                    TelephonyTelemetryCallback callback = new TelephonyTelemetryCallback();
+                    telephonyManager.registerTelephonyCallback(getMainExecutor(), callback);
+                    telephonyListener = callback;
+                } else {
+                    android.telephony.PhoneStateListener listener = new android.telephony.PhoneStateListener() {
+                        @Override
+                        public void onSignalStrengthsChanged(android.telephony.SignalStrength signalStrength) {
+                            updateSignalTelemetry(signalStrength);
+                        }
+                        
+                        @Override
+                        public void onDataConnectionStateChanged(int state, int networkType) {
+                            updateGenerationTelemetry(networkType);
+                        }
+                    };
+                    telephonyManager.listen(listener, android.telephony.PhoneStateListener.LISTEN_SIGNAL_STRENGTHS
+                        | android.telephony.PhoneStateListener.LISTEN_DATA_CONNECTION_STATE);
+                    telephonyListener = listener;
+                }
+            }
+        } catch (Exception e) {
+            // Fără telefonie (tabletă WiFi) sau fără permisiune - gsm_signal rămâne pe valorile implicite
+            telephonyListener = null;
+            GpsLog.w(TAG, "⚠️ Telemetrie semnal indisponibilă: {}", e.getMessage());
+        }
+        
+        refreshTransportTelemetry();
+    }
+    
+    private void stopDeviceTelemetry() {
+        if (batteryReceiver != null) {
+            try {
+                unregisterReceiver(batteryReceiver);
+            } catch (Exception e) {
+                GpsLog.w(TAG, "⚠️ unregisterReceiver baterie: {}", e.getMessage());
+            }
+            batteryReceiver = null;
+        }
+        if (telephonyListener != null) {
+            try {
+                android.telephony.TelephonyManager telephonyManager =
+                    (android.telephony.TelephonyManager) getSystemService(Context.TELEPHONY_SERVICE);
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.S && telephonyListener instanceof android.telephony.TelephonyCallback) {
+                    telephonyManager.unregisterTelephonyCallback((android.telephony.TelephonyCallback) telephonyListener);
+                } else if (telephonyListener instanceof android.telephony.PhoneStateListener) {
+                    telephonyManager.listen((android.telephony.PhoneStateListener) telephonyListener,
+                        android.telephony.PhoneStateListener.LISTEN_NONE);
+                }
+            } catch (Exception e) {
+                GpsLog.w(TAG, "⚠️ Dezabonare telemetrie semnal: {}", e.getMessage());
+            }
+            telephonyListener = null;
+        }
+    }
+    
+    // API 31+: listen() e depreciat - aceleași evenimente prin TelephonyCallback
+    @android.annotation.TargetApi(Build.VERSION_CODES.S)
+    private class TelephonyTelemetryCallback extends android.telephony.TelephonyCallback
+            implements android.telephony.TelephonyCallback.SignalStrengthsListener,
+                       android.telephony.TelephonyCallback.DataConnectionStateListener {
+        @Override
+        public void onSignalStrengthsChanged(android.telephony.SignalStrength signalStrength) {
+            updateSignalTelemetry(signalStrength);
+        }
+        
+        @Override
+        public void onDataConnectionStateChanged(int state, int networkType) {
+            updateGenerationTelemetry(networkType);
+        }
+    }
+    
+    private static void updateBatteryTelemetry(Intent batteryStatus) {
+        int level = batteryStatus.getIntExtra(android.os.BatteryManager.EXTRA_LEVEL, -1);
+        int scale = batteryStatus.getIntExtra(android.os.BatteryManager.EXTRA_SCALE, -1);
+        int plugged = batteryStatus.getIntExtra(android.os.BatteryManager.EXTRA_PLUGGED, 0);
+        deviceTelemetry.onBatteryChanged(level, scale, plugged != 0, System.currentTimeMillis());
+    }
+    
+    private static void updateSignalTelemetry(android.telephony.SignalStrength signalStrength) {
+        if (signalStrength == null) {
+            return;
+        }
+        int dbm = DeviceTelemetry.UNKNOWN_DBM;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.Q) {
+            // Prima intrare e celula servantă; CellInfo.UNAVAILABLE când modemul nu raportează dBm
+            java.util.List<android.telephony.CellSignalStrength> cells = signalStrength.getCellSignalStrengths();
+            if (!cells.isEmpty() && cells.get(0).getDbm() != android.telephony.CellInfo.UNAVAILABLE) {
+                dbm = cells.get(0).getDbm();
+            }
+        }
+        deviceTelemetry.onSignalChanged(signalStrength.getLevel(), dbm, System.currentTimeMillis());
+    }
+    
+    private static void updateGenerationTelemetry(int networkType) {
+        DeviceTelemetry.Generation generation;
+        switch (networkType) {
+            case android.telephony.TelephonyManager.NETWORK_TYPE_GPRS:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_EDGE:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_CDMA:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_1xRTT:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_IDEN:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_GSM:
+                generation = DeviceTelemetry.Generation.G2;
+                break;
+            case android.telephony.TelephonyManager.NETWORK_TYPE_UMTS:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_EVDO_0:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_EVDO_A:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_EVDO_B:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_HSDPA:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_HSUPA:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_HSPA:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_HSPAP:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_EHRPD:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_TD_SCDMA:
+                generation = DeviceTelemetry.Generation.G3;
+                break;
+            case android.telephony.TelephonyManager.NETWORK_TYPE_LTE:
+            case android.telephony.TelephonyManager.NETWORK_TYPE_IWLAN:
+                generation = DeviceTelemetry.Generation.G4;
+                break;
+            case android.telephony.TelephonyManager.NETWORK_TYPE_NR:
+                generation = DeviceTelemetry.Generation.G5;
+                break;
+            default:
+                generation = DeviceTelemetry.Generation.UNKNOWN;
+        }
+        deviceTelemetry.onGenerationChanged(generation, System.currentTimeMillis());
+    }
+    
+    // Rețeaua implicită (pe unde pleacă POST-urile) - apelat doar la evenimente de conectivitate
+    private void refreshTransportTelemetry() {
+        DeviceTelemetry.Transport transport = DeviceTelemetry.Transport.NONE;
+        try {
+            android.net.ConnectivityManager cm = (android.net.ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+            android.net.Network active = cm.getActiveNetwork();
+            android.net.NetworkCapabilities capabilities = active != null ? cm.getNetworkCapabilities(active) : null;
+            if (capabilities != null) {
+                if (capabilities.hasTransport(android.net.NetworkCapabilities.TRANSPORT_WIFI)) {
+                    transport = DeviceTelemetry.Transport.WIFI;
+                } else if (capabilities.hasTransport(android.net.NetworkCapabilities.TRANSPORT_CELLULAR)) {
+                    transport = DeviceTelemetry.Transport.CELLULAR;
+                } else if (capabilities.hasTransport(android.net.NetworkCapabilities.TRANSPORT_ETHERNET)) {
+                    transport = DeviceTelemetry.Transport.ETHERNET;
+                } else {
+                    transport = DeviceTelemetry.Transport.OTHER;
+                }
+            }
+        } catch (Exception e) {
+            GpsLog.w(TAG, "⚠️ Detectare tip rețea: {}", e.getMessage());
+        }
+        deviceTelemetry.onTransportChanged(transport, System.currentTimeMillis());
+    }
+    
+    // LAST LOCATION CACHE: Citire instantanee, fără Tasks.await pe main thread
+    private GpsFix getLastKnownFix() {
+        GpsFix fix = lastFix;
+        if (fix == null) {
+            // Niciun fix încă - cere asincron ultima locație Fusion pentru următorul apel
+            primeLastLocationCache();
         }
-        
+        return fix;
+    }
+    
+    private void primeLastLocationCache() {
         try {
-            Log.e(TAG, "🔄 === STARTING STATUS HTTP TRANSMISSION ===");
-            Log.e(TAG, "🔗 URL: https://www.euscagency.com/etsm_prod/platforme/transport/apk/gps.php");
-            Log.e(TAG, "📊 Status Data: " + statusDataJson);
+            if (ActivityCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
+                GpsLog.e(TAG, "❌ Fără permisiune pentru Fusion GPS last location");
+                return;
+            }
             
-            // CRITICAL: Use thread pool pentru rate limiting - status updates use same pool as GPS
-            httpThreadPool.execute(new Runnable() {
+            // SIMPLU: Fusion GPS obține ultima locație inteligent (GPS+WiFi+Cellular)
+            fusedLocationClient.getLastLocation().addOnSuccessListener(new com.google.android.gms.tasks.OnSuccessListener<Location>() {
                 @Override
-                public void run() {
-                    // CRASH FIX: Verifică și în thread
-                    if (isServiceLoggingOut) {
-                        Log.d(TAG, "📵 Status HTTP thread SKIPPED - logout in progress");
-                        return;
-                    }
-                    try {
-                        Log.e(TAG, "📡 Status HTTP thread started from thread pool");
-                        
-                        java.net.URL url = new java.net.URL("https://www.euscagency.com/etsm_prod/platforme/transport/apk/gps.php");
-                        javax.net.ssl.HttpsURLConnection conn = (javax.net.ssl.HttpsURLConnection) url.openConnection();
-                        conn.setRequestMethod("POST");
-                        conn.setRequestProperty("Content-Type", "application/json");
-                        conn.setRequestProperty("Authorization", "Bearer " + globalToken);
-                        conn.setRequestProperty("Accept", "application/json");
-                        conn.setRequestProperty("User-Agent", "iTrack-StatusUpdate/1.0");
-                        conn.setDoOutput(true);
-                        conn.setConnectTimeout(15000); // 15 seconds
-                        conn.setReadTimeout(15000);    // 15 seconds
-                        
-                        Log.e(TAG, "🔗 Status connection configured, sending data...");
-                        
-                        // Send JSON data
-                        try (java.io.OutputStream os = conn.getOutputStream()) {
-                            byte[] input = statusDataJson.getBytes("utf-8");
-                            os.write(input, 0, input.length);
-            Log.e(TAG, "📤 Date status trimise: " + input.length + " bytes");
-                        }
-                        
-                        int responseCode = conn.getResponseCode();
-                        String responseMessage = conn.getResponseMessage();
-                        
-                        Log.e(TAG, "📡 === STATUS HTTP RESPONSE ===");
-                        Log.e(TAG, "📊 Response Code: " + responseCode);
-                        Log.e(TAG, "📝 Response Message: " + responseMessage);
-                        
-                        // Read response body for debugging
-                        try {
-                            java.io.InputStream is = (responseCode >= 200 && responseCode < 300) ? 
-                                conn.getInputStream() : conn.getErrorStream();
-                            if (is != null) {
-                                java.util.Scanner scanner = new java.util.Scanner(is).useDelimiter("\\A");
-                                String responseBody = scanner.hasNext() ? scanner.next() : "";
-                                Log.e(TAG, "📄 Status Response Body: " + responseBody);
-                            }
-                        } catch (Exception e) {
-                            Log.e(TAG, "⚠️ Could not read status response body: " + e.getMessage());
-                        }
-                        
-                        if (responseCode >= 200 && responseCode < 300) {
-                            Log.e(TAG, "✅ === STATUS TRANSMISSION SUCCESS ===");
-                        } else {
-                            Log.e(TAG, "❌ === STATUS TRANSMISSION FAILED ===");
-                        }
-                        
-                    } catch (Exception e) {
-                        Log.e(TAG, "❌ Status HTTP error: " + e.getMessage());
-                        e.printStackTrace();
+                public void onSuccess(Location location) {
+                    // Nu suprascrie un fix mai nou venit între timp prin callback
+                    if (location != null && lastFix == null) {
+                        lastFix = toGpsFix(location);
                     }
                 }
             });
-            
         } catch (Exception e) {
-            Log.e(TAG, "❌ Status HTTP bridge call failed: " + e.getMessage());
-            e.printStackTrace();
+            GpsLog.e(TAG, "❌ Eroare Fusion GPS last location: {}", e.getMessage());
         }
     }
     
-    // ELIMINAT: sendOfflineGPSToJavaScript - avem offline queue nativ mai eficient
+    // BOUND API: Același proces - MainActivity primește binder-ul direct, fără AIDL/Parcel
+    @Override
+    public IBinder onBind(Intent intent) {
+        return localBinder;
+    }
     
-    private void sendLogToJavaScript(String message) {
-        // CRASH FIX: Nu apela nimic dacă logout e în progres
-        if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 sendLogToJavaScript SKIPPED - logout in progress: " + message);
-            return;
+    // Rezultatul unei comenzi - ajunge în JS ca "SUCCESS: ..." / "ERROR: ...", ca răspunsurile vechi;
+    // "PENDING: ..." = comanda a început pe main thread și se termină după ce apelul JS a expirat
+    public static final class CommandResult {
+        public final boolean success;
+        public final boolean pending;
+        public final String message;
+        
+        private CommandResult(boolean success, boolean pending, String message) {
+            this.success = success;
+            this.pending = pending;
+            this.message = message;
         }
         
-        try {
-            // Send log via Android system log with special tag for JS capture
-            Log.e("JS_BRIDGE_LOG", "[Android GPS]: " + message);
-            
-            // ADAUGĂ HANDLER PENTRU ALERTELE GPS către UI prin bridge log
-            String alertCode = "window.AndroidGPS && window.AndroidGPS.onGPSMessage && window.AndroidGPS.onGPSMessage('" + message.replace("'", "\\'") + "');";
-            Log.e("JS_GPS_ALERT_BRIDGE", alertCode);
-            
-            // Also send to system log for debugging
-            Log.e(TAG, "JS Log + Alert: " + message);
-        } catch (Exception e) {
-            Log.e(TAG, "Failed to send log to JS: " + e.getMessage());
+        static CommandResult ok(String message) {
+            return new CommandResult(true, false, message);
+        }
+        
+        static CommandResult error(String message) {
+            return new CommandResult(false, false, message);
+        }
+        
+        static CommandResult pending(String message) {
+            return new CommandResult(false, true, message);
+        }
+        
+        public String toBridgeString() {
+            return (success ? "SUCCESS: " : pending ? "PENDING: " : "ERROR: ") + message;
         }
     }
     
-
-    
-    private String getBatteryLevel() {
-        try {
-            android.content.IntentFilter ifilter = new android.content.IntentFilter(Intent.ACTION_BATTERY_CHANGED);
-            Intent batteryStatus = registerReceiver(null, ifilter);
-            int level = batteryStatus.getIntExtra(android.os.BatteryManager.EXTRA_LEVEL, -1);
-            int scale = batteryStatus.getIntExtra(android.os.BatteryManager.EXTRA_SCALE, -1);
-            float batteryPct = level * 100 / (float) scale;
-            return Math.round(batteryPct) + "%";
-        } catch (Exception e) {
-            return "0%";
+    // BOUND API: Apeluri sincrone, tipizate, din thread-ul JavascriptInterface. Comenzile rulează pe main thread,
+    // ca onStartCommand - intent-urile și binder-ul nu se pot intercala pe starea curselor.
+    public final class LocalBinder extends android.os.Binder {
+        
+        // false după onDestroy sau după STOP (logout) - apelantul trebuie să repornească serviciul prin intent
+        public boolean isAlive() {
+            return !serviceDestroyed && !isServiceLoggingOut;
+        }
+        
+        public CommandResult addCourse(final String ikRoTrans, final String realUit, final String token,
+                                       final String vehicle, final int status) {
+            return callOnMainThread(new java.util.concurrent.Callable<CommandResult>() {
+                @Override
+                public CommandResult call() {
+                    return BackgroundGPSService.this.addCourse(ikRoTrans, realUit, token, vehicle, status);
+                }
+            });
+        }
+        
+        public CommandResult updateStatus(final String courseId, final int status) {
+            return callOnMainThread(new java.util.concurrent.Callable<CommandResult>() {
+                @Override
+                public CommandResult call() {
+                    return updateCourseStatus(courseId, status);
+                }
+            });
+        }
+        
+        // Citiri fără lock (gauge-uri, contoare) - nu trece prin main thread
+        public String snapshot() {
+            return getServiceStatusJson();
+        }
+        
+        public CommandResult flush() {
+            return callOnMainThread(new java.util.concurrent.Callable<CommandResult>() {
+                @Override
+                public CommandResult call() {
+                    return flushNow();
+                }
+            });
         }
     }
     
-    private int getNetworkSignal() {
-        try {
-            android.net.ConnectivityManager cm = (android.net.ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
-            android.net.NetworkInfo activeNetwork = cm.getActiveNetworkInfo();
-            
-            if (activeNetwork == null || !activeNetwork.isConnected()) {
-                return 0; // No connection
+    // Pe main thread rulează direct; altfel așteaptă cel mult BOUND_CALL_TIMEOUT_MS. La timeout, o comandă
+    // care n-a pornit e scoasă din coadă (ERROR adevărat, JS poate reîncerca); una pornită deja → PENDING
+    private CommandResult callOnMainThread(final java.util.concurrent.Callable<CommandResult> command) {
+        if (android.os.Looper.myLooper() == android.os.Looper.getMainLooper()) {
+            try {
+                return command.call();
+            } catch (Exception e) {
+                return CommandResult.error(String.valueOf(e.getMessage()));
             }
-            
-            // Detect network type
-            int networkType = activeNetwork.getType();
-            if (networkType == android.net.ConnectivityManager.TYPE_WIFI) {
-                return 0; // WiFi is not GSM signal
-            } else if (networkType == android.net.ConnectivityManager.TYPE_MOBILE) {
-                // Try to get cellular signal strength
-                try {
-                    android.telephony.TelephonyManager telephonyManager = 
-                        (android.telephony.TelephonyManager) getSystemService(Context.TELEPHONY_SERVICE);
-                    
-                    if (telephonyManager != null) {
-                        // Basic cellular detection - return good signal for now
-                        // Real signal strength requires more complex implementation
-                        return 4; // Good cellular signal
+        }
+        // Cine revendică primul comanda decide: main thread-ul o rulează, apelantul expirat o anulează
+        final java.util.concurrent.atomic.AtomicBoolean claimed = new java.util.concurrent.atomic.AtomicBoolean();
+        java.util.concurrent.FutureTask<CommandResult> task = new java.util.concurrent.FutureTask<>(
+            new java.util.concurrent.Callable<CommandResult>() {
+                @Override
+                public CommandResult call() throws Exception {
+                    if (!claimed.compareAndSet(false, true)) {
+                        return CommandResult.error("anulată după timeout");
                     }
-                } catch (Exception e) {
-                    Log.e(TAG, "❌ Cannot get telephony info: " + e.getMessage());
+                    return command.call();
                 }
-                return 3; // Default cellular signal
+            });
+        if (!mainHandler.post(task)) {
+            return CommandResult.error("serviciul se oprește");
+        }
+        try {
+            return task.get(BOUND_CALL_TIMEOUT_MS, TimeUnit.MILLISECONDS);
+        } catch (java.util.concurrent.TimeoutException e) {
+            if (claimed.compareAndSet(false, true)) {
+                mainHandler.removeCallbacks(task);
+                task.cancel(false);
+                GpsLog.w(TAG, "⚠️ BOUND API: comanda nu a pornit în {}ms - anulată", BOUND_CALL_TIMEOUT_MS);
+                return CommandResult.error("timeout - comanda nu a rulat");
             }
-            
-            return 2; // Unknown connection type
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Eroare detectare semnal rețea: " + e.getMessage());
-            return 1; // Error fallback
+            GpsLog.w(TAG, "⚠️ BOUND API: comanda rulează de peste {}ms - se termină în fundal", BOUND_CALL_TIMEOUT_MS);
+            return CommandResult.pending("comanda rulează încă pe main thread");
+        } catch (java.util.concurrent.ExecutionException e) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            GpsLog.e(TAG, "❌ BOUND API: {}", cause.getMessage());
+            return CommandResult.error(String.valueOf(cause.getMessage()));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return CommandResult.error("întrerupt");
         }
     }
     
-    private Location getLastKnownLocation() {
-        try {
-            // FUSION GPS: Folosește Google's intelligent last known location
-            if (ActivityCompat.checkSelfPermission(this, android.Manifest.permission.ACCESS_FINE_LOCATION) != PackageManager.PERMISSION_GRANTED) {
-                Log.e(TAG, "❌ Fără permisiune pentru Fusion GPS last location");
-                return null;
-            }
-            
-            // SIMPLU: Fusion GPS obține ultima locație inteligent (GPS+WiFi+Cellular)
-            com.google.android.gms.tasks.Task<Location> locationTask = fusedLocationClient.getLastLocation();
-            
-            // Sincron - pentru compatibility cu apelurile existente
-            try {
-                return com.google.android.gms.tasks.Tasks.await(locationTask, 2000, java.util.concurrent.TimeUnit.MILLISECONDS);
-            } catch (Exception e) {
-                Log.e(TAG, "❌ Fusion GPS last location timeout: " + e.getMessage());
-                return null;
-            }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Eroare Fusion GPS last location: " + e.getMessage());
-            return null;
+    // FLUSH: Batch-ul live pleacă acum, backlog-ul offline pornește drenarea
+    private CommandResult flushNow() {
+        if (isServiceLoggingOut || batchUploader == null) {
+            return CommandResult.error("serviciul nu trimite");
         }
+        int live = batchUploader.getPendingCount();
+        batchUploader.flush();
+        int offline = offlineQueue != null ? offlineQueue.size() : 0;
+        if (offline > 0 && offlineDrainEngine != null) {
+            offlineDrainEngine.trigger();
+        }
+        GpsLog.i(TAG, "📤 FLUSH: {} puncte live, {} offline în drenare", live, offline);
+        return CommandResult.ok(live + " puncte live trimise, " + offline + " offline în drenare");
     }
     
+    // FLIGHT RECORDER: adb shell dumpsys activity service com.euscagency.itrack/.BackgroundGPSService
     @Override
-    public IBinder onBind(Intent intent) {
-        return null;
+    protected void dump(java.io.FileDescriptor fd, java.io.PrintWriter writer, String[] args) {
+        writer.println("Curse: " + courseRegistry.size() + " (active: " + courseRegistry.getActiveCount() + "), GPS pornit: " + isGPSRunning.get());
+        writer.print(dumpFlightRecorder());
     }
     
     private void createNotificationChannel() {
@@ -1035,14 +1992,8 @@ public class BackgroundGPSService extends Service {
     
     private Notification createNotification() {
         // Count ACTIVE courses (status 2) for dynamic notification
-        int activeCourseCount = 0;
-        int totalCourses = activeCourses.size();
-        
-        for (CourseData course : activeCourses.values()) {
-            if (course.status == 2) { // DOAR ACTIVE courses
-                activeCourseCount++;
-            }
-        }
+        int activeCourseCount = courseRegistry.getActiveCount();
+        int totalCourses = courseRegistry.size();
         
         // Dynamic notification text based on GPS state
         String contentText;
@@ -1067,7 +2018,13 @@ public class BackgroundGPSService extends Service {
     
     @Override
     public void onDestroy() {
-        Log.e(TAG, "🛑 === BACKGROUND GPS SERVICE DESTROY CALLED ===");
+        GpsLog.i(TAG, "🛑 === BACKGROUND GPS SERVICE DESTROY CALLED ===");
+        
+        // BOUND API: Binder-ul păstrat de MainActivity nu mai acceptă comenzi
+        serviceDestroyed = true;
+        
+        // METRICS: Contoarele rămân pentru proces, gauge-urile ar citi o instanță distrusă
+        metrics.clearGauges();
         
         // THREAD SAFETY: AtomicBoolean update
         isGPSRunning.set(false);
@@ -1075,7 +2032,10 @@ public class BackgroundGPSService extends Service {
         // FUSION GPS CLEANUP: Remove location updates pentru Fusion GPS  
         if (fusedLocationClient != null && locationCallback != null) {
             fusedLocationClient.removeLocationUpdates(locationCallback);
-            Log.e(TAG, "🛑 FUSION GPS location updates removed");
+            GpsLog.i(TAG, "🛑 FUSION GPS location updates removed");
+        }
+        if (accelerometerListener != null || significantMotionListener != null) {
+            stopMotionTracking();
         }
         
         // ELIMINAT: gpsExecutor cleanup - NU mai există cu Fusion GPS
@@ -1085,261 +2045,523 @@ public class BackgroundGPSService extends Service {
             httpThreadPool.shutdown();
             try {
                 if (!httpThreadPool.awaitTermination(3, java.util.concurrent.TimeUnit.SECONDS)) {
-                    httpThreadPool.shutdownNow();
-                    Log.e(TAG, "🛑 HTTP Thread Pool force terminated");
+                    cancelDroppedTasks(httpThreadPool.shutdownNow());
+                    GpsLog.i(TAG, "🛑 HTTP Thread Pool force terminated");
                 }
             } catch (InterruptedException e) {
-                httpThreadPool.shutdownNow();
+                cancelDroppedTasks(httpThreadPool.shutdownNow());
                 Thread.currentThread().interrupt();
-                Log.e(TAG, "🛑 HTTP Thread Pool interrupted shutdown");
+                GpsLog.i(TAG, "🛑 HTTP Thread Pool interrupted shutdown");
             }
             httpThreadPool = null;
+            courseLanes = null;
         }
         
         // ELIMINAT: healthMonitor cleanup - NU mai există cu Fusion GPS
         
+        // OFFLINE DRAIN CLEANUP
+        if (offlineDrainEngine != null) {
+            offlineDrainEngine.stop();
+        }
+        if (drainExecutor != null) {
+            drainExecutor.shutdownNow();
+            drainExecutor = null;
+        }
+        
         // OFFLINE RETRY SYSTEM CLEANUP
+        stopOfflineRetrySystem();
+        stopDeviceTelemetry();
         if (retryExecutor != null && !retryExecutor.isShutdown()) {
             retryExecutor.shutdownNow();
             try {
                 if (!retryExecutor.awaitTermination(2, java.util.concurrent.TimeUnit.SECONDS)) {
-                    Log.e(TAG, "🛑 Retry Executor force terminated");
+                    GpsLog.i(TAG, "🛑 Retry Executor force terminated");
                 }
             } catch (InterruptedException e) {
                 Thread.currentThread().interrupt();
-                Log.e(TAG, "🛑 Retry Executor interrupted shutdown");
+                GpsLog.i(TAG, "🛑 Retry Executor interrupted shutdown");
             }
             retryExecutor = null;
         }
         
+        // OFFLINE JOURNAL: Punctele neconfirmate rămân pe disc pentru următorul onCreate
+        try {
+            if (offlineJournal != null) offlineJournal.close();
+            if (deadLetterJournal != null) deadLetterJournal.close();
+        } catch (Exception e) {
+            GpsLog.w(TAG, "🛑 Offline journal close error (ignored): {}", e.getMessage());
+        }
+        offlineJournal = null;
+        deadLetterJournal = null;
+        
+        // TRANSPORT CLEANUP: Închide conexiunile keep-alive
+        if (gpsTransport != null) {
+            gpsTransport.shutdown();
+        }
+        
         // UNIFIED OFFLINE: Nu mai avem Android queue de curățat - totul în JavaScript
         
         // WAKELOCK CRITICAL CLEANUP - previne battery drain
-        if (wakeLock != null && wakeLock.isHeld()) {
-            wakeLock.release();
-            Log.e(TAG, "🛑 WakeLock force released - battery drain prevented");
+        if (wakeLockDutyCycle != null) {
+            wakeLockDutyCycle.releaseAll();
+            GpsLog.i(TAG, "🛑 WakeLock force released - battery drain prevented");
         }
         wakeLock = null;
         
-        // ELIMINAT: HandlerThread cleanup - FusedLocationProviderClient gestionează propriul thread
+        // LOCATION THREAD CLEANUP: update-urile sunt deja scoase - callback-urile în curs se termină
+        if (locationThread != null) {
+            locationThread.quitSafely();
+            locationThread = null;
+        }
         
         // MEMORY CLEANUP
-        activeCourses.clear();
+        courseRegistry.clear();
         globalToken = null;
         globalVehicle = null;
         // ELIMINAT: locationManager cleanup - nu mai există
         
         super.onDestroy();
-        Log.e(TAG, "🛑 BackgroundGPS Service COMPLETELY DESTROYED - Memory leaks prevented");
+        GpsLog.i(TAG, "🛑 BackgroundGPS Service COMPLETELY DESTROYED - Memory leaks prevented");
     }
     
-    // OFFLINE QUEUE SYSTEM: Metodă pentru pornirea sistemului de retry
+    // OFFLINE QUEUE SYSTEM: Retry condus de conectivitate - fără rețea nu se programează nimic
     private void startOfflineRetrySystem() {
         try {
-            if (retryExecutor != null && !retryExecutor.isShutdown()) {
-                Log.e(TAG, "📡 Offline retry system already running");
+            if (connectivityCallback != null) {
+                GpsLog.i(TAG, "📡 Offline retry system already running");
                 return;
             }
             
-            retryExecutor = Executors.newSingleThreadScheduledExecutor();
-            isRetryRunning.set(true);
-            
-            Log.e(TAG, "📡 === OFFLINE RETRY SYSTEM STARTED ===");
-            sendLogToJavaScript("📡 Offline retry system started - va retrimite coordonatele eșuate");
+            android.net.ConnectivityManager cm = (android.net.ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+            android.net.NetworkRequest request = new android.net.NetworkRequest.Builder()
+                .addCapability(android.net.NetworkCapabilities.NET_CAPABILITY_INTERNET)
+                .build();
             
-            // Check și retry la fiecare 30 secunde pentru coordonate offline
-            retryExecutor.scheduleAtFixedRate(new Runnable() {
+            connectivityCallback = new android.net.ConnectivityManager.NetworkCallback() {
                 @Override
-                public void run() {
-                    // CRASH FIX: Verifică flag-ul în Runnable
+                public void onAvailable(android.net.Network network) {
+                    // CRASH FIX: Verifică flag-ul în callback
                     if (isServiceLoggingOut) {
-                        Log.d(TAG, "📵 Retry Runnable SKIPPED - logout in progress");
                         return;
                     }
-                    if (!offlineQueue.isEmpty()) {
-                        processOfflineQueue();
+                    availableNetworks.add(network);
+                    refreshTransportTelemetry();
+                    if (!offlineQueue.isOnline()) {
+                        GpsLog.i(TAG, "📶 Rețea disponibilă - drenare imediată offline queue ({} items)", offlineQueue.size());
+                    }
+                    offlineQueue.setOnline(true);
+                }
+                
+                @Override
+                public void onLost(android.net.Network network) {
+                    availableNetworks.remove(network);
+                    if (availableNetworks.isEmpty()) {
+                        deviceTelemetry.onTransportChanged(DeviceTelemetry.Transport.NONE, System.currentTimeMillis());
+                        GpsLog.i(TAG, "📵 Fără rețea - retry suspendat până la reconectare");
+                        offlineQueue.setOnline(false);
+                    } else {
+                        refreshTransportTelemetry();
                     }
                 }
-            }, RETRY_INITIAL_DELAY, RETRY_INITIAL_DELAY, java.util.concurrent.TimeUnit.SECONDS);
+                
+                @Override
+                public void onCapabilitiesChanged(android.net.Network network, android.net.NetworkCapabilities capabilities) {
+                    // TELEMETRY: WiFi ↔ date mobile fără pierderea conectivității
+                    refreshTransportTelemetry();
+                }
+            };
+            // onAvailable vine imediat pentru rețelele deja conectate
+            cm.registerNetworkCallback(request, connectivityCallback);
+            isRetryRunning.set(true);
+            
+            GpsLog.i(TAG, "📡 === OFFLINE RETRY SYSTEM STARTED ===");
+            publishBridgeEvent(BridgeEventChannel.Type.LOG, "📡 Offline retry system started - va retrimite coordonatele eșuate");
             
         } catch (Exception e) {
-            Log.e(TAG, "❌ Error starting offline retry system: " + e.getMessage());
-            sendLogToJavaScript("❌ Offline retry system failed to start");
+            // Fără callback de conectivitate - retry doar pe backoff, ca înainte
+            connectivityCallback = null;
+            offlineQueue.setOnline(true);
+            GpsLog.e(TAG, "❌ Error starting offline retry system: {}", e.getMessage());
+            publishBridgeEvent(BridgeEventChannel.Type.ERROR, "❌ Offline retry system failed to start");
+        }
+    }
+    
+    private void stopOfflineRetrySystem() {
+        if (connectivityCallback != null) {
+            try {
+                android.net.ConnectivityManager cm = (android.net.ConnectivityManager) getSystemService(Context.CONNECTIVITY_SERVICE);
+                cm.unregisterNetworkCallback(connectivityCallback);
+            } catch (Exception e) {
+                GpsLog.w(TAG, "⚠️ unregisterNetworkCallback: {}", e.getMessage());
+            }
+            connectivityCallback = null;
         }
+        availableNetworks.clear();
+        if (offlineQueue != null) {
+            offlineQueue.setOnline(false);
+        }
+        isRetryRunning.set(false);
     }
     
     // OFFLINE QUEUE: Adaugă coordonate GPS în coada pentru retry
-    private void addToOfflineQueue(org.json.JSONObject gpsData, String timestamp) {
+    private void addToOfflineQueue(String gpsDataJson) {
         // CRASH FIX: Nu adăuga dacă logout e în progres
         if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 addToOfflineQueue SKIPPED - logout in progress");
+            GpsLog.d(TAG, "📵 addToOfflineQueue SKIPPED - logout in progress");
             return;
         }
         
         try {
-            // MEMORY PROTECTION: Limitează mărimea cozii pentru a evita memory leaks
-            if (offlineQueue.size() >= MAX_OFFLINE_QUEUE_SIZE) {
-                // Remove oldest entries dacă coada e prea mare
-                OfflineGPSData oldest = offlineQueue.poll();
-                if (oldest != null) {
-                    Log.e(TAG, "⚠️ Offline queue full - removed oldest GPS entry");
-                }
+            // DURABIL: Scrie întâi în jurnalul de pe disc (limitat în bytes, cele mai vechi ies primele)
+            org.json.JSONObject gpsData = new org.json.JSONObject(gpsDataJson);
+            long timestampLong = System.currentTimeMillis();
+            long journalId = -1;
+            if (offlineJournal != null) {
+                journalId = offlineJournal.append(gpsDataJson, timestampLong);
             }
             
-            // Convert String timestamp to long for OfflineGPSData constructor
-            long timestampLong = System.currentTimeMillis();
-            OfflineGPSData offlineData = new OfflineGPSData(gpsData, timestampLong);
-            offlineQueue.offer(offlineData);
+            OfflineGPSData offlineData = new OfflineGPSData(journalId, gpsData, timestampLong);
+            retryQueuedCount.increment();
+            offlineQueue.offer(offlineData, nextRetryAt(timestampLong, 0));
+            
+            // MEMORY PROTECTION: Scoate din memorie punctele eliminate din jurnal pentru limita de bytes
+            if (offlineJournal != null && offlineJournal.getEvictedCount() != reconciledJournalEvictions) {
+                reconciledJournalEvictions = offlineJournal.getEvictedCount();
+                int removed = offlineQueue.removeIf(new RetryScheduler.Filter<OfflineGPSData>() {
+                    @Override
+                    public boolean matches(OfflineGPSData item) {
+                        return item.journalId >= 0 && !offlineJournal.contains(item.journalId);
+                    }
+                });
+                GpsLog.w(TAG, "⚠️ Offline journal full - removed {} oldest GPS entries", removed);
+            }
             
-            Log.e(TAG, "💾 GPS coordinate added to offline queue. Total: " + offlineQueue.size());
+            GpsLog.i(TAG, "💾 GPS coordinate added to offline queue. Total: {}", offlineQueue.size());
             
             // BRIDGE: Notifică JavaScript despre mărimea queue-ului Android pentru monitoring
-            sendLogToJavaScript("ANDROID_OFFLINE_QUEUE:" + offlineQueue.size());
+            publishBridgeEvent(BridgeEventChannel.Type.OFFLINE_QUEUE, "ANDROID_OFFLINE_QUEUE:" + offlineQueue.size());
             
         } catch (Exception e) {
-            Log.e(TAG, "❌ Error adding to offline queue: " + e.getMessage());
+            GpsLog.e(TAG, "❌ Error adding to offline queue: {}", e.getMessage());
         }
     }
     
-    // OFFLINE QUEUE: Procesează coada pentru retry cu exponential backoff
-    private void processOfflineQueue() {
+    // EXPONENTIAL BACKOFF: Momentul următoarei încercări după retryCount eșecuri
+    private static long nextRetryAt(long fromMillis, int retryCount) {
+        return fromMillis + RetryScheduler.backoffDelayMs(retryCount, RETRY_INITIAL_DELAY * 1000L, RETRY_MAX_DELAY * 1000L);
+    }
+    
+    // OFFLINE DRAIN: Scoate din coadă punctele eligibile acum (backoff expirat) - restul rămân programate.
+    // O PAUZĂ/STOP retrimisă își ia cu ea punctele mai vechi (seq) ale cursei, chiar dacă backoff-ul lor nu a
+    // expirat - nu le depășește. Cursele din batch rămân rezervate până la răspuns.
+    private java.util.List<OfflineGPSData> takeReadyOfflineBatch(int maxItems) {
+        java.util.List<OfflineGPSData> ready = new java.util.ArrayList<>();
         // CRASH FIX: Nu procesa dacă logout e în progres
-        if (isServiceLoggingOut) {
-            Log.d(TAG, "📵 processOfflineQueue SKIPPED - logout in progress");
-            return;
+        // AUTH HOLD: Cu token-ul refuzat, fiecare încercare ar primi tot 401/403
+        if (isServiceLoggingOut || globalToken == null || authRejected) {
+            return ready;
         }
         
-        try {
-            if (offlineQueue.isEmpty()) {
-                return;
+        synchronized (drainingCourses) {
+            java.util.List<OfflineGPSData> batch = offlineQueue.takeReady(maxItems, item -> !drainingCourses.contains(courseOf(item)));
+            java.util.Map<String, Long> courseEnds = new java.util.LinkedHashMap<>();
+            for (OfflineGPSData offlineData : batch) {
+                String uit = courseOf(offlineData);
+                Long seq = courseEnds.get(uit);
+                if (uit != null && isCourseEnd(offlineData) && (seq == null || seq < sequenceOf(offlineData))) {
+                    courseEnds.put(uit, sequenceOf(offlineData));
+                }
             }
             
-            Log.e(TAG, "📡 === PROCESSING OFFLINE QUEUE ===");
-            Log.e(TAG, "📊 Queue size: " + offlineQueue.size());
-            
-            int processedCount = 0;
-            int successCount = 0;
-            int failedCount = 0;
-            
-            // Process până la 10 coordonate per batch pentru a evita server overload
-            for (int i = 0; i < Math.min(10, offlineQueue.size()); i++) {
-                OfflineGPSData offlineData = offlineQueue.poll();
-                if (offlineData == null) break;
-                
-                processedCount++;
-                
-                // EXPONENTIAL BACKOFF: Calculează delay bazat pe retry count
-                long dataAge = System.currentTimeMillis() - offlineData.timestamp;
-                int retryDelay = Math.min(RETRY_INITIAL_DELAY * (1 << offlineData.retryCount), RETRY_MAX_DELAY);
-                
-                // Skip dacă data e prea veche (peste 24 ore)
-                if (dataAge > 24 * 60 * 60 * 1000) {
-                    Log.e(TAG, "🗑️ Discarding old GPS data: " + (dataAge / (60 * 60 * 1000)) + " hours old");
-                    continue;
-                }
-                
-                // Skip dacă nu a trecut destul timp pentru retry
-                if (dataAge < retryDelay * 1000) {
-                    // Put it back în coadă pentru mai târziu
-                    offlineQueue.offer(offlineData);
-                    continue;
-                }
-                
-                // RETRY TRANSMISSION: Încearcă să retrimită coordonata
-                if (retryGPSTransmission(offlineData)) {
-                    successCount++;
-                    Log.e(TAG, "✅ Offline GPS retry SUCCESS for timestamp: " + offlineData.timestamp);
-                } else {
-                    failedCount++;
-                    // EXPONENTIAL BACKOFF: Increase retry count și put back în coadă
-                    if (offlineData.retryCount < 10) { // Maxim 10 încercări
-                        OfflineGPSData retryData = new OfflineGPSData(
-                            offlineData.gpsData, 
-                            offlineData.timestamp, 
-                            offlineData.retryCount + 1
-                        );
-                        offlineQueue.offer(retryData);
-                        Log.e(TAG, "🔄 GPS retry failed - requeue with count: " + retryData.retryCount);
-                    } else {
-                        Log.e(TAG, "❌ GPS retry abandoned after 10 attempts for timestamp: " + offlineData.timestamp);
+            long now = System.currentTimeMillis();
+            for (java.util.Map.Entry<String, Long> courseEnd : courseEnds.entrySet()) {
+                final String uit = courseEnd.getKey();
+                final long statusSeq = courseEnd.getValue();
+                int budget = maxItems - batch.size();
+                java.util.List<OfflineGPSData> older = offlineQueue.takeFirst(
+                    item -> uit.equals(courseOf(item)) && sequenceOf(item) < statusSeq, OFFLINE_BY_SEQUENCE, budget + 1);
+                if (older.size() > budget) {
+                    // Nu încap toate în batch - statusul așteaptă următorul, împreună cu restul
+                    offlineQueue.offer(older.remove(older.size() - 1), now);
+                    java.util.Iterator<OfflineGPSData> iterator = batch.iterator();
+                    while (iterator.hasNext()) {
+                        OfflineGPSData offlineData = iterator.next();
+                        if (uit.equals(courseOf(offlineData)) && isCourseEnd(offlineData)) {
+                            iterator.remove();
+                            offlineQueue.offer(offlineData, now);
+                        }
                     }
                 }
+                batch.addAll(older);
             }
-            
-            if (processedCount > 0) {
-                Log.e(TAG, "📊 Offline queue processed: " + processedCount + " items (" + 
-                       successCount + " success, " + failedCount + " failed)");
-                
-                // BRIDGE: Notifică JavaScript progresul sincronizării Android queue
-                sendLogToJavaScript("ANDROID_SYNC_PROGRESS:" + successCount + "/" + processedCount + "/" + offlineQueue.size());
+            java.util.Collections.sort(batch, OFFLINE_BY_SEQUENCE);
+            
+            for (OfflineGPSData offlineData : batch) {
+                if (isOfflinePayloadSendable(offlineData)) {
+                    ready.add(offlineData);
+                    String uit = courseOf(offlineData);
+                    if (uit != null) {
+                        drainingCourses.add(uit);
+                    }
+                }
             }
-            
-        } catch (Exception e) {
-            Log.e(TAG, "❌ Error processing offline queue: " + e.getMessage());
         }
+        return ready;
+    }
+    
+    // OFFLINE JOURNAL: Punct eliminat din jurnal (limita de bytes) sau mai vechi de 24h - nu îl mai trimitem
+    private boolean isOfflinePayloadSendable(OfflineGPSData offlineData) {
+        if (offlineJournal != null && offlineData.journalId >= 0 && !offlineJournal.contains(offlineData.journalId)) {
+            return false;
+        }
+        long dataAge = System.currentTimeMillis() - offlineData.timestamp;
+        if (dataAge > 24 * 60 * 60 * 1000) {
+            GpsLog.i(TAG, "🗑️ Discarding old GPS data: {} hours old", (dataAge / (60 * 60 * 1000)));
+            acknowledgeOfflineData(offlineData);
+            return false;
+        }
+        return true;
     }
     
-    // OFFLINE RETRY: Încearcă retransmisia unei coordonate GPS
-    private boolean retryGPSTransmission(OfflineGPSData offlineData) {
+    // OFFLINE DRAIN: Retry-ul trimite pe thread-ul drenării, dar la rândul lui în banda fiecărei curse din batch
+    private OfflineDrainEngine.SendResult sendOfflineBatch(final java.util.List<OfflineGPSData> batch) {
+        java.util.Set<String> uits = new java.util.LinkedHashSet<>();
+        for (OfflineGPSData offlineData : batch) {
+            String uit = courseOf(offlineData);
+            if (uit != null) {
+                uits.add(uit);
+            }
+        }
         try {
-            // Folosește aceeași logică de transmisie ca în transmitGPSDataToServer
-            if (globalToken == null) {
-                Log.e(TAG, "❌ Cannot retry - token is null");
-                return false;
+            StripedExecutor lanes = courseLanes;
+            if (lanes == null) {
+                return sendOfflineBatchNow(batch);
             }
-            
-            // CRITICAL FIX: Verifică dacă cursa pentru această coordonată este încă ACTIVE
+            final OfflineDrainEngine.SendResult[] result = new OfflineDrainEngine.SendResult[1];
             try {
-                String uitFromData = offlineData.gpsData.getString("uit");
-                boolean courseStillActive = false;
-                
-                for (CourseData course : activeCourses.values()) {
-                    if (course.realUit.equals(uitFromData) && course.status == 2) {
-                        courseStillActive = true;
-                        break;
+                lanes.runInOrder(uits, () -> result[0] = sendOfflineBatchNow(batch));
+            } catch (InterruptedException e) {
+                // Drenarea se oprește - batch-ul revine în coadă fără încercare consumată
+                long now = System.currentTimeMillis();
+                for (OfflineGPSData offlineData : batch) {
+                    offlineQueue.offer(offlineData, nextRetryAt(now, offlineData.retryCount));
+                }
+                Thread.currentThread().interrupt();
+                return new OfflineDrainEngine.SendResult(0, 0, false);
+            }
+            return result[0];
+        } finally {
+            releaseCourses(uits);
+        }
+    }
+    
+    // BENZI PER CURSĂ: Rulează pe banda cursei, înaintea statusului - backlog-ul offline pleacă primul, în ordinea seq.
+    // false = statusul nu poate pleca încă (puncte rămase în coadă sau ținute de o drenare) și intră după ele în coadă
+    private boolean sendCourseBacklog(final String uit) {
+        java.util.List<OfflineGPSData> backlog;
+        synchronized (drainingCourses) {
+            if (drainingCourses.contains(uit)) {
+                return false;
+            }
+            backlog = offlineQueue.takeFirst(item -> uit.equals(courseOf(item)), OFFLINE_BY_SEQUENCE, Integer.MAX_VALUE);
+            if (backlog.isEmpty()) {
+                return true;
+            }
+            drainingCourses.add(uit);
+        }
+        try {
+            GpsLog.i(TAG, "📤 Backlog offline {} ({} puncte) înaintea statusului", uit, backlog.size());
+            for (int from = 0; from < backlog.size(); from += DRAIN_BATCH_SIZE) {
+                int to = Math.min(backlog.size(), from + DRAIN_BATCH_SIZE);
+                java.util.List<OfflineGPSData> chunk = new java.util.ArrayList<>(to - from);
+                for (OfflineGPSData offlineData : backlog.subList(from, to)) {
+                    if (isOfflinePayloadSendable(offlineData)) {
+                        chunk.add(offlineData);
                     }
                 }
-                
-                if (!courseStillActive) {
-                    Log.e(TAG, "🔶 OFFLINE RETRY SKIP: UIT " + uitFromData + " nu mai este ACTIVE - abandoning retry");
-                    return true; // Consider success pentru a elimina din coadă
+                if (chunk.isEmpty() || sendOfflineBatchNow(chunk).failed == 0) {
+                    continue;
                 }
-                
-                Log.e(TAG, "✅ OFFLINE RETRY VALID: UIT " + uitFromData + " încă ACTIVE - proceeding");
-            } catch (Exception statusCheck) {
-                Log.e(TAG, "⚠️ OFFLINE RETRY: Nu pot verifica status - proceeding anyway");
+                // Eșecurile sunt deja în coadă cu backoff - restul le urmează fără încercare consumată
+                long now = System.currentTimeMillis();
+                for (OfflineGPSData remaining : backlog.subList(to, backlog.size())) {
+                    offlineQueue.offer(remaining, nextRetryAt(now, remaining.retryCount));
+                }
+                return false;
             }
-            
-            java.net.URL url = new java.net.URL("https://www.euscagency.com/etsm_prod/platforme/transport/apk/gps.php");
-            javax.net.ssl.HttpsURLConnection conn = (javax.net.ssl.HttpsURLConnection) url.openConnection();
-            conn.setRequestMethod("POST");
-            conn.setRequestProperty("Content-Type", "application/json");
-            conn.setRequestProperty("Authorization", "Bearer " + globalToken);
-            conn.setRequestProperty("Accept", "application/json");
-            conn.setRequestProperty("User-Agent", "iTrack-OfflineRetry/1.0");
-            conn.setDoOutput(true);
-            conn.setConnectTimeout(10000); // 10 seconds pentru retry
-            conn.setReadTimeout(10000);
-            
-            // Send GPS data
-            try (java.io.OutputStream os = conn.getOutputStream()) {
-                byte[] input = offlineData.gpsData.toString().getBytes("utf-8");
-                os.write(input, 0, input.length);
+            return true;
+        } finally {
+            releaseCourses(java.util.Collections.singleton(uit));
+        }
+    }
+    
+    private void releaseCourses(java.util.Collection<String> uits) {
+        synchronized (drainingCourses) {
+            drainingCourses.removeAll(uits);
+        }
+    }
+    
+    private static String courseOf(OfflineGPSData offlineData) {
+        return offlineData.gpsData.optString("uit", null);
+    }
+    
+    private static boolean isCourseEnd(OfflineGPSData offlineData) {
+        int status = offlineData.gpsData.optInt("status", 2);
+        return status == 3 || status == 4;
+    }
+    
+    // Punctele din jurnal dinaintea numerotării nu au seq - sunt cele mai vechi
+    private static long sequenceOf(OfflineGPSData offlineData) {
+        return offlineData.gpsData.optLong("seq", -1);
+    }
+    
+    private static final java.util.Comparator<OfflineGPSData> OFFLINE_BY_SEQUENCE =
+        (a, b) -> Long.compare(sequenceOf(a), sequenceOf(b));
+    
+    // OFFLINE DRAIN: Un POST per batch (array) sau per punct dacă serverul nu acceptă array-uri
+    private OfflineDrainEngine.SendResult sendOfflineBatchNow(java.util.List<OfflineGPSData> batch) {
+        int delivered = 0;
+        int failed = 0;
+        
+        java.util.List<String> payloads = new java.util.ArrayList<>(batch.size());
+        for (OfflineGPSData offlineData : batch) {
+            payloads.add(offlineData.gpsData.toString());
+        }
+        
+        // FALLBACK: Codurile cu care binarul/array-ul au fost refuzate - modul se oprește doar dacă retrimiterea reușește
+        int binaryRejectedCode = 0;
+        int arrayRejectedCode = 0;
+        
+        // BINARY UPLOAD: Backlog-ul offline (de obicei pe rețea slabă) câștigă cel mai mult din formatul compact
+        byte[] binaryBody = batchUploader.isBinaryMode() ? GpsBinaryCodec.encodeBatch(payloads) : null;
+        if (binaryBody != null) {
+            int responseCode = postOfflineBinary(binaryBody);
+            if (GpsBatchUploader.isArrayRejected(responseCode)) {
+                // FALLBACK: serverul pare să nu înțeleagă formatul binar - același batch pleacă în JSON mai jos
+                binaryRejectedCode = responseCode;
+            } else {
+                for (OfflineGPSData offlineData : batch) {
+                    if (applyOfflineOutcome(offlineData, responseCode) == TransmissionOutcome.DELIVERED) {
+                        delivered++;
+                    } else {
+                        failed++;
+                    }
+                }
+                return new OfflineDrainEngine.SendResult(delivered, failed, responseCode > 0);
             }
+        }
+        
+        if (batch.size() > 1 && batchUploader.isArrayMode()) {
+            int responseCode = postOfflinePayload(GpsBatchUploader.toJsonArray(payloads));
             
-            int responseCode = conn.getResponseCode();
-            
-            if (responseCode >= 200 && responseCode < 300) {
-                Log.e(TAG, "✅ Offline GPS retry successful - response: " + responseCode);
-                return true;
+            if (GpsBatchUploader.isArrayRejected(responseCode)) {
+                // FALLBACK: serverul pare să nu accepte array - continuăm single-point mai jos
+                arrayRejectedCode = responseCode;
             } else {
-                Log.e(TAG, "❌ Offline GPS retry failed - response: " + responseCode);
-                return false;
+                for (OfflineGPSData offlineData : batch) {
+                    if (applyOfflineOutcome(offlineData, responseCode) == TransmissionOutcome.DELIVERED) {
+                        delivered++;
+                    } else {
+                        failed++;
+                    }
+                }
+                batchUploader.settleFallback(binaryRejectedCode, 0, delivered == batch.size());
+                return new OfflineDrainEngine.SendResult(delivered, failed, responseCode > 0);
             }
-            
+        }
+        
+        for (int i = 0; i < batch.size(); i++) {
+            OfflineGPSData offlineData = batch.get(i);
+            int responseCode = postOfflinePayload(payloads.get(i));
+            if (applyOfflineOutcome(offlineData, responseCode) == TransmissionOutcome.DELIVERED) {
+                delivered++;
+            } else {
+                failed++;
+            }
+            if (responseCode < 0) {
+                // Rețeaua a căzut - restul batch-ului revine în coadă fără încercare consumată
+                long now = System.currentTimeMillis();
+                for (int j = i + 1; j < batch.size(); j++) {
+                    OfflineGPSData remaining = batch.get(j);
+                    offlineQueue.offer(remaining, nextRetryAt(now, remaining.retryCount));
+                }
+                batchUploader.settleFallback(binaryRejectedCode, arrayRejectedCode, false);
+                return new OfflineDrainEngine.SendResult(delivered, failed, false);
+            }
+        }
+        batchUploader.settleFallback(binaryRejectedCode, arrayRejectedCode, delivered == batch.size());
+        return new OfflineDrainEngine.SendResult(delivered, failed, true);
+    }
+    
+    // OFFLINE DRAIN: Aplică rezultatul - confirmă, trimite în dead-letter sau reintroduce cu backoff
+    private TransmissionOutcome applyOfflineOutcome(OfflineGPSData offlineData, int responseCode) {
+        TransmissionOutcome outcome = TransmissionOutcome.classify(responseCode);
+        if (outcome == TransmissionOutcome.DELIVERED) {
+            offlinePointsSent.increment();
+            lastTransmissionMillis = System.currentTimeMillis();
+            acknowledgeOfflineData(offlineData);
+        } else if (outcome == TransmissionOutcome.DEAD_LETTER) {
+            addToDeadLetter(offlineData.gpsData.toString(), responseCode);
+            acknowledgeOfflineData(offlineData);
+        } else if (outcome == TransmissionOutcome.AUTH) {
+            // AUTH HOLD: Încercarea nu se consumă - punctul așteaptă token-ul nou
+            holdForNewToken(responseCode);
+            offlineQueue.offer(offlineData, nextRetryAt(System.currentTimeMillis(), offlineData.retryCount));
+        } else if (offlineData.retryCount < 10) { // Maxim 10 încercări
+            // EXPONENTIAL BACKOFF: Increase retry count și programează după backoff
+            int retryCount = offlineData.retryCount + 1;
+            offlineQueue.offer(new OfflineGPSData(
+                offlineData.journalId,
+                offlineData.gpsData,
+                offlineData.timestamp,
+                retryCount
+            ), nextRetryAt(System.currentTimeMillis(), retryCount));
+        } else {
+            GpsLog.e(TAG, "❌ GPS retry abandoned after 10 attempts for timestamp: {}", offlineData.timestamp);
+            acknowledgeOfflineData(offlineData);
+        }
+        return outcome;
+    }
+    
+    // OFFLINE JOURNAL: Punctul nu mai trebuie reluat la repornire (livrat sau abandonat definitiv)
+    private void acknowledgeOfflineData(OfflineGPSData offlineData) {
+        if (offlineJournal == null || offlineData.journalId < 0) {
+            return;
+        }
+        try {
+            offlineJournal.ack(offlineData.journalId);
         } catch (Exception e) {
-            Log.e(TAG, "❌ Offline GPS retry exception: " + e.getMessage());
-            return false;
+            GpsLog.e(TAG, "❌ Offline journal ack error: {}", e.getMessage());
+        }
+    }
+    
+    // OFFLINE RETRY: POST sincron pe thread-ul de drenare - returnează codul HTTP (-1 = fără răspuns)
+    private int postOfflineBinary(byte[] body) {
+        try {
+            int responseCode = gpsTransport.postBinary(body, GpsBinaryCodec.CONTENT_TYPE, "iTrack-OfflineRetry/1.0").code;
+            if (responseCode < 200 || responseCode >= 300) {
+                GpsLog.e(TAG, "❌ Offline GPS binary retry failed - response: {}", responseCode);
+            }
+            return responseCode;
+        } catch (Exception e) {
+            GpsLog.e(TAG, "❌ Offline GPS binary retry exception: {}", e.getMessage());
+            return -1;
+        }
+    }
+    
+    private int postOfflinePayload(String body) {
+        try {
+            // TRANSPORT: Același pool de conexiuni ca transmisia live
+            GpsTransport.Response response = gpsTransport.post(body, "iTrack-OfflineRetry/1.0");
+            batchUploader.onServerResponse(response); // NEGOCIERE: și backlog-ul poate aduce anunțul binar
+            int responseCode = response.code;
+            if (responseCode < 200 || responseCode >= 300) {
+                GpsLog.e(TAG, "❌ Offline GPS retry failed - response: {}", responseCode);
+            }
+            return responseCode;
+        } catch (Exception e) {
+            GpsLog.e(TAG, "❌ Offline GPS retry exception: {}", e.getMessage());
+            return -1;
         }
     }
     
@@ -1353,15 +2575,17 @@ public class BackgroundGPSService extends Service {
     
     // CLASA AUXILIARĂ: OfflineGPSData pentru stocarea coordonatelor GPS offline cu retry logic
     private static class OfflineGPSData {
+        public final long journalId; // -1 dacă jurnalul de pe disc nu e disponibil
         public final org.json.JSONObject gpsData;
         public final long timestamp;
         public final int retryCount;
         
-        public OfflineGPSData(org.json.JSONObject gpsData, long timestamp) {
-            this(gpsData, timestamp, 0);
+        public OfflineGPSData(long journalId, org.json.JSONObject gpsData, long timestamp) {
+            this(journalId, gpsData, timestamp, 0);
         }
         
-        public OfflineGPSData(org.json.JSONObject gpsData, long timestamp, int retryCount) {
+        public OfflineGPSData(long journalId, org.json.JSONObject gpsData, long timestamp, int retryCount) {
+            this.journalId = journalId;
             this.gpsData = gpsData;
             this.timestamp = timestamp;
             this.retryCount = retryCount;
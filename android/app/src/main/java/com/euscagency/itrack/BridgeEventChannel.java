@@ -0,0 +1,243 @@
+package com.euscagency.itrack;
+
+import org.json.JSONObject;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * CANAL EVENIMENTE NATIV → WEBVIEW - buffer circular limitat de evenimente tipizate
+ * Serviciul GPS publică evenimente (coadă offline, progres sincronizare, statistici, transmisie, erori);
+ * evenimentele de tip "valoare curentă" se coalesc - doar ultima valoare per cheie rămâne în buffer, deci
+ * actualizările frecvente nu împing afară log-urile și erorile.
+ * Livrarea push e grupată pe o fereastră de timp: un singur JSON array per dispatch, indiferent câte
+ * evenimente au apărut între timp. JS poate cere oricând evenimentele de după un cursor (pull),
+ * de exemplu la revenirea din background.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class BridgeEventChannel {
+
+    public enum Type {
+        LOG(false),
+        ERROR(false),
+        OFFLINE_QUEUE(true),
+        SYNC_PROGRESS(true),
+        TRANSMISSION(true),
+        ANALYTICS(true),     // cheie = cursa
+        DIAGNOSTICS(true);   // cheie = raportul (timing, filtru, treaptă de eșantionare)
+
+        final boolean coalesced;
+
+        Type(boolean coalesced) {
+            this.coalesced = coalesced;
+        }
+    }
+
+    // Destinația push - primește un JSON array cu evenimentele noi
+    public interface Sink {
+        void deliver(String eventsJson);
+    }
+
+    // Programează dispatch-ul la sfârșitul ferestrei (ex. Handler pe main thread)
+    public interface Scheduler {
+        void schedule(Runnable task, long delayMs);
+    }
+
+    private final int capacity;
+    private final long windowMs;
+
+    // Buffer circular în ordinea secvenței: head = cel mai vechi eveniment, size = evenimente păstrate
+    private final long[] seqs;
+    private final Type[] types;
+    private final String[] keys;
+    private final String[] messages;
+    private final long[] times;
+    private int head;
+    private int size;
+    private long nextSeq = 1;
+    private long lastEvictedSeq; // ultimul eveniment pierdut prin depășirea capacității
+    private final Map<String, Long> latestSeqByKey = new HashMap<>();
+
+    private Sink sink;
+    private Scheduler scheduler;
+    private long pushCursor;
+    private boolean dispatchPending;
+
+    private final Runnable dispatchTask = new Runnable() {
+        @Override
+        public void run() {
+            dispatch();
+        }
+    };
+
+    public BridgeEventChannel(int capacity, long windowMs) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity trebuie să fie cel puțin 1");
+        }
+        this.capacity = capacity;
+        this.windowMs = windowMs;
+        this.seqs = new long[capacity];
+        this.types = new Type[capacity];
+        this.keys = new String[capacity];
+        this.messages = new String[capacity];
+        this.times = new long[capacity];
+    }
+
+    public long publish(Type type, String message) {
+        return publish(type, type.coalesced ? type.name() : null, message);
+    }
+
+    // coalesceKey != null - evenimentul înlocuiește evenimentul anterior cu aceeași cheie
+    public long publish(Type type, String coalesceKey, String message) {
+        long seq;
+        Scheduler toSchedule = null;
+        synchronized (this) {
+            seq = nextSeq++;
+            String key = coalesceKey != null ? type.name() + ":" + coalesceKey : null;
+            if (key != null) {
+                Long previous = latestSeqByKey.put(key, seq);
+                if (previous != null) {
+                    remove(previous);
+                }
+            }
+            if (size == capacity) {
+                lastEvictedSeq = seqs[head];
+                forgetKey(head);
+                head = (head + 1) % capacity;
+                size--;
+            }
+            int slot = (head + size) % capacity;
+            seqs[slot] = seq;
+            types[slot] = type;
+            keys[slot] = key;
+            messages[slot] = message;
+            times[slot] = System.currentTimeMillis();
+            size++;
+            if (sink != null && !dispatchPending) {
+                dispatchPending = true;
+                toSchedule = scheduler;
+            }
+        }
+        // În afara lock-ului - scheduler-ul poate rula task-ul imediat
+        if (toSchedule != null) {
+            toSchedule.schedule(dispatchTask, windowMs);
+        }
+        return seq;
+    }
+
+    // Livrarea push pornește de la evenimentele publicate după atașare; cele vechi se cer prin pull
+    public synchronized void attach(Sink sink, Scheduler scheduler) {
+        this.sink = sink;
+        this.scheduler = scheduler;
+        this.pushCursor = nextSeq - 1;
+        this.dispatchPending = false;
+    }
+
+    public synchronized void detach() {
+        sink = null;
+        scheduler = null;
+        dispatchPending = false;
+    }
+
+    // Un singur JSON array cu tot ce s-a adunat în fereastră
+    void dispatch() {
+        Sink target;
+        String events;
+        synchronized (this) {
+            dispatchPending = false;
+            target = sink;
+            if (target == null || pushCursor >= nextSeq - 1) {
+                return;
+            }
+            events = eventsArray(pushCursor);
+            pushCursor = nextSeq - 1;
+        }
+        target.deliver(events);
+    }
+
+    // Pull: {"cursor":ultimul seq,"missed":true dacă au ieșit din buffer evenimente de după cursor,"events":[...]}
+    public synchronized String eventsSince(long cursor) {
+        long latest = nextSeq - 1;
+        boolean missed = lastEvictedSeq > cursor;
+        return "{\"cursor\":" + latest + ",\"missed\":" + missed + ",\"events\":" + eventsArray(cursor) + "}";
+    }
+
+    public synchronized long getLatestSeq() {
+        return nextSeq - 1;
+    }
+
+    // Logout - secvența continuă, deci cursoarele din JS rămân valide
+    public synchronized void clear() {
+        for (int i = 0; i < capacity; i++) {
+            keys[i] = null;
+            messages[i] = null;
+        }
+        head = 0;
+        size = 0;
+        latestSeqByKey.clear();
+        pushCursor = nextSeq - 1;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    // Scoate evenimentul înlocuit și compactează - O(capacity), capacitatea e mică
+    private void remove(long seq) {
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % capacity;
+            if (seqs[slot] != seq) {
+                continue;
+            }
+            for (int j = i; j < size - 1; j++) {
+                int to = (head + j) % capacity;
+                int from = (head + j + 1) % capacity;
+                seqs[to] = seqs[from];
+                types[to] = types[from];
+                keys[to] = keys[from];
+                messages[to] = messages[from];
+                times[to] = times[from];
+            }
+            size--;
+            int last = (head + size) % capacity;
+            keys[last] = null;
+            messages[last] = null;
+            return;
+        }
+    }
+
+    private void forgetKey(int slot) {
+        String key = keys[slot];
+        if (key != null) {
+            Long latest = latestSeqByKey.get(key);
+            if (latest != null && latest == seqs[slot]) {
+                latestSeqByKey.remove(key);
+            }
+        }
+        keys[slot] = null;
+        messages[slot] = null;
+    }
+
+    private String eventsArray(long cursor) {
+        StringBuilder json = new StringBuilder("[");
+        boolean first = true;
+        for (int i = 0; i < size; i++) {
+            int slot = (head + i) % capacity;
+            long seq = seqs[slot];
+            if (seq <= cursor) {
+                continue;
+            }
+            if (!first) {
+                json.append(',');
+            }
+            first = false;
+            json.append("{\"seq\":").append(seq)
+                .append(",\"type\":\"").append(types[slot].name())
+                .append("\",\"time\":").append(times[slot])
+                .append(",\"message\":").append(JSONObject.quote(messages[slot]))
+                .append('}');
+        }
+        return json.append(']').toString();
+    }
+}
@@ -0,0 +1,79 @@
+package com.euscagency.itrack;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * TIMP PER CALLBACK GPS - cât durează procesarea unui LocationResult și pe ce thread a rulat
+ * Timpul pe main thread e cel care concurează cu WebView-ul Capacitor; după mutarea pe thread-ul
+ * de procesare trebuie să rămână zero. Înregistrarea e lock-free (un callback la câteva secunde).
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class CallbackTimingStats {
+
+    public static final class Snapshot {
+        public final long mainThreadCallbacks;
+        public final long mainThreadTotalNanos;
+        public final long mainThreadMaxNanos;
+        public final long workerCallbacks;
+        public final long workerTotalNanos;
+        public final long workerMaxNanos;
+
+        Snapshot(long mainThreadCallbacks, long mainThreadTotalNanos, long mainThreadMaxNanos,
+                 long workerCallbacks, long workerTotalNanos, long workerMaxNanos) {
+            this.mainThreadCallbacks = mainThreadCallbacks;
+            this.mainThreadTotalNanos = mainThreadTotalNanos;
+            this.mainThreadMaxNanos = mainThreadMaxNanos;
+            this.workerCallbacks = workerCallbacks;
+            this.workerTotalNanos = workerTotalNanos;
+            this.workerMaxNanos = workerMaxNanos;
+        }
+
+        public long mainThreadAverageMicros() {
+            return mainThreadCallbacks == 0 ? 0 : mainThreadTotalNanos / mainThreadCallbacks / 1000;
+        }
+
+        public long workerAverageMicros() {
+            return workerCallbacks == 0 ? 0 : workerTotalNanos / workerCallbacks / 1000;
+        }
+
+        // Format compact pentru bridge-ul JS: main count/avgUs/maxUs | worker count/avgUs/maxUs
+        public String toBridgeString() {
+            return mainThreadCallbacks + "/" + mainThreadAverageMicros() + "/" + (mainThreadMaxNanos / 1000)
+                + "|" + workerCallbacks + "/" + workerAverageMicros() + "/" + (workerMaxNanos / 1000);
+        }
+    }
+
+    private final AtomicLong mainCount = new AtomicLong();
+    private final AtomicLong mainTotal = new AtomicLong();
+    private final AtomicLong mainMax = new AtomicLong();
+    private final AtomicLong workerCount = new AtomicLong();
+    private final AtomicLong workerTotal = new AtomicLong();
+    private final AtomicLong workerMax = new AtomicLong();
+
+    // Returnează numărul total de callback-uri înregistrate (pentru raportare periodică)
+    public long record(long elapsedNanos, boolean onMainThread) {
+        if (onMainThread) {
+            mainTotal.addAndGet(elapsedNanos);
+            updateMax(mainMax, elapsedNanos);
+            return mainCount.incrementAndGet() + workerCount.get();
+        }
+        workerTotal.addAndGet(elapsedNanos);
+        updateMax(workerMax, elapsedNanos);
+        return workerCount.incrementAndGet() + mainCount.get();
+    }
+
+    public Snapshot snapshot() {
+        return new Snapshot(mainCount.get(), mainTotal.get(), mainMax.get(),
+            workerCount.get(), workerTotal.get(), workerMax.get());
+    }
+
+    private static void updateMax(AtomicLong max, long value) {
+        long current;
+        while (value > (current = max.get())) {
+            if (max.compareAndSet(current, value)) {
+                return;
+            }
+        }
+    }
+}
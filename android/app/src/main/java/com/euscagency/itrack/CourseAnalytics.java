@@ -0,0 +1,335 @@
+package com.euscagency.itrack;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * STATISTICI CURSĂ - agregare incrementală per cursă, direct din fix-urile serviciului GPS
+ * Odometru haversine, timp în mișcare/oprit, viteză maximă/medie, opriri detectate și pauze manuale
+ * (status 2/3/4). Fiecare fix costă O(1) - fără recalculare pe tot traseul; traseul pentru hartă e un
+ * buffer circular de dimensiune fixă. JavaScript citește un instantaneu doar când are nevoie de el,
+ * deci statisticile continuă și cu WebView-ul suspendat.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class CourseAnalytics {
+
+    // Aceleași praguri ca în courseAnalytics.ts
+    static final float MOVING_SPEED_KMH = 2f;          // Sub 2 km/h vehiculul e considerat oprit
+    static final float RESUME_SPEED_KMH = 5f;          // Histerezis - zgomotul de viteză la staționare nu închide oprirea
+    static final double MIN_SEGMENT_METERS = 5;        // Deplasări mai mici sunt zgomot GPS
+    static final float MAX_ACCURACY_METERS = 25f;      // Doar fix-urile precise intră în odometru și pe hartă
+    static final long MAX_FIX_GAP_MS = 10 * 60 * 1000L; // Goluri mai mari nu se contorizează ca timp
+    static final long MIN_STOP_MS = 2 * 60 * 1000L;    // Opririle sub 2 minute nu se numără
+    static final int DEFAULT_ROUTE_CAPACITY = 1000;
+
+    public final String realUit;
+    public final String ikRoTrans;
+    public final String vehicleNumber;
+
+    private final long startTimeMillis;
+    private long endTimeMillis;
+    private int status = CourseRegistry.STATUS_ACTIVE;
+
+    // Odometru - ancora avansează doar după o deplasare mai mare decât incertitudinea celor două fix-uri,
+    // altfel jitter-ul de la staționare s-ar aduna; deplasarea lentă nu se pierde, ancora doar așteaptă
+    private GpsFix anchor;
+    private GpsFix previousFix;
+    private double distanceMeters;
+
+    private long movingMs;
+    private long stoppedMs;     // Doar opririle de cel puțin MIN_STOP_MS
+    private long stopStartMillis = -1; // >= 0 cât timp vehiculul e oprit
+    private int stopCount;
+    private float maxSpeedKmh;
+    private long fixCount;
+    private long lastUpdateMillis;
+
+    private int manualPauses;
+    private long pausedMs;
+    private long pauseStartMillis = -1;
+
+    // Traseu pentru hartă - ultimele routeCapacity puncte precise
+    private final double[] routeLat;
+    private final double[] routeLng;
+    private final long[] routeTime;
+    private final float[] routeSpeedKmh;
+    private final float[] routeAccuracy;
+    private final boolean[] routeManualPause;
+    private int routeHead;
+    private int routeSize;
+
+    public CourseAnalytics(String realUit, String ikRoTrans, String vehicleNumber, long startTimeMillis) {
+        this(realUit, ikRoTrans, vehicleNumber, startTimeMillis, DEFAULT_ROUTE_CAPACITY);
+    }
+
+    public CourseAnalytics(String realUit, String ikRoTrans, String vehicleNumber, long startTimeMillis, int routeCapacity) {
+        if (routeCapacity < 1) {
+            throw new IllegalArgumentException("routeCapacity trebuie să fie cel puțin 1");
+        }
+        this.realUit = realUit;
+        this.ikRoTrans = ikRoTrans;
+        this.vehicleNumber = vehicleNumber;
+        this.startTimeMillis = startTimeMillis;
+        this.lastUpdateMillis = startTimeMillis;
+        this.routeLat = new double[routeCapacity];
+        this.routeLng = new double[routeCapacity];
+        this.routeTime = new long[routeCapacity];
+        this.routeSpeedKmh = new float[routeCapacity];
+        this.routeAccuracy = new float[routeCapacity];
+        this.routeManualPause = new boolean[routeCapacity];
+    }
+
+    // Un fix acceptat pentru cursă (status 2) - O(1)
+    public synchronized void onFix(GpsFix fix) {
+        if (status != CourseRegistry.STATUS_ACTIVE) {
+            return;
+        }
+        fixCount++;
+        lastUpdateMillis = fix.timeMillis;
+        float speedKmh = fix.speedMps * 3.6f;
+        if (speedKmh > maxSpeedKmh) {
+            maxSpeedKmh = speedKmh;
+        }
+
+        long elapsed = previousFix != null ? fix.timeMillis - previousFix.timeMillis : 0;
+        if (previousFix != null) {
+            if (elapsed > 0 && elapsed <= MAX_FIX_GAP_MS) {
+                if (stopStartMillis < 0 && speedKmh < MOVING_SPEED_KMH) {
+                    stopStartMillis = previousFix.timeMillis;
+                } else if (stopStartMillis >= 0 && speedKmh >= RESUME_SPEED_KMH) {
+                    closeStop(previousFix.timeMillis);
+                }
+                if (stopStartMillis < 0) {
+                    movingMs += elapsed;
+                }
+            } else if (elapsed > MAX_FIX_GAP_MS) {
+                // Gol de date - oprirea în curs se închide la ultimul fix cunoscut
+                closeStop(previousFix.timeMillis);
+            }
+        }
+        if (elapsed >= 0) {
+            previousFix = fix; // Un fix întârziat nu mută referința de timp înapoi
+        }
+
+        if (fix.accuracy > MAX_ACCURACY_METERS) {
+            return;
+        }
+        if (anchor == null) {
+            anchor = fix;
+        } else {
+            double segment = GeoMath.distanceMeters(anchor, fix);
+            if (segment >= Math.max(MIN_SEGMENT_METERS, anchor.accuracy + fix.accuracy)) {
+                distanceMeters += segment;
+                anchor = fix;
+            }
+        }
+        addRoutePoint(fix.latitude, fix.longitude, fix.timeMillis, speedKmh, fix.accuracy, false);
+    }
+
+    // Tranziție de status: 2=ACTIV/RESUME, 3=PAUZĂ manuală, 4=STOP
+    public synchronized void onStatus(int newStatus, long nowMillis) {
+        if (newStatus == status || status == CourseRegistry.STATUS_STOPPED) {
+            return;
+        }
+        lastUpdateMillis = nowMillis;
+        if (status == CourseRegistry.STATUS_ACTIVE) {
+            closeStop(previousFix != null ? previousFix.timeMillis : nowMillis);
+        } else if (status == CourseRegistry.STATUS_PAUSED && pauseStartMillis >= 0) {
+            pausedMs += Math.max(0, nowMillis - pauseStartMillis);
+            pauseStartMillis = -1;
+        }
+
+        if (newStatus == CourseRegistry.STATUS_PAUSED) {
+            manualPauses++;
+            pauseStartMillis = nowMillis;
+            GpsFix last = previousFix;
+            if (last != null) {
+                addRoutePoint(last.latitude, last.longitude, nowMillis, 0f, last.accuracy, true);
+            }
+        } else if (newStatus == CourseRegistry.STATUS_STOPPED) {
+            endTimeMillis = nowMillis;
+        }
+        // GPS-ul nu urmărește cursa în pauză - traseul și timpul reîncep de la primul fix de după
+        previousFix = null;
+        anchor = null;
+        status = newStatus;
+    }
+
+    private void closeStop(long endMillis) {
+        if (stopStartMillis < 0) {
+            return;
+        }
+        long duration = endMillis - stopStartMillis;
+        if (duration >= MIN_STOP_MS) {
+            stoppedMs += duration;
+            stopCount++;
+        }
+        stopStartMillis = -1;
+    }
+
+    private void addRoutePoint(double lat, double lng, long time, float speedKmh, float accuracy, boolean manualPause) {
+        routeLat[routeHead] = lat;
+        routeLng[routeHead] = lng;
+        routeTime[routeHead] = time;
+        routeSpeedKmh[routeHead] = speedKmh;
+        routeAccuracy[routeHead] = accuracy;
+        routeManualPause[routeHead] = manualPause;
+        routeHead = (routeHead + 1) % routeLat.length;
+        if (routeSize < routeLat.length) {
+            routeSize++;
+        }
+    }
+
+    public synchronized int getStatus() {
+        return status;
+    }
+
+    public synchronized long getLastUpdateMillis() {
+        return lastUpdateMillis;
+    }
+
+    public synchronized double getDistanceMeters() {
+        return distanceMeters;
+    }
+
+    // Instantaneu imutabil - cost proporțional cu traseul, plătit doar la cerere
+    public synchronized Snapshot snapshot(long nowMillis, boolean includeRoute) {
+        long ongoingStopMs = 0;
+        int ongoingStops = 0;
+        if (stopStartMillis >= 0 && previousFix != null && previousFix.timeMillis - stopStartMillis >= MIN_STOP_MS) {
+            ongoingStopMs = previousFix.timeMillis - stopStartMillis;
+            ongoingStops = 1;
+        }
+        long ongoingPauseMs = pauseStartMillis >= 0 ? Math.max(0, nowMillis - pauseStartMillis) : 0;
+
+        int points = includeRoute ? routeSize : 0;
+        double[] route = new double[points * 2];
+        long[] times = new long[points];
+        float[] speeds = new float[points];
+        float[] accuracies = new float[points];
+        boolean[] pauses = new boolean[points];
+        int first = (routeHead - routeSize + routeLat.length) % routeLat.length;
+        for (int i = 0; i < points; i++) {
+            int index = (first + i) % routeLat.length;
+            route[2 * i] = routeLat[index];
+            route[2 * i + 1] = routeLng[index];
+            times[i] = routeTime[index];
+            speeds[i] = routeSpeedKmh[index];
+            accuracies[i] = routeAccuracy[index];
+            pauses[i] = routeManualPause[index];
+        }
+
+        return new Snapshot(realUit, ikRoTrans, vehicleNumber, status, startTimeMillis, endTimeMillis, lastUpdateMillis,
+            distanceMeters, movingMs, stoppedMs + ongoingStopMs, stopCount + ongoingStops, maxSpeedKmh,
+            manualPauses, pausedMs + ongoingPauseMs, fixCount, route, times, speeds, accuracies, pauses);
+    }
+
+    public static final class Snapshot {
+        public final String realUit;
+        public final String ikRoTrans;
+        public final String vehicleNumber;
+        public final int status;
+        public final long startTimeMillis;
+        public final long endTimeMillis; // 0 cât timp cursa nu e oprită
+        public final long lastUpdateMillis;
+        public final double distanceMeters;
+        public final long movingMs;
+        public final long stoppedMs;
+        public final int stopCount;
+        public final float maxSpeedKmh;
+        public final int manualPauses;
+        public final long pausedMs;
+        public final long fixCount;
+        private final double[] route;
+        private final long[] routeTimes;
+        private final float[] routeSpeeds;
+        private final float[] routeAccuracies;
+        private final boolean[] routeManualPauses;
+
+        Snapshot(String realUit, String ikRoTrans, String vehicleNumber, int status, long startTimeMillis,
+                 long endTimeMillis, long lastUpdateMillis, double distanceMeters, long movingMs, long stoppedMs,
+                 int stopCount, float maxSpeedKmh, int manualPauses, long pausedMs, long fixCount, double[] route,
+                 long[] routeTimes, float[] routeSpeeds, float[] routeAccuracies, boolean[] routeManualPauses) {
+            this.realUit = realUit;
+            this.ikRoTrans = ikRoTrans;
+            this.vehicleNumber = vehicleNumber;
+            this.status = status;
+            this.startTimeMillis = startTimeMillis;
+            this.endTimeMillis = endTimeMillis;
+            this.lastUpdateMillis = lastUpdateMillis;
+            this.distanceMeters = distanceMeters;
+            this.movingMs = movingMs;
+            this.stoppedMs = stoppedMs;
+            this.stopCount = stopCount;
+            this.maxSpeedKmh = maxSpeedKmh;
+            this.manualPauses = manualPauses;
+            this.pausedMs = pausedMs;
+            this.fixCount = fixCount;
+            this.route = route;
+            this.routeTimes = routeTimes;
+            this.routeSpeeds = routeSpeeds;
+            this.routeAccuracies = routeAccuracies;
+            this.routeManualPauses = routeManualPauses;
+        }
+
+        // Viteza medie în mișcare (km/h) - distanța împărțită la timpul de condus, ca în courseAnalytics.ts
+        public double averageSpeedKmh() {
+            return movingMs > 0 ? (distanceMeters / 1000.0) / (movingMs / 3600000.0) : 0;
+        }
+
+        public int getRoutePointCount() {
+            return routeTimes.length;
+        }
+
+        // Aceleași câmpuri ca CourseStatistics din courseAnalytics.ts (km, minute, km/h)
+        public JSONObject toJson() throws JSONException {
+            SimpleDateFormat iso = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+            iso.setTimeZone(TimeZone.getTimeZone("UTC"));
+
+            JSONObject json = new JSONObject();
+            json.put("uit", realUit);
+            json.put("ikRoTrans", ikRoTrans);
+            json.put("vehicleNumber", vehicleNumber);
+            json.put("status", status);
+            json.put("startTime", iso.format(new Date(startTimeMillis)));
+            if (endTimeMillis > 0) {
+                json.put("endTime", iso.format(new Date(endTimeMillis)));
+            }
+            json.put("lastUpdateTime", iso.format(new Date(lastUpdateMillis)));
+            json.put("totalDistance", distanceMeters / 1000.0);
+            json.put("drivingTime", Math.round(movingMs / 60000.0));
+            json.put("averageSpeed", averageSpeedKmh());
+            json.put("maxSpeed", (double) maxSpeedKmh);
+            json.put("totalStops", stopCount + manualPauses);
+            json.put("stopDuration", Math.round(stoppedMs / 60000.0));
+            json.put("manualPauses", manualPauses);
+            json.put("autoPauses", stopCount);
+            json.put("pausedTime", Math.round(pausedMs / 60000.0));
+            json.put("gpsFixes", fixCount);
+            json.put("isActive", status == CourseRegistry.STATUS_ACTIVE);
+
+            JSONArray points = new JSONArray();
+            for (int i = 0; i < routeTimes.length; i++) {
+                JSONObject point = new JSONObject();
+                point.put("lat", route[2 * i]);
+                point.put("lng", route[2 * i + 1]);
+                point.put("timestamp", iso.format(new Date(routeTimes[i])));
+                point.put("speed", (double) routeSpeeds[i]);
+                point.put("accuracy", (double) routeAccuracies[i]);
+                if (routeManualPauses[i]) {
+                    point.put("isManualPause", true);
+                }
+                points.put(point);
+            }
+            json.put("gpsPoints", points);
+            return json;
+        }
+    }
+}
@@ -0,0 +1,234 @@
+package com.euscagency.itrack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * REGISTRU CURSE - cursele serviciului GPS, indexate după cheia unică, ikRoTrans și UIT real
+ * Starea unei curse e imutabilă și versionată; schimbarea de status e un compare-and-set pe referința
+ * cursei, iar numărul de curse ACTIVE (status 2) e menținut la fiecare tranziție - fără scanări
+ * complete pe thread-ul GPS. Căutarea se face doar pe potriviri exacte (fără subșiruri în cheie).
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class CourseRegistry {
+
+    public static final int STATUS_ACTIVE = 2;
+    public static final int STATUS_PAUSED = 3;
+    public static final int STATUS_STOPPED = 4;
+
+    // Starea unei curse la o anumită versiune - se înlocuiește, nu se modifică
+    public static final class Course {
+        public final String key;          // vehicul_ikRoTrans_device_token
+        public final String ikRoTrans;    // identificatorul cursei din aplicație
+        public final String realUit;      // UIT real pentru transmisia către server
+        public final String vehicleNumber;
+        public final int status;          // 2=ACTIV, 3=PAUZA, 4=STOP
+        public final long version;
+        private final boolean removed;
+
+        Course(String key, String ikRoTrans, String realUit, String vehicleNumber, int status, long version, boolean removed) {
+            this.key = key;
+            this.ikRoTrans = ikRoTrans;
+            this.realUit = realUit;
+            this.vehicleNumber = vehicleNumber;
+            this.status = status;
+            this.version = version;
+            this.removed = removed;
+        }
+
+        public boolean isActive() {
+            return status == STATUS_ACTIVE && !removed;
+        }
+
+        Course withStatus(int newStatus, long newVersion) {
+            return new Course(key, ikRoTrans, realUit, vehicleNumber, newStatus, newVersion, false);
+        }
+
+        Course asRemoved(long newVersion) {
+            return new Course(key, ikRoTrans, realUit, vehicleNumber, status, newVersion, true);
+        }
+    }
+
+    private final ConcurrentHashMap<String, AtomicReference<Course>> byKey = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> keyByIkRoTrans = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, String> keyByRealUit = new ConcurrentHashMap<>();
+    private final AtomicInteger activeCount = new AtomicInteger();
+    private final AtomicLong versions = new AtomicLong();
+
+    // Adaugă sau înlocuiește cursa de la cheia dată - întoarce starea nouă
+    public Course put(String key, String ikRoTrans, String realUit, String vehicleNumber, int status) {
+        Course course = new Course(key, ikRoTrans, realUit != null ? realUit : ikRoTrans, vehicleNumber, status,
+            versions.incrementAndGet(), false);
+        while (true) {
+            AtomicReference<Course> ref = byKey.get(key);
+            if (ref == null) {
+                if (byKey.putIfAbsent(key, new AtomicReference<>(course)) == null) {
+                    onTransition(null, course);
+                    return course;
+                }
+                continue;
+            }
+            Course current = ref.get();
+            if (current.removed) {
+                byKey.remove(key, ref); // Eliminare în curs - o ajutăm să se termine
+                continue;
+            }
+            if (ref.compareAndSet(current, course)) {
+                onTransition(current, course);
+                return course;
+            }
+        }
+    }
+
+    public Course get(String key) {
+        AtomicReference<Course> ref = key != null ? byKey.get(key) : null;
+        if (ref == null) {
+            return null;
+        }
+        Course course = ref.get();
+        return course.removed ? null : course;
+    }
+
+    // Cheie unică, ikRoTrans sau UIT real - exact, în această ordine
+    public Course find(String identifier) {
+        if (identifier == null) {
+            return null;
+        }
+        Course course = get(identifier);
+        if (course != null) {
+            return course;
+        }
+        course = get(keyByIkRoTrans.get(identifier));
+        if (course != null && identifier.equals(course.ikRoTrans)) {
+            return course;
+        }
+        course = get(keyByRealUit.get(identifier));
+        if (course != null && identifier.equals(course.realUit)) {
+            return course;
+        }
+        return null;
+    }
+
+    // Tranziție condiționată - reușește doar dacă statusul curent e cel așteptat
+    public Course transition(String key, int expectedStatus, int newStatus) {
+        AtomicReference<Course> ref = byKey.get(key);
+        if (ref == null) {
+            return null;
+        }
+        while (true) {
+            Course current = ref.get();
+            if (current.removed || current.status != expectedStatus) {
+                return null;
+            }
+            Course next = current.withStatus(newStatus, versions.incrementAndGet());
+            if (ref.compareAndSet(current, next)) {
+                onTransition(current, next);
+                return next;
+            }
+        }
+    }
+
+    // Tranziție necondiționată - întoarce starea anterioară (null dacă cursa nu există)
+    public Course updateStatus(String key, int newStatus) {
+        AtomicReference<Course> ref = byKey.get(key);
+        if (ref == null) {
+            return null;
+        }
+        while (true) {
+            Course current = ref.get();
+            if (current.removed) {
+                return null;
+            }
+            Course next = current.withStatus(newStatus, versions.incrementAndGet());
+            if (ref.compareAndSet(current, next)) {
+                onTransition(current, next);
+                return current;
+            }
+        }
+    }
+
+    // Elimină cursa - întoarce ultima stare (null dacă nu exista)
+    public Course remove(String key) {
+        AtomicReference<Course> ref = byKey.get(key);
+        if (ref == null) {
+            return null;
+        }
+        while (true) {
+            Course current = ref.get();
+            if (current.removed) {
+                return null;
+            }
+            Course tombstone = current.asRemoved(versions.incrementAndGet());
+            if (ref.compareAndSet(current, tombstone)) {
+                byKey.remove(key, ref);
+                onTransition(current, null);
+                return current;
+            }
+        }
+    }
+
+    public void clear() {
+        for (String key : byKey.keySet()) {
+            remove(key);
+        }
+    }
+
+    public int getActiveCount() {
+        return activeCount.get();
+    }
+
+    public int size() {
+        return byKey.size();
+    }
+
+    public boolean isEmpty() {
+        return byKey.isEmpty();
+    }
+
+    // Există o cursă ACTIVĂ cu acest UIT real (verificare pentru punctele offline)
+    public boolean isRealUitActive(String realUit) {
+        Course course = find(realUit);
+        return course != null && realUit.equals(course.realUit) && course.isActive();
+    }
+
+    // Instantaneu al curselor curente - pentru transmisie și notificare
+    public List<Course> snapshot() {
+        List<Course> courses = new ArrayList<>(byKey.size());
+        for (AtomicReference<Course> ref : byKey.values()) {
+            Course course = ref.get();
+            if (!course.removed) {
+                courses.add(course);
+            }
+        }
+        return courses;
+    }
+
+    // Numărătorul și indexurile urmează fiecare CAS reușit - la un moment dat reflectă toate tranzițiile finalizate
+    private void onTransition(Course before, Course after) {
+        int delta = (after != null && after.isActive() ? 1 : 0) - (before != null && before.isActive() ? 1 : 0);
+        if (delta != 0) {
+            activeCount.addAndGet(delta);
+        }
+        if (before != null && (after == null || !before.ikRoTrans.equals(after.ikRoTrans))) {
+            keyByIkRoTrans.remove(before.ikRoTrans, before.key);
+        }
+        if (before != null && (after == null || !before.realUit.equals(after.realUit))) {
+            keyByRealUit.remove(before.realUit, before.key);
+        }
+        if (after != null) {
+            keyByIkRoTrans.put(after.ikRoTrans, after.key);
+            keyByRealUit.put(after.realUit, after.key);
+        }
+        // O eliminare întârziată poate șterge indexul unei curse re-adăugate între timp - starea curentă câștigă
+        Course live = get(after != null ? after.key : before.key);
+        if (live != null) {
+            keyByIkRoTrans.put(live.ikRoTrans, live.key);
+            keyByRealUit.put(live.realUit, live.key);
+        }
+    }
+}
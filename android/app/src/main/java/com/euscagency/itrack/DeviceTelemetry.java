@@ -0,0 +1,148 @@
+package com.euscagency.itrack;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * TELEMETRIE DISPOZITIV - baterie, semnal celular real și tipul rețelei, actualizate din evenimente
+ * Serviciul se abonează o singură dată (ACTION_BATTERY_CHANGED, schimbări de semnal/conexiune de date,
+ * NetworkCallback) și scrie aici doar când sistemul anunță o schimbare. Payload-ul GPS citește
+ * instantaneul curent - o singură citire volatilă, fără Binder, fără registerReceiver per fix.
+ * Instantaneul e imutabil; scrierile (rare) îl înlocuiesc prin compare-and-set.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class DeviceTelemetry {
+
+    public static final int UNKNOWN = -1;
+    public static final int UNKNOWN_DBM = Integer.MIN_VALUE;
+
+    // Rețeaua prin care pleacă upload-urile (rețeaua implicită a sistemului)
+    public enum Transport {
+        NONE,
+        WIFI,
+        CELLULAR,
+        ETHERNET,
+        OTHER
+    }
+
+    // Generația radio a conexiunii de date celulare
+    public enum Generation {
+        UNKNOWN("CELL"),
+        G2("2G"),
+        G3("3G"),
+        G4("4G"),
+        G5("5G");
+
+        final String label;
+
+        Generation(String label) {
+            this.label = label;
+        }
+    }
+
+    private final AtomicReference<Snapshot> current = new AtomicReference<>(
+        new Snapshot(UNKNOWN, false, UNKNOWN, UNKNOWN_DBM, Transport.NONE, Generation.UNKNOWN, 0));
+
+    // Citire lock-free - sigură din orice thread, inclusiv callback-ul GPS
+    public Snapshot snapshot() {
+        return current.get();
+    }
+
+    // ACTION_BATTERY_CHANGED: EXTRA_LEVEL / EXTRA_SCALE
+    public void onBatteryChanged(int level, int scale, boolean charging, long nowMillis) {
+        int percent = level >= 0 && scale > 0 ? Math.round(level * 100f / scale) : UNKNOWN;
+        Snapshot previous;
+        do {
+            previous = current.get();
+        } while (!current.compareAndSet(previous, new Snapshot(percent, charging,
+            previous.signalLevel, previous.signalDbm, previous.transport, previous.generation, nowMillis)));
+    }
+
+    // SignalStrength.getLevel() (0-4) și dBm-ul celulei servante (UNKNOWN_DBM dacă nu se știe)
+    public void onSignalChanged(int level, int dbm, long nowMillis) {
+        int clamped = level < 0 ? UNKNOWN : Math.min(level, 4);
+        Snapshot previous;
+        do {
+            previous = current.get();
+        } while (!current.compareAndSet(previous, new Snapshot(previous.batteryPercent, previous.charging,
+            clamped, dbm, previous.transport, previous.generation, nowMillis)));
+    }
+
+    public void onTransportChanged(Transport transport, long nowMillis) {
+        Snapshot previous;
+        do {
+            previous = current.get();
+            if (previous.transport == transport) {
+                return;
+            }
+        } while (!current.compareAndSet(previous, new Snapshot(previous.batteryPercent, previous.charging,
+            previous.signalLevel, previous.signalDbm, transport, previous.generation, nowMillis)));
+    }
+
+    public void onGenerationChanged(Generation generation, long nowMillis) {
+        Snapshot previous;
+        do {
+            previous = current.get();
+            if (previous.generation == generation) {
+                return;
+            }
+        } while (!current.compareAndSet(previous, new Snapshot(previous.batteryPercent, previous.charging,
+            previous.signalLevel, previous.signalDbm, previous.transport, generation, nowMillis)));
+    }
+
+    public static final class Snapshot {
+        public final int batteryPercent;  // UNKNOWN până la primul ACTION_BATTERY_CHANGED
+        public final boolean charging;
+        public final int signalLevel;     // 0-4, UNKNOWN fără abonare la semnal
+        public final int signalDbm;       // UNKNOWN_DBM sub Android 10 sau fără celulă servantă
+        public final Transport transport;
+        public final Generation generation;
+        public final long updatedAtMillis;
+        // Precalculate - payload-ul nu construiește nimic per fix
+        private final String batteryText;
+        private final String networkType;
+
+        Snapshot(int batteryPercent, boolean charging, int signalLevel, int signalDbm,
+                 Transport transport, Generation generation, long updatedAtMillis) {
+            this.batteryPercent = batteryPercent;
+            this.charging = charging;
+            this.signalLevel = signalLevel;
+            this.signalDbm = signalDbm;
+            this.transport = transport;
+            this.generation = generation;
+            this.updatedAtMillis = updatedAtMillis;
+            // Fallback-ul vechi pentru baterie necunoscută era "0%"
+            this.batteryText = (batteryPercent >= 0 ? batteryPercent : 0) + "%";
+            this.networkType = transport == Transport.CELLULAR ? generation.label : transport.name();
+        }
+
+        // "baterie" din payload, ex. "87%"
+        public String batteryText() {
+            return batteryText;
+        }
+
+        // "tip_retea" din payload: NONE, WIFI, ETHERNET, OTHER sau 2G/3G/4G/5G/CELL pentru date mobile
+        public String networkType() {
+            return networkType;
+        }
+
+        // "gsm_signal" din payload: nivelul real 0-4 pe date mobile; WiFi/fără rețea rămân 0 ca înainte,
+        // iar celular fără nivel cunoscut rămâne 3 (valoarea implicită veche)
+        public int gsmSignal() {
+            if (transport != Transport.CELLULAR) {
+                return 0;
+            }
+            return signalLevel >= 0 ? signalLevel : 3;
+        }
+
+        // Pentru getServiceStatus - vârsta arată cât de vechi e ultimul eveniment
+        public String toJson(long nowMillis) {
+            return "{\"batteryPercent\":" + batteryPercent
+                + ",\"charging\":" + charging
+                + ",\"signalLevel\":" + signalLevel
+                + ",\"signalDbm\":" + (signalDbm == UNKNOWN_DBM ? "null" : String.valueOf(signalDbm))
+                + ",\"networkType\":\"" + networkType + "\""
+                + ",\"ageMs\":" + (updatedAtMillis > 0 ? nowMillis - updatedAtMillis : -1) + "}";
+        }
+    }
+}
@@ -0,0 +1,202 @@
+package com.euscagency.itrack;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+/**
+ * FLIGHT RECORDER - buffer circular binar de dimensiune fixă cu ultimele evenimente ale serviciului GPS
+ * Fiecare înregistrare ocupă 4 long-uri (timp, antet, 2 argumente numerice) - fără String-uri construite
+ * la scriere: tag-ul și șablonul mesajului sunt constante, reținute o singură dată într-un tabel de
+ * string-uri, iar mesajul complet se compune doar la dump (JS sau adb shell dumpsys).
+ * Memoria e fixă indiferent cât rulează serviciul - cele mai vechi evenimente sunt suprascrise.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class FlightRecorder {
+
+    static final int ARG_LONG = 0;
+    static final int ARG_DOUBLE = 1;
+    static final int ARG_STRING = 2;
+    static final int ARG_BOOLEAN = 3;
+
+    // Tabelul de string-uri e limitat - după umplere, string-urile noi apar ca "?" în dump
+    static final int MAX_STRINGS = 1024;
+    private static final int LONGS_PER_RECORD = 4;
+    private static final String LEVELS = "??VDIWE";
+
+    private final int capacity;
+    private final long[] records;
+    private long nextSeq;
+    private final Map<String, Integer> stringIds = new HashMap<>();
+    private final String[] strings = new String[MAX_STRINGS];
+    private int stringCount = 1; // 0 = string nereținut
+
+    public FlightRecorder(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity trebuie să fie cel puțin 1");
+        }
+        this.capacity = capacity;
+        this.records = new long[capacity * LONGS_PER_RECORD];
+        this.strings[0] = "?";
+    }
+
+    public void record(long timeMillis, int level, String tag, String template) {
+        record(timeMillis, level, tag, template, 0, 0, ARG_LONG, 0, ARG_LONG);
+    }
+
+    // Antet: nivel (4 biți) | număr argumente (2) | tip a (2) | tip b (2) | id tag (16) | id șablon (16)
+    synchronized void record(long timeMillis, int level, String tag, String template,
+                             int argCount, long a, int typeA, long b, int typeB) {
+        long header = ((long) (level & 0xF) << 40)
+                | ((long) argCount << 38)
+                | ((long) typeA << 36)
+                | ((long) typeB << 34)
+                | ((long) intern(tag) << 16)
+                | intern(template);
+        int base = (int) (nextSeq % capacity) * LONGS_PER_RECORD;
+        records[base] = timeMillis;
+        records[base + 1] = header;
+        records[base + 2] = a;
+        records[base + 3] = b;
+        nextSeq++;
+    }
+
+    // Argumentele String devin id-uri în tabel - trebuie să fie valori puține (UIT, motiv), nu text liber
+    synchronized void record(long timeMillis, int level, String tag, String template, int argCount, Object a, Object b) {
+        record(timeMillis, level, tag, template, argCount, encode(a), typeOf(a), encode(b), typeOf(b));
+    }
+
+    public synchronized long getRecordedCount() {
+        return nextSeq;
+    }
+
+    public synchronized int size() {
+        return (int) Math.min(nextSeq, capacity);
+    }
+
+    // Logout - evenimentele se șterg, tabelul de string-uri rămâne (șabloanele sunt aceleași)
+    public synchronized void clear() {
+        nextSeq = 0;
+    }
+
+    // Text, o linie per eveniment, de la cel mai vechi la cel mai nou
+    public String dump() {
+        long[] copy;
+        long first;
+        long end;
+        String[] table;
+        synchronized (this) {
+            copy = records.clone();
+            end = nextSeq;
+            first = Math.max(0, nextSeq - capacity);
+            table = strings.clone();
+        }
+        SimpleDateFormat time = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        time.setTimeZone(TimeZone.getTimeZone("UTC"));
+        StringBuilder out = new StringBuilder();
+        out.append("FlightRecorder: ").append(end - first).append(" evenimente din ").append(end)
+            .append(" înregistrate\n");
+        Date date = new Date();
+        for (long seq = first; seq < end; seq++) {
+            int base = (int) (seq % capacity) * LONGS_PER_RECORD;
+            long header = copy[base + 1];
+            int level = (int) (header >>> 40) & 0xF;
+            int argCount = (int) (header >>> 38) & 0x3;
+            int typeA = (int) (header >>> 36) & 0x3;
+            int typeB = (int) (header >>> 34) & 0x3;
+            String tag = lookup(table, (int) (header >>> 16) & 0xFFFF);
+            String template = lookup(table, (int) header & 0xFFFF);
+            date.setTime(copy[base]);
+            out.append(time.format(date)).append(' ')
+                .append(level < LEVELS.length() ? LEVELS.charAt(level) : '?').append('/')
+                .append(tag).append(": ");
+            format(out, template, argCount,
+                argument(table, copy[base + 2], typeA), argument(table, copy[base + 3], typeB));
+            out.append('\n');
+        }
+        return out.toString();
+    }
+
+    // Înlocuiește "{}" cu argumentele, în ordine; argumentele în plus se adaugă la final
+    static void format(StringBuilder out, String template, int argCount, Object a, Object b) {
+        int used = 0;
+        int from = 0;
+        while (used < argCount) {
+            int at = template.indexOf("{}", from);
+            if (at < 0) {
+                break;
+            }
+            out.append(template, from, at).append(used == 0 ? a : b);
+            from = at + 2;
+            used++;
+        }
+        out.append(template, from, template.length());
+        for (; used < argCount; used++) {
+            out.append(' ').append(used == 0 ? a : b);
+        }
+    }
+
+    private int intern(String value) {
+        if (value == null) {
+            return 0;
+        }
+        Integer id = stringIds.get(value);
+        if (id != null) {
+            return id;
+        }
+        if (stringCount == MAX_STRINGS) {
+            return 0;
+        }
+        strings[stringCount] = value;
+        stringIds.put(value, stringCount);
+        return stringCount++;
+    }
+
+    private long encode(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return Double.doubleToRawLongBits(((Number) value).doubleValue());
+        }
+        if (value instanceof Number) {
+            return ((Number) value).longValue();
+        }
+        if (value instanceof Boolean) {
+            return (Boolean) value ? 1 : 0;
+        }
+        return intern(value != null ? value.toString() : "null");
+    }
+
+    private static int typeOf(Object value) {
+        if (value instanceof Double || value instanceof Float) {
+            return ARG_DOUBLE;
+        }
+        if (value instanceof Number) {
+            return ARG_LONG;
+        }
+        if (value instanceof Boolean) {
+            return ARG_BOOLEAN;
+        }
+        return ARG_STRING;
+    }
+
+    private static String lookup(String[] table, int id) {
+        String value = id < table.length ? table[id] : null;
+        return value != null ? value : "?";
+    }
+
+    private static Object argument(String[] table, long value, int type) {
+        switch (type) {
+            case ARG_DOUBLE:
+                return Double.longBitsToDouble(value);
+            case ARG_STRING:
+                return lookup(table, (int) value);
+            case ARG_BOOLEAN:
+                return value != 0;
+            default:
+                return value;
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package com.euscagency.itrack;
+
+/**
+ * CALCULE GEOGRAFICE - distanțe și unghiuri pentru pipeline-ul GPS (fără alocări)
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public final class GeoMath {
+
+    public static final double EARTH_RADIUS_METERS = 6371008.8;
+
+    private GeoMath() {
+    }
+
+    // Distanța haversine în metri
+    public static double distanceMeters(double lat1, double lng1, double lat2, double lng2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLng = Math.toRadians(lng2 - lng1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+            + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLng / 2) * Math.sin(dLng / 2);
+        return 2 * EARTH_RADIUS_METERS * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    public static double distanceMeters(GpsFix a, GpsFix b) {
+        return distanceMeters(a.latitude, a.longitude, b.latitude, b.longitude);
+    }
+
+    // Distanța de la p la segmentul a-b (proiecție locală plană - exactă la scara unui segment GPS)
+    public static double distanceToSegmentMeters(GpsFix p, GpsFix a, GpsFix b) {
+        double metersPerDegLat = Math.toRadians(EARTH_RADIUS_METERS);
+        double metersPerDegLng = metersPerDegLat * Math.cos(Math.toRadians(a.latitude));
+        double bx = (b.longitude - a.longitude) * metersPerDegLng;
+        double by = (b.latitude - a.latitude) * metersPerDegLat;
+        double px = (p.longitude - a.longitude) * metersPerDegLng;
+        double py = (p.latitude - a.latitude) * metersPerDegLat;
+        double lengthSquared = bx * bx + by * by;
+        double t = lengthSquared == 0 ? 0 : Math.max(0, Math.min(1, (px * bx + py * by) / lengthSquared));
+        double dx = px - t * bx;
+        double dy = py - t * by;
+        return Math.sqrt(dx * dx + dy * dy);
+    }
+
+    // Diferența absolută dintre două direcții (grade), în [0, 180]
+    public static float headingDelta(float bearingA, float bearingB) {
+        float delta = Math.abs(bearingA - bearingB) % 360f;
+        return delta > 180f ? 360f - delta : delta;
+    }
+}
@@ -0,0 +1,352 @@
+package com.euscagency.itrack;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * UPLOADER GPS CU BATCH - adună punctele GPS ale tuturor curselor active într-un singur POST (JSON array)
+ * Flush la dimensiune maximă, la vârsta maximă a batch-ului sau explicit la schimbare de status.
+ * Dacă serverul nu acceptă array-uri, trece permanent în modul single-point (un obiect JSON per POST).
+ * Opțional, batch-urile pleacă în formatul binar GpsBinaryCodec - după ce serverul îl anunță într-un răspuns
+ * JSON (negociere) sau explicit; dacă serverul îl refuză, revine permanent la JSON (același mecanism ca
+ * fallback-ul array → single-point) și nu mai ascultă de anunțuri.
+ * Un format refuzat se abandonează doar la 415 sau când retrimiterea aceluiași batch reușește complet -
+ * un 400/422 poate veni și de la un singur punct invalid, nu doar de la un server vechi.
+ * Fiecare batch știe cursele (UIT) din care are puncte - executorul le poate ordona per cursă.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class GpsBatchUploader {
+
+    // Coduri HTTP cu care un server vechi refuză un payload array - declanșează fallback single-point
+    private static final int[] ARRAY_REJECTED_CODES = {400, 415, 422};
+
+    public interface Listener {
+        // Punctele au ajuns la server (2xx)
+        void onPointsDelivered(List<String> points, int responseCode);
+
+        // Punctele NU au ajuns la server - responseCode = -1 pentru erori de rețea
+        void onPointsFailed(List<String> points, int responseCode, Exception error);
+    }
+
+    // Ceasul pentru vârsta batch-ului - virtual în simulatorul de replay
+    public interface Clock {
+        long now();
+    }
+
+    private final GpsTransport transport;
+    private final int maxBatchSize;
+    private final long maxBatchAgeMs;
+    private final Executor executor;
+    private final Listener listener;
+    private final Clock clock;
+
+    private final Object lock = new Object();
+    private List<String> pending = new ArrayList<>();
+    private Set<String> pendingKeys = new LinkedHashSet<>();
+    private long oldestPendingAt = 0;
+
+    private volatile String userAgent = "iTrack-BackgroundGPS/1.0";
+    private volatile boolean arrayMode = true;
+    private volatile boolean binaryMode = false;
+    private volatile boolean binaryNegotiation = false;
+    private volatile boolean binaryRefused = false;
+    private final java.util.concurrent.atomic.AtomicInteger inFlight = new java.util.concurrent.atomic.AtomicInteger();
+
+    public GpsBatchUploader(GpsTransport transport, int maxBatchSize, long maxBatchAgeMs, Executor executor, Listener listener) {
+        this(transport, maxBatchSize, maxBatchAgeMs, executor, listener, new Clock() {
+            @Override
+            public long now() {
+                return System.currentTimeMillis();
+            }
+        });
+    }
+
+    public GpsBatchUploader(GpsTransport transport, int maxBatchSize, long maxBatchAgeMs, Executor executor,
+                            Listener listener, Clock clock) {
+        this.transport = transport;
+        this.maxBatchSize = Math.max(1, maxBatchSize);
+        this.maxBatchAgeMs = maxBatchAgeMs;
+        this.executor = executor;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    public void setUserAgent(String userAgent) {
+        this.userAgent = userAgent;
+    }
+
+    public boolean isArrayMode() {
+        return arrayMode;
+    }
+
+    // Serverul a anunțat suportul pentru GpsBinaryCodec - batch-urile încearcă întâi formatul binar
+    public void enableBinaryMode() {
+        binaryMode = true;
+    }
+
+    // FALLBACK: Un batch binar/array a fost refuzat (codurile de respingere, 0 = nerefuzat) și retrimis
+    // în formatul următor - formatul refuzat se oprește doar dacă retrimiterea a livrat tot sau la 415
+    public void settleFallback(int binaryRejectedCode, int arrayRejectedCode, boolean resendDelivered) {
+        if (isFormatAbandoned(binaryRejectedCode, resendDelivered)) {
+            binaryMode = false;
+            binaryRefused = true; // Un anunț ulterior nu îl mai reactivează - ar alterna la fiecare batch
+        }
+        if (isFormatAbandoned(arrayRejectedCode, resendDelivered)) {
+            arrayMode = false;
+        }
+    }
+
+    public boolean isBinaryMode() {
+        return binaryMode;
+    }
+
+    // NEGOCIERE: Formatul binar pornește la primul răspuns care anunță o versiune GpsBinaryCodec compatibilă
+    public void allowBinaryNegotiation() {
+        binaryNegotiation = true;
+    }
+
+    // Răspuns de la gps.php (orice canal) - verifică anunțul de suport binar
+    public void onServerResponse(GpsTransport.Response response) {
+        if (binaryNegotiation && !binaryMode && !binaryRefused && response.isSuccessful()
+                && response.binaryVersion >= GpsBinaryCodec.VERSION) {
+            binaryMode = true;
+        }
+    }
+
+    // Upload-uri live în curs - backlog-ul offline le lasă să treacă primele
+    public int getInFlightCount() {
+        return inFlight.get();
+    }
+
+    public int getPendingCount() {
+        synchronized (lock) {
+            return pending.size();
+        }
+    }
+
+    // Adaugă un punct (JSON obiect serializat) - face flush automat la dimensiune sau vârstă
+    public void add(String pointJson) {
+        add(pointJson, null);
+    }
+
+    // Adaugă un punct al cursei key (UIT) - batch-ul expune cursele prin BatchTask.getKeys()
+    public void add(String pointJson, String key) {
+        BatchTask ready = null;
+        synchronized (lock) {
+            long now = clock.now();
+            if (pending.isEmpty()) {
+                oldestPendingAt = now;
+            }
+            pending.add(pointJson);
+            if (key != null) {
+                pendingKeys.add(key);
+            }
+            if (pending.size() >= maxBatchSize || now - oldestPendingAt >= maxBatchAgeMs) {
+                ready = drainPendingLocked();
+            }
+        }
+        if (ready != null) {
+            submit(ready);
+        }
+    }
+
+    // Flush periodic - trimite batch-ul doar dacă a depășit vârsta maximă
+    public void flushIfExpired() {
+        BatchTask ready = null;
+        synchronized (lock) {
+            if (!pending.isEmpty() && clock.now() - oldestPendingAt >= maxBatchAgeMs) {
+                ready = drainPendingLocked();
+            }
+        }
+        if (ready != null) {
+            submit(ready);
+        }
+    }
+
+    // Flush explicit (schimbare status, oprire cursă) - trimite tot ce e în așteptare
+    public void flush() {
+        BatchTask ready;
+        synchronized (lock) {
+            ready = drainPendingLocked();
+        }
+        if (ready != null) {
+            submit(ready);
+        }
+    }
+
+    // Renunță la punctele neexpediate (logout) - returnează ce era în așteptare
+    public List<String> clear() {
+        synchronized (lock) {
+            List<String> dropped = pending;
+            pending = new ArrayList<>();
+            pendingKeys = new LinkedHashSet<>();
+            return dropped;
+        }
+    }
+
+    private BatchTask drainPendingLocked() {
+        if (pending.isEmpty()) {
+            return null;
+        }
+        BatchTask ready = new BatchTask(this, pending, pendingKeys);
+        pending = new ArrayList<>();
+        pendingKeys = new LinkedHashSet<>();
+        return ready;
+    }
+
+    private void submit(BatchTask batch) {
+        executor.execute(batch);
+    }
+
+    // Rulează pe thread-ul executorului - POST sincron pentru un batch
+    void sendBatch(List<String> batch) {
+        inFlight.incrementAndGet();
+        try {
+            sendBatchNow(batch);
+        } finally {
+            inFlight.decrementAndGet();
+        }
+    }
+
+    private void sendBatchNow(List<String> batch) {
+        int binaryRejectedCode = 0;
+        if (binaryMode) {
+            binaryRejectedCode = sendBinary(batch);
+            if (binaryRejectedCode == 0) {
+                return;
+            }
+        }
+        if (batch.size() == 1 || !arrayMode) {
+            settleFallback(binaryRejectedCode, 0, sendIndividually(batch) == batch.size());
+            return;
+        }
+
+        int responseCode;
+        try {
+            responseCode = post(toJsonArray(batch));
+        } catch (Exception e) {
+            listener.onPointsFailed(batch, -1, e);
+            return;
+        }
+
+        if (responseCode >= 200 && responseCode < 300) {
+            listener.onPointsDelivered(batch, responseCode);
+            settleFallback(binaryRejectedCode, 0, true);
+        } else if (isArrayRejected(responseCode)) {
+            // FALLBACK: serverul pare să nu accepte array - single-point dacă punctele trec individual
+            settleFallback(binaryRejectedCode, responseCode, sendIndividually(batch) == batch.size());
+        } else {
+            listener.onPointsFailed(batch, responseCode, null);
+        }
+    }
+
+    // 0 = batch tratat (livrat sau raportat ca eșuat); altfel continuă în JSON: codul de respingere
+    // sau -1 dacă batch-ul nu se poate codifica binar
+    private int sendBinary(List<String> batch) {
+        byte[] body = GpsBinaryCodec.encodeBatch(batch);
+        if (body == null) {
+            return -1; // Punct în afara schemei - batch-ul acesta pleacă în JSON
+        }
+
+        int responseCode;
+        try {
+            responseCode = transport.postBinary(body, GpsBinaryCodec.CONTENT_TYPE, userAgent).code;
+        } catch (Exception e) {
+            listener.onPointsFailed(batch, -1, e);
+            return 0;
+        }
+
+        if (responseCode >= 200 && responseCode < 300) {
+            listener.onPointsDelivered(batch, responseCode);
+        } else if (isArrayRejected(responseCode)) {
+            // FALLBACK: serverul pare să nu înțeleagă formatul binar - același batch pleacă în JSON
+            return responseCode;
+        } else {
+            listener.onPointsFailed(batch, responseCode, null);
+        }
+        return 0;
+    }
+
+    // Returnează câte puncte au ajuns la server
+    private int sendIndividually(List<String> batch) {
+        int delivered = 0;
+        for (String point : batch) {
+            List<String> single = java.util.Collections.singletonList(point);
+            try {
+                int responseCode = post(point);
+                if (responseCode >= 200 && responseCode < 300) {
+                    delivered++;
+                    listener.onPointsDelivered(single, responseCode);
+                } else {
+                    listener.onPointsFailed(single, responseCode, null);
+                }
+            } catch (Exception e) {
+                listener.onPointsFailed(single, -1, e);
+            }
+        }
+        return delivered;
+    }
+
+    private int post(String body) throws java.io.IOException {
+        GpsTransport.Response response = transport.post(body, userAgent);
+        onServerResponse(response);
+        return response.code;
+    }
+
+    // Task-ul trimis pe executor - expune punctele pentru ca un task respins să nu fie pierdut
+    public static final class BatchTask implements Runnable {
+        private final GpsBatchUploader uploader;
+        private final List<String> points;
+        private final Set<String> keys;
+
+        BatchTask(GpsBatchUploader uploader, List<String> points, Set<String> keys) {
+            this.uploader = uploader;
+            this.points = points;
+            this.keys = keys;
+        }
+
+        public List<String> getPoints() {
+            return points;
+        }
+
+        // Cursele (UIT) cu puncte în batch, în ordinea primului punct
+        public Set<String> getKeys() {
+            return keys;
+        }
+
+        @Override
+        public void run() {
+            uploader.sendBatch(points);
+        }
+    }
+
+    static String toJsonArray(List<String> points) {
+        int length = 2;
+        for (String point : points) {
+            length += point.length() + 1;
+        }
+        StringBuilder sb = new StringBuilder(length);
+        sb.append('[');
+        for (int i = 0; i < points.size(); i++) {
+            if (i > 0) sb.append(',');
+            sb.append(points.get(i));
+        }
+        return sb.append(']').toString();
+    }
+
+    public static boolean isArrayRejected(int responseCode) {
+        for (int code : ARRAY_REJECTED_CODES) {
+            if (code == responseCode) return true;
+        }
+        return false;
+    }
+
+    // 415 spune explicit „nu înțeleg formatul”; 400/422 contează doar dacă retrimiterea a reușit
+    private static boolean isFormatAbandoned(int rejectedCode, boolean resendDelivered) {
+        return isArrayRejected(rejectedCode) && (resendDelivered || rejectedCode == 415);
+    }
+}
@@ -0,0 +1,699 @@
+package com.euscagency.itrack;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * FORMAT BINAR GPS - alternativă compactă la JSON array pentru batch-urile către gps.php
+ *   antet "iTG" + versiune, apoi corp comprimat deflate (zlib):
+ *   tabelă de string-uri (uit, numar_inmatriculare, baterie, tip_retea - fiecare o singură dată per batch),
+ *   apoi per punct: indici în tabelă + câmpuri varint; lat/lng în unități de 1e-7 grade și timestamp-ul
+ *   în secunde, ambele delta față de punctul anterior al aceluiași UIT (zigzag varint).
+ * Coordonatele păstrează exact cele 7 zecimale din JSON - decodarea reface payload-urile encoder-ului.
+ * Versiunea 2: tip_retea e opțional (index 0 = câmp absent, ca în payload-urile jurnalizate înainte).
+ * Versiunea 3: seq și point_id opționale (PointSequencer) - seq delta față de punctul anterior al UIT-ului,
+ *   point_id = prefixul "<deviceId>" din tabelă + contorul delta față de punctul anterior din batch.
+ *   Decodarea acceptă în continuare corpuri v2.
+ * Negocierea: fiecare POST JSON anunță VERSION în CAPABILITY_HEADER; formatul binar se folosește doar după
+ * ce serverul răspunde cu o versiune >= VERSION (GpsBatchUploader.allowBinaryNegotiation).
+ * Un punct care nu respectă schema (câmp necunoscut, valoare ne-întreagă) → encodeBatch întoarce null
+ * și batch-ul pleacă în JSON.
+ * Encodarea re-parsează JSON-ul punctelor și comprimă - costă mai mult CPU decât JSON array-ul
+ * (PayloadBenchmark); Deflater-ul și bufferele se refolosesc per thread, ca să rămână doar munca utilă.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public final class GpsBinaryCodec {
+
+    public static final String CONTENT_TYPE = "application/x-itrack-gps";
+    // NEGOCIERE: clientul trimite versiunea pe care o scrie; gps.php care o acceptă răspunde cu același header
+    public static final String CAPABILITY_HEADER = "X-iTrack-Binary";
+    static final int VERSION = 3;
+    private static final int MIN_DECODED_VERSION = 2;
+    private static final byte[] MAGIC = {'i', 'T', 'G'};
+
+    private static final long COORDINATE_SCALE = 10000000L;
+    private static final long DAY_SECONDS = 24 * 60 * 60;
+
+    // Ordinea câmpurilor din schema gps.php (aceeași ca GpsPayloadEncoder)
+    private static final String[] FIELDS = {"uit", "numar_inmatriculare", "lat", "lng", "viteza", "directie",
+        "altitudine", "hdop", "gsm_signal", "baterie", "status", "timestamp", "tip_retea", "seq", "point_id"};
+    private static final int UIT = 0, VEHICLE = 1, LAT = 2, LNG = 3, SPEED = 4, BEARING = 5, ALTITUDE = 6,
+        HDOP = 7, GSM = 8, BATTERY = 9, STATUS = 10, TIMESTAMP = 11, NETWORK = 12, SEQ = 13, POINT_ID = 14;
+    // Rândul intern: POINT_ID ține indexul prefixului, POINT_COUNTER numărul de după ultima cratimă
+    private static final int POINT_COUNTER = FIELDS.length, ROW_LENGTH = FIELDS.length + 1;
+
+    // Deflater-ul (alocare nativă de sute de KB la fiecare new) și bufferele de encodare, refolosite per thread
+    private static final ThreadLocal<EncoderScratch> SCRATCH = new ThreadLocal<EncoderScratch>() {
+        @Override
+        protected EncoderScratch initialValue() {
+            return new EncoderScratch();
+        }
+    };
+
+    private static final class EncoderScratch {
+        final Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+        final Buffer body = new Buffer(1024);
+        final Buffer framed = new Buffer(512);
+        final byte[] chunk = new byte[512];
+    }
+
+    // ByteArrayOutputStream cu acces la array-ul intern (fără copia dinaintea comprimării) și write(int)
+    // nesincronizat - buffer-ul nu iese din thread-ul lui, iar varint-urile se scriu byte cu byte
+    static final class Buffer extends ByteArrayOutputStream {
+        Buffer(int size) {
+            super(size);
+        }
+
+        @Override
+        public void write(int b) {
+            if (count == buf.length) {
+                buf = Arrays.copyOf(buf, buf.length * 2);
+            }
+            buf[count++] = (byte) b;
+        }
+
+        byte[] array() {
+            return buf;
+        }
+    }
+
+    private GpsBinaryCodec() {
+    }
+
+    // Punctele JSON (schema gps.php) → corp binar, sau null dacă vreun punct nu se poate reprezenta exact
+    public static byte[] encodeBatch(List<String> points) {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> stringIndex = new HashMap<>();
+        List<long[]> rows = new ArrayList<>(points.size());
+        for (String point : points) {
+            String[] values = parseFlatObject(point);
+            if (values == null) {
+                return null;
+            }
+            long[] row = new long[ROW_LENGTH];
+            row[UIT] = intern(values[UIT], strings, stringIndex);
+            row[VEHICLE] = intern(values[VEHICLE], strings, stringIndex);
+            row[BATTERY] = intern(values[BATTERY], strings, stringIndex);
+            row[NETWORK] = intern(values[NETWORK], strings, stringIndex);
+            try {
+                row[LAT] = parseFixed(values[LAT]);
+                row[LNG] = parseFixed(values[LNG]);
+                row[SPEED] = parseInteger(values[SPEED]);
+                row[BEARING] = parseInteger(values[BEARING]);
+                row[ALTITUDE] = parseInteger(values[ALTITUDE]);
+                row[HDOP] = parseInteger(values[HDOP]);
+                row[GSM] = parseInteger(values[GSM]);
+                row[STATUS] = parseInteger(values[STATUS]);
+                row[TIMESTAMP] = parseLocalSeconds(values[TIMESTAMP]);
+                if (values[SEQ] != null) {
+                    row[SEQ] = parseInteger(values[SEQ]);
+                    if (row[SEQ] < 1) {
+                        return null; // 0 = seq absent
+                    }
+                }
+                if (values[POINT_ID] != null) {
+                    int dash = values[POINT_ID].lastIndexOf('-');
+                    if (dash <= 0) {
+                        return null;
+                    }
+                    row[POINT_COUNTER] = parseInteger(values[POINT_ID].substring(dash + 1));
+                    row[POINT_ID] = intern(values[POINT_ID].substring(0, dash), strings, stringIndex);
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+            rows.add(row);
+        }
+
+        EncoderScratch scratch = SCRATCH.get();
+        Buffer body = scratch.body;
+        body.reset();
+        writeVarint(body, strings.size());
+        for (String value : strings) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            writeVarint(body, bytes.length);
+            body.write(bytes, 0, bytes.length);
+        }
+        writeVarint(body, rows.size());
+        Map<Long, long[]> previousByUit = new HashMap<>();
+        long previousCounter = 0;
+        for (long[] row : rows) {
+            long[] previous = previousByUit.get(row[UIT]);
+            writeVarint(body, row[UIT]);
+            writeVarint(body, row[VEHICLE]);
+            writeVarint(body, row[BATTERY]);
+            writeVarint(body, row[NETWORK]);
+            writeSigned(body, row[LAT] - (previous != null ? previous[LAT] : 0));
+            writeSigned(body, row[LNG] - (previous != null ? previous[LNG] : 0));
+            writeSigned(body, row[TIMESTAMP] - (previous != null ? previous[TIMESTAMP] : 0));
+            writeSigned(body, row[SPEED]);
+            writeSigned(body, row[BEARING]);
+            writeSigned(body, row[ALTITUDE]);
+            writeSigned(body, row[HDOP]);
+            writeSigned(body, row[GSM]);
+            writeSigned(body, row[STATUS]);
+            writeSigned(body, row[SEQ] - (previous != null ? previous[SEQ] : 0));
+            writeVarint(body, row[POINT_ID]);
+            if (row[POINT_ID] != 0) {
+                writeSigned(body, row[POINT_COUNTER] - previousCounter);
+                previousCounter = row[POINT_COUNTER];
+            }
+            previousByUit.put(row[UIT], row);
+        }
+        return frame(scratch);
+    }
+
+    // Corp binar → punctele JSON în forma GpsPayloadEncoder (referința pentru implementarea din gps.php)
+    public static List<String> decodeBatch(byte[] framed) throws IOException {
+        byte[] body = unframe(framed);
+        int version = framed[MAGIC.length];
+        int[] position = {0};
+        int stringCount = (int) readVarint(body, position);
+        String[] strings = new String[stringCount];
+        for (int i = 0; i < stringCount; i++) {
+            int length = (int) readVarint(body, position);
+            if (length < 0 || position[0] + length > body.length) {
+                throw new IOException("String trunchiat în batch-ul binar");
+            }
+            strings[i] = new String(body, position[0], length, StandardCharsets.UTF_8);
+            position[0] += length;
+        }
+        int count = (int) readVarint(body, position);
+        List<String> points = new ArrayList<>(count);
+        Map<Long, long[]> previousByUit = new HashMap<>();
+        long previousCounter = 0;
+        StringBuilder json = new StringBuilder(256);
+        for (int i = 0; i < count; i++) {
+            long[] row = new long[ROW_LENGTH];
+            row[UIT] = readVarint(body, position);
+            row[VEHICLE] = readVarint(body, position);
+            row[BATTERY] = readVarint(body, position);
+            row[NETWORK] = readVarint(body, position);
+            long[] previous = previousByUit.get(row[UIT]);
+            row[LAT] = readSigned(body, position) + (previous != null ? previous[LAT] : 0);
+            row[LNG] = readSigned(body, position) + (previous != null ? previous[LNG] : 0);
+            row[TIMESTAMP] = readSigned(body, position) + (previous != null ? previous[TIMESTAMP] : 0);
+            row[SPEED] = readSigned(body, position);
+            row[BEARING] = readSigned(body, position);
+            row[ALTITUDE] = readSigned(body, position);
+            row[HDOP] = readSigned(body, position);
+            row[GSM] = readSigned(body, position);
+            row[STATUS] = readSigned(body, position);
+            if (version >= 3) {
+                row[SEQ] = readSigned(body, position) + (previous != null ? previous[SEQ] : 0);
+                row[POINT_ID] = readVarint(body, position);
+                if (row[POINT_ID] != 0) {
+                    row[POINT_COUNTER] = readSigned(body, position) + previousCounter;
+                    previousCounter = row[POINT_COUNTER];
+                }
+            }
+            previousByUit.put(row[UIT], row);
+
+            json.setLength(0);
+            json.append("{\"uit\":");
+            appendString(json, lookup(strings, row[UIT]));
+            json.append(",\"numar_inmatriculare\":");
+            appendString(json, lookup(strings, row[VEHICLE]));
+            json.append(",\"lat\":");
+            appendFixed(json, row[LAT]);
+            json.append(",\"lng\":");
+            appendFixed(json, row[LNG]);
+            json.append(",\"viteza\":").append(row[SPEED]);
+            json.append(",\"directie\":").append(row[BEARING]);
+            json.append(",\"altitudine\":").append(row[ALTITUDE]);
+            json.append(",\"hdop\":").append(row[HDOP]);
+            json.append(",\"gsm_signal\":").append(row[GSM]);
+            json.append(",\"baterie\":");
+            appendString(json, lookup(strings, row[BATTERY]));
+            json.append(",\"status\":").append(row[STATUS]);
+            json.append(",\"timestamp\":\"");
+            appendLocalSeconds(json, row[TIMESTAMP]);
+            json.append('"');
+            if (row[NETWORK] != 0) {
+                json.append(",\"tip_retea\":");
+                appendString(json, lookup(strings, row[NETWORK]));
+            }
+            if (row[SEQ] != 0) {
+                json.append(",\"seq\":").append(row[SEQ]);
+            }
+            if (row[POINT_ID] != 0) {
+                json.append(",\"point_id\":");
+                appendString(json, lookup(strings, row[POINT_ID]) + "-" + row[POINT_COUNTER]);
+            }
+            json.append('}');
+            points.add(json.toString());
+        }
+        return points;
+    }
+
+    // ---- Schema JSON plată ----
+
+    // Valorile câmpurilor din schemă ca text (string-urile fără escape), sau null dacă obiectul nu se potrivește
+    static String[] parseFlatObject(String json) {
+        String[] values = new String[FIELDS.length];
+        boolean[] seen = new boolean[FIELDS.length];
+        int[] position = {skipWhitespace(json, 0)};
+        if (!expect(json, position, '{')) {
+            return null;
+        }
+        if (peek(json, position) == '}') {
+            return null;
+        }
+        int expectedField = 0;
+        while (true) {
+            if (peek(json, position) != '"') {
+                return null;
+            }
+            int field = matchFieldName(json, position, expectedField);
+            if (field < 0) {
+                String key = readJsonString(json, position);
+                if (key == null) {
+                    return null;
+                }
+                field = fieldIndex(key);
+            }
+            if (!expect(json, position, ':')) {
+                return null;
+            }
+            expectedField = field + 1;
+            if (field < 0 || seen[field]) {
+                return null;
+            }
+            seen[field] = true;
+            char first = peek(json, position);
+            if (first == '"') {
+                if (isNumericField(field)) {
+                    return null;
+                }
+                values[field] = readJsonString(json, position);
+                if (values[field] == null) {
+                    return null;
+                }
+            } else if (json.startsWith("null", position[0])) {
+                if (field != UIT && field != VEHICLE && field != BATTERY) {
+                    return null;
+                }
+                position[0] = skipWhitespace(json, position[0] + 4);
+            } else {
+                if (!isNumericField(field)) {
+                    return null;
+                }
+                int start = position[0];
+                int end = start;
+                while (end < json.length() && isNumberChar(json.charAt(end))) {
+                    end++;
+                }
+                if (end == start) {
+                    return null;
+                }
+                values[field] = json.substring(start, end);
+                position[0] = skipWhitespace(json, end);
+            }
+            char separator = peek(json, position);
+            position[0] = skipWhitespace(json, position[0] + 1);
+            if (separator == '}') {
+                break;
+            }
+            if (separator != ',') {
+                return null;
+            }
+        }
+        if (position[0] != json.length()) {
+            return null;
+        }
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (!seen[i] && i != NETWORK && i != SEQ && i != POINT_ID) {
+                return null;
+            }
+        }
+        return values;
+    }
+
+    private static boolean isNumericField(int field) {
+        return field != UIT && field != VEHICLE && field != BATTERY && field != TIMESTAMP && field != NETWORK
+            && field != POINT_ID;
+    }
+
+    private static boolean isNumberChar(char c) {
+        return (c >= '0' && c <= '9') || c == '-' || c == '+' || c == '.' || c == 'e' || c == 'E';
+    }
+
+    // Cheia de la position (ghilimele incluse) comparată direct cu numele din schemă, fără String nou;
+    // întâi câmpul așteptat în ordinea GpsPayloadEncoder. -1 = nimic potrivit (ex. cheie cu escape-uri)
+    private static int matchFieldName(String json, int[] position, int expectedField) {
+        for (int n = 0; n < FIELDS.length; n++) {
+            int field = (expectedField + n) % FIELDS.length;
+            String name = FIELDS[field];
+            int end = position[0] + 1 + name.length();
+            if (end < json.length() && json.charAt(end) == '"' && json.regionMatches(position[0] + 1, name, 0, name.length())) {
+                position[0] = skipWhitespace(json, end + 1);
+                return field;
+            }
+        }
+        return -1;
+    }
+
+    private static int fieldIndex(String key) {
+        for (int i = 0; i < FIELDS.length; i++) {
+            if (FIELDS[i].equals(key)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static String readJsonString(String json, int[] position) {
+        // Cazul obișnuit, fără escape-uri: un singur substring
+        int close = json.indexOf('"', position[0] + 1);
+        if (close > 0) {
+            int backslash = json.indexOf('\\', position[0] + 1);
+            if (backslash < 0 || backslash > close) {
+                String value = json.substring(position[0] + 1, close);
+                position[0] = skipWhitespace(json, close + 1);
+                return value;
+            }
+        }
+        StringBuilder value = new StringBuilder();
+        int i = position[0] + 1;
+        while (i < json.length()) {
+            char c = json.charAt(i++);
+            if (c == '"') {
+                position[0] = skipWhitespace(json, i);
+                return value.toString();
+            }
+            if (c != '\\') {
+                value.append(c);
+                continue;
+            }
+            if (i >= json.length()) {
+                return null;
+            }
+            char escaped = json.charAt(i++);
+            switch (escaped) {
+                case '"': value.append('"'); break;
+                case '\\': value.append('\\'); break;
+                case '/': value.append('/'); break;
+                case 'b': value.append('\b'); break;
+                case 'f': value.append('\f'); break;
+                case 'n': value.append('\n'); break;
+                case 'r': value.append('\r'); break;
+                case 't': value.append('\t'); break;
+                case 'u':
+                    if (i + 4 > json.length()) {
+                        return null;
+                    }
+                    try {
+                        value.append((char) Integer.parseInt(json.substring(i, i + 4), 16));
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                    i += 4;
+                    break;
+                default:
+                    return null;
+            }
+        }
+        return null;
+    }
+
+    private static boolean expect(String json, int[] position, char c) {
+        if (peek(json, position) != c) {
+            return false;
+        }
+        position[0] = skipWhitespace(json, position[0] + 1);
+        return true;
+    }
+
+    private static char peek(String json, int[] position) {
+        return position[0] < json.length() ? json.charAt(position[0]) : 0;
+    }
+
+    private static int skipWhitespace(String json, int i) {
+        while (i < json.length() && Character.isWhitespace(json.charAt(i))) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int intern(String value, List<String> strings, Map<String, Integer> index) {
+        if (value == null) {
+            return 0;
+        }
+        Integer existing = index.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        strings.add(value);
+        index.put(value, strings.size());
+        return strings.size(); // 0 rezervat pentru null
+    }
+
+    private static String lookup(String[] strings, long index) throws IOException {
+        if (index == 0) {
+            return null;
+        }
+        if (index > strings.length) {
+            throw new IOException("Index string invalid: " + index);
+        }
+        return strings[(int) index - 1];
+    }
+
+    // ---- Numere ----
+
+    // Întreg JSON canonic (fără zerouri în față, fără zecimale) - altfel nu e reprezentabil exact
+    static long parseInteger(String text) {
+        int start = text.startsWith("-") ? 1 : 0;
+        if (text.length() == start || text.length() - start > 18
+                || (text.charAt(start) == '0' && text.length() > start + 1)) {
+            throw new NumberFormatException(text);
+        }
+        for (int i = start; i < text.length(); i++) {
+            if (text.charAt(i) < '0' || text.charAt(i) > '9') {
+                throw new NumberFormatException(text);
+            }
+        }
+        return Long.parseLong(text);
+    }
+
+    // Coordonată zecimală cu cel mult 7 zecimale → unități de 1e-7 grade, fără trecere prin double
+    static long parseFixed(String text) {
+        boolean negative = text.startsWith("-");
+        int start = negative ? 1 : 0;
+        int dot = text.indexOf('.');
+        int integerEnd = dot < 0 ? text.length() : dot;
+        int fractionLength = dot < 0 ? 0 : text.length() - dot - 1;
+        if (integerEnd == start || integerEnd - start > 3 || fractionLength > 7 || (dot >= 0 && fractionLength == 0)) {
+            throw new NumberFormatException(text);
+        }
+        long scaled = parseDigits(text, start, integerEnd) * COORDINATE_SCALE;
+        long fraction = fractionLength == 0 ? 0 : parseDigits(text, dot + 1, text.length());
+        for (int i = fractionLength; i < 7; i++) {
+            fraction *= 10;
+        }
+        scaled += fraction;
+        return negative ? -scaled : scaled;
+    }
+
+    private static long parseDigits(String text, int start, int end) {
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            char c = text.charAt(i);
+            if (c < '0' || c > '9') {
+                throw new NumberFormatException(text);
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
+
+    // Aceeași formă ca GpsPayloadEncoder: 7 zecimale, fără zerouri finale
+    private static void appendFixed(StringBuilder json, long scaled) {
+        if (scaled < 0) {
+            json.append('-');
+            scaled = -scaled;
+        }
+        json.append(scaled / COORDINATE_SCALE);
+        long fraction = scaled % COORDINATE_SCALE;
+        if (fraction == 0) {
+            return;
+        }
+        int digits = 7;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        json.append('.');
+        String text = Long.toString(fraction);
+        for (int i = text.length(); i < digits; i++) {
+            json.append('0');
+        }
+        json.append(text);
+    }
+
+    // ---- Timestamp "yyyy-MM-dd HH:mm:ss" (ora locală) ↔ secunde civile de la 1970-01-01 ----
+
+    static long parseLocalSeconds(String text) {
+        if (text == null || text.length() != 19 || text.charAt(4) != '-' || text.charAt(7) != '-'
+                || text.charAt(10) != ' ' || text.charAt(13) != ':' || text.charAt(16) != ':') {
+            throw new NumberFormatException(String.valueOf(text));
+        }
+        long year = parseDigits(text, 0, 4);
+        int month = (int) parseDigits(text, 5, 7);
+        int day = (int) parseDigits(text, 8, 10);
+        int hour = (int) parseDigits(text, 11, 13);
+        int minute = (int) parseDigits(text, 14, 16);
+        int second = (int) parseDigits(text, 17, 19);
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 59) {
+            throw new NumberFormatException(text);
+        }
+        // days_from_civil (calendar gregorian proleptic)
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        long days = era * 146097 + dayOfEra - 719468;
+        return days * DAY_SECONDS + hour * 3600L + minute * 60L + second;
+    }
+
+    private static void appendLocalSeconds(StringBuilder json, long localSeconds) {
+        long days = localSeconds >= 0 ? localSeconds / DAY_SECONDS : -((-localSeconds + DAY_SECONDS - 1) / DAY_SECONDS);
+        int secondOfDay = (int) (localSeconds - days * DAY_SECONDS);
+        long z = days + 719468;
+        long era = (z >= 0 ? z : z - 146096) / 146097;
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+        json.append(year).append('-');
+        appendTwoDigits(json, month);
+        json.append('-');
+        appendTwoDigits(json, day);
+        json.append(' ');
+        appendTwoDigits(json, secondOfDay / 3600);
+        json.append(':');
+        appendTwoDigits(json, secondOfDay / 60 % 60);
+        json.append(':');
+        appendTwoDigits(json, secondOfDay % 60);
+    }
+
+    private static void appendTwoDigits(StringBuilder json, int value) {
+        json.append((char) ('0' + value / 10)).append((char) ('0' + value % 10));
+    }
+
+    // Escape identic cu GpsPayloadEncoder
+    private static void appendString(StringBuilder json, String value) {
+        if (value == null) {
+            json.append("null");
+            return;
+        }
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                json.append('\\').append(c);
+            } else if (c < 0x20) {
+                json.append("\\u00").append(Character.forDigit(c >> 4, 16)).append(Character.forDigit(c & 0xF, 16));
+            } else {
+                json.append(c);
+            }
+        }
+        json.append('"');
+    }
+
+    // ---- Varint / zigzag ----
+
+    static void writeVarint(ByteArrayOutputStream out, long value) {
+        while ((value & ~0x7FL) != 0) {
+            out.write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        out.write((int) value);
+    }
+
+    static void writeSigned(ByteArrayOutputStream out, long value) {
+        writeVarint(out, (value << 1) ^ (value >> 63));
+    }
+
+    static long readVarint(byte[] in, int[] position) throws IOException {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            if (position[0] >= in.length) {
+                throw new IOException("Varint trunchiat în batch-ul binar");
+            }
+            int b = in[position[0]++] & 0xFF;
+            value |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return value;
+            }
+        }
+        throw new IOException("Varint prea lung în batch-ul binar");
+    }
+
+    static long readSigned(byte[] in, int[] position) throws IOException {
+        long raw = readVarint(in, position);
+        return (raw >>> 1) ^ -(raw & 1);
+    }
+
+    // ---- Încadrare + deflate ----
+
+    private static byte[] frame(EncoderScratch scratch) {
+        Deflater deflater = scratch.deflater;
+        Buffer out = scratch.framed;
+        deflater.reset();
+        out.reset();
+        try {
+            deflater.setInput(scratch.body.array(), 0, scratch.body.size());
+            deflater.finish();
+            out.write(MAGIC, 0, MAGIC.length);
+            out.write(VERSION);
+            while (!deflater.finished()) {
+                int written = deflater.deflate(scratch.chunk);
+                out.write(scratch.chunk, 0, written);
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.reset(); // Nu ține referința la body până la următorul batch
+        }
+    }
+
+    private static byte[] unframe(byte[] framed) throws IOException {
+        if (framed.length < MAGIC.length + 1 || framed[0] != MAGIC[0] || framed[1] != MAGIC[1] || framed[2] != MAGIC[2]) {
+            throw new IOException("Nu este un batch GPS binar");
+        }
+        if (framed[3] < MIN_DECODED_VERSION || framed[3] > VERSION) {
+            throw new IOException("Versiune batch binar necunoscută: " + framed[3]);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(framed, MAGIC.length + 1, framed.length - MAGIC.length - 1);
+            ByteArrayOutputStream out = new ByteArrayOutputStream(framed.length * 4);
+            byte[] chunk = new byte[1024];
+            while (!inflater.finished()) {
+                int read = inflater.inflate(chunk);
+                if (read == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("Batch binar trunchiat");
+                }
+                out.write(chunk, 0, read);
+            }
+            return out.toByteArray();
+        } catch (DataFormatException e) {
+            throw new IOException("Batch binar corupt", e);
+        } finally {
+            inflater.end();
+        }
+    }
+}
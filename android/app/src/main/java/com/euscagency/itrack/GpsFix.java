@@ -0,0 +1,34 @@
+package com.euscagency.itrack;
+
+/**
+ * FIX GPS - valorile dintr-un android.location.Location de care are nevoie pipeline-ul de transmisie
+ * Copiat o singură dată per fix (nu per cursă), imutabil - poate trece între thread-uri fără sincronizare.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public final class GpsFix {
+
+    public final double latitude;
+    public final double longitude;
+    public final float speedMps;
+    public final float bearing;
+    public final double altitude;
+    public final float accuracy;
+    public final long timeMillis;
+
+    public GpsFix(double latitude, double longitude, float speedMps, float bearing,
+                  double altitude, float accuracy, long timeMillis) {
+        this.latitude = latitude;
+        this.longitude = longitude;
+        this.speedMps = speedMps;
+        this.bearing = bearing;
+        this.altitude = altitude;
+        this.accuracy = accuracy;
+        this.timeMillis = timeMillis;
+    }
+
+    // Viteza în km/h, trunchiată - exact cum o așteaptă serverul în câmpul "viteza"
+    public int speedKmh() {
+        return (int) (speedMps * 3.6);
+    }
+}
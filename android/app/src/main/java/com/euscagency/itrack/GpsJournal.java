@@ -0,0 +1,327 @@
+package com.euscagency.itrack;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.zip.CRC32;
+
+/**
+ * JURNAL GPS OFFLINE - coadă durabilă pe disc, append-only, care supraviețuiește morții procesului
+ *
+ * Format fișier: header (magic + versiune) urmat de rânduri binare
+ *   [tip:1][lungime body:4][body][crc32(tip+body):4]
+ *   POINT body = id:8 | createdAt:8 | payload UTF-8
+ *   ACK   body = id:8
+ * La redeschidere rândurile sunt reluate în ordine; un rând scris pe jumătate (proces omorât în timpul
+ * scrierii) are CRC invalid sau e incomplet și este tăiat. ACK-urile acumulate declanșează compactarea,
+ * iar dimensiunea punctelor neconfirmate este limitată în bytes - cele mai vechi sunt eliminate primele.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class GpsJournal {
+
+    private static final int MAGIC = 0x49544A31; // "ITJ1"
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+
+    private static final byte TYPE_POINT = 1;
+    private static final byte TYPE_ACK = 2;
+
+    private static final int FRAME_OVERHEAD = 1 + 4 + 4; // tip + lungime + crc
+    private static final int POINT_FIXED_BYTES = 8 + 8;
+    private static final int ACK_BODY_BYTES = 8;
+    private static final int MAX_PAYLOAD_BYTES = 64 * 1024;
+
+    // Compactează când rândurile moarte depășesc jumătate din fișier (și fișierul nu e mic)
+    private static final long MIN_COMPACT_BYTES = 64 * 1024;
+
+    public static final class Entry {
+        public final long id;
+        public final long createdAt;
+        public final String payload;
+        final int recordBytes;
+
+        Entry(long id, long createdAt, String payload, int recordBytes) {
+            this.id = id;
+            this.createdAt = createdAt;
+            this.payload = payload;
+            this.recordBytes = recordBytes;
+        }
+    }
+
+    private final File file;
+    private final long maxLiveBytes;
+    private final LinkedHashMap<Long, Entry> live = new LinkedHashMap<>();
+    private final CRC32 crc = new CRC32();
+
+    private RandomAccessFile raf;
+    private FileChannel channel;
+    private long nextId = 1;
+    private long liveBytes = 0;
+    private long evictedCount = 0;
+    private long truncatedBytes = 0;
+
+    private GpsJournal(File file, long maxLiveBytes) {
+        this.file = file;
+        this.maxLiveBytes = maxLiveBytes;
+    }
+
+    // Deschide (sau creează) jurnalul și reia toate punctele neconfirmate
+    public static GpsJournal open(File file, long maxLiveBytes) throws IOException {
+        GpsJournal journal = new GpsJournal(file, maxLiveBytes);
+        journal.recover();
+        return journal;
+    }
+
+    public synchronized long append(String payload, long createdAt) throws IOException {
+        byte[] data = payload.getBytes(StandardCharsets.UTF_8);
+        if (data.length > MAX_PAYLOAD_BYTES) {
+            throw new IOException("GPS payload prea mare pentru jurnal: " + data.length + " bytes");
+        }
+        long id = nextId++;
+        ByteBuffer body = ByteBuffer.allocate(POINT_FIXED_BYTES + data.length);
+        body.putLong(id).putLong(createdAt).put(data);
+        int recordBytes = writeFrame(TYPE_POINT, body.array());
+
+        live.put(id, new Entry(id, createdAt, payload, recordBytes));
+        liveBytes += recordBytes;
+
+        // LIMITĂ ÎN BYTES: elimină cele mai vechi puncte până încăpem
+        while (liveBytes > maxLiveBytes && live.size() > 1) {
+            Entry oldest = live.values().iterator().next();
+            removeLive(oldest.id);
+            writeAck(oldest.id);
+            evictedCount++;
+        }
+        compactIfNeeded();
+        return id;
+    }
+
+    // Confirmă un punct (livrat sau abandonat definitiv) - nu mai e reluat la redeschidere
+    public synchronized void ack(long id) throws IOException {
+        if (removeLive(id)) {
+            writeAck(id);
+            compactIfNeeded();
+        }
+    }
+
+    public synchronized boolean contains(long id) {
+        return live.containsKey(id);
+    }
+
+    // Punctele neconfirmate, de la cel mai vechi la cel mai nou
+    public synchronized List<Entry> pending() {
+        return new ArrayList<>(live.values());
+    }
+
+    public synchronized int size() {
+        return live.size();
+    }
+
+    public synchronized long getLiveBytes() {
+        return liveBytes;
+    }
+
+    public synchronized long getFileBytes() throws IOException {
+        return channel.size();
+    }
+
+    public synchronized long getEvictedCount() {
+        return evictedCount;
+    }
+
+    // Bytes tăiați la deschidere dintr-un rând scris incomplet
+    public synchronized long getTruncatedBytes() {
+        return truncatedBytes;
+    }
+
+    public synchronized void clear() throws IOException {
+        live.clear();
+        liveBytes = 0;
+        channel.truncate(HEADER_BYTES);
+        channel.position(HEADER_BYTES);
+    }
+
+    public synchronized void close() throws IOException {
+        if (raf != null) {
+            channel.force(false);
+            raf.close();
+            raf = null;
+            channel = null;
+        }
+    }
+
+    // Rescrie fișierul doar cu punctele neconfirmate (tmp + rename atomic)
+    public synchronized void compact() throws IOException {
+        File tmp = tempFile();
+        try (RandomAccessFile out = new RandomAccessFile(tmp, "rw")) {
+            out.setLength(0);
+            FileChannel outChannel = out.getChannel();
+            writeHeader(outChannel);
+            for (Entry entry : live.values()) {
+                byte[] data = entry.payload.getBytes(StandardCharsets.UTF_8);
+                ByteBuffer body = ByteBuffer.allocate(POINT_FIXED_BYTES + data.length);
+                body.putLong(entry.id).putLong(entry.createdAt).put(data);
+                writeFully(outChannel, frame(TYPE_POINT, body.array()));
+            }
+            outChannel.force(true);
+        }
+        raf.close();
+        boolean replaced = tmp.renameTo(file);
+        openChannel();
+        channel.position(channel.size());
+        if (!replaced) {
+            tmp.delete();
+            throw new IOException("Nu pot înlocui jurnalul cu versiunea compactată");
+        }
+    }
+
+    private void compactIfNeeded() throws IOException {
+        long fileBytes = channel.size();
+        if (fileBytes >= MIN_COMPACT_BYTES && fileBytes - HEADER_BYTES > 2 * liveBytes) {
+            compact();
+        }
+    }
+
+    private void recover() throws IOException {
+        // Un .tmp rămas înseamnă o compactare întreruptă - fișierul principal e încă valid
+        File tmp = tempFile();
+        if (tmp.exists() && !tmp.delete()) {
+            throw new IOException("Nu pot șterge compactarea întreruptă: " + tmp);
+        }
+
+        openChannel();
+        if (channel.size() < HEADER_BYTES) {
+            channel.truncate(0);
+            writeHeader(channel);
+            return;
+        }
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        readFully(channel, header, 0);
+        header.flip();
+        if (header.getInt() != MAGIC || header.getInt() != VERSION) {
+            throw new IOException("Fișier jurnal GPS invalid: " + file);
+        }
+
+        long position = HEADER_BYTES;
+        long size = channel.size();
+        ByteBuffer prefix = ByteBuffer.allocate(5);
+        while (position + FRAME_OVERHEAD <= size) {
+            prefix.clear();
+            readFully(channel, prefix, position);
+            prefix.flip();
+            byte type = prefix.get();
+            int bodyLength = prefix.getInt();
+            if (bodyLength < ACK_BODY_BYTES || bodyLength > POINT_FIXED_BYTES + MAX_PAYLOAD_BYTES
+                    || position + FRAME_OVERHEAD + bodyLength > size) {
+                break;
+            }
+
+            ByteBuffer rest = ByteBuffer.allocate(bodyLength + 4);
+            readFully(channel, rest, position + 5);
+            rest.flip();
+            byte[] body = new byte[bodyLength];
+            rest.get(body);
+            if (rest.getInt() != checksum(type, body)) {
+                break;
+            }
+
+            ByteBuffer bodyBuffer = ByteBuffer.wrap(body);
+            long id = bodyBuffer.getLong();
+            int recordBytes = FRAME_OVERHEAD + bodyLength;
+            if (type == TYPE_POINT && bodyLength >= POINT_FIXED_BYTES) {
+                long createdAt = bodyBuffer.getLong();
+                String payload = new String(body, POINT_FIXED_BYTES, bodyLength - POINT_FIXED_BYTES, StandardCharsets.UTF_8);
+                live.put(id, new Entry(id, createdAt, payload, recordBytes));
+                liveBytes += recordBytes;
+            } else if (type == TYPE_ACK) {
+                removeLive(id);
+            } else {
+                break;
+            }
+            nextId = Math.max(nextId, id + 1);
+            position += recordBytes;
+        }
+
+        // Rând incomplet/corupt la coadă - proces omorât în timpul scrierii
+        if (position < size) {
+            truncatedBytes = size - position;
+            channel.truncate(position);
+        }
+        channel.position(position);
+    }
+
+    private boolean removeLive(long id) {
+        Entry removed = live.remove(id);
+        if (removed == null) {
+            return false;
+        }
+        liveBytes -= removed.recordBytes;
+        return true;
+    }
+
+    private void writeAck(long id) throws IOException {
+        writeFrame(TYPE_ACK, ByteBuffer.allocate(ACK_BODY_BYTES).putLong(id).array());
+    }
+
+    // Un singur write per rând - la moartea procesului datele deja scrise rămân în page cache-ul OS
+    private int writeFrame(byte type, byte[] body) throws IOException {
+        ByteBuffer frame = frame(type, body);
+        int bytes = frame.remaining();
+        writeFully(channel, frame);
+        return bytes;
+    }
+
+    private ByteBuffer frame(byte type, byte[] body) {
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_OVERHEAD + body.length);
+        frame.put(type).putInt(body.length).put(body).putInt(checksum(type, body));
+        frame.flip();
+        return frame;
+    }
+
+    private int checksum(byte type, byte[] body) {
+        crc.reset();
+        crc.update(type);
+        crc.update(body, 0, body.length);
+        return (int) crc.getValue();
+    }
+
+    private void openChannel() throws IOException {
+        raf = new RandomAccessFile(file, "rw");
+        channel = raf.getChannel();
+    }
+
+    private File tempFile() {
+        return new File(file.getPath() + ".tmp");
+    }
+
+    private static void writeHeader(FileChannel target) throws IOException {
+        ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+        header.putInt(MAGIC).putInt(VERSION).flip();
+        target.position(0);
+        writeFully(target, header);
+    }
+
+    private static void writeFully(FileChannel target, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            target.write(buffer);
+        }
+    }
+
+    private static void readFully(FileChannel source, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = source.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Sfârșit neașteptat al jurnalului GPS");
+            }
+            position += read;
+        }
+    }
+}
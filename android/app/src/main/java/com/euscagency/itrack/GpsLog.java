@@ -0,0 +1,207 @@
+package com.euscagency.itrack;
+
+/**
+ * LOGGING FACADE - niveluri, mesaje construite doar dacă nivelul e activ, flight recorder permanent
+ * Mesajele sunt șabloane constante cu "{}" + până la 2 argumente: pe calea dezactivată nu se
+ * concatenează nimic, iar argumentele numerice nici nu se împachetează (overload-uri long/double).
+ * - DEBUG: doar în build-urile debug (release e minificat: R8 șterge apelurile prin
+ *   -assumenosideeffects din proguard-rules.pro; verificarea de nivel rămâne ca plasă de siguranță)
+ * - INFO și peste: intră mereu în FlightRecorder (binar, memorie fixă), chiar dacă logcat e filtrat
+ * - logcat primește doar nivelurile >= minLevel (release: WARN)
+ *
+ * Clasa nu depinde de Android - destinația (android.util.Log) se instalează din serviciu prin configure().
+ */
+public final class GpsLog {
+
+    // Aceleași valori ca android.util.Log
+    public static final int VERBOSE = 2;
+    public static final int DEBUG = 3;
+    public static final int INFO = 4;
+    public static final int WARN = 5;
+    public static final int ERROR = 6;
+
+    static final int FLIGHT_RECORDER_CAPACITY = 4096; // 4096 × 32 bytes = 128 KB
+
+    // Destinația pentru mesajele formatate (logcat în aplicație, colectare în teste)
+    public interface Output {
+        void write(int level, String tag, String message, Throwable error);
+    }
+
+    private static volatile int minLevel = WARN;
+    private static volatile Output output;
+    private static final FlightRecorder recorder = new FlightRecorder(FLIGHT_RECORDER_CAPACITY);
+
+    private GpsLog() {
+    }
+
+    public static void configure(int level, Output destination) {
+        minLevel = level;
+        output = destination;
+    }
+
+    public static boolean isLoggable(int level) {
+        return level >= minLevel && output != null;
+    }
+
+    public static FlightRecorder recorder() {
+        return recorder;
+    }
+
+    // DEBUG - nu ajung în flight recorder
+
+    public static void d(String tag, String message) {
+        if (isLoggable(DEBUG)) {
+            emit(DEBUG, tag, message, null);
+        }
+    }
+
+    public static void d(String tag, String template, long a) {
+        if (isLoggable(DEBUG)) {
+            emit(DEBUG, tag, template, 1, a, null);
+        }
+    }
+
+    public static void d(String tag, String template, long a, long b) {
+        if (isLoggable(DEBUG)) {
+            emit(DEBUG, tag, template, 2, a, b);
+        }
+    }
+
+    public static void d(String tag, String template, double a, double b) {
+        if (isLoggable(DEBUG)) {
+            emit(DEBUG, tag, template, 2, a, b);
+        }
+    }
+
+    public static void d(String tag, String template, Object a) {
+        if (isLoggable(DEBUG)) {
+            emit(DEBUG, tag, template, 1, a, null);
+        }
+    }
+
+    public static void d(String tag, String template, Object a, Object b) {
+        if (isLoggable(DEBUG)) {
+            emit(DEBUG, tag, template, 2, a, b);
+        }
+    }
+
+    // INFO, WARN, ERROR - flight recorder + logcat după nivel
+
+    public static void i(String tag, String message) {
+        log(INFO, tag, message, null);
+    }
+
+    public static void i(String tag, String template, long a) {
+        log(INFO, tag, template, a);
+    }
+
+    public static void i(String tag, String template, long a, long b) {
+        log(INFO, tag, template, a, b);
+    }
+
+    public static void i(String tag, String template, double a, double b) {
+        log(INFO, tag, template, a, b);
+    }
+
+    public static void i(String tag, String template, Object a) {
+        log(INFO, tag, template, 1, a, null);
+    }
+
+    public static void i(String tag, String template, Object a, Object b) {
+        log(INFO, tag, template, 2, a, b);
+    }
+
+    public static void w(String tag, String message) {
+        log(WARN, tag, message, null);
+    }
+
+    public static void w(String tag, String template, long a) {
+        log(WARN, tag, template, a);
+    }
+
+    public static void w(String tag, String template, long a, long b) {
+        log(WARN, tag, template, a, b);
+    }
+
+    public static void w(String tag, String template, Object a) {
+        log(WARN, tag, template, 1, a, null);
+    }
+
+    public static void w(String tag, String template, Object a, Object b) {
+        log(WARN, tag, template, 2, a, b);
+    }
+
+    public static void e(String tag, String message) {
+        log(ERROR, tag, message, null);
+    }
+
+    public static void e(String tag, String message, Throwable error) {
+        log(ERROR, tag, message, error);
+    }
+
+    public static void e(String tag, String template, long a) {
+        log(ERROR, tag, template, a);
+    }
+
+    public static void e(String tag, String template, long a, long b) {
+        log(ERROR, tag, template, a, b);
+    }
+
+    public static void e(String tag, String template, Object a) {
+        log(ERROR, tag, template, 1, a, null);
+    }
+
+    public static void e(String tag, String template, Object a, Object b) {
+        log(ERROR, tag, template, 2, a, b);
+    }
+
+    private static void log(int level, String tag, String message, Throwable error) {
+        recorder.record(System.currentTimeMillis(), level, tag, message);
+        if (isLoggable(level)) {
+            emit(level, tag, message, error);
+        }
+    }
+
+    private static void log(int level, String tag, String template, long a) {
+        recorder.record(System.currentTimeMillis(), level, tag, template, 1, a, FlightRecorder.ARG_LONG, 0, FlightRecorder.ARG_LONG);
+        if (isLoggable(level)) {
+            emit(level, tag, template, 1, a, null);
+        }
+    }
+
+    private static void log(int level, String tag, String template, long a, long b) {
+        recorder.record(System.currentTimeMillis(), level, tag, template, 2, a, FlightRecorder.ARG_LONG, b, FlightRecorder.ARG_LONG);
+        if (isLoggable(level)) {
+            emit(level, tag, template, 2, a, b);
+        }
+    }
+
+    private static void log(int level, String tag, String template, double a, double b) {
+        recorder.record(System.currentTimeMillis(), level, tag, template, 2,
+            Double.doubleToRawLongBits(a), FlightRecorder.ARG_DOUBLE, Double.doubleToRawLongBits(b), FlightRecorder.ARG_DOUBLE);
+        if (isLoggable(level)) {
+            emit(level, tag, template, 2, a, b);
+        }
+    }
+
+    private static void log(int level, String tag, String template, int argCount, Object a, Object b) {
+        recorder.record(System.currentTimeMillis(), level, tag, template, argCount, a, b);
+        if (isLoggable(level)) {
+            emit(level, tag, template, argCount, a, b);
+        }
+    }
+
+    // Mesajul complet se construiește doar aici - după verificarea nivelului
+    private static void emit(int level, String tag, String template, int argCount, Object a, Object b) {
+        StringBuilder message = new StringBuilder(template.length() + 32);
+        FlightRecorder.format(message, template, argCount, a, b);
+        emit(level, tag, message.toString(), null);
+    }
+
+    private static void emit(int level, String tag, String message, Throwable error) {
+        Output destination = output;
+        if (destination != null) {
+            destination.write(level, tag, message, error);
+        }
+    }
+}
@@ -0,0 +1,324 @@
+package com.euscagency.itrack;
+
+import java.nio.charset.StandardCharsets;
+import java.util.TimeZone;
+
+/**
+ * ENCODER PAYLOAD GPS - scrie schema fixă gps.php direct într-un buffer de bytes refolosit
+ *   {"uit","numar_inmatriculare","lat","lng","viteza","directie","altitudine","hdop",
+ *    "gsm_signal","baterie","status","timestamp"[,"tip_retea"][,"seq","point_id"]}
+ * Fără JSONObject intermediar, fără SimpleDateFormat/Date per punct: ora României se calculează
+ * aritmetic dintr-un offset de fus orar cache-uit pe oră. Singura alocare per punct e String-ul final.
+ * Coordonatele se scriu cu 7 zecimale (~1 cm), fără zerouri finale.
+ *
+ * NU e thread-safe - o instanță per thread.
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public final class GpsPayloadEncoder {
+
+    private static final byte[] KEY_UIT = ascii("{\"uit\":");
+    private static final byte[] KEY_VEHICLE = ascii(",\"numar_inmatriculare\":");
+    private static final byte[] KEY_LAT = ascii(",\"lat\":");
+    private static final byte[] KEY_LNG = ascii(",\"lng\":");
+    private static final byte[] KEY_SPEED = ascii(",\"viteza\":");
+    private static final byte[] KEY_BEARING = ascii(",\"directie\":");
+    private static final byte[] KEY_ALTITUDE = ascii(",\"altitudine\":");
+    private static final byte[] KEY_HDOP = ascii(",\"hdop\":");
+    private static final byte[] KEY_GSM = ascii(",\"gsm_signal\":");
+    private static final byte[] KEY_BATTERY = ascii(",\"baterie\":");
+    private static final byte[] KEY_STATUS = ascii(",\"status\":");
+    private static final byte[] KEY_TIMESTAMP = ascii(",\"timestamp\":");
+    private static final byte[] KEY_NETWORK_TYPE = ascii(",\"tip_retea\":");
+    private static final byte[] KEY_SEQ = ascii(",\"seq\":");
+    private static final byte[] KEY_POINT_ID = ascii(",\"point_id\":");
+    private static final byte[] KEY_REAL_UIT = ascii(",\"realUit\":");
+    private static final byte[] KEY_UNIQUE_KEY = ascii(",\"uniqueKey\":");
+    private static final byte[] KEY_IK_RO_TRANS = ascii(",\"ikRoTrans\":");
+    private static final byte[] NULL = ascii("null");
+    private static final byte[] HEX = ascii("0123456789abcdef");
+
+    private static final long COORDINATE_SCALE = 10000000L; // 7 zecimale
+    private static final long HOUR_MS = 60 * 60 * 1000L;
+
+    private final TimeZone timeZone;
+    private long cachedHour = Long.MIN_VALUE;
+    private int cachedOffsetMs;
+
+    private byte[] buffer = new byte[320];
+    private int length;
+
+    public GpsPayloadEncoder() {
+        this(TimeZone.getTimeZone("Europe/Bucharest"));
+    }
+
+    public GpsPayloadEncoder(TimeZone timeZone) {
+        this.timeZone = timeZone;
+    }
+
+    // Punct GPS sau status update - fix null = fără locație (coordonate 0, ca fallback-ul vechi)
+    public String encode(String uit, String vehicleNumber, GpsFix fix, int gsmSignal,
+                         String battery, int status, long timestampMillis) {
+        return encode(uit, vehicleNumber, fix, gsmSignal, battery, null, status, timestampMillis, null);
+    }
+
+    // TELEMETRIE: Semnalul, bateria și tipul rețelei vin din instantaneul cache-uit - nimic citit per fix
+    public String encode(String uit, String vehicleNumber, GpsFix fix, DeviceTelemetry.Snapshot telemetry,
+                         int status, long timestampMillis) {
+        return encode(uit, vehicleNumber, fix, telemetry, status, timestampMillis, null);
+    }
+
+    // NUMEROTARE: seq + point_id atribuite la captură - serverul ordonează și deduplică retry-urile
+    public String encode(String uit, String vehicleNumber, GpsFix fix, DeviceTelemetry.Snapshot telemetry,
+                         int status, long timestampMillis, PointSequencer.Stamp stamp) {
+        return encode(uit, vehicleNumber, fix, telemetry.gsmSignal(), telemetry.batteryText(),
+            telemetry.networkType(), status, timestampMillis, stamp);
+    }
+
+    private String encode(String uit, String vehicleNumber, GpsFix fix, int gsmSignal, String battery,
+                          String networkType, int status, long timestampMillis, PointSequencer.Stamp stamp) {
+        length = 0;
+        write(KEY_UIT);
+        writeString(uit);
+        write(KEY_VEHICLE);
+        writeString(vehicleNumber);
+        write(KEY_LAT);
+        writeCoordinate(fix != null ? fix.latitude : 0);
+        write(KEY_LNG);
+        writeCoordinate(fix != null ? fix.longitude : 0);
+        write(KEY_SPEED);
+        writeLong(fix != null ? fix.speedKmh() : 0);
+        write(KEY_BEARING);
+        writeLong(fix != null ? (int) fix.bearing : 0);
+        write(KEY_ALTITUDE);
+        writeLong(fix != null ? (int) fix.altitude : 0);
+        write(KEY_HDOP);
+        writeLong(fix != null ? (int) fix.accuracy : 0);
+        write(KEY_GSM);
+        writeLong(gsmSignal);
+        write(KEY_BATTERY);
+        writeString(battery);
+        write(KEY_STATUS);
+        writeLong(status);
+        write(KEY_TIMESTAMP);
+        writeTimestamp(timestampMillis);
+        if (networkType != null) {
+            write(KEY_NETWORK_TYPE);
+            writeString(networkType);
+        }
+        if (stamp != null) {
+            write(KEY_SEQ);
+            writeLong(stamp.seq);
+            write(KEY_POINT_ID);
+            writeString(stamp.pointId);
+        }
+        writeByte('}');
+        return toPayloadString();
+    }
+
+    // GPS→HARTA: Ultimul payload + identificatorii de matching din JS (fără re-parsare JSON)
+    public String appendIdentifiers(String realUit, String uniqueKey, String ikRoTrans) {
+        if (length == 0) {
+            throw new IllegalStateException("Nimic encodat încă");
+        }
+        length--; // scoate '}'
+        write(KEY_REAL_UIT);
+        writeString(realUit);
+        write(KEY_UNIQUE_KEY);
+        writeString(uniqueKey);
+        write(KEY_IK_RO_TRANS);
+        writeString(ikRoTrans);
+        writeByte('}');
+        return toPayloadString();
+    }
+
+    // "yyyy-MM-dd HH:mm:ss" în fusul encoder-ului - pentru log-uri și teste
+    public String formatTimestamp(long timestampMillis) {
+        length = 0;
+        writeTimestamp(timestampMillis);
+        // Fără ghilimelele JSON
+        return new String(buffer, 1, length - 2, StandardCharsets.US_ASCII);
+    }
+
+    // Buffer-ul intern - valid până la următorul encode (pentru consumatori la nivel de bytes)
+    byte[] getBuffer() {
+        return buffer;
+    }
+
+    int getLength() {
+        return length;
+    }
+
+    private String toPayloadString() {
+        return new String(buffer, 0, length, StandardCharsets.UTF_8);
+    }
+
+    private void writeTimestamp(long timestampMillis) {
+        long local = timestampMillis + offsetFor(timestampMillis);
+        long days = floorDiv(local, 24 * HOUR_MS);
+        int secondOfDay = (int) ((local - days * 24 * HOUR_MS) / 1000);
+
+        // Zile de la epoch → an/lună/zi (algoritm civil_from_days, calendar gregorian proleptic)
+        long z = days + 719468;
+        long era = floorDiv(z, 146097);
+        long dayOfEra = z - era * 146097;
+        long yearOfEra = (dayOfEra - dayOfEra / 1460 + dayOfEra / 36524 - dayOfEra / 146096) / 365;
+        long dayOfYear = dayOfEra - (365 * yearOfEra + yearOfEra / 4 - yearOfEra / 100);
+        long mp = (5 * dayOfYear + 2) / 153;
+        int day = (int) (dayOfYear - (153 * mp + 2) / 5 + 1);
+        int month = (int) (mp < 10 ? mp + 3 : mp - 9);
+        long year = yearOfEra + era * 400 + (month <= 2 ? 1 : 0);
+
+        ensureCapacity(21);
+        writeByte('"');
+        writeLong(year);
+        writeByte('-');
+        writeTwoDigits(month);
+        writeByte('-');
+        writeTwoDigits(day);
+        writeByte(' ');
+        writeTwoDigits(secondOfDay / 3600);
+        writeByte(':');
+        writeTwoDigits(secondOfDay / 60 % 60);
+        writeByte(':');
+        writeTwoDigits(secondOfDay % 60);
+        writeByte('"');
+    }
+
+    // Offset-ul se schimbă doar la trecerea DST, care la Europe/Bucharest cade la oră fixă UTC
+    private int offsetFor(long timestampMillis) {
+        long hour = floorDiv(timestampMillis, HOUR_MS);
+        if (hour != cachedHour) {
+            cachedOffsetMs = timeZone.getOffset(timestampMillis);
+            cachedHour = hour;
+        }
+        return cachedOffsetMs;
+    }
+
+    private void writeCoordinate(double value) {
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            writeByte('0');
+            return;
+        }
+        long scaled = Math.round(Math.abs(value) * COORDINATE_SCALE);
+        if (value < 0 && scaled != 0) {
+            writeByte('-');
+        }
+        writeLong(scaled / COORDINATE_SCALE);
+        long fraction = scaled % COORDINATE_SCALE;
+        if (fraction == 0) {
+            return;
+        }
+        int digits = 7;
+        while (fraction % 10 == 0) {
+            fraction /= 10;
+            digits--;
+        }
+        ensureCapacity(1 + digits);
+        writeByte('.');
+        int end = length + digits;
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + fraction % 10);
+            fraction /= 10;
+        }
+        length = end;
+    }
+
+    private void writeLong(long value) {
+        if (value == Long.MIN_VALUE) {
+            write(ascii(Long.toString(value)));
+            return;
+        }
+        ensureCapacity(20);
+        if (value < 0) {
+            buffer[length++] = '-';
+            value = -value;
+        }
+        int digits = 1;
+        for (long v = value; v >= 10; v /= 10) {
+            digits++;
+        }
+        int end = length + digits;
+        for (int i = end - 1; i >= length; i--) {
+            buffer[i] = (byte) ('0' + value % 10);
+            value /= 10;
+        }
+        length = end;
+    }
+
+    private void writeTwoDigits(int value) {
+        buffer[length++] = (byte) ('0' + value / 10);
+        buffer[length++] = (byte) ('0' + value % 10);
+    }
+
+    // JSON string cu escape - non-ASCII scris direct în UTF-8
+    private void writeString(String value) {
+        if (value == null) {
+            write(NULL);
+            return;
+        }
+        ensureCapacity(value.length() * 6 + 2);
+        buffer[length++] = '"';
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                buffer[length++] = '\\';
+                buffer[length++] = (byte) c;
+            } else if (c < 0x20) {
+                buffer[length++] = '\\';
+                buffer[length++] = 'u';
+                buffer[length++] = '0';
+                buffer[length++] = '0';
+                buffer[length++] = HEX[c >> 4];
+                buffer[length++] = HEX[c & 0xF];
+            } else if (c < 0x80) {
+                buffer[length++] = (byte) c;
+            } else if (c < 0x800) {
+                buffer[length++] = (byte) (0xC0 | (c >> 6));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            } else if (Character.isHighSurrogate(c) && i + 1 < value.length()
+                    && Character.isLowSurrogate(value.charAt(i + 1))) {
+                int codePoint = Character.toCodePoint(c, value.charAt(++i));
+                buffer[length++] = (byte) (0xF0 | (codePoint >> 18));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 12) & 0x3F));
+                buffer[length++] = (byte) (0x80 | ((codePoint >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (codePoint & 0x3F));
+            } else if (Character.isSurrogate(c)) {
+                buffer[length++] = '?'; // surrogate fără pereche - ca encoder-ul UTF-8 din JDK
+            } else {
+                buffer[length++] = (byte) (0xE0 | (c >> 12));
+                buffer[length++] = (byte) (0x80 | ((c >> 6) & 0x3F));
+                buffer[length++] = (byte) (0x80 | (c & 0x3F));
+            }
+        }
+        buffer[length++] = '"';
+    }
+
+    private void write(byte[] bytes) {
+        ensureCapacity(bytes.length);
+        System.arraycopy(bytes, 0, buffer, length, bytes.length);
+        length += bytes.length;
+    }
+
+    private void writeByte(char c) {
+        ensureCapacity(1);
+        buffer[length++] = (byte) c;
+    }
+
+    private void ensureCapacity(int extra) {
+        if (length + extra > buffer.length) {
+            byte[] grown = new byte[Math.max(buffer.length * 2, length + extra)];
+            System.arraycopy(buffer, 0, grown, 0, length);
+            buffer = grown;
+        }
+    }
+
+    // Math.floorDiv apare abia în API 24 (minSdk = 23)
+    private static long floorDiv(long x, long y) {
+        long q = x / y;
+        return (x % y != 0 && ((x ^ y) < 0)) ? q - 1 : q;
+    }
+
+    private static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+}
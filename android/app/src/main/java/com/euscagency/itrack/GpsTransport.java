@@ -0,0 +1,44 @@
+package com.euscagency.itrack;
+
+import java.io.IOException;
+
+/**
+ * TRANSPORT GPS - stratul HTTP comun pentru toate trimiterile către gps.php (GPS live, status, retry offline)
+ * Implementarea implicită este OkHttpGpsTransport; interfața permite înlocuirea în teste sau pe alt backend.
+ */
+public interface GpsTransport {
+
+    // POST sincron cu un body JSON - rulează pe thread-urile httpThreadPool, niciodată pe main thread
+    Response post(String json, String userAgent) throws IOException;
+
+    // POST sincron cu un body binar (ex. GpsBinaryCodec) - același endpoint și aceleași headere
+    Response postBinary(byte[] body, String contentType, String userAgent) throws IOException;
+
+    void setAuthToken(String authToken);
+
+    // Închide conexiunile păstrate în pool (la distrugerea serviciului)
+    void shutdown();
+
+    final class Response {
+        public final int code;
+        public final String message;
+        public final String body;
+        // Versiunea GpsBinaryCodec anunțată de server (header GpsBinaryCodec.CAPABILITY_HEADER), 0 = fără suport
+        public final int binaryVersion;
+
+        public Response(int code, String message, String body) {
+            this(code, message, body, 0);
+        }
+
+        public Response(int code, String message, String body, int binaryVersion) {
+            this.code = code;
+            this.message = message;
+            this.body = body;
+            this.binaryVersion = binaryVersion;
+        }
+
+        public boolean isSuccessful() {
+            return code >= 200 && code < 300;
+        }
+    }
+}
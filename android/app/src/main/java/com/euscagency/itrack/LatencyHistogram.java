@@ -0,0 +1,112 @@
+package com.euscagency.itrack;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * HISTOGRAMĂ LATENȚE (stil HDR) - bucket-uri log-liniare, memorie fixă, înregistrare O(1) fără lock
+ * Valorile 0..63 au bucket-uri exacte; peste, fiecare putere a lui 2 e împărțită în 32 de sub-bucket-uri
+ * egale - eroare relativă sub 3.2% pentru orice valoare, de la milisecunde la ore.
+ * Percentilele se calculează doar la snapshot. Unitatea (ms, bytes, puncte) o alege apelantul.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class LatencyHistogram {
+
+    private static final int SUB_BUCKET_BITS = 5;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;   // 32 per putere a lui 2
+    private static final int LINEAR_LIMIT = 2 * SUB_BUCKETS;       // 0..63 exact
+    static final long MAX_VALUE = (1L << 40) - 1;                  // ~12.7 zile în ms; peste se trunchiază
+    private static final int BUCKET_COUNT = indexOf(MAX_VALUE) + 1;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKET_COUNT);
+    private final StripedCounter sum = new StripedCounter();
+    private final AtomicLong max = new AtomicLong();
+
+    public void record(long value) {
+        if (value < 0) {
+            value = 0;
+        } else if (value > MAX_VALUE) {
+            value = MAX_VALUE;
+        }
+        counts.incrementAndGet(indexOf(value));
+        sum.add(value);
+        long current = max.get();
+        while (value > current && !max.compareAndSet(current, value)) {
+            current = max.get();
+        }
+    }
+
+    public Snapshot snapshot() {
+        long[] copy = new long[BUCKET_COUNT];
+        long total = 0;
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            copy[i] = counts.get(i);
+            total += copy[i];
+        }
+        return new Snapshot(copy, total, sum.sum(), max.get());
+    }
+
+    static int indexOf(long value) {
+        if (value < LINEAR_LIMIT) {
+            return (int) value;
+        }
+        int shift = 63 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS; // >= 1
+        int subBucket = (int) (value >>> shift) - SUB_BUCKETS;               // 0..31
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + subBucket;
+    }
+
+    // Cea mai mare valoare care cade în bucket - percentilele nu raportează niciodată sub valoarea reală
+    static long highestValueIn(int index) {
+        if (index < LINEAR_LIMIT) {
+            return index;
+        }
+        int shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        long subBucket = (index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS;
+        return ((subBucket + 1) << shift) - 1;
+    }
+
+    public static final class Snapshot {
+        private final long[] counts;
+        public final long count;
+        public final long sum;
+        public final long max;
+
+        Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public double mean() {
+            return count == 0 ? 0 : (double) sum / count;
+        }
+
+        // percentile în [0, 100]; 0 dacă nu există valori
+        public long percentile(double percentile) {
+            if (count == 0) {
+                return 0;
+            }
+            long rank = Math.max(1, (long) Math.ceil(percentile / 100.0 * count));
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(highestValueIn(i), max);
+                }
+            }
+            return max;
+        }
+
+        // {"count":..,"mean":..,"p50":..,"p90":..,"p99":..,"max":..}
+        public String toJson() {
+            return "{\"count\":" + count
+                + ",\"mean\":" + Math.round(mean())
+                + ",\"p50\":" + percentile(50)
+                + ",\"p90\":" + percentile(90)
+                + ",\"p99\":" + percentile(99)
+                + ",\"max\":" + max + "}";
+        }
+    }
+}
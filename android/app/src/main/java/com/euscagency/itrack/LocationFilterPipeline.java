@@ -0,0 +1,280 @@
+package com.euscagency.itrack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * FILTRU CALITATE GPS - lanț de etape O(1) per fix, rulat înaintea transmisiei
+ * Respinge fix-urile vechi (cache), duplicate/în afara ordinii, cu precizie slabă (celular/WiFi) și
+ * salturile fizic imposibile (viteză implicită între două fix-uri). Netezirea Kalman e opțională.
+ * Fiecare motiv de respingere are propriul contor - citit de pe orice thread.
+ *
+ * Pipeline-ul în sine nu e thread-safe - se folosește de pe thread-ul GPS.
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class LocationFilterPipeline {
+
+    public enum Rejection {
+        STALE,
+        DUPLICATE,
+        INACCURATE,
+        IMPOSSIBLE_SPEED
+    }
+
+    // O etapă a lanțului - întoarce fix-ul (eventual transformat) sau null dacă îl respinge
+    public interface Stage {
+        GpsFix apply(GpsFix fix, long nowMillis);
+
+        // Motivul raportat când apply întoarce null (null pentru etapele care doar transformă)
+        Rejection rejection();
+
+        // Fix-ul a trecut de tot lanțul - etapele cu stare își mută referința aici
+        void onAccepted(GpsFix fix);
+    }
+
+    static final long DEFAULT_MAX_AGE_MS = 30000;
+    static final float DEFAULT_MAX_ACCURACY_METERS = 100f;
+    static final float DEFAULT_MAX_SPEED_MPS = 55f; // ~200 km/h - peste orice camion
+    static final float DEFAULT_SMOOTHING_SPEED_MPS = 3f;
+
+    private final List<Stage> stages = new ArrayList<>();
+    private final AtomicLongArray rejected = new AtomicLongArray(Rejection.values().length);
+    private final AtomicLong accepted = new AtomicLong();
+    private Rejection lastRejection;
+
+    // Lanțul folosit de serviciu: vechime → duplicat → precizie → viteză [→ Kalman]
+    public static LocationFilterPipeline standard(boolean smoothing) {
+        return standard(smoothing, DEFAULT_MAX_AGE_MS);
+    }
+
+    // Livrare grupată - primul fix din batch are deja vechimea ferestrei de așteptare
+    public static LocationFilterPipeline standard(boolean smoothing, long maxAgeMs) {
+        LocationFilterPipeline pipeline = new LocationFilterPipeline()
+            .addStage(new StaleFilter(maxAgeMs))
+            .addStage(new DuplicateFilter())
+            .addStage(new AccuracyFilter(DEFAULT_MAX_ACCURACY_METERS))
+            .addStage(new ImpliedSpeedFilter(DEFAULT_MAX_SPEED_MPS));
+        if (smoothing) {
+            pipeline.addStage(new KalmanSmoother(DEFAULT_SMOOTHING_SPEED_MPS));
+        }
+        return pipeline;
+    }
+
+    public LocationFilterPipeline addStage(Stage stage) {
+        stages.add(stage);
+        return this;
+    }
+
+    // Fix-ul acceptat (eventual netezit) sau null - motivul e în getLastRejection()
+    public GpsFix accept(GpsFix fix, long nowMillis) {
+        GpsFix current = fix;
+        for (int i = 0; i < stages.size(); i++) {
+            Stage stage = stages.get(i);
+            current = stage.apply(current, nowMillis);
+            if (current == null) {
+                lastRejection = stage.rejection();
+                if (lastRejection != null) {
+                    rejected.incrementAndGet(lastRejection.ordinal());
+                }
+                return null;
+            }
+        }
+        for (int i = 0; i < stages.size(); i++) {
+            stages.get(i).onAccepted(current);
+        }
+        lastRejection = null;
+        accepted.incrementAndGet();
+        return current;
+    }
+
+    public Rejection getLastRejection() {
+        return lastRejection;
+    }
+
+    public long getAcceptedCount() {
+        return accepted.get();
+    }
+
+    public long getRejectedCount(Rejection reason) {
+        return rejected.get(reason.ordinal());
+    }
+
+    // "acceptate/vechi/duplicate/imprecise/salturi" pentru bridge-ul JavaScript
+    public String toBridgeString() {
+        StringBuilder builder = new StringBuilder().append(accepted.get());
+        for (Rejection reason : Rejection.values()) {
+            builder.append('/').append(rejected.get(reason.ordinal()));
+        }
+        return builder.toString();
+    }
+
+    // Fix cache-uit de Fusion (ex. getLastLocation livrat ca update) - prea vechi pentru poziția curentă
+    public static class StaleFilter implements Stage {
+        private final long maxAgeMs;
+
+        public StaleFilter(long maxAgeMs) {
+            this.maxAgeMs = maxAgeMs;
+        }
+
+        @Override
+        public GpsFix apply(GpsFix fix, long nowMillis) {
+            return nowMillis - fix.timeMillis > maxAgeMs ? null : fix;
+        }
+
+        @Override
+        public Rejection rejection() {
+            return Rejection.STALE;
+        }
+
+        @Override
+        public void onAccepted(GpsFix fix) {
+        }
+    }
+
+    // Același fix livrat de două ori sau un fix mai vechi decât ultimul acceptat
+    public static class DuplicateFilter implements Stage {
+        private long lastAcceptedTime = Long.MIN_VALUE;
+
+        @Override
+        public GpsFix apply(GpsFix fix, long nowMillis) {
+            return fix.timeMillis <= lastAcceptedTime ? null : fix;
+        }
+
+        @Override
+        public Rejection rejection() {
+            return Rejection.DUPLICATE;
+        }
+
+        @Override
+        public void onAccepted(GpsFix fix) {
+            lastAcceptedTime = fix.timeMillis;
+        }
+    }
+
+    // Precizie peste prag = poziție din celular/WiFi, nu din sateliți
+    public static class AccuracyFilter implements Stage {
+        private final float maxAccuracyMeters;
+
+        public AccuracyFilter(float maxAccuracyMeters) {
+            this.maxAccuracyMeters = maxAccuracyMeters;
+        }
+
+        @Override
+        public GpsFix apply(GpsFix fix, long nowMillis) {
+            return fix.accuracy > maxAccuracyMeters ? null : fix;
+        }
+
+        @Override
+        public Rejection rejection() {
+            return Rejection.INACCURATE;
+        }
+
+        @Override
+        public void onAccepted(GpsFix fix) {
+        }
+    }
+
+    /**
+     * Viteza implicită față de ultimul fix acceptat, după scăderea incertitudinii ambelor fix-uri.
+     * Dacă mai multe fix-uri consecutive sunt respinse, referința însăși era probabil greșită -
+     * lanțul se re-ancorează în loc să blocheze toate pozițiile următoare.
+     */
+    public static class ImpliedSpeedFilter implements Stage {
+        static final int MAX_CONSECUTIVE_REJECTIONS = 3;
+
+        private final float maxSpeedMps;
+        private GpsFix reference;
+        private int consecutiveRejections;
+
+        public ImpliedSpeedFilter(float maxSpeedMps) {
+            this.maxSpeedMps = maxSpeedMps;
+        }
+
+        @Override
+        public GpsFix apply(GpsFix fix, long nowMillis) {
+            if (reference == null || consecutiveRejections >= MAX_CONSECUTIVE_REJECTIONS) {
+                return fix;
+            }
+            double seconds = (fix.timeMillis - reference.timeMillis) / 1000.0;
+            if (seconds <= 0) {
+                return fix;
+            }
+            double distance = GeoMath.distanceMeters(reference, fix) - reference.accuracy - fix.accuracy;
+            if (distance / seconds > maxSpeedMps) {
+                consecutiveRejections++;
+                return null;
+            }
+            return fix;
+        }
+
+        @Override
+        public Rejection rejection() {
+            return Rejection.IMPOSSIBLE_SPEED;
+        }
+
+        @Override
+        public void onAccepted(GpsFix fix) {
+            reference = fix;
+            consecutiveRejections = 0;
+        }
+    }
+
+    /**
+     * Kalman pe latitudine/longitudine cu varianță comună. Predicția avansează ultima poziție netezită
+     * cu viteza și direcția raportate (dead reckoning), altfel filtrul ar rămâne în urma vehiculului.
+     * Incertitudinea crește cu noiseSpeedMps² pe secundă; precizia fix-ului e zgomotul măsurătorii.
+     */
+    public static class KalmanSmoother implements Stage {
+        private static final double METERS_PER_DEG_LAT = Math.toRadians(GeoMath.EARTH_RADIUS_METERS);
+
+        private final float noiseSpeedMps;
+        private double latitude;
+        private double longitude;
+        private float speedMps;
+        private float bearing;
+        private double variance = -1; // m², negativ = neinițializat
+        private long timeMillis;
+
+        public KalmanSmoother(float noiseSpeedMps) {
+            this.noiseSpeedMps = noiseSpeedMps;
+        }
+
+        @Override
+        public GpsFix apply(GpsFix fix, long nowMillis) {
+            if (variance < 0) {
+                return fix;
+            }
+            double seconds = Math.max(0, (fix.timeMillis - timeMillis) / 1000.0);
+            double distance = speedMps * seconds;
+            double predictedLat = latitude + distance * Math.cos(Math.toRadians(bearing)) / METERS_PER_DEG_LAT;
+            double predictedLng = longitude + distance * Math.sin(Math.toRadians(bearing))
+                / (METERS_PER_DEG_LAT * Math.cos(Math.toRadians(latitude)));
+            double predicted = variance + seconds * noiseSpeedMps * noiseSpeedMps;
+
+            double measurementVariance = Math.max(1f, fix.accuracy) * Math.max(1f, fix.accuracy);
+            double gain = predicted / (predicted + measurementVariance);
+            double smoothedLat = predictedLat + gain * (fix.latitude - predictedLat);
+            double smoothedLng = predictedLng + gain * (fix.longitude - predictedLng);
+            float smoothedAccuracy = (float) Math.sqrt((1 - gain) * predicted);
+            return new GpsFix(smoothedLat, smoothedLng, fix.speedMps, fix.bearing, fix.altitude,
+                smoothedAccuracy, fix.timeMillis);
+        }
+
+        @Override
+        public Rejection rejection() {
+            return null;
+        }
+
+        @Override
+        public void onAccepted(GpsFix fix) {
+            latitude = fix.latitude;
+            longitude = fix.longitude;
+            speedMps = fix.speedMps;
+            bearing = fix.bearing;
+            variance = (double) fix.accuracy * fix.accuracy;
+            timeMillis = fix.timeMillis;
+        }
+    }
+}
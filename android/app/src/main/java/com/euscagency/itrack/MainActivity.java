@@ -12,7 +12,8 @@ import java.util.ArrayList;
 import com.getcapacitor.Plugin;
 import android.content.ComponentName;
 import android.content.Context;
-import android.app.ActivityManager;
+import android.content.ServiceConnection;
+import android.os.IBinder;
 import android.os.Handler;
 import android.os.Looper;
 import android.content.pm.PackageManager;
@@ -26,6 +27,22 @@ public class MainActivity extends BridgeActivity {
     private static MainActivity instance;
     private boolean isAndroidGPSAdded = false; // FIXED: Previne multiple addJavascriptInterface
     private static volatile boolean isLoggingOut = false; // CRASH FIX: Previne apeluri WebView după logout
+    
+    // BOUND API: Legătură fără BIND_AUTO_CREATE - nu pornește serviciul, doar se conectează când rulează
+    private volatile BackgroundGPSService.LocalBinder gpsService;
+    private boolean gpsServiceBound = false;
+    private final ServiceConnection gpsServiceConnection = new ServiceConnection() {
+        @Override
+        public void onServiceConnected(ComponentName name, IBinder binder) {
+            gpsService = (BackgroundGPSService.LocalBinder) binder;
+            Log.d(TAG, "🔗 BackgroundGPSService conectat - comenzi directe prin binder");
+        }
+        
+        @Override
+        public void onServiceDisconnected(ComponentName name) {
+            gpsService = null;
+        }
+    };
 
     public static MainActivity getInstance() {
         return instance;
@@ -65,11 +82,34 @@ public class MainActivity extends BridgeActivity {
         // Setup offline GPS listener pentru capturarea din BackgroundGPSService
         setupOfflineGPSListener();
         
+        // BOUND API: Legătura rămâne pe toată viața activității - onServiceConnected vine la fiecare pornire a serviciului
+        gpsServiceBound = bindService(new Intent(this, BackgroundGPSService.class), gpsServiceConnection, 0);
+        
         // Înregistrează AndroidGPS Plugin ca fallback
         // AndroidGPSPlugin eliminat - folosind doar bridge WebView  
         Log.d(TAG, "🔌 Folosind bridge WebView direct - AndroidGPSPlugin eliminat");
     }
     
+    @Override
+    public void onDestroy() {
+        if (gpsServiceBound) {
+            try {
+                unbindService(gpsServiceConnection);
+            } catch (Exception e) {
+                Log.w(TAG, "unbindService: " + e.getMessage());
+            }
+            gpsServiceBound = false;
+        }
+        gpsService = null;
+        super.onDestroy();
+    }
+    
+    // Serviciul rulează și acceptă comenzi - altfel null și apelantul trimite intent-ul de pornire
+    private BackgroundGPSService.LocalBinder liveGpsService() {
+        BackgroundGPSService.LocalBinder service = gpsService;
+        return service != null && service.isAlive() ? service : null;
+    }
+
     // Gestionarea bridge-ului gata mutată în onResume pentru compatibilitate
 
     @Override
@@ -100,6 +140,36 @@ public class MainActivity extends BridgeActivity {
         if (!isAndroidGPSAdded) {
             addAndroidGPSInterface();
         }
+        
+        // BRIDGE EVENTS: Push grupat cât timp activitatea e vizibilă - la revenire JS face pull după cursor
+        BackgroundGPSService.getBridgeEvents().attach(
+            this::deliverBridgeEvents,
+            (task, delayMs) -> new Handler(Looper.getMainLooper()).postDelayed(task, delayMs)
+        );
+    }
+    
+    @Override
+    public void onPause() {
+        // În background evenimentele rămân în buffer-ul serviciului, WebView-ul nu mai e apelat
+        BackgroundGPSService.getBridgeEvents().detach();
+        super.onPause();
+    }
+    
+    // Rulează pe main thread (Handler) - un singur evaluateJavascript cu toate evenimentele din fereastră
+    private void deliverBridgeEvents(String eventsJson) {
+        if (isLoggingOut || isFinishing() || isDestroyed()) return;
+        try {
+            if (getBridge() == null) return; // CRASH FIX: Bridge poate fi null
+            WebView webView = getBridge().getWebView();
+            if (webView != null) {
+                webView.evaluateJavascript(
+                    "window.AndroidGPS && window.AndroidGPS.onGPSEvents && window.AndroidGPS.onGPSEvents(" + eventsJson + ");",
+                    null
+                );
+            }
+        } catch (Exception e) {
+            // SILENT: Nu logăm erori de WebView distrus - e normal la logout
+        }
     }
 
     private void addAndroidGPSInterface() {
@@ -180,6 +250,7 @@ public class MainActivity extends BridgeActivity {
     @JavascriptInterface
     public String startGPS(String courseId, String vehicleNumber, String uit, String authToken, int status) {
         // CRASH FIX: Resetăm flag-ul de logout când utilizatorul pornește GPS (nouă sesiune)
+        boolean afterLogout = isLoggingOut;
         isLoggingOut = false;
         Log.e(TAG, "🔓 isLoggingOut = false - WebView calls enabled");
         
@@ -192,6 +263,15 @@ public class MainActivity extends BridgeActivity {
         Log.e(TAG, "  - status: " + status);
         
         try {
+            // BOUND API: Serviciul rulează deja - cursa se adaugă sincron, JS primește rezultatul real
+            // (după logout serviciul se oprește - cursa nouă trebuie să-l pornească din nou prin intent)
+            BackgroundGPSService.LocalBinder service = afterLogout ? null : liveGpsService();
+            if (service != null) {
+                String resultMessage = service.addCourse(courseId, uit, authToken, vehicleNumber, status).toBridgeString();
+                Log.e(TAG, "📤 Returning to JavaScript (binder): " + resultMessage);
+                return resultMessage;
+            }
+            
             // Start BackgroundGPSService
             Intent intent = new Intent(this, BackgroundGPSService.class);
             intent.setAction("START_BACKGROUND_GPS");
@@ -209,31 +289,14 @@ public class MainActivity extends BridgeActivity {
             Log.e(TAG, "⚡ BackgroundGPSService folosește FUSION GPS pentru triangulare inteligentă");
             Log.e(TAG, "🔄 FUSION GPS transmite automat la 10 secunde cu telefonul blocat/minimizat");
             
-            // Try to start foreground service
+            // Try to start foreground service - componenta returnată confirmă pornirea, fără scanarea serviciilor
             android.content.ComponentName result = startForegroundService(intent);
             if (result != null) {
                 Log.e(TAG, "✅ === SUCCESS === BackgroundGPSService started successfully");
                 Log.e(TAG, "🔗 Service component: " + result.toString());
             } else {
-                Log.e(TAG, "❌ === WARNING === startForegroundService returned null");
-            }
-            
-            // Verify service is running
-            android.app.ActivityManager activityManager = (android.app.ActivityManager) getSystemService(ACTIVITY_SERVICE);
-            boolean serviceRunning = false;
-            for (android.app.ActivityManager.RunningServiceInfo service : activityManager.getRunningServices(Integer.MAX_VALUE)) {
-                if (BackgroundGPSService.class.getName().equals(service.service.getClassName())) {
-                    serviceRunning = true;
-                    Log.e(TAG, "✅ === VERIFIED === BackgroundGPSService is RUNNING");
-                    break;
-                }
-            }
-            
-            if (!serviceRunning) {
-                Log.e(TAG, "❌ === CRITICAL === BackgroundGPSService NOT FOUND in running services!");
-                // Try alternative start method
-                Log.e(TAG, "🔄 Trying alternative startService method...");
-                startService(intent);
+                Log.e(TAG, "❌ === CRITICAL === startForegroundService returned null - serviciul nu există");
+                return "ERROR: BackgroundGPSService indisponibil";
             }
             
             String resultMessage = "SUCCESS: BACKGROUND GPS started for " + courseId;
@@ -272,6 +335,12 @@ public class MainActivity extends BridgeActivity {
         Log.e(TAG, "  Status meanings: 2=START/RESUME, 3=PAUSE, 4=STOP");
         
         try {
+            // BOUND API: Rezultatul real - cursa poate lipsi din tracking sau token-ul poate fi pierdut
+            BackgroundGPSService.LocalBinder service = liveGpsService();
+            if (service != null) {
+                return service.updateStatus(courseId, newStatus).toBridgeString();
+            }
+            
             // Send status update to BackgroundGPSService
             Intent intent = new Intent(this, BackgroundGPSService.class);
             intent.setAction("UPDATE_COURSE_STATUS");
@@ -318,21 +387,6 @@ public class MainActivity extends BridgeActivity {
         }
     }
     
-    // Helper pentru a verifica dacă un serviciu rulează
-    private boolean isServiceRunning(Class<?> serviceClass) {
-        try {
-            ActivityManager manager = (ActivityManager) getSystemService(Context.ACTIVITY_SERVICE);
-            for (ActivityManager.RunningServiceInfo service : manager.getRunningServices(Integer.MAX_VALUE)) {
-                if (serviceClass.getName().equals(service.service.getClassName())) {
-                    return true;
-                }
-            }
-        } catch (Exception e) {
-            Log.e(TAG, "Error checking service status: " + e.getMessage());
-        }
-        return false;
-    }
-    
     @JavascriptInterface
     public String getOfflineGPSCount() {
         Log.e(TAG, "📊 === FUSION GPS === getOfflineGPSCount called");
@@ -357,6 +411,12 @@ public class MainActivity extends BridgeActivity {
         Log.e(TAG, "🔄 === FUSION GPS === syncOfflineGPS called");
         
         try {
+            // BOUND API: Sincronizare manuală = flush imediat (batch live + drenare offline)
+            BackgroundGPSService.LocalBinder service = liveGpsService();
+            if (service != null) {
+                return service.flush().toBridgeString();
+            }
+            
             // BackgroundGPSService handles offline sync automatically
             Log.e(TAG, "ℹ️ BackgroundGPSService syncs offline data automatically");
             Log.e(TAG, "✅ Manual sync not needed - service handles offline/online transitions");
@@ -373,30 +433,27 @@ public class MainActivity extends BridgeActivity {
         Log.e(TAG, "📊 === FUSION GPS === getServiceStatus called");
         
         try {
-            // Get basic status from SharedPreferences and service state
-            android.content.SharedPreferences prefs = getSharedPreferences("offline_gps", MODE_PRIVATE);
-            String coordinatesData = prefs.getString("coordinates", "[]");
-            org.json.JSONArray coordinates = new org.json.JSONArray(coordinatesData);
-            int offlineCount = coordinates.length();
-            
-            // Create status JSON
-            org.json.JSONObject status = new org.json.JSONObject();
-            status.put("isActive", true); // Simple check - service is responsive
-            status.put("activeCourses", 1); // Placeholder - BackgroundGPSService tracks this internally
-            status.put("offlineCount", offlineCount);
-            status.put("networkStatus", true); // Default online
-            status.put("lastTransmission", System.currentTimeMillis());
-            
-            String statusJson = status.toString();
-            Log.e(TAG, "📊 Service status: " + statusJson);
-            return statusJson;
-            
+            // METRICS: Starea reală din serviciu - curse active, coada offline, rețea, ultima transmisie + metrici
+            BackgroundGPSService.LocalBinder service = liveGpsService();
+            return service != null ? service.snapshot() : BackgroundGPSService.getServiceStatusJson();
         } catch (Exception e) {
             Log.e(TAG, "❌ Error getting service status: " + e.getMessage());
             return "{\"isActive\":false,\"activeCourses\":0,\"offlineCount\":0,\"networkStatus\":true}";
         }
     }
 
+    // FLUSH: Trimite acum punctele din batch și pornește drenarea offline - de ex. înainte de închiderea turei
+    @JavascriptInterface
+    public String flushGPS() {
+        try {
+            BackgroundGPSService.LocalBinder service = liveGpsService();
+            return service != null ? service.flush().toBridgeString() : "ERROR: BackgroundGPSService nu rulează";
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Eroare flushGPS: " + e.getMessage());
+            return "ERROR: " + e.getMessage();
+        }
+    }
+
     // Setup listener pentru capturarea GPS offline din BackgroundGPSService
     private void setupOfflineGPSListener() {
         Log.d(TAG, "🔧 Configurez offline GPS listener pentru capturarea din loguri");
@@ -419,6 +476,7 @@ public class MainActivity extends BridgeActivity {
     }
 
     // NETWORK STATUS REPORTING pentru frontend - CRITICAL pentru online/offline detection
+    // Statusul transmisiei trece prin canalul de evenimente: coalesced, livrat în dispatch-ul grupat
     @JavascriptInterface
     public void onGPSTransmissionSuccess() {
         // CRASH FIX: Nu apela WebView dacă logout e în progres
@@ -426,23 +484,7 @@ public class MainActivity extends BridgeActivity {
             Log.d(TAG, "📡 GPS transmission SUCCESS - SKIPPED (logout in progress)");
             return;
         }
-        
-        Log.d(TAG, "📡 GPS transmission SUCCESS - notifying WebView about network status");
-        
-        // Call JavaScript function to report success
-        runOnUiThread(() -> {
-            try {
-                if (isLoggingOut) return; // Double check în UI thread
-                if (getBridge() == null) return; // CRASH FIX: Bridge poate fi null
-                WebView webView = getBridge().getWebView();
-                if (webView != null && !isLoggingOut) {
-                    String jsCode = "if(window.AndroidGPSCallback && window.AndroidGPSCallback.onTransmissionSuccess) { window.AndroidGPSCallback.onTransmissionSuccess(); }";
-                    webView.evaluateJavascript(jsCode, null);
-                }
-            } catch (Exception e) {
-                // SILENT: Nu logăm erori de WebView distrus - e normal la logout
-            }
-        });
+        BackgroundGPSService.getBridgeEvents().publish(BridgeEventChannel.Type.TRANSMISSION, "ANDROID_TRANSMISSION:200");
     }
 
     @JavascriptInterface  
@@ -452,23 +494,51 @@ public class MainActivity extends BridgeActivity {
             Log.d(TAG, "📡 GPS transmission ERROR - SKIPPED (logout in progress)");
             return;
         }
-        
-        Log.d(TAG, "📡 GPS transmission ERROR " + httpStatus + " - notifying WebView about network status");
-        
-        // Call JavaScript function to report error
-        runOnUiThread(() -> {
-            try {
-                if (isLoggingOut) return; // Double check în UI thread
-                if (getBridge() == null) return; // CRASH FIX: Bridge poate fi null
-                WebView webView = getBridge().getWebView();
-                if (webView != null && !isLoggingOut) {
-                    String jsCode = "if(window.AndroidGPSCallback && window.AndroidGPSCallback.onTransmissionError) { window.AndroidGPSCallback.onTransmissionError(" + httpStatus + "); }";
-                    webView.evaluateJavascript(jsCode, null);
-                }
-            } catch (Exception e) {
-                // SILENT: Nu logăm erori de WebView distrus - e normal la logout
-            }
-        });
+        BackgroundGPSService.getBridgeEvents().publish(BridgeEventChannel.Type.TRANSMISSION, "ANDROID_TRANSMISSION:" + httpStatus);
+    }
+    
+    // BRIDGE EVENTS: Evenimentele de după cursor - {"cursor":..,"missed":..,"events":[..]}
+    @JavascriptInterface
+    public String getGPSEvents(long cursor) {
+        try {
+            return BackgroundGPSService.getBridgeEvents().eventsSince(cursor);
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Eroare getGPSEvents: " + e.getMessage());
+            return "{\"cursor\":" + cursor + ",\"missed\":false,\"events\":[]}";
+        }
+    }
+    
+    // COURSE ANALYTICS: Statisticile sunt calculate nativ la fiecare fix - JS citește instantaneul la cerere
+    @JavascriptInterface
+    public String getCourseAnalytics(String courseId) {
+        try {
+            String json = BackgroundGPSService.getCourseAnalyticsJson(courseId);
+            return json != null ? json : "null";
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Eroare getCourseAnalytics: " + e.getMessage());
+            return "null";
+        }
+    }
+    
+    @JavascriptInterface
+    public String getAllCourseAnalytics() {
+        try {
+            return BackgroundGPSService.getAllCourseAnalyticsJson();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Eroare getAllCourseAnalytics: " + e.getMessage());
+            return "[]";
+        }
+    }
+    
+    // FLIGHT RECORDER: Ultimele evenimente ale serviciului GPS (text, cel mai vechi primul) pentru diagnostic
+    @JavascriptInterface
+    public String dumpFlightRecorder() {
+        try {
+            return BackgroundGPSService.dumpFlightRecorder();
+        } catch (Exception e) {
+            Log.e(TAG, "❌ Eroare dumpFlightRecorder: " + e.getMessage());
+            return "";
+        }
     }
     
     // FIXED: Implementează markManualPause pentru compatibility cu frontend
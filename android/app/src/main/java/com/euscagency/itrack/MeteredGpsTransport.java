@@ -0,0 +1,110 @@
+package com.euscagency.itrack;
+
+import java.io.IOException;
+
+/**
+ * TRANSPORT CU METRICI - decorator peste GpsTransport: latența fiecărui POST, bytes pe fir, coduri HTTP
+ * Toate trimiterile (batch live, status, retry offline) trec prin același transport, deci metricile
+ * acoperă întreg traficul către gps.php fără instrumentare la fiecare apel.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class MeteredGpsTransport implements GpsTransport {
+
+    private final GpsTransport delegate;
+    private final LatencyHistogram latencyMs;
+    private final StripedCounter requests;
+    private final StripedCounter bytesSent;
+    private final StripedCounter bytesReceived;
+    private final StripedCounter success;
+    private final StripedCounter clientErrors;
+    private final StripedCounter serverErrors;
+    private final StripedCounter networkErrors;
+
+    public MeteredGpsTransport(GpsTransport delegate, MetricsRegistry metrics) {
+        this.delegate = delegate;
+        this.latencyMs = metrics.histogram("http.latency_ms");
+        this.requests = metrics.counter("http.requests");
+        this.bytesSent = metrics.counter("http.bytes_sent");
+        this.bytesReceived = metrics.counter("http.bytes_received");
+        this.success = metrics.counter("http.2xx");
+        this.clientErrors = metrics.counter("http.4xx");
+        this.serverErrors = metrics.counter("http.5xx");
+        this.networkErrors = metrics.counter("http.network_errors");
+    }
+
+    @Override
+    public Response post(String json, String userAgent) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return recorded(delegate.post(json, userAgent), utf8Length(json), start);
+        } catch (IOException e) {
+            recordFailure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public Response postBinary(byte[] body, String contentType, String userAgent) throws IOException {
+        long start = System.nanoTime();
+        try {
+            return recorded(delegate.postBinary(body, contentType, userAgent), body.length, start);
+        } catch (IOException e) {
+            recordFailure(start);
+            throw e;
+        }
+    }
+
+    @Override
+    public void setAuthToken(String authToken) {
+        delegate.setAuthToken(authToken);
+    }
+
+    @Override
+    public void shutdown() {
+        delegate.shutdown();
+    }
+
+    private Response recorded(Response response, long requestBytes, long startNanos) {
+        latencyMs.record((System.nanoTime() - startNanos) / 1000000L);
+        requests.increment();
+        bytesSent.add(requestBytes);
+        if (response.body != null) {
+            bytesReceived.add(utf8Length(response.body));
+        }
+        if (response.isSuccessful()) {
+            success.increment();
+        } else if (response.code >= 400 && response.code < 500) {
+            clientErrors.increment();
+        } else if (response.code >= 500) {
+            serverErrors.increment();
+        }
+        return response;
+    }
+
+    private void recordFailure(long startNanos) {
+        latencyMs.record((System.nanoTime() - startNanos) / 1000000L);
+        requests.increment();
+        networkErrors.increment();
+    }
+
+    // Lungimea UTF-8 fără a aloca byte[] (body-ul de request e deja serializat de OkHttp)
+    static long utf8Length(String text) {
+        long bytes = 0;
+        int length = text.length();
+        for (int i = 0; i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                bytes += 1;
+            } else if (c < 0x800) {
+                bytes += 2;
+            } else if (Character.isHighSurrogate(c) && i + 1 < length && Character.isLowSurrogate(text.charAt(i + 1))) {
+                bytes += 4;
+                i++;
+            } else {
+                bytes += 3;
+            }
+        }
+        return bytes;
+    }
+}
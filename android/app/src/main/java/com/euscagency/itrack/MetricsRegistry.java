@@ -0,0 +1,122 @@
+package com.euscagency.itrack;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * REGISTRU METRICI - contoare striped, histograme HDR și gauge-uri citite la cerere, după nume
+ * Metricile se creează o singură dată (la inițializarea serviciului) și se țin în câmpuri - pe calea
+ * fierbinte nu există lookup după nume, doar add()/record(). Gauge-urile (adâncimi de cozi) nu costă
+ * nimic până la snapshot. Snapshot-ul e un JSON cu chei sortate, servit prin bridge.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class MetricsRegistry {
+
+    // Valoare instantanee citită doar la snapshot (ex. dimensiunea unei cozi)
+    public interface Gauge {
+        long read();
+    }
+
+    private final ConcurrentHashMap<String, StripedCounter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, LatencyHistogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, Gauge> gauges = new ConcurrentHashMap<>();
+    private final long createdAtMillis;
+
+    public MetricsRegistry(long createdAtMillis) {
+        this.createdAtMillis = createdAtMillis;
+    }
+
+    // Același nume → același contor (serviciul recreat refolosește metricile procesului)
+    public StripedCounter counter(String name) {
+        StripedCounter counter = counters.get(name);
+        if (counter == null) {
+            StripedCounter created = new StripedCounter();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null) {
+                counter = created;
+            }
+        }
+        return counter;
+    }
+
+    public LatencyHistogram histogram(String name) {
+        LatencyHistogram histogram = histograms.get(name);
+        if (histogram == null) {
+            LatencyHistogram created = new LatencyHistogram();
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null) {
+                histogram = created;
+            }
+        }
+        return histogram;
+    }
+
+    // Gauge-ul înlocuiește unul anterior cu același nume (ex. coada noului httpThreadPool)
+    public void gauge(String name, Gauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    // Serviciul distrus - gauge-urile ar citi câmpurile unei instanțe moarte
+    public void clearGauges() {
+        gauges.clear();
+    }
+
+    public long gaugeValue(String name, long missing) {
+        Gauge gauge = gauges.get(name);
+        if (gauge == null) {
+            return missing;
+        }
+        try {
+            return gauge.read();
+        } catch (RuntimeException e) {
+            return missing;
+        }
+    }
+
+    public long counterValue(String name) {
+        StripedCounter counter = counters.get(name);
+        return counter != null ? counter.sum() : 0;
+    }
+
+    // {"uptimeMs":..,"counters":{..},"gauges":{..},"histograms":{"nume":{"count",..,"p99",..}}}
+    public String toJson(long nowMillis) {
+        StringBuilder json = new StringBuilder(512);
+        json.append("{\"uptimeMs\":").append(nowMillis - createdAtMillis);
+        json.append(",\"counters\":{");
+        boolean first = true;
+        for (Map.Entry<String, StripedCounter> entry : new TreeMap<>(counters).entrySet()) {
+            first = appendName(json, entry.getKey(), first);
+            json.append(entry.getValue().sum());
+        }
+        json.append("},\"gauges\":{");
+        first = true;
+        for (Map.Entry<String, Gauge> entry : new TreeMap<>(gauges).entrySet()) {
+            long value;
+            try {
+                value = entry.getValue().read();
+            } catch (RuntimeException e) {
+                value = -1; // Sursa gauge-ului nu mai există (ex. pool oprit)
+            }
+            first = appendName(json, entry.getKey(), first);
+            json.append(value);
+        }
+        json.append("},\"histograms\":{");
+        first = true;
+        for (Map.Entry<String, LatencyHistogram> entry : new TreeMap<>(histograms).entrySet()) {
+            first = appendName(json, entry.getKey(), first);
+            json.append(entry.getValue().snapshot().toJson());
+        }
+        return json.append("}}").toString();
+    }
+
+    // Numele sunt constante din cod (litere, cifre, '.', '_') - fără escaping
+    private static boolean appendName(StringBuilder json, String name, boolean first) {
+        if (!first) {
+            json.append(',');
+        }
+        json.append('"').append(name).append("\":");
+        return false;
+    }
+}
@@ -0,0 +1,199 @@
+package com.euscagency.itrack;
+
+/**
+ * MOTION STATE - detectează staționarea din senzori + fix-uri și comută GPS-ul pe consum redus
+ *   MOVING      → LocationRequest de mare precizie, intervalul ales de AdaptiveSamplingPolicy
+ *   STATIONARY  → request balanced (fără GNSS dedicat) cu heartbeat lent, cât timp vehiculul stă
+ * Intrarea în STATIONARY cere ambele dovezi: fix-urile arată oprire (treapta STATIONARY/PARKED a
+ * politicii) ȘI accelerometrul e liniștit de STILL_AFTER_MS. Fără accelerometru nu se intră niciodată -
+ * doar senzorii pot anunța pornirea fără să aștepte heartbeat-ul. Ieșirea e imediată: significant motion,
+ * câteva scuturături peste prag în MOTION_WINDOW_MS sau un fix de heartbeat care s-a deplasat.
+ * Evenimentele întorc true doar când LocationRequest trebuie re-emis (mod sau treaptă schimbată).
+ * Măsoară și timpul cu GNSS pornit pe tură - o instanță per serviciu, adică de la login la logout
+ * (între startTracking/stopTracking, doar în MOVING).
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class MotionStateMachine {
+
+    public enum State {
+        MOVING,
+        STATIONARY
+    }
+
+    static final long HEARTBEAT_INTERVAL_MS = 5 * 60 * 1000;
+    static final long HEARTBEAT_FASTEST_INTERVAL_MS = 60 * 1000;
+    static final long STILL_AFTER_MS = 3 * 60 * 1000;
+
+    // Accelerometru: abaterea modulului (m/s²) față de media lentă (gravitația + offset-ul senzorului)
+    static final float MOTION_THRESHOLD = 0.6f;
+    static final int MOTION_SAMPLES = 3;          // O ușă trântită nu e pornire - cerem mai multe vârfuri
+    static final long MOTION_WINDOW_MS = 2000;
+    static final float GRAVITY_SMOOTHING = 0.05f;
+
+    private final AdaptiveSamplingPolicy policy;
+
+    private State state = State.MOVING;
+    private boolean accelerometerSeen;
+    private float gravity = -1;
+    private long lastMotionAt = -1;   // Ultima mișcare confirmată de accelerometru (sau pornirea)
+    private long firstSpikeAt = -1;
+    private int spikes;
+    private GpsFix anchor;            // Fix-ul la care s-a intrat în STATIONARY
+
+    // GNSS-on pe tură (durata instanței)
+    private long trackingSince = -1;
+    private long gnssOnMillis;
+    private long lowPowerMillis;
+
+    public MotionStateMachine(AdaptiveSamplingPolicy policy) {
+        this.policy = policy;
+    }
+
+    public synchronized State getState() {
+        return state;
+    }
+
+    public synchronized boolean isLowPower() {
+        return state == State.STATIONARY;
+    }
+
+    public synchronized AdaptiveSamplingPolicy.Tier getTier() {
+        return policy.getTier();
+    }
+
+    // Un fix acceptat de filtru - treapta politicii și, în STATIONARY, dovada de deplasare
+    public synchronized boolean onFix(GpsFix fix) {
+        long now = fix.timeMillis;
+        if (state == State.STATIONARY) {
+            if (movedAwayFrom(anchor, fix)) {
+                return resume(now);
+            }
+            policy.onFix(fix);
+            return false;
+        }
+        boolean tierChanged = policy.onFix(fix);
+        return enterStationaryIfStill(now, fix) || tierChanged;
+    }
+
+    // O probă de accelerometru (m/s², inclusiv gravitația)
+    public synchronized boolean onAccelerometer(long timeMillis, float x, float y, float z) {
+        float magnitude = (float) Math.sqrt(x * x + y * y + z * z);
+        if (!accelerometerSeen) {
+            accelerometerSeen = true;
+            gravity = magnitude;
+            if (lastMotionAt < 0) {
+                lastMotionAt = timeMillis; // Liniștea se numără de la prima probă
+            }
+            return false;
+        }
+        float deviation = Math.abs(magnitude - gravity);
+        gravity += (magnitude - gravity) * GRAVITY_SMOOTHING;
+        if (deviation < MOTION_THRESHOLD) {
+            return false;
+        }
+
+        if (firstSpikeAt < 0 || timeMillis - firstSpikeAt > MOTION_WINDOW_MS) {
+            firstSpikeAt = timeMillis;
+            spikes = 0;
+        }
+        spikes++;
+        if (spikes < MOTION_SAMPLES) {
+            return false;
+        }
+        lastMotionAt = timeMillis;
+        firstSpikeAt = -1;
+        spikes = 0;
+        return state == State.STATIONARY && resume(timeMillis);
+    }
+
+    // Senzorul hardware significant motion (wake-up) a declanșat - pornire sigură
+    public synchronized boolean onSignificantMotion(long timeMillis) {
+        lastMotionAt = Math.max(lastMotionAt, timeMillis);
+        return state == State.STATIONARY && resume(timeMillis);
+    }
+
+    // Cursă nouă / reluată - înapoi în MOVING pe treapta NORMAL
+    public synchronized boolean reset(long timeMillis) {
+        boolean wasLowPower = state == State.STATIONARY;
+        if (wasLowPower) {
+            switchTo(State.MOVING, timeMillis);
+        }
+        anchor = null;
+        firstSpikeAt = -1;
+        spikes = 0;
+        if (accelerometerSeen) {
+            lastMotionAt = timeMillis;
+        }
+        return policy.reset() || wasLowPower;
+    }
+
+    // GNSS-on: LocationUpdates înregistrate / scoase
+    public synchronized void startTracking(long timeMillis) {
+        if (trackingSince < 0) {
+            trackingSince = timeMillis;
+        }
+    }
+
+    public synchronized void stopTracking(long timeMillis) {
+        accumulate(timeMillis);
+        trackingSince = -1;
+    }
+
+    // Timpul cu GNSS de mare precizie de la crearea instanței
+    public synchronized long getGnssOnMillis(long timeMillis) {
+        return gnssOnMillis + (trackingSince >= 0 && state == State.MOVING ? Math.max(0, timeMillis - trackingSince) : 0);
+    }
+
+    // Timpul cu tracking activ pe consum redus (request balanced)
+    public synchronized long getLowPowerMillis(long timeMillis) {
+        return lowPowerMillis + (trackingSince >= 0 && state == State.STATIONARY ? Math.max(0, timeMillis - trackingSince) : 0);
+    }
+
+    private boolean enterStationaryIfStill(long now, GpsFix fix) {
+        AdaptiveSamplingPolicy.Tier tier = policy.getTier();
+        if (tier != AdaptiveSamplingPolicy.Tier.STATIONARY && tier != AdaptiveSamplingPolicy.Tier.PARKED) {
+            return false;
+        }
+        if (!accelerometerSeen || now - lastMotionAt < STILL_AFTER_MS) {
+            return false;
+        }
+        anchor = fix;
+        switchTo(State.STATIONARY, now);
+        return true;
+    }
+
+    private boolean resume(long now) {
+        anchor = null;
+        switchTo(State.MOVING, now);
+        policy.reset(); // Heartbeat-urile lente nu spun nimic despre traseu - treapta se reconstruiește
+        return true;
+    }
+
+    private void switchTo(State next, long now) {
+        accumulate(now);
+        state = next;
+    }
+
+    private void accumulate(long now) {
+        if (trackingSince < 0) {
+            return;
+        }
+        long elapsed = Math.max(0, now - trackingSince);
+        if (state == State.MOVING) {
+            gnssOnMillis += elapsed;
+        } else {
+            lowPowerMillis += elapsed;
+        }
+        trackingSince = Math.max(trackingSince, now);
+    }
+
+    // Deplasare dincolo de incertitudinea ambelor fix-uri (heartbeat-ul balanced e WiFi/celular) sau viteză de mers
+    private static boolean movedAwayFrom(GpsFix anchor, GpsFix fix) {
+        if (fix.speedMps >= AdaptiveSamplingPolicy.MOVING_SPEED) {
+            return true;
+        }
+        double radius = Math.max(AdaptiveSamplingPolicy.MIN_STATIONARY_RADIUS_METERS, anchor.accuracy + fix.accuracy);
+        return GeoMath.distanceMeters(anchor, fix) > radius;
+    }
+}
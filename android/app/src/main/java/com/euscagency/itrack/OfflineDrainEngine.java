@@ -0,0 +1,221 @@
+package com.euscagency.itrack;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * MOTOR DE DRENARE OFFLINE - golește backlog-ul de puncte GPS imediat ce rețeaua revine
+ * Trimite batch-uri în paralel într-un buget configurabil (batch-uri simultane + batch-uri/secundă)
+ * și cedează prioritatea traficului live: cât timp un upload live e în curs, backlog-ul așteaptă.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class OfflineDrainEngine<T> {
+
+    private static final long LIVE_YIELD_MS = 50;
+    private static final long MAX_LIVE_WAIT_MS = 2000;
+
+    // Sursa backlog-ului - returnează doar elementele eligibile acum (backoff expirat)
+    public interface Backlog<T> {
+        List<T> takeReady(int max);
+
+        int size();
+    }
+
+    // Trimite sincron un batch; implementarea confirmă/reintroduce elementele în backlog
+    public interface BatchSender<T> {
+        SendResult send(List<T> batch);
+    }
+
+    public interface LiveTrafficProbe {
+        boolean isLiveTrafficPending();
+    }
+
+    public interface ProgressListener {
+        void onProgress(int delivered, int processed, int remaining);
+
+        void onDrainFinished(int delivered, int processed, int remaining);
+    }
+
+    // Timpul pentru bugetul de batch-uri și cedarea către live - virtual în simulatorul de replay
+    public interface Clock {
+        long nanoTime();
+
+        void sleepNanos(long nanos) throws InterruptedException;
+    }
+
+    private static final Clock SYSTEM_CLOCK = new Clock() {
+        @Override
+        public long nanoTime() {
+            return System.nanoTime();
+        }
+
+        @Override
+        public void sleepNanos(long nanos) throws InterruptedException {
+            TimeUnit.NANOSECONDS.sleep(nanos);
+        }
+    };
+
+    public static final class SendResult {
+        public final int delivered;
+        public final int failed;
+        public final boolean serverReachable;
+
+        public SendResult(int delivered, int failed, boolean serverReachable) {
+            this.delivered = delivered;
+            this.failed = failed;
+            this.serverReachable = serverReachable;
+        }
+    }
+
+    private final Backlog<T> backlog;
+    private final BatchSender<T> sender;
+    private final LiveTrafficProbe liveTraffic;
+    private final ProgressListener progress;
+    private final Executor executor;
+    private final int batchSize;
+    private final int maxConcurrentBatches;
+    private final long batchIntervalNanos;
+    private final Clock clock;
+
+    private final AtomicBoolean draining = new AtomicBoolean(false);
+    private final AtomicBoolean stopped = new AtomicBoolean(false);
+    private final AtomicInteger activeWorkers = new AtomicInteger();
+    private final AtomicInteger runDelivered = new AtomicInteger();
+    private final AtomicInteger runProcessed = new AtomicInteger();
+    private final AtomicLong nextBatchSlotNanos = new AtomicLong(Long.MIN_VALUE);
+    private volatile boolean retriggered = false;
+
+    public OfflineDrainEngine(Backlog<T> backlog, BatchSender<T> sender, LiveTrafficProbe liveTraffic,
+                              ProgressListener progress, Executor executor,
+                              int batchSize, int maxConcurrentBatches, int maxBatchesPerSecond) {
+        this(backlog, sender, liveTraffic, progress, executor, batchSize, maxConcurrentBatches, maxBatchesPerSecond,
+            SYSTEM_CLOCK);
+    }
+
+    public OfflineDrainEngine(Backlog<T> backlog, BatchSender<T> sender, LiveTrafficProbe liveTraffic,
+                              ProgressListener progress, Executor executor,
+                              int batchSize, int maxConcurrentBatches, int maxBatchesPerSecond, Clock clock) {
+        this.backlog = backlog;
+        this.sender = sender;
+        this.liveTraffic = liveTraffic;
+        this.progress = progress;
+        this.executor = executor;
+        this.batchSize = Math.max(1, batchSize);
+        this.maxConcurrentBatches = Math.max(1, maxConcurrentBatches);
+        this.batchIntervalNanos = maxBatchesPerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / maxBatchesPerSecond : 0;
+        this.clock = clock;
+    }
+
+    // Pornește drenarea acum (rețea revenită, upload live reușit) - idempotent cât timp rulează deja
+    public boolean trigger() {
+        if (stopped.get() || backlog.size() == 0) {
+            return false;
+        }
+        // Steagul se pune înaintea CAS-ului: fie CAS-ul reușește, fie ultimul worker vede steagul
+        // și face încă o trecere - altfel un trigger sosit cât se închide drenarea se pierde
+        retriggered = true;
+        if (!draining.compareAndSet(false, true)) {
+            return false;
+        }
+        retriggered = false;
+        runDelivered.set(0);
+        runProcessed.set(0);
+        // Toți workerii se numără înainte de pornire - un worker rapid nu închide drenarea înaintea celorlalți
+        activeWorkers.addAndGet(maxConcurrentBatches);
+        for (int i = 0; i < maxConcurrentBatches; i++) {
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        drainLoop();
+                    }
+                });
+            } catch (RuntimeException e) {
+                for (int notStarted = i; notStarted < maxConcurrentBatches; notStarted++) {
+                    workerFinished();
+                }
+                throw e;
+            }
+        }
+        return true;
+    }
+
+    public boolean isDraining() {
+        return draining.get();
+    }
+
+    public void stop() {
+        stopped.set(true);
+    }
+
+    private void drainLoop() {
+        try {
+            while (!stopped.get() && !Thread.currentThread().isInterrupted()) {
+                yieldToLiveTraffic();
+                acquireBatchSlot();
+                // Elementele se scot din backlog doar după ultima așteptare - o întrerupere nu le pierde
+                List<T> batch = backlog.takeReady(batchSize);
+                if (batch.isEmpty()) {
+                    break;
+                }
+
+                SendResult result = sender.send(batch);
+                int delivered = runDelivered.addAndGet(result.delivered);
+                int processed = runProcessed.addAndGet(result.delivered + result.failed);
+                progress.onProgress(delivered, processed, backlog.size());
+
+                // Rețeaua a căzut din nou - nu mai insistăm până la următorul trigger
+                if (!result.serverReachable) {
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } finally {
+            workerFinished();
+        }
+    }
+
+    private void workerFinished() {
+        if (activeWorkers.decrementAndGet() == 0) {
+            draining.set(false);
+            progress.onDrainFinished(runDelivered.get(), runProcessed.get(), backlog.size());
+            if (retriggered) {
+                trigger();
+            }
+        }
+    }
+
+    // PRIORITATE LIVE: backlog-ul așteaptă cât timp un upload live e în curs (limitat, ca să nu se blocheze)
+    private void yieldToLiveTraffic() throws InterruptedException {
+        long waited = 0;
+        while (liveTraffic.isLiveTrafficPending() && waited < MAX_LIVE_WAIT_MS) {
+            clock.sleepNanos(TimeUnit.MILLISECONDS.toNanos(LIVE_YIELD_MS));
+            waited += LIVE_YIELD_MS;
+        }
+    }
+
+    // BUGET: cel mult maxBatchesPerSecond batch-uri pornite pe secundă, împărțit între workeri
+    private void acquireBatchSlot() throws InterruptedException {
+        if (batchIntervalNanos == 0) {
+            return;
+        }
+        while (true) {
+            long now = clock.nanoTime();
+            long slot = nextBatchSlotNanos.get();
+            long start = Math.max(now, slot);
+            if (nextBatchSlotNanos.compareAndSet(slot, start + batchIntervalNanos)) {
+                long waitNanos = start - now;
+                if (waitNanos > 0) {
+                    clock.sleepNanos(waitNanos);
+                }
+                return;
+            }
+        }
+    }
+}
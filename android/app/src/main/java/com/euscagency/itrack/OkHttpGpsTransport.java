@@ -0,0 +1,99 @@
+package com.euscagency.itrack;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import okhttp3.ConnectionPool;
+import okhttp3.MediaType;
+import okhttp3.OkHttpClient;
+import okhttp3.Protocol;
+import okhttp3.Request;
+import okhttp3.RequestBody;
+import okhttp3.ResponseBody;
+
+/**
+ * TRANSPORT OKHTTP - un singur OkHttpClient pentru tot serviciul GPS
+ * Conexiunile keep-alive și sesiunea TLS sunt refolosite de toate cele 3 thread-uri din httpThreadPool,
+ * iar HTTP/2 este negociat automat (ALPN) când serverul îl suportă.
+ */
+public class OkHttpGpsTransport implements GpsTransport {
+
+    private static final MediaType JSON = MediaType.get("application/json; charset=utf-8");
+
+    // 3 workeri HTTP => max 3 conexiuni idle, păstrate 5 minute (intervalul GPS e 10s)
+    private static final int MAX_IDLE_CONNECTIONS = 3;
+    private static final long KEEP_ALIVE_MINUTES = 5;
+    private static final long TIMEOUT_SECONDS = 15;
+
+    private final String endpointUrl;
+    private final OkHttpClient client;
+    private volatile String authToken;
+
+    public OkHttpGpsTransport(String endpointUrl) {
+        this.endpointUrl = endpointUrl;
+        this.client = new OkHttpClient.Builder()
+            .connectionPool(new ConnectionPool(MAX_IDLE_CONNECTIONS, KEEP_ALIVE_MINUTES, TimeUnit.MINUTES))
+            .protocols(Arrays.asList(Protocol.HTTP_2, Protocol.HTTP_1_1))
+            .connectTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .readTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .writeTimeout(TIMEOUT_SECONDS, TimeUnit.SECONDS)
+            .retryOnConnectionFailure(true)
+            .build();
+    }
+
+    @Override
+    public void setAuthToken(String authToken) {
+        this.authToken = authToken;
+    }
+
+    @Override
+    public Response post(String json, String userAgent) throws IOException {
+        return execute(RequestBody.create(json, JSON), userAgent);
+    }
+
+    @Override
+    public Response postBinary(byte[] body, String contentType, String userAgent) throws IOException {
+        return execute(RequestBody.create(body, MediaType.get(contentType)), userAgent);
+    }
+
+    private Response execute(RequestBody requestBody, String userAgent) throws IOException {
+        Request request = new Request.Builder()
+            .url(endpointUrl)
+            .header("Authorization", "Bearer " + authToken)
+            .header("Accept", "application/json")
+            .header("User-Agent", userAgent)
+            .header(GpsBinaryCodec.CAPABILITY_HEADER, String.valueOf(GpsBinaryCodec.VERSION))
+            .post(requestBody)
+            .build();
+
+        // Body-ul trebuie citit și închis - altfel conexiunea nu se întoarce în pool
+        try (okhttp3.Response response = client.newCall(request).execute()) {
+            ResponseBody body = response.body();
+            return new Response(response.code(), response.message(), body != null ? body.string() : "",
+                parseBinaryVersion(response.header(GpsBinaryCodec.CAPABILITY_HEADER)));
+        }
+    }
+
+    // Header absent sau invalid = serverul nu acceptă formatul binar
+    static int parseBinaryVersion(String header) {
+        if (header == null) {
+            return 0;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(header.trim()));
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public void shutdown() {
+        client.connectionPool().evictAll();
+        client.dispatcher().executorService().shutdown();
+    }
+
+    int getConnectionCount() {
+        return client.connectionPool().connectionCount();
+    }
+}
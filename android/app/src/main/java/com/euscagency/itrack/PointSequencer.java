@@ -0,0 +1,98 @@
+package com.euscagency.itrack;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * NUMEROTARE PUNCTE - secvență monotonă per cursă și ID de punct unic per dispozitiv, atribuite la captură
+ *   seq      = 1, 2, 3... pe UIT (puncte și statusuri, în ordinea producerii) - serverul ordonează după el
+ *   point_id = "<deviceId>-<n>", n monoton pe dispozitiv - serverul ignoră un punct deja primit
+ * Amândouă pleacă în payload-ul JSON, deci se persistă odată cu punctul în jurnalul offline: un retry
+ * (oricât de agresiv, oricâte POST-uri în paralel) retrimite aceleași valori, nu un punct nou.
+ * Contoarele supraviețuiesc repornirii prin rezervare în blocuri (hi/lo): Store primește doar plafonul
+ * rezervat, o dată la reserveBlock valori - după un crash numerotarea continuă de la plafon (cu gol, fără repetare).
+ * La STOP plafonul cursei se șterge din Store - fișierul nu crește cu fiecare cursă condusă. O cursă repornită
+ * după STOP numerotează din nou de la 1; point_id rămâne unic pe dispozitiv, deci dedupe-ul nu e afectat.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class PointSequencer {
+
+    public static final int DEFAULT_RESERVE_BLOCK = 100;
+
+    private static final String POINT_ID_KEY = "point_id";
+    private static final String SEQ_KEY_PREFIX = "seq:";
+
+    // Plafoanele rezervate - scrierea trebuie să fie durabilă înainte să revină (valorile de sub plafon se emit)
+    public interface Store {
+        long load(String key);
+
+        void save(String key, long reservedUpTo);
+
+        void remove(String key);
+    }
+
+    public static final class Stamp {
+        public final long seq;
+        public final String pointId;
+
+        Stamp(long seq, String pointId) {
+            this.seq = seq;
+            this.pointId = pointId;
+        }
+    }
+
+    private static final class Counter {
+        final String key;
+        long next;
+        long reserved;
+
+        Counter(String key, long reserved) {
+            this.key = key;
+            this.next = reserved + 1;
+            this.reserved = reserved;
+        }
+    }
+
+    private final String deviceId;
+    private final Store store;
+    private final int reserveBlock;
+    private final Counter pointIds;
+    private final Map<String, Counter> sequences = new HashMap<>();
+
+    public PointSequencer(String deviceId, Store store) {
+        this(deviceId, store, DEFAULT_RESERVE_BLOCK);
+    }
+
+    public PointSequencer(String deviceId, Store store, int reserveBlock) {
+        this.deviceId = deviceId;
+        this.store = store;
+        this.reserveBlock = Math.max(1, reserveBlock);
+        this.pointIds = new Counter(POINT_ID_KEY, store.load(POINT_ID_KEY));
+    }
+
+    // Următorul punct (sau status) al cursei uit
+    public synchronized Stamp next(String uit) {
+        Counter sequence = sequences.get(uit);
+        if (sequence == null) {
+            String key = SEQ_KEY_PREFIX + uit;
+            sequence = new Counter(key, store.load(key));
+            sequences.put(uit, sequence);
+        }
+        return new Stamp(take(sequence), deviceId + "-" + take(pointIds));
+    }
+
+    // Cursa s-a oprit definitiv (STOP) - contorul iese din memorie și plafonul din Store
+    public synchronized void forget(String uit) {
+        sequences.remove(uit);
+        store.remove(SEQ_KEY_PREFIX + uit);
+    }
+
+    private long take(Counter counter) {
+        if (counter.next > counter.reserved) {
+            counter.reserved = counter.next + reserveBlock - 1;
+            store.save(counter.key, counter.reserved);
+        }
+        return counter.next++;
+    }
+}
@@ -0,0 +1,271 @@
+package com.euscagency.itrack;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * PLANIFICATOR RETRY DUPĂ CONECTIVITATE - coada offline ordonată după momentul de eligibilitate
+ * Fiecare element are propriul backoff; un singur wake one-shot e programat pentru cel mai apropiat
+ * element eligibil. Cât timp nu există rețea nu se programează nimic (CPU-ul poate dormi), iar la
+ * revenirea rețelei toate elementele devin eligibile imediat.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class RetryScheduler<T> {
+
+    public interface DueListener {
+        // Există elemente eligibile - apelat pe thread-ul timer-ului
+        void onItemsDue();
+    }
+
+    public interface Clock {
+        long now();
+    }
+
+    public interface Filter<T> {
+        boolean matches(T item);
+    }
+
+    private static final class Slot<T> implements Comparable<Slot<T>> {
+        final T item;
+        final long eligibleAt;
+        final long sequence;
+
+        Slot(T item, long eligibleAt, long sequence) {
+            this.item = item;
+            this.eligibleAt = eligibleAt;
+            this.sequence = sequence;
+        }
+
+        @Override
+        public int compareTo(Slot<T> other) {
+            if (eligibleAt != other.eligibleAt) {
+                return eligibleAt < other.eligibleAt ? -1 : 1;
+            }
+            // Aceeași eligibilitate - ordinea de inserare (FIFO)
+            return sequence < other.sequence ? -1 : (sequence == other.sequence ? 0 : 1);
+        }
+    }
+
+    private final ScheduledExecutorService timer;
+    private final DueListener listener;
+    private final Clock clock;
+
+    private final PriorityQueue<Slot<T>> queue = new PriorityQueue<>();
+    private long nextSequence = 0;
+    private boolean online = false;
+    private ScheduledFuture<?> wake;
+    private long wakeAt = Long.MAX_VALUE;
+    private long wakeCount = 0;
+
+    public RetryScheduler(ScheduledExecutorService timer, DueListener listener) {
+        this(timer, listener, new Clock() {
+            @Override
+            public long now() {
+                return System.currentTimeMillis();
+            }
+        });
+    }
+
+    public RetryScheduler(ScheduledExecutorService timer, DueListener listener, Clock clock) {
+        this.timer = timer;
+        this.listener = listener;
+        this.clock = clock;
+    }
+
+    // EXPONENTIAL BACKOFF: initial * 2^retryCount, plafonat la max
+    public static long backoffDelayMs(int retryCount, long initialDelayMs, long maxDelayMs) {
+        if (retryCount >= 30) {
+            return maxDelayMs;
+        }
+        return Math.min(initialDelayMs << Math.max(0, retryCount), maxDelayMs);
+    }
+
+    public synchronized void offer(T item, long eligibleAt) {
+        queue.add(new Slot<>(item, eligibleAt, nextSequence++));
+        rescheduleLocked();
+    }
+
+    // Scoate cel mult maxItems elemente eligibile acum, în ordinea eligibilității
+    public synchronized List<T> takeReady(int maxItems) {
+        List<T> ready = new ArrayList<>();
+        long now = clock.now();
+        while (ready.size() < maxItems) {
+            Slot<T> head = queue.peek();
+            if (head == null || head.eligibleAt > now) {
+                break;
+            }
+            ready.add(queue.poll().item);
+        }
+        rescheduleLocked();
+        return ready;
+    }
+
+    // Ca takeReady, dar doar elementele acceptate de filtru - celelalte eligibile rămân pe loc
+    public synchronized List<T> takeReady(int maxItems, Filter<T> filter) {
+        List<Slot<T>> eligible = new ArrayList<>();
+        long now = clock.now();
+        for (Slot<T> slot : queue) {
+            if (slot.eligibleAt <= now && filter.matches(slot.item)) {
+                eligible.add(slot);
+            }
+        }
+        Collections.sort(eligible);
+        List<T> ready = new ArrayList<>();
+        for (int i = 0; i < eligible.size() && ready.size() < maxItems; i++) {
+            queue.remove(eligible.get(i));
+            ready.add(eligible.get(i).item);
+        }
+        rescheduleLocked();
+        return ready;
+    }
+
+    // Primele maxItems elemente acceptate de filtru în ordinea dată, indiferent de eligibilitate
+    // (ex. backlog-ul unei curse după seq, înaintea statusului ei)
+    public synchronized List<T> takeFirst(Filter<T> filter, Comparator<? super T> order, int maxItems) {
+        List<T> matching = new ArrayList<>();
+        for (Slot<T> slot : queue) {
+            if (filter.matches(slot.item)) {
+                matching.add(slot.item);
+            }
+        }
+        Collections.sort(matching, order);
+        List<T> taken = matching.size() > maxItems ? matching.subList(0, maxItems) : matching;
+        Set<T> remove = Collections.newSetFromMap(new IdentityHashMap<T, Boolean>());
+        remove.addAll(taken);
+        Iterator<Slot<T>> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (remove.contains(iterator.next().item)) {
+                iterator.remove();
+            }
+        }
+        if (!taken.isEmpty()) {
+            rescheduleLocked();
+        }
+        return new ArrayList<>(taken);
+    }
+
+    // Elimină elementele care nu mai trebuie trimise (ex. scoase din jurnal) - returnează câte
+    public synchronized int removeIf(Filter<T> filter) {
+        int removed = 0;
+        Iterator<Slot<T>> iterator = queue.iterator();
+        while (iterator.hasNext()) {
+            if (filter.matches(iterator.next().item)) {
+                iterator.remove();
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            rescheduleLocked();
+        }
+        return removed;
+    }
+
+    public synchronized int size() {
+        return queue.size();
+    }
+
+    public synchronized boolean isEmpty() {
+        return queue.isEmpty();
+    }
+
+    public synchronized void clear() {
+        queue.clear();
+        cancelWakeLocked();
+    }
+
+    // Momentul celui mai apropiat element eligibil, Long.MAX_VALUE dacă coada e goală
+    public synchronized long nextEligibleAt() {
+        Slot<T> head = queue.peek();
+        return head == null ? Long.MAX_VALUE : head.eligibleAt;
+    }
+
+    public synchronized boolean isOnline() {
+        return online;
+    }
+
+    // Wake-uri programate de la creare - util pentru a verifica că offline nu se consumă CPU
+    public synchronized long getWakeCount() {
+        return wakeCount;
+    }
+
+    // CONECTIVITATE: offline → nimic programat; revenire online → tot backlog-ul e eligibil acum
+    public synchronized void setOnline(boolean isOnline) {
+        if (online == isOnline) {
+            return;
+        }
+        online = isOnline;
+        if (isOnline) {
+            // Wake imediat pe thread-ul timer-ului - listener-ul nu rulează pe thread-ul callback-ului de rețea
+            makeAllEligibleLocked(clock.now());
+        } else {
+            cancelWakeLocked();
+        }
+    }
+
+    private void makeAllEligibleLocked(long now) {
+        List<Slot<T>> slots = new ArrayList<>(queue);
+        queue.clear();
+        for (Slot<T> slot : slots) {
+            // Se păstrează ordinea relativă (sequence), doar eligibilitatea se aduce la acum
+            queue.add(new Slot<>(slot.item, Math.min(slot.eligibleAt, now), slot.sequence));
+        }
+        rescheduleLocked();
+    }
+
+    private void rescheduleLocked() {
+        Slot<T> head = queue.peek();
+        if (!online || head == null) {
+            cancelWakeLocked();
+            return;
+        }
+        if (wake != null && wakeAt <= head.eligibleAt) {
+            return; // Wake-ul deja programat vine la timp
+        }
+        cancelWakeLocked();
+        long delay = Math.max(0, head.eligibleAt - clock.now());
+        wakeAt = head.eligibleAt;
+        wakeCount++;
+        try {
+            wake = timer.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    onWake();
+                }
+            }, delay, TimeUnit.MILLISECONDS);
+        } catch (RuntimeException e) {
+            // Timer oprit (serviciu distrus) - nu mai programăm nimic
+            wake = null;
+            wakeAt = Long.MAX_VALUE;
+        }
+    }
+
+    // Următorul wake se programează la takeReady/offer - un listener ocupat nu produce o buclă de wake-uri
+    private void onWake() {
+        synchronized (this) {
+            if (wake == null || !online) {
+                return;
+            }
+            wake = null;
+            wakeAt = Long.MAX_VALUE;
+        }
+        listener.onItemsDue();
+    }
+
+    private void cancelWakeLocked() {
+        if (wake != null) {
+            wake.cancel(false);
+            wake = null;
+        }
+        wakeAt = Long.MAX_VALUE;
+    }
+}
@@ -0,0 +1,46 @@
+package com.euscagency.itrack;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * CONTOR STRIPED - sumă adunată din mai multe celule, fiecare thread scrie în celula lui
+ * Alternativă la LongAdder (disponibil doar de la API 24): thread-ul GPS, workerii HTTP și thread-urile
+ * de drenare nu se bat pe aceeași linie de cache. Celulele sunt la 8 long-uri distanță (64 bytes),
+ * deci două celule nu împart niciodată o linie. Citirea (sum) e rară - doar la snapshot.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class StripedCounter {
+
+    private static final int PADDING = 8; // 8 × 8 bytes = o linie de cache
+    private static final int STRIPES = stripeCount();
+
+    private final AtomicLongArray cells = new AtomicLongArray(STRIPES * PADDING);
+
+    public void increment() {
+        add(1);
+    }
+
+    public void add(long delta) {
+        int stripe = (int) (Thread.currentThread().getId() & (STRIPES - 1));
+        cells.getAndAdd(stripe * PADDING, delta);
+    }
+
+    public long sum() {
+        long total = 0;
+        for (int stripe = 0; stripe < STRIPES; stripe++) {
+            total += cells.get(stripe * PADDING);
+        }
+        return total;
+    }
+
+    // Putere a lui 2, cel puțin 2 × procesoare (thread id-urile consecutive nu se suprapun), maxim 64
+    private static int stripeCount() {
+        int target = Math.min(64, 2 * Runtime.getRuntime().availableProcessors());
+        int stripes = 2;
+        while (stripes < target) {
+            stripes <<= 1;
+        }
+        return stripes;
+    }
+}
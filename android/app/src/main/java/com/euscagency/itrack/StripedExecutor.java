@@ -0,0 +1,242 @@
+package com.euscagency.itrack;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * BENZI PER CURSĂ - executor cu ordine FIFO per cheie (UIT) peste pool-ul HTTP comun
+ * Fiecare UIT are o bandă: task-urile aceleiași curse pornesc strict în ordinea predării, câte unul,
+ * iar cursele diferite urcă în paralel pe thread-urile pool-ului. Un task cu mai multe chei
+ * (batch-ul GPS comun) ocupă toate benzile lui: pornește doar când e primul în fiecare și le
+ * eliberează la final - un STOP nu poate depăși ultimele puncte ale cursei, oricât de lent e POST-ul.
+ * - fără lock global: fiecare bandă are lock-ul ei; un task cu mai multe chei le ia în ordinea cheilor
+ * - runInOrder(): thread-ul apelant (ex. drenarea offline) își așteaptă rândul și rulează el task-ul
+ * - benzile goale se elimină - memoria urmează cursele active, nu istoricul
+ * Un task respins de pool trebuie anulat (LaneTask.cancel()) - altfel banda rămâne blocată.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class StripedExecutor {
+
+    private static final int WAITING = 0;
+    private static final int GRANTED = 1;
+    private static final int CANCELLED = 2;
+
+    private final Executor executor;
+    private final ConcurrentHashMap<String, Lane> lanes = new ConcurrentHashMap<>();
+
+    private static final class Lane {
+        final String key;
+        final ReentrantLock lock = new ReentrantLock();
+        final ArrayDeque<LaneTask> queue = new ArrayDeque<>();
+        boolean retired; // scoasă din map - predările noi își fac altă bandă
+
+        Lane(String key) {
+            this.key = key;
+        }
+    }
+
+    public StripedExecutor(Executor executor) {
+        this.executor = executor;
+    }
+
+    public void execute(String key, Runnable task) {
+        execute(Collections.singletonList(key), task);
+    }
+
+    // Task pe pool după toate task-urile predate înainte pe oricare dintre chei (fără chei = imediat)
+    public void execute(Collection<String> keys, Runnable task) {
+        LaneTask laneTask = new LaneTask(task, null);
+        if (enqueue(keys, laneTask)) {
+            dispatch(laneTask);
+        }
+    }
+
+    // Rulează task-ul pe thread-ul apelant, la rândul lui în benzile cheilor - blochează până atunci
+    public void runInOrder(Collection<String> keys, Runnable task) throws InterruptedException {
+        LaneTask turn = new LaneTask(task, new CountDownLatch(1));
+        if (enqueue(keys, turn)) {
+            dispatch(turn);
+        }
+        try {
+            turn.granted.await();
+        } catch (InterruptedException e) {
+            if (!turn.state.compareAndSet(WAITING, CANCELLED)) {
+                complete(turn); // Rândul a venit între timp - banda trece mai departe fără task
+            }
+            throw e;
+        }
+        try {
+            task.run();
+        } finally {
+            complete(turn);
+        }
+    }
+
+    // Benzi cu task-uri în așteptare sau în curs
+    public int getLaneCount() {
+        return lanes.size();
+    }
+
+    // Cheile în ordine - toate benzile unui task se blochează mereu în aceeași ordine (fără deadlock)
+    private boolean enqueue(Collection<String> keys, LaneTask task) {
+        TreeSet<String> sorted = new TreeSet<>();
+        for (String key : keys) {
+            if (key != null) {
+                sorted.add(key);
+            }
+        }
+        while (true) {
+            Lane[] held = new Lane[sorted.size()];
+            int i = 0;
+            for (String key : sorted) {
+                held[i++] = laneFor(key);
+            }
+            int locked = 0;
+            try {
+                boolean retired = false;
+                for (Lane lane : held) {
+                    lane.lock.lock();
+                    locked++;
+                    if (lane.retired) {
+                        retired = true;
+                        break;
+                    }
+                }
+                if (!retired) {
+                    int heads = 0;
+                    for (Lane lane : held) {
+                        lane.queue.add(task);
+                        if (lane.queue.size() == 1) {
+                            heads++;
+                        }
+                    }
+                    task.lanes = held;
+                    // Benzile sunt blocate - nimeni altcineva nu poate decrementa încă
+                    return task.waiting.addAndGet(held.length - heads) == 0;
+                }
+            } finally {
+                for (int j = 0; j < locked; j++) {
+                    held[j].lock.unlock();
+                }
+            }
+        }
+    }
+
+    private Lane laneFor(String key) {
+        Lane lane = lanes.get(key);
+        if (lane == null) {
+            Lane created = new Lane(key);
+            lane = lanes.putIfAbsent(key, created);
+            if (lane == null) {
+                lane = created;
+            }
+        }
+        return lane;
+    }
+
+    // Task-ul a terminat (sau a fost anulat) - următorul din fiecare bandă avansează
+    private void complete(LaneTask task) {
+        if (!task.finish()) {
+            return;
+        }
+        List<LaneTask> ready = null;
+        for (Lane lane : task.lanes) {
+            lane.lock.lock();
+            try {
+                lane.queue.poll(); // Task-ul rula doar fiind primul în toate benzile lui
+                LaneTask next = lane.queue.peek();
+                if (next == null) {
+                    lane.retired = true;
+                    lanes.remove(lane.key, lane);
+                } else if (next.waiting.decrementAndGet() == 0) {
+                    if (ready == null) {
+                        ready = new ArrayList<>(2);
+                    }
+                    ready.add(next);
+                }
+            } finally {
+                lane.lock.unlock();
+            }
+        }
+        if (ready == null) {
+            return;
+        }
+        RuntimeException failure = null;
+        for (LaneTask next : ready) {
+            try {
+                dispatch(next);
+            } catch (RuntimeException e) {
+                if (failure == null) {
+                    failure = e;
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private void dispatch(LaneTask task) {
+        if (task.granted != null) {
+            if (task.state.compareAndSet(WAITING, GRANTED)) {
+                task.granted.countDown();
+            } else {
+                complete(task); // Apelantul a renunțat (întrerupt) - rândul lui se sare
+            }
+            return;
+        }
+        try {
+            executor.execute(task);
+        } catch (RuntimeException e) {
+            task.cancel();
+            throw e;
+        }
+    }
+
+    // Task-ul predat pool-ului - expune task-ul original pentru ca un task respins să nu fie pierdut
+    public final class LaneTask implements Runnable {
+        private final Runnable task;
+        private final CountDownLatch granted; // non-null = runInOrder pe thread-ul apelantului
+        private final AtomicInteger state = new AtomicInteger(WAITING);
+        private final AtomicInteger waiting = new AtomicInteger();
+        private final AtomicInteger finished = new AtomicInteger();
+        private Lane[] lanes;
+
+        LaneTask(Runnable task, CountDownLatch granted) {
+            this.task = task;
+            this.granted = granted;
+        }
+
+        public Runnable getTask() {
+            return task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                complete(this);
+            }
+        }
+
+        // Task-ul nu mai rulează (pool plin/oprit) - benzile lui trec mai departe
+        public void cancel() {
+            complete(this);
+        }
+
+        boolean finish() {
+            return finished.compareAndSet(0, 1);
+        }
+    }
+}
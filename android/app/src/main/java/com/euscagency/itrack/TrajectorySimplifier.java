@@ -0,0 +1,112 @@
+package com.euscagency.itrack;
+
+/**
+ * SIMPLIFICARE TRASEU - fereastră deschisă (opening window) incrementală, per cursă
+ * Un punct se trimite doar când linia dreaptă de la ultimul punct trimis nu mai acoperă punctele
+ * intermediare în toleranța dată, la schimbări de direcție, sau când fereastra/pauza maximă e atinsă.
+ * Memoria e fixă (maxWindow puncte), indiferent de lungimea cursei. Punctul emis este de obicei cel
+ * anterior fix-ului curent - fiecare punct își poartă propriul timestamp.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class TrajectorySimplifier {
+
+    static final float TURN_MIN_SPEED = 2.0f;
+    static final float TURN_DEGREES = 30f;
+
+    private final double toleranceMeters;
+    private final long maxGapMs;
+    private final GpsFix[] window;
+    private int windowSize;
+    private GpsFix anchor; // Ultimul punct trimis
+
+    private long offeredCount;
+    private long keptCount;
+
+    public TrajectorySimplifier(double toleranceMeters, long maxGapMs, int maxWindow) {
+        if (maxWindow < 1) {
+            throw new IllegalArgumentException("maxWindow trebuie să fie cel puțin 1");
+        }
+        this.toleranceMeters = toleranceMeters;
+        this.maxGapMs = maxGapMs;
+        this.window = new GpsFix[maxWindow];
+    }
+
+    // Un fix nou - întoarce punctul de trimis acum sau null dacă fix-ul rămâne în fereastră
+    public synchronized GpsFix offer(GpsFix fix) {
+        offeredCount++;
+        if (anchor == null) {
+            anchor = fix;
+            return keep(fix);
+        }
+        if (windowSize == 0) {
+            window[windowSize++] = fix;
+            return null;
+        }
+
+        GpsFix last = window[windowSize - 1];
+        if (isTurn(last, fix)
+                || fix.timeMillis - anchor.timeMillis > maxGapMs
+                || windowSize == window.length
+                || exceedsTolerance(fix)) {
+            anchor = last;
+            clearWindow();
+            window[windowSize++] = fix;
+            return keep(last);
+        }
+        window[windowSize++] = fix;
+        return null;
+    }
+
+    // Tranziție de status (pauză/stop) - ultimul punct din fereastră se trimite imediat
+    public synchronized GpsFix flush() {
+        if (windowSize == 0) {
+            return null;
+        }
+        GpsFix last = window[windowSize - 1];
+        anchor = last;
+        clearWindow();
+        return keep(last);
+    }
+
+    // Cursă reluată - primul fix după reset se trimite imediat
+    public synchronized void reset() {
+        anchor = null;
+        clearWindow();
+    }
+
+    public synchronized long getOfferedCount() {
+        return offeredCount;
+    }
+
+    public synchronized long getKeptCount() {
+        return keptCount;
+    }
+
+    private GpsFix keep(GpsFix fix) {
+        keptCount++;
+        return fix;
+    }
+
+    private boolean isTurn(GpsFix previous, GpsFix fix) {
+        return previous.speedMps >= TURN_MIN_SPEED && fix.speedMps >= TURN_MIN_SPEED
+            && GeoMath.headingDelta(previous.bearing, fix.bearing) >= TURN_DEGREES;
+    }
+
+    // Segmentul anchor→fix trebuie să treacă prin toleranța fiecărui punct din fereastră
+    private boolean exceedsTolerance(GpsFix fix) {
+        for (int i = 0; i < windowSize; i++) {
+            if (GeoMath.distanceToSegmentMeters(window[i], anchor, fix) > toleranceMeters) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void clearWindow() {
+        for (int i = 0; i < windowSize; i++) {
+            window[i] = null;
+        }
+        windowSize = 0;
+    }
+}
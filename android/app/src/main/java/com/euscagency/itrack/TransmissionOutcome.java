@@ -0,0 +1,36 @@
+package com.euscagency.itrack;
+
+/**
+ * CLASIFICARE TRANSMISIE - decide ce se întâmplă cu un punct GPS după încercarea de trimitere
+ * DELIVERED: 2xx - numărat ca livrat
+ * RETRY: eroare de rețea, 408, 425, 429, 5xx - intră în coada offline nativă cu backoff
+ * AUTH: 401/403 - token-ul a expirat sau a fost revocat, nu payload-ul e greșit; punctele așteaptă
+ *       în coada offline (fără să consume încercări) până vine un token nou
+ * DEAD_LETTER: restul de 4xx - serverul refuză payload-ul, retrimiterea nu ajută
+ */
+public enum TransmissionOutcome {
+    DELIVERED,
+    RETRY,
+    AUTH,
+    DEAD_LETTER;
+
+    // responseCode < 0 = nu s-a primit răspuns HTTP (timeout, DNS, conexiune căzută)
+    public static TransmissionOutcome classify(int responseCode) {
+        if (responseCode < 0) {
+            return RETRY;
+        }
+        if (responseCode >= 200 && responseCode < 300) {
+            return DELIVERED;
+        }
+        if (responseCode == 408 || responseCode == 425 || responseCode == 429) {
+            return RETRY;
+        }
+        if (responseCode == 401 || responseCode == 403) {
+            return AUTH;
+        }
+        if (responseCode >= 400 && responseCode < 500) {
+            return DEAD_LETTER;
+        }
+        return RETRY;
+    }
+}
@@ -0,0 +1,241 @@
+package com.euscagency.itrack;
+
+/**
+ * WAKELOCK DUTY-CYCLE - wakelock-ul e ținut doar cât există muncă: procesarea unui batch de locații
+ * și upload-urile în curs. Între batch-urile livrate de Fusion (setMaxWaitTime) CPU-ul poate dormi.
+ * - numărător de deținători: 0 → 1 pornește wakelock-ul, 1 → 0 îl eliberează
+ * - fiecare pornire are timeout de siguranță; dacă munca se suprapune continuu, timeout-ul se reînarmează
+ *   înainte să expire - nimic nu depinde de un singur acquire de 1 oră pe o tură de 10-12 ore
+ * - task-urile predate altui thread (HTTP, drenare) iau wakelock-ul la predare, nu la pornire - CPU-ul
+ *   nu adoarme între callback-ul GPS și workerul care face POST-ul
+ * - modul continuu (comportamentul vechi, re-armat) rămâne disponibil pentru comparații de consum
+ * Timpul de deținere (total, per deținere, per oră) ajunge în MetricsRegistry.
+ *
+ * Clasa nu depinde de Android - poate fi testată direct pe JVM.
+ */
+public class WakeLockDutyCycle {
+
+    static final long HOUR_MS = 60 * 60 * 1000L;
+
+    // PARTIAL_WAKE_LOCK fără numărare proprie (setReferenceCounted(false)) - numărarea e aici
+    public interface Lock {
+        void acquire(long timeoutMs);
+
+        void release();
+    }
+
+    // Ceas monoton care include somnul (SystemClock.elapsedRealtime)
+    public interface Clock {
+        long now();
+    }
+
+    private final Lock lock;
+    private final Clock clock;
+    private final long safetyTimeoutMs;
+
+    private final StripedCounter acquisitions;
+    private final StripedCounter heldMsTotal;
+    private final LatencyHistogram holdMs;
+    private final LatencyHistogram heldMsPerHour;
+
+    private boolean continuous;
+    private int holders;
+    private long heldSince;
+    private long armedAt;
+    private long accountedUntil; // partea deținerii curente atribuită deja orelor închise
+    private long generation;     // releaseAll() invalidează task-urile Wakeful predate înainte
+    private long currentHour;
+    private long currentHourHeldMs;
+    private long lastHourHeldMs;
+
+    public WakeLockDutyCycle(Lock lock, Clock clock, long safetyTimeoutMs, MetricsRegistry metrics) {
+        this.lock = lock;
+        this.clock = clock;
+        this.safetyTimeoutMs = safetyTimeoutMs;
+        this.acquisitions = metrics.counter("wakelock.acquisitions");
+        this.heldMsTotal = metrics.counter("wakelock.held_ms");
+        this.holdMs = metrics.histogram("wakelock.hold_ms");
+        this.heldMsPerHour = metrics.histogram("wakelock.held_ms_per_hour");
+        this.currentHour = clock.now() / HOUR_MS;
+        metrics.gauge("wakelock.holders", new MetricsRegistry.Gauge() {
+            @Override
+            public long read() {
+                return getHolders();
+            }
+        });
+        metrics.gauge("wakelock.held_ms_current_hour", new MetricsRegistry.Gauge() {
+            @Override
+            public long read() {
+                return getHeldMsCurrentHour();
+            }
+        });
+        metrics.gauge("wakelock.held_ms_last_hour", new MetricsRegistry.Gauge() {
+            @Override
+            public long read() {
+                return getHeldMsLastHour();
+            }
+        });
+    }
+
+    // Modul continuu: un deținător permanent cât serviciul urmărește curse (comportamentul vechi)
+    public synchronized void setContinuous(boolean enabled) {
+        if (enabled == continuous) {
+            return;
+        }
+        continuous = enabled;
+        if (enabled) {
+            acquire();
+        } else {
+            release();
+        }
+    }
+
+    public synchronized void acquire() {
+        long now = clock.now();
+        if (holders++ == 0) {
+            lock.acquire(safetyTimeoutMs);
+            acquisitions.increment();
+            rollHours(now);
+            heldSince = now;
+            armedAt = now;
+            accountedUntil = now;
+        } else if (now - armedAt >= safetyTimeoutMs / 2) {
+            // Muncă suprapusă de mult timp - reînarmează înainte ca timeout-ul să elibereze wakelock-ul
+            lock.acquire(safetyTimeoutMs);
+            armedAt = now;
+        }
+    }
+
+    public synchronized void release() {
+        if (holders == 0) {
+            return;
+        }
+        if (--holders == 0) {
+            lock.release();
+            finishHold(clock.now());
+        }
+    }
+
+    // Oprire/logout - toate deținerile (inclusiv task-urile nepornite) se închid o dată
+    public synchronized void releaseAll() {
+        continuous = false;
+        generation++;
+        if (holders > 0) {
+            holders = 0;
+            lock.release();
+            finishHold(clock.now());
+        }
+    }
+
+    // Task ținut treaz de la predare până la final; cancel() dacă nu mai rulează (pool plin/oprit)
+    public synchronized Wakeful wrap(Runnable task) {
+        acquire();
+        return new Wakeful(task, generation);
+    }
+
+    public synchronized int getHolders() {
+        return holders;
+    }
+
+    public synchronized boolean isContinuous() {
+        return continuous;
+    }
+
+    // Include deținerea în curs - ora curentă se vede înainte de eliberare
+    public synchronized long getHeldMsCurrentHour() {
+        long now = clock.now();
+        rollHours(now);
+        return currentHourHeldMs + (holders > 0 ? Math.max(0, effectiveEnd(now) - accountedUntil) : 0);
+    }
+
+    public synchronized long getHeldMsLastHour() {
+        rollHours(clock.now());
+        return lastHourHeldMs;
+    }
+
+    private void finishHold(long now) {
+        long end = effectiveEnd(now);
+        holdMs.record(end - heldSince);
+        heldMsTotal.add(end - heldSince);
+        rollHours(now, true); // holders e deja 0, dar deținerea încă se împarte pe ore
+        currentHourHeldMs += Math.max(0, end - accountedUntil);
+        accountedUntil = end;
+    }
+
+    // Timeout-ul de siguranță a eliberat wakelock-ul dacă nu a fost reînarmat la timp
+    private long effectiveEnd(long now) {
+        return Math.min(now, armedAt + safetyTimeoutMs);
+    }
+
+    // Închide orele trecute; o deținere în curs se împarte pe orele pe care le acoperă
+    private void rollHours(long now) {
+        rollHours(now, holders > 0);
+    }
+
+    private void rollHours(long now, boolean holding) {
+        long hour = now / HOUR_MS;
+        int closed = 0;
+        while (currentHour < hour) {
+            if (closed == 24) {
+                // Peste o zi fără activitate - orele rămase nu mai intră în histogramă
+                currentHour = hour;
+                currentHourHeldMs = 0;
+                lastHourHeldMs = 0;
+                return;
+            }
+            long hourEnd = (currentHour + 1) * HOUR_MS;
+            if (holding) {
+                long until = Math.min(effectiveEnd(now), hourEnd);
+                if (until > accountedUntil) {
+                    currentHourHeldMs += until - accountedUntil;
+                    accountedUntil = until;
+                }
+            }
+            heldMsPerHour.record(currentHourHeldMs);
+            lastHourHeldMs = currentHourHeldMs;
+            currentHourHeldMs = 0;
+            currentHour++;
+            closed++;
+        }
+    }
+
+    public final class Wakeful implements Runnable {
+        private final Runnable task;
+        private final long taskGeneration;
+        private boolean finished;
+
+        Wakeful(Runnable task, long taskGeneration) {
+            this.task = task;
+            this.taskGeneration = taskGeneration;
+        }
+
+        public Runnable getTask() {
+            return task;
+        }
+
+        @Override
+        public void run() {
+            try {
+                task.run();
+            } finally {
+                finish();
+            }
+        }
+
+        public void cancel() {
+            finish();
+        }
+
+        private void finish() {
+            synchronized (WakeLockDutyCycle.this) {
+                if (finished) {
+                    return;
+                }
+                finished = true;
+                if (taskGeneration == generation) {
+                    release();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class AdaptiveSamplingPolicyTest {
+
+    private static final long FIXED_INTERVAL_MS = 10000;
+    private static final double ROUTE_TOLERANCE_METERS = 40;
+
+    @Test
+    public void replayedDeliveryDayUsesFarFewerPointsWithinRouteTolerance() {
+        List<GpsFix> raw = SyntheticTracks.deliveryDay(7);
+
+        Replay fixed = replay(raw, null);
+        Replay adaptive = replay(raw, new AdaptiveSamplingPolicy());
+
+        // Staționarea scade mult; autostrada și virajele costă în plus puncte, dar totalul scade clar
+        assertTrue(adaptive.points.size() < fixed.points.size() * 0.7);
+        assertTrue("Traseul trebuie să rămână în toleranță: " + adaptive.maxDeviation,
+                adaptive.maxDeviation <= ROUTE_TOLERANCE_METERS);
+        assertTrue("Nu mai rău decât intervalul fix de 10s", adaptive.maxDeviation <= fixed.maxDeviation + 1);
+        // LocationRequest re-emis doar la schimbarea treptei, nu la fiecare fix
+        assertTrue(adaptive.tierChanges < adaptive.points.size() / 5);
+    }
+
+    @Test
+    public void replayAcrossSeedsStaysWithinTolerance() {
+        for (long seed = 1; seed <= 5; seed++) {
+            List<GpsFix> raw = SyntheticTracks.deliveryDay(seed);
+            Replay fixed = replay(raw, null);
+            Replay adaptive = replay(raw, new AdaptiveSamplingPolicy());
+            assertTrue("seed " + seed, adaptive.points.size() < fixed.points.size() * 0.7);
+            assertTrue("seed " + seed + " dev " + adaptive.maxDeviation, adaptive.maxDeviation <= ROUTE_TOLERANCE_METERS);
+        }
+    }
+
+    @Test
+    public void truckParkedAtDepotForEightHoursProducesAFractionOfThePoints() {
+        List<GpsFix> raw = SyntheticTracks.depot(3, 8 * 3600);
+        Replay fixed = replay(raw, null);
+        Replay adaptive = replay(raw, new AdaptiveSamplingPolicy());
+        assertEquals(2880, fixed.points.size());
+        assertTrue(adaptive.points.size() < 300);
+        assertEquals(AdaptiveSamplingPolicy.Tier.PARKED, adaptive.lastTier);
+    }
+
+    @Test
+    public void stationaryVehicleStretchesIntervalThenParks() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy();
+        long t = 0;
+        policy.onFix(fix(44.0, 26.0, 0.2f, 0, t));
+        assertEquals(AdaptiveSamplingPolicy.Tier.NORMAL, policy.getTier());
+
+        t += AdaptiveSamplingPolicy.STATIONARY_AFTER_MS;
+        assertTrue(policy.onFix(fix(44.00005, 26.0, 0.1f, 0, t)));
+        assertEquals(AdaptiveSamplingPolicy.Tier.STATIONARY, policy.getTier());
+
+        t = AdaptiveSamplingPolicy.PARKED_AFTER_MS;
+        assertTrue(policy.onFix(fix(44.0, 26.00005, 0.3f, 0, t)));
+        assertEquals(AdaptiveSamplingPolicy.Tier.PARKED, policy.getTier());
+
+        // Pornire - primul fix cu viteză readuce intervalul normal
+        assertTrue(policy.onFix(fix(44.001, 26.0, 8f, 0, t + 120000)));
+        assertEquals(AdaptiveSamplingPolicy.Tier.NORMAL, policy.getTier());
+    }
+
+    @Test
+    public void slowCrawlBeyondAccuracyRadiusIsNotParked() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy();
+        // Coloană: 1 m/s, 60 m/minut - iese mereu din cercul de incertitudine
+        for (int minute = 0; minute <= 15; minute++) {
+            policy.onFix(fix(44.0 + minute * 0.00054, 26.0, 1.0f, 0, minute * 60000L));
+        }
+        assertEquals(AdaptiveSamplingPolicy.Tier.NORMAL, policy.getTier());
+    }
+
+    @Test
+    public void highwaySpeedShortensIntervalWithHysteresis() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy();
+        assertFalse(policy.onFix(fix(44.0, 26.0, 21f, 90, 0)));
+        assertTrue(policy.onFix(fix(44.0, 26.01, 24f, 90, 10000)));
+        assertEquals(AdaptiveSamplingPolicy.Tier.HIGHWAY, policy.getTier());
+        // 75 km/h - între pragurile de intrare și ieșire, rămâne pe autostradă
+        assertFalse(policy.onFix(fix(44.0, 26.02, 20.8f, 90, 15000)));
+        assertTrue(policy.onFix(fix(44.0, 26.03, 18f, 90, 20000)));
+        assertEquals(AdaptiveSamplingPolicy.Tier.NORMAL, policy.getTier());
+    }
+
+    @Test
+    public void batchedDeliveryWaitIsCappedByTheUploadWindow() {
+        assertEquals(9000, AdaptiveSamplingPolicy.Tier.TURNING.maxWaitMs());
+        assertEquals(15000, AdaptiveSamplingPolicy.Tier.HIGHWAY.maxWaitMs());
+        assertEquals(AdaptiveSamplingPolicy.BATCH_DELIVERY_WINDOW_MS, AdaptiveSamplingPolicy.Tier.NORMAL.maxWaitMs());
+        assertEquals(30000, AdaptiveSamplingPolicy.Tier.STATIONARY.maxWaitMs());
+        // Intervalul lung nu mai e grupat - un fix la 2 minute ajunge imediat
+        assertEquals(120000, AdaptiveSamplingPolicy.Tier.PARKED.maxWaitMs());
+    }
+
+    @Test
+    public void headingChangeSwitchesToTurningForAHoldPeriod() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy();
+        policy.onFix(fix(44.0, 26.0, 10f, 350, 0));
+        assertTrue(policy.onFix(fix(44.001, 26.0, 9f, 40, 10000))); // 50° peste nord
+        assertEquals(AdaptiveSamplingPolicy.Tier.TURNING, policy.getTier());
+        assertFalse(policy.onFix(fix(44.002, 26.0, 9f, 42, 10000 + AdaptiveSamplingPolicy.TURN_HOLD_MS - 1)));
+        assertTrue(policy.onFix(fix(44.003, 26.0, 9f, 43, 10000 + AdaptiveSamplingPolicy.TURN_HOLD_MS)));
+        assertEquals(AdaptiveSamplingPolicy.Tier.NORMAL, policy.getTier());
+    }
+
+    @Test
+    public void resetReturnsToNormal() {
+        AdaptiveSamplingPolicy policy = new AdaptiveSamplingPolicy();
+        policy.onFix(fix(44.0, 26.0, 0, 0, 0));
+        policy.onFix(fix(44.0, 26.0, 0, 0, AdaptiveSamplingPolicy.PARKED_AFTER_MS));
+        assertEquals(AdaptiveSamplingPolicy.Tier.PARKED, policy.getTier());
+        assertTrue(policy.reset());
+        assertEquals(AdaptiveSamplingPolicy.Tier.NORMAL, policy.getTier());
+        assertFalse(policy.reset());
+    }
+
+    private static GpsFix fix(double lat, double lng, float speed, float bearing, long time) {
+        return new GpsFix(lat, lng, speed, bearing, 0, 10, time);
+    }
+
+    private static final class Replay {
+        final List<GpsFix> points = new ArrayList<>();
+        double maxDeviation;
+        int tierChanges;
+        AdaptiveSamplingPolicy.Tier lastTier;
+    }
+
+    // Simulează livrarea Fusion: un fix din traseul de 1 Hz la fiecare interval al treptei curente
+    private static Replay replay(List<GpsFix> raw, AdaptiveSamplingPolicy policy) {
+        Replay replay = new Replay();
+        long nextDelivery = raw.get(0).timeMillis;
+        for (GpsFix fix : raw) {
+            if (fix.timeMillis < nextDelivery) {
+                continue;
+            }
+            replay.points.add(fix);
+            long interval = FIXED_INTERVAL_MS;
+            if (policy != null) {
+                if (policy.onFix(fix)) {
+                    replay.tierChanges++;
+                }
+                interval = policy.getTier().intervalMs;
+                replay.lastTier = policy.getTier();
+            }
+            nextDelivery = fix.timeMillis + interval;
+        }
+
+        // Deviația: fiecare punct brut față de segmentul dintre punctele livrate care îl încadrează
+        int segment = 0;
+        for (GpsFix fix : raw) {
+            while (segment + 1 < replay.points.size() && replay.points.get(segment + 1).timeMillis <= fix.timeMillis) {
+                segment++;
+            }
+            if (segment + 1 >= replay.points.size()) {
+                break;
+            }
+            double deviation = GeoMath.distanceToSegmentMeters(fix, replay.points.get(segment), replay.points.get(segment + 1));
+            replay.maxDeviation = Math.max(replay.maxDeviation, deviation);
+        }
+        return replay;
+    }
+}
@@ -0,0 +1,184 @@
+package com.euscagency.itrack;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class BridgeEventChannelTest {
+
+    // Scheduler manual - testul decide când se termină fereastra
+    private static class ManualScheduler implements BridgeEventChannel.Scheduler {
+        final List<Runnable> tasks = new ArrayList<>();
+        final List<Long> delays = new ArrayList<>();
+
+        @Override
+        public void schedule(Runnable task, long delayMs) {
+            tasks.add(task);
+            delays.add(delayMs);
+        }
+
+        void runAll() {
+            List<Runnable> due = new ArrayList<>(tasks);
+            tasks.clear();
+            for (Runnable task : due) {
+                task.run();
+            }
+        }
+    }
+
+    private static class CollectingSink implements BridgeEventChannel.Sink {
+        final List<JSONArray> dispatches = new ArrayList<>();
+
+        @Override
+        public void deliver(String eventsJson) {
+            try {
+                dispatches.add(new JSONArray(eventsJson));
+            } catch (Exception e) {
+                throw new AssertionError("JSON invalid: " + eventsJson, e);
+            }
+        }
+    }
+
+    @Test
+    public void gaugeEventsCoalesceToTheLatestValue() throws Exception {
+        BridgeEventChannel channel = new BridgeEventChannel(64, 250);
+        channel.publish(BridgeEventChannel.Type.LOG, "start");
+        for (int i = 1; i <= 1000; i++) {
+            channel.publish(BridgeEventChannel.Type.OFFLINE_QUEUE, "ANDROID_OFFLINE_QUEUE:" + i);
+            channel.publish(BridgeEventChannel.Type.ANALYTICS, "curse-" + (i % 2), "ANDROID_COURSE_ANALYTICS:" + i);
+        }
+        channel.publish(BridgeEventChannel.Type.ERROR, "eroare");
+
+        // Coalescing-ul eliberează loc - log-ul de la început nu e împins afară de cele 2000 de actualizări
+        JSONObject response = new JSONObject(channel.eventsSince(0));
+        JSONArray events = response.getJSONArray("events");
+        assertEquals(2002, response.getLong("cursor"));
+        assertFalse(response.getBoolean("missed"));
+        assertEquals(5, events.length());
+        assertEquals("start", events.getJSONObject(0).getString("message"));
+        assertEquals("ANDROID_COURSE_ANALYTICS:999", events.getJSONObject(1).getString("message"));
+        assertEquals("ANDROID_OFFLINE_QUEUE:1000", events.getJSONObject(2).getString("message"));
+        assertEquals("ANDROID_COURSE_ANALYTICS:1000", events.getJSONObject(3).getString("message"));
+        assertEquals("ERROR", events.getJSONObject(4).getString("type"));
+    }
+
+    @Test
+    public void bufferIsBoundedAndReportsMissedEvents() throws Exception {
+        BridgeEventChannel channel = new BridgeEventChannel(8, 250);
+        for (int i = 1; i <= 20; i++) {
+            channel.publish(BridgeEventChannel.Type.LOG, "log " + i);
+        }
+        JSONObject response = new JSONObject(channel.eventsSince(0));
+        assertTrue(response.getBoolean("missed"));
+        assertEquals(8, response.getJSONArray("events").length());
+        assertEquals(13, response.getJSONArray("events").getJSONObject(0).getLong("seq"));
+
+        // Cursorul întors continuă exact de unde a rămas
+        channel.publish(BridgeEventChannel.Type.LOG, "log 21");
+        JSONObject next = new JSONObject(channel.eventsSince(response.getLong("cursor")));
+        assertFalse(next.getBoolean("missed"));
+        assertEquals(1, next.getJSONArray("events").length());
+        assertEquals("log 21", next.getJSONArray("events").getJSONObject(0).getString("message"));
+    }
+
+    @Test
+    public void oneDispatchPerWindowCarriesEveryNewEvent() {
+        BridgeEventChannel channel = new BridgeEventChannel(256, 250);
+        channel.publish(BridgeEventChannel.Type.LOG, "înainte de atașare"); // doar prin pull
+        ManualScheduler scheduler = new ManualScheduler();
+        CollectingSink sink = new CollectingSink();
+        channel.attach(sink, scheduler);
+
+        for (int i = 0; i < 100; i++) {
+            channel.publish(BridgeEventChannel.Type.LOG, "fix " + i);
+            channel.publish(BridgeEventChannel.Type.SYNC_PROGRESS, "ANDROID_SYNC_PROGRESS:" + i + "/" + i + "/0");
+        }
+        assertEquals(1, scheduler.tasks.size());
+        assertEquals(Long.valueOf(250), scheduler.delays.get(0));
+        scheduler.runAll();
+
+        assertEquals(1, sink.dispatches.size());
+        assertEquals(101, sink.dispatches.get(0).length()); // 100 log-uri + ultimul progres
+
+        channel.publish(BridgeEventChannel.Type.LOG, "fereastra următoare");
+        assertEquals(1, scheduler.tasks.size());
+        scheduler.runAll();
+        assertEquals(2, sink.dispatches.size());
+        assertEquals(1, sink.dispatches.get(1).length());
+
+        channel.detach();
+        channel.publish(BridgeEventChannel.Type.LOG, "detașat");
+        assertTrue(scheduler.tasks.isEmpty());
+    }
+
+    @Test
+    public void messagesAreEscapedAsJsonStrings() throws Exception {
+        BridgeEventChannel channel = new BridgeEventChannel(16, 250);
+        String message = "GPS 'dezactivat' \"ghilimele\" \\ </script>\n\tțară 🚚 ";
+        channel.publish(BridgeEventChannel.Type.LOG, message);
+        JSONArray events = new JSONObject(channel.eventsSince(0)).getJSONArray("events");
+        assertEquals(message, events.getJSONObject(0).getString("message"));
+    }
+
+    @Test
+    public void clearKeepsSequenceMonotonic() throws Exception {
+        BridgeEventChannel channel = new BridgeEventChannel(16, 250);
+        channel.publish(BridgeEventChannel.Type.OFFLINE_QUEUE, "ANDROID_OFFLINE_QUEUE:3");
+        channel.publish(BridgeEventChannel.Type.LOG, "log");
+        channel.clear();
+        assertEquals(0, new JSONObject(channel.eventsSince(0)).getJSONArray("events").length());
+
+        long seq = channel.publish(BridgeEventChannel.Type.OFFLINE_QUEUE, "ANDROID_OFFLINE_QUEUE:0");
+        assertEquals(3, seq);
+        JSONArray events = new JSONObject(channel.eventsSince(2)).getJSONArray("events");
+        assertEquals(1, events.length());
+    }
+
+    @Test
+    public void concurrentPublishersGetUniqueOrderedSequences() throws Exception {
+        final BridgeEventChannel channel = new BridgeEventChannel(8192, 250);
+        final int threads = 4;
+        final int perThread = 1000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        channel.publish(BridgeEventChannel.Type.LOG, id + ":" + i);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        JSONArray events = new JSONObject(channel.eventsSince(0)).getJSONArray("events");
+        assertEquals(threads * perThread, events.length());
+        int[] nextPerThread = new int[threads];
+        for (int i = 0; i < events.length(); i++) {
+            JSONObject event = events.getJSONObject(i);
+            assertEquals(i + 1, event.getLong("seq"));
+            String[] parts = event.getString("message").split(":");
+            int thread = Integer.parseInt(parts[0]);
+            assertEquals(nextPerThread[thread]++, Integer.parseInt(parts[1])); // FIFO per producător
+        }
+    }
+}
@@ -0,0 +1,67 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class CallbackTimingStatsTest {
+
+    @Test
+    public void mainThreadAndWorkerTimesAreTrackedSeparately() {
+        CallbackTimingStats stats = new CallbackTimingStats();
+        stats.record(2000000, false);
+        stats.record(4000000, false);
+        assertEquals(3, stats.record(500000, true));
+
+        CallbackTimingStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(1, snapshot.mainThreadCallbacks);
+        assertEquals(500, snapshot.mainThreadAverageMicros());
+        assertEquals(500000, snapshot.mainThreadMaxNanos);
+        assertEquals(2, snapshot.workerCallbacks);
+        assertEquals(3000, snapshot.workerAverageMicros());
+        assertEquals(4000000, snapshot.workerMaxNanos);
+        assertEquals("1/500/500|2/3000/4000", snapshot.toBridgeString());
+    }
+
+    @Test
+    public void emptySnapshotHasZeroAverages() {
+        CallbackTimingStats.Snapshot snapshot = new CallbackTimingStats().snapshot();
+        assertEquals(0, snapshot.mainThreadAverageMicros());
+        assertEquals(0, snapshot.workerAverageMicros());
+        assertEquals("0/0/0|0/0/0", snapshot.toBridgeString());
+    }
+
+    @Test
+    public void concurrentRecordsAreNotLost() throws Exception {
+        final CallbackTimingStats stats = new CallbackTimingStats();
+        final CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 1; i <= 10000; i++) {
+                        stats.record(i + offset, false);
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        CallbackTimingStats.Snapshot snapshot = stats.snapshot();
+        assertEquals(40000, snapshot.workerCallbacks);
+        assertEquals(10003, snapshot.workerMaxNanos);
+        assertEquals(4L * 10000 * 10001 / 2 + 10000L * (0 + 1 + 2 + 3), snapshot.workerTotalNanos);
+    }
+}
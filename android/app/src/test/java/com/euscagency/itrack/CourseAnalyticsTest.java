@@ -0,0 +1,128 @@
+package com.euscagency.itrack;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class CourseAnalyticsTest {
+
+    private static final long MINUTE = 60000L;
+
+    @Test
+    public void deliveryDayMatchesDrivenDistanceAndStops() {
+        List<GpsFix> raw = SyntheticTracks.deliveryDay(7);
+        CourseAnalytics analytics = new CourseAnalytics("UIT1", "IK1", "B-01-ITR", raw.get(0).timeMillis);
+        for (GpsFix fix : everyTenSeconds(raw)) {
+            analytics.onFix(fix);
+        }
+        CourseAnalytics.Snapshot snapshot = analytics.snapshot(raw.get(raw.size() - 1).timeMillis, false);
+
+        double drivenMeters = 0;
+        for (GpsFix fix : raw) {
+            if (fix.speedMps > 1) {
+                drivenMeters += fix.speedMps; // 1 Hz - viteza e chiar distanța parcursă în secunda respectivă
+            }
+        }
+        assertEquals(drivenMeters, snapshot.distanceMeters, drivenMeters * 0.05);
+        long movingMinutes = snapshot.movingMs / MINUTE;
+        assertTrue("condus " + movingMinutes, movingMinutes > 60 && movingMinutes <= 70); // 70 min de drum minus semafoare
+        assertEquals(2, snapshot.stopCount);             // depozitul și descărcarea; semafoarele sunt sub 2 minute
+        assertEquals(180, snapshot.stoppedMs / MINUTE, 2);
+        assertTrue("max " + snapshot.maxSpeedKmh, snapshot.maxSpeedKmh > 90 && snapshot.maxSpeedKmh < 110);
+        assertEquals(snapshot.distanceMeters / 1000 / (snapshot.movingMs / 3600000.0), snapshot.averageSpeedKmh(), 1e-9);
+    }
+
+    @Test
+    public void parkedJitterDoesNotAddDistance() {
+        List<GpsFix> raw = SyntheticTracks.depot(3, 2 * 3600);
+        CourseAnalytics analytics = new CourseAnalytics("UIT1", "IK1", "B-01-ITR", raw.get(0).timeMillis);
+        for (GpsFix fix : everyTenSeconds(raw)) {
+            analytics.onFix(fix);
+        }
+        CourseAnalytics.Snapshot snapshot = analytics.snapshot(raw.get(raw.size() - 1).timeMillis, false);
+        assertTrue("distanță " + snapshot.distanceMeters, snapshot.distanceMeters < 50);
+        assertEquals(0, snapshot.movingMs / MINUTE);
+        assertEquals(1, snapshot.stopCount); // oprirea în curs apare în instantaneu
+    }
+
+    @Test
+    public void manualPauseIsAccountedAndNotBridged() throws Exception {
+        long start = SyntheticTracks.START_MILLIS;
+        CourseAnalytics analytics = new CourseAnalytics("UIT1", "IK1", "B-01-ITR", start);
+        analytics.onFix(fix(44.0, 26.0, 15, start));
+        analytics.onFix(fix(44.001, 26.0, 15, start + 10000));
+
+        analytics.onStatus(CourseRegistry.STATUS_PAUSED, start + 20000);
+        analytics.onFix(fix(44.5, 26.0, 15, start + 30000)); // Fix sosit după pauză - ignorat
+        assertEquals(5 * MINUTE, analytics.snapshot(start + 20000 + 5 * MINUTE, false).pausedMs);
+
+        analytics.onStatus(CourseRegistry.STATUS_ACTIVE, start + 20000 + 15 * MINUTE);
+        long resumed = start + 20000 + 15 * MINUTE;
+        analytics.onFix(fix(45.0, 26.0, 15, resumed + 10000)); // Altă poziție - nu se adaugă saltul din pauză
+        analytics.onFix(fix(45.001, 26.0, 15, resumed + 20000));
+        analytics.onStatus(CourseRegistry.STATUS_STOPPED, resumed + 30000);
+        analytics.onFix(fix(45.002, 26.0, 15, resumed + 40000)); // După STOP - ignorat
+
+        CourseAnalytics.Snapshot snapshot = analytics.snapshot(resumed + 60 * MINUTE, true);
+        assertEquals(1, snapshot.manualPauses);
+        assertEquals(15 * MINUTE, snapshot.pausedMs);
+        assertEquals(2 * 111.2, snapshot.distanceMeters, 1.0);
+        assertEquals(20000, snapshot.movingMs);
+        assertEquals(4, snapshot.fixCount);
+        assertEquals(resumed + 30000, snapshot.endTimeMillis);
+        assertEquals(CourseRegistry.STATUS_STOPPED, snapshot.status);
+
+        JSONObject json = snapshot.toJson();
+        assertFalse(json.getBoolean("isActive"));
+        assertEquals(15, json.getLong("pausedTime"));
+        assertEquals(1, json.getInt("manualPauses"));
+        assertEquals(0.2224, json.getDouble("totalDistance"), 0.001);
+        assertTrue(json.has("endTime"));
+        JSONArray points = json.getJSONArray("gpsPoints");
+        assertEquals(5, points.length()); // 4 fix-uri + marcajul pauzei manuale
+        assertTrue(points.getJSONObject(2).getBoolean("isManualPause"));
+        assertEquals(44.001, points.getJSONObject(2).getDouble("lat"), 1e-9);
+    }
+
+    @Test
+    public void routeKeepsOnlyTheMostRecentPointsInOrder() {
+        CourseAnalytics analytics = new CourseAnalytics("UIT1", "IK1", "B-01-ITR", 0, 10);
+        for (int i = 0; i < 25; i++) {
+            analytics.onFix(fix(44.0 + i * 0.001, 26.0, 15, i * 10000L));
+        }
+        CourseAnalytics.Snapshot snapshot = analytics.snapshot(250000, true);
+        assertEquals(10, snapshot.getRoutePointCount());
+        assertEquals(25, snapshot.fixCount);
+        assertEquals(24 * 111.2, snapshot.distanceMeters, 5); // odometrul nu depinde de traseul păstrat
+        assertEquals(0, analytics.snapshot(250000, false).getRoutePointCount());
+    }
+
+    @Test
+    public void inaccurateFixesCountTimeButNotDistance() {
+        CourseAnalytics analytics = new CourseAnalytics("UIT1", "IK1", "B-01-ITR", 0);
+        analytics.onFix(fix(44.0, 26.0, 15, 0));
+        analytics.onFix(new GpsFix(44.01, 26.0, 15, 0, 80, 60, 10000)); // 1.1 km, precizie 60 m
+        analytics.onFix(fix(44.002, 26.0, 15, 20000));
+        CourseAnalytics.Snapshot snapshot = analytics.snapshot(20000, true);
+        assertEquals(2 * 111.2, snapshot.distanceMeters, 1.0);
+        assertEquals(20000, snapshot.movingMs);
+        assertEquals(2, snapshot.getRoutePointCount());
+    }
+
+    static GpsFix fix(double lat, double lng, float speedMps, long time) {
+        return new GpsFix(lat, lng, speedMps, 0, 80, 5, time);
+    }
+
+    private static List<GpsFix> everyTenSeconds(List<GpsFix> raw) {
+        List<GpsFix> delivered = new ArrayList<>();
+        for (int i = 0; i < raw.size(); i += 10) {
+            delivered.add(raw.get(i));
+        }
+        return delivered;
+    }
+}
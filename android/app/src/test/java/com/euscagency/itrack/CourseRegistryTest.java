@@ -0,0 +1,212 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class CourseRegistryTest {
+
+    @Test
+    public void findUsesExactKeyIkRoTransOrRealUit() {
+        CourseRegistry registry = new CourseRegistry();
+        registry.put("B123ABC_12_dev_tok", "12", "RO-UIT-9000", "B123ABC", 2);
+        registry.put("B123ABC_123_dev_tok", "123", "RO-UIT-9001", "B123ABC", 2);
+
+        assertEquals("B123ABC_12_dev_tok", registry.find("12").key);
+        assertEquals("B123ABC_123_dev_tok", registry.find("123").key);
+        assertEquals("B123ABC_12_dev_tok", registry.find("RO-UIT-9000").key);
+        assertEquals("B123ABC_123_dev_tok", registry.find("B123ABC_123_dev_tok").key);
+        // Vechiul mapKey.contains("1") ar fi găsit o cursă oarecare
+        assertNull(registry.find("1"));
+        assertNull(registry.find("B123ABC"));
+        assertNull(registry.find(null));
+    }
+
+    @Test
+    public void statusChangesProduceNewVersionsAndMaintainActiveCount() {
+        CourseRegistry registry = new CourseRegistry();
+        CourseRegistry.Course started = registry.put("k1", "1", "U1", "V", 2);
+        registry.put("k2", "2", "U2", "V", 3);
+        assertEquals(1, registry.getActiveCount());
+
+        CourseRegistry.Course previous = registry.updateStatus("k1", 3);
+        assertSame(started, previous);
+        assertEquals(2, started.status); // starea veche nu se modifică
+        assertEquals(3, registry.get("k1").status);
+        assertTrue(registry.get("k1").version > started.version);
+        assertEquals(0, registry.getActiveCount());
+
+        assertNotNull(registry.transition("k2", 3, 2));
+        assertNull(registry.transition("k2", 3, 2)); // deja ACTIV
+        assertEquals(1, registry.getActiveCount());
+
+        assertEquals(2, registry.remove("k2").status);
+        assertNull(registry.remove("k2"));
+        assertNull(registry.find("U2"));
+        assertFalse(registry.isRealUitActive("U2"));
+        assertEquals(0, registry.getActiveCount());
+        assertEquals(1, registry.size());
+    }
+
+    @Test
+    public void replacingACourseReindexesItAndAdjustsActiveCount() {
+        CourseRegistry registry = new CourseRegistry();
+        registry.put("k1", "1", "OLD-UIT", "V", 2);
+        registry.put("k1", "1", "NEW-UIT", "V", 3);
+        assertNull(registry.find("OLD-UIT"));
+        assertEquals("k1", registry.find("NEW-UIT").key);
+        assertEquals(0, registry.getActiveCount());
+        assertEquals(1, registry.size());
+
+        registry.clear();
+        assertTrue(registry.isEmpty());
+        assertTrue(registry.snapshot().isEmpty());
+    }
+
+    // Stil jcstress: doi actori pe aceeași tranziție 2→3 - exact unul câștigă, în fiecare rundă
+    @Test
+    public void concurrentPauseHasExactlyOneWinner() throws Exception {
+        final int rounds = 2000;
+        final CourseRegistry registry = new CourseRegistry();
+        final CyclicBarrier barrier = new CyclicBarrier(2);
+        final AtomicInteger[] wins = {new AtomicInteger(), new AtomicInteger()};
+        final int[][] outcomes = new int[rounds][2];
+
+        Thread[] actors = new Thread[2];
+        for (int a = 0; a < 2; a++) {
+            final int actor = a;
+            actors[a] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        for (int round = 0; round < rounds; round++) {
+                            if (actor == 0) {
+                                registry.put("k", "ik", "uit", "V", 2);
+                            }
+                            barrier.await();
+                            boolean won = registry.transition("k", 2, 3) != null;
+                            outcomes[round][actor] = won ? 1 : 0;
+                            if (won) {
+                                wins[actor].incrementAndGet();
+                            }
+                            barrier.await();
+                        }
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+            actors[a].start();
+        }
+        for (Thread actor : actors) {
+            actor.join();
+        }
+        for (int round = 0; round < rounds; round++) {
+            assertEquals("runda " + round, 1, outcomes[round][0] + outcomes[round][1]);
+        }
+        assertEquals(rounds, wins[0].get() + wins[1].get());
+        assertEquals(0, registry.getActiveCount());
+    }
+
+    // Operații aleatoare din mai multe thread-uri - la final numărătorul = recalcularea completă
+    @Test
+    public void activeCounterMatchesRecountAfterConcurrentChurn() throws Exception {
+        final CourseRegistry registry = new CourseRegistry();
+        final int threads = 6;
+        final CyclicBarrier start = new CyclicBarrier(threads);
+        final List<Throwable> errors = new ArrayList<>();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            final long seed = t;
+            workers[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(seed);
+                    try {
+                        start.await();
+                        for (int i = 0; i < 50000; i++) {
+                            String key = "k" + random.nextInt(16);
+                            switch (random.nextInt(5)) {
+                                case 0:
+                                    registry.put(key, "ik-" + key, "uit-" + key, "V", 2 + random.nextInt(2));
+                                    break;
+                                case 1:
+                                    registry.updateStatus(key, 2 + random.nextInt(3));
+                                    break;
+                                case 2:
+                                    registry.transition(key, 2, 3);
+                                    break;
+                                case 3:
+                                    registry.transition(key, 3, 2);
+                                    break;
+                                default:
+                                    registry.remove(key);
+                                    break;
+                            }
+                        }
+                    } catch (Throwable e) {
+                        synchronized (errors) {
+                            errors.add(e);
+                        }
+                    }
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertTrue(errors.toString(), errors.isEmpty());
+
+        int recount = 0;
+        for (CourseRegistry.Course course : registry.snapshot()) {
+            if (course.isActive()) {
+                recount++;
+            }
+            assertSame(course, registry.find(course.ikRoTrans));
+            assertSame(course, registry.find(course.realUit));
+        }
+        assertEquals(recount, registry.getActiveCount());
+        assertEquals(registry.snapshot().size(), registry.size());
+    }
+
+    // Citirile de pe alt thread văd fie starea veche, fie cea nouă - niciodată o cursă pe jumătate scrisă
+    @Test
+    public void readersNeverObserveTornCourseState() throws Exception {
+        final CourseRegistry registry = new CourseRegistry();
+        registry.put("k", "ik", "uit-0", "V0", 2);
+        final AtomicInteger torn = new AtomicInteger();
+        final AtomicBoolean done = new AtomicBoolean();
+        Thread reader = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                long lastVersion = 0;
+                while (!done.get()) {
+                    CourseRegistry.Course course = registry.get("k");
+                    if (course == null) {
+                        continue;
+                    }
+                    String suffix = course.realUit.substring(4);
+                    if (!course.vehicleNumber.equals("V" + suffix) || course.version < lastVersion) {
+                        torn.incrementAndGet();
+                    }
+                    lastVersion = course.version;
+                }
+            }
+        });
+        reader.start();
+        for (int i = 1; i < 100000; i++) {
+            registry.put("k", "ik", "uit-" + i, "V" + i, 2 + (i & 1));
+        }
+        done.set(true);
+        reader.join();
+        assertEquals(0, torn.get());
+    }
+}
@@ -0,0 +1,103 @@
+package com.euscagency.itrack;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class DeviceTelemetryTest {
+
+    @Test
+    public void defaultsMatchTheOldFallbacks() {
+        DeviceTelemetry.Snapshot snapshot = new DeviceTelemetry().snapshot();
+        assertEquals("0%", snapshot.batteryText());
+        assertEquals(0, snapshot.gsmSignal());
+        assertEquals("NONE", snapshot.networkType());
+    }
+
+    @Test
+    public void cellularReportsTheRealSignalLevelAndGeneration() {
+        DeviceTelemetry telemetry = new DeviceTelemetry();
+        telemetry.onTransportChanged(DeviceTelemetry.Transport.CELLULAR, 10);
+        assertEquals(3, telemetry.snapshot().gsmSignal()); // nivel încă necunoscut - valoarea implicită veche
+        assertEquals("CELL", telemetry.snapshot().networkType());
+
+        telemetry.onSignalChanged(1, -113, 20);
+        telemetry.onGenerationChanged(DeviceTelemetry.Generation.G3, 30);
+        DeviceTelemetry.Snapshot snapshot = telemetry.snapshot();
+        assertEquals(1, snapshot.gsmSignal());
+        assertEquals(-113, snapshot.signalDbm);
+        assertEquals("3G", snapshot.networkType());
+        assertEquals(30, snapshot.updatedAtMillis);
+
+        // Pe WiFi upload-urile nu trec prin celulă - gsm_signal rămâne 0 ca înainte, nivelul se păstrează
+        telemetry.onTransportChanged(DeviceTelemetry.Transport.WIFI, 40);
+        assertEquals(0, telemetry.snapshot().gsmSignal());
+        assertEquals(1, telemetry.snapshot().signalLevel);
+        assertEquals("WIFI", telemetry.snapshot().networkType());
+    }
+
+    @Test
+    public void batteryPercentIsScaledAndSnapshotsAreImmutable() throws Exception {
+        DeviceTelemetry telemetry = new DeviceTelemetry();
+        telemetry.onBatteryChanged(150, 200, true, 1000);
+        DeviceTelemetry.Snapshot before = telemetry.snapshot();
+        telemetry.onBatteryChanged(-1, 100, false, 2000); // extra lipsă
+        assertEquals("75%", before.batteryText());
+        assertTrue(before.charging);
+        assertEquals(DeviceTelemetry.UNKNOWN, telemetry.snapshot().batteryPercent);
+
+        JSONObject json = new JSONObject(before.toJson(1500));
+        assertEquals(75, json.getInt("batteryPercent"));
+        assertTrue(json.isNull("signalDbm"));
+        assertEquals(500, json.getLong("ageMs"));
+    }
+
+    @Test
+    public void concurrentUpdatesAreNotLost() throws Exception {
+        final DeviceTelemetry telemetry = new DeviceTelemetry();
+        final CountDownLatch start = new CountDownLatch(1);
+        final int rounds = 10000;
+        List<Thread> writers = new ArrayList<>();
+        writers.add(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                await(start);
+                for (int i = 0; i <= rounds; i++) {
+                    telemetry.onBatteryChanged(i % 101, 100, false, i);
+                }
+            }
+        }));
+        writers.add(new Thread(new Runnable() {
+            @Override
+            public void run() {
+                await(start);
+                for (int i = 0; i <= rounds; i++) {
+                    telemetry.onSignalChanged(i % 5, -90, i);
+                }
+            }
+        }));
+        for (Thread writer : writers) {
+            writer.start();
+        }
+        start.countDown();
+        for (Thread writer : writers) {
+            writer.join();
+        }
+        // Ultima scriere a fiecărui thread supraviețuiește - CAS-ul nu suprascrie câmpurile celuilalt
+        assertEquals(rounds % 101, telemetry.snapshot().batteryPercent);
+        assertEquals(rounds % 5, telemetry.snapshot().signalLevel);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+
+import static org.junit.Assert.*;
+
+public class FlightRecorderTest {
+
+    private static final long T0 = SyntheticTracks.START_MILLIS;
+
+    @Test
+    public void dumpRendersTemplatesWithTypedArguments() {
+        FlightRecorder recorder = new FlightRecorder(16);
+        recorder.record(T0, GpsLog.INFO, "GPS", "serviciu pornit");
+        recorder.record(T0 + 1000, GpsLog.WARN, "GPS", "fix respins: {} - precizie {}m", 2, "ACCURACY", 48L);
+        recorder.record(T0 + 2000, GpsLog.INFO, "GPS", "fix {}, {}", 2,
+            Double.doubleToRawLongBits(44.4268), FlightRecorder.ARG_DOUBLE,
+            Double.doubleToRawLongBits(26.1025), FlightRecorder.ARG_DOUBLE);
+        recorder.record(T0 + 3000, GpsLog.ERROR, "HTTP", "batch {} puncte, livrat={}", 2, 15, false);
+
+        String[] lines = recorder.dump().split("\n");
+        assertEquals("FlightRecorder: 4 evenimente din 4 înregistrate", lines[0]);
+        assertTrue(lines[1], lines[1].endsWith(" I/GPS: serviciu pornit"));
+        assertTrue(lines[2], lines[2].endsWith(" W/GPS: fix respins: ACCURACY - precizie 48m"));
+        assertTrue(lines[3], lines[3].endsWith(" I/GPS: fix 44.4268, 26.1025"));
+        assertTrue(lines[4], lines[4].endsWith(" E/HTTP: batch 15 puncte, livrat=false"));
+    }
+
+    @Test
+    public void memoryIsFixedAndOldestEventsAreOverwritten() {
+        FlightRecorder recorder = new FlightRecorder(8);
+        for (int i = 0; i < 100; i++) {
+            recorder.record(T0 + i, GpsLog.INFO, "GPS", "fix {}", 1, i, FlightRecorder.ARG_LONG, 0, FlightRecorder.ARG_LONG);
+        }
+        assertEquals(8, recorder.size());
+        assertEquals(100, recorder.getRecordedCount());
+        String[] lines = recorder.dump().split("\n");
+        assertEquals(9, lines.length);
+        assertTrue(lines[1], lines[1].endsWith("fix 92"));
+        assertTrue(lines[8], lines[8].endsWith("fix 99"));
+
+        recorder.clear();
+        assertEquals(0, recorder.size());
+        assertEquals(1, recorder.dump().split("\n").length);
+    }
+
+    @Test
+    public void stringTableIsBoundedForDynamicMessages() {
+        FlightRecorder recorder = new FlightRecorder(4);
+        for (int i = 0; i < FlightRecorder.MAX_STRINGS + 50; i++) {
+            recorder.record(T0, GpsLog.INFO, "GPS", "mesaj dinamic " + i);
+        }
+        // Tabelul plin - mesajele noi apar ca "?", dar înregistrarea continuă
+        assertTrue(recorder.dump().trim().endsWith("I/GPS: ?"));
+        recorder.record(T0, GpsLog.INFO, "GPS", "mesaj dinamic 3");
+        assertTrue(recorder.dump().trim().endsWith("I/GPS: mesaj dinamic 3"));
+    }
+
+    @Test
+    public void missingAndExtraPlaceholdersKeepEveryArgument() {
+        StringBuilder out = new StringBuilder();
+        FlightRecorder.format(out, "fără placeholder", 2, 1L, "x");
+        assertEquals("fără placeholder 1 x", out.toString());
+        out.setLength(0);
+        FlightRecorder.format(out, "{} și {} și {}", 1, 7L, null);
+        assertEquals("7 și {} și {}", out.toString());
+    }
+
+    @Test
+    public void concurrentWritersNeverLoseRecords() throws Exception {
+        final FlightRecorder recorder = new FlightRecorder(1024);
+        final int threads = 4;
+        final int perThread = 5000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        recorder.record(T0, GpsLog.INFO, "GPS", "fix {}", 1, i, FlightRecorder.ARG_LONG, 0, FlightRecorder.ARG_LONG);
+                    }
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * perThread, recorder.getRecordedCount());
+        String[] lines = recorder.dump().split("\n");
+        assertEquals(1025, lines.length);
+        for (int i = 1; i < lines.length; i++) {
+            assertTrue(lines[i], lines[i].matches(".* I/GPS: fix \\d+"));
+        }
+    }
+}
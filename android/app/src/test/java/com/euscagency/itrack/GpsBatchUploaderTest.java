@@ -0,0 +1,175 @@
+package com.euscagency.itrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Harness JVM pentru GpsBatchUploader - numără cererile pe minut către un gps.php local.
+ */
+public class GpsBatchUploaderTest {
+
+    // Un minut de tracking: fix la 10s => 6 fix-uri, câte un punct pentru fiecare cursă activă
+    private static final int FIXES_PER_MINUTE = 6;
+    private static final int ACTIVE_COURSES = 5;
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    private MockGpsServer server;
+    private OkHttpGpsTransport transport;
+    private final AtomicInteger delivered = new AtomicInteger();
+    private final List<String> failed = new CopyOnWriteArrayList<>();
+
+    private final GpsBatchUploader.Listener listener = new GpsBatchUploader.Listener() {
+        @Override
+        public void onPointsDelivered(List<String> points, int responseCode) {
+            delivered.addAndGet(points.size());
+        }
+
+        @Override
+        public void onPointsFailed(List<String> points, int responseCode, Exception error) {
+            failed.addAll(points);
+        }
+    };
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockGpsServer();
+        transport = new OkHttpGpsTransport(server.url());
+    }
+
+    @After
+    public void tearDown() {
+        transport.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void batchingCutsRequestsPerMinute() {
+        GpsBatchUploader single = new GpsBatchUploader(transport, 1, 60000, DIRECT, listener);
+        simulateMinute(single);
+        int singleRequestsPerMinute = server.getRequestCount();
+
+        GpsBatchUploader batched = new GpsBatchUploader(transport, 15, 60000, DIRECT, listener);
+        simulateMinute(batched);
+        batched.flush();
+        int batchedRequestsPerMinute = server.getRequestCount() - singleRequestsPerMinute;
+
+        assertEquals(FIXES_PER_MINUTE * ACTIVE_COURSES, singleRequestsPerMinute);
+        assertEquals(2, batchedRequestsPerMinute);
+        assertEquals(2 * FIXES_PER_MINUTE * ACTIVE_COURSES, delivered.get());
+        assertEquals(2 * FIXES_PER_MINUTE * ACTIVE_COURSES, server.getReceivedPointCount());
+        assertTrue(failed.isEmpty());
+    }
+
+    @Test
+    public void fallsBackToSinglePointWhenArraysRejected() {
+        server.setRejectArrays(true);
+        GpsBatchUploader uploader = new GpsBatchUploader(transport, 5, 60000, DIRECT, listener);
+
+        simulateMinute(uploader);
+        uploader.flush();
+
+        assertFalse(uploader.isArrayMode());
+        assertEquals(FIXES_PER_MINUTE * ACTIVE_COURSES, delivered.get());
+        assertEquals(FIXES_PER_MINUTE * ACTIVE_COURSES, server.getReceivedPointCount());
+        // Primul batch respins + câte o cerere per punct după fallback
+        assertEquals(1 + FIXES_PER_MINUTE * ACTIVE_COURSES, server.getRequestCount());
+    }
+
+    @Test
+    public void keepsArrayModeWhenSinglePointResendAlsoFails() {
+        server.setRejectArrays(true);
+        server.setRejectSinglePoints(true);
+        GpsBatchUploader uploader = new GpsBatchUploader(transport, 3, 60000, DIRECT, listener);
+        uploader.add(point("UIT1", 1));
+        uploader.add(point("UIT2", 1));
+        uploader.add(point("UIT3", 1));
+
+        // 400 de la punctele însele, nu de la array - următorul batch încearcă tot un array
+        assertTrue(uploader.isArrayMode());
+        assertEquals(3, failed.size());
+        assertEquals(0, delivered.get());
+        assertEquals(1 + 3, server.getRequestCount());
+
+        server.setRejectArrays(false);
+        server.setRejectSinglePoints(false);
+        uploader.add(point("UIT1", 2));
+        uploader.add(point("UIT2", 2));
+        uploader.add(point("UIT3", 2));
+        assertEquals(1 + 3 + 1, server.getRequestCount());
+        assertEquals(3, delivered.get());
+    }
+
+    @Test
+    public void flushesOnAge() throws Exception {
+        GpsBatchUploader uploader = new GpsBatchUploader(transport, 100, 50, DIRECT, listener);
+        uploader.add(point("UIT1", 1));
+        uploader.flushIfExpired();
+        assertEquals(0, server.getRequestCount());
+
+        Thread.sleep(80);
+        uploader.flushIfExpired();
+        assertEquals(1, server.getRequestCount());
+        assertEquals(0, uploader.getPendingCount());
+    }
+
+    @Test
+    public void reportsServerErrorsAsFailures() {
+        server.setForcedResponseCode(503);
+        GpsBatchUploader uploader = new GpsBatchUploader(transport, 3, 60000, DIRECT, listener);
+        uploader.add(point("UIT1", 1));
+        uploader.add(point("UIT2", 1));
+        uploader.add(point("UIT3", 1));
+
+        assertEquals(3, failed.size());
+        assertEquals(0, delivered.get());
+        assertTrue(uploader.isArrayMode());
+    }
+
+    @Test
+    public void batchesCarryTheirCourses() {
+        final List<GpsBatchUploader.BatchTask> submitted = new CopyOnWriteArrayList<>();
+        GpsBatchUploader uploader = new GpsBatchUploader(transport, 3, 60000, new Executor() {
+            @Override
+            public void execute(Runnable command) {
+                submitted.add((GpsBatchUploader.BatchTask) command);
+            }
+        }, listener);
+        uploader.add(point("UIT2", 1), "UIT2");
+        uploader.add(point("UIT1", 1), "UIT1");
+        uploader.add(point("UIT2", 2), "UIT2");
+        uploader.add(point("UIT3", 1), "UIT3");
+        uploader.flush();
+
+        assertEquals(2, submitted.size());
+        assertEquals(java.util.Arrays.asList("UIT2", "UIT1"), new java.util.ArrayList<>(submitted.get(0).getKeys()));
+        assertEquals(java.util.Collections.singleton("UIT3"), submitted.get(1).getKeys());
+        assertEquals(0, server.getRequestCount());
+    }
+
+    private static void simulateMinute(GpsBatchUploader uploader) {
+        for (int fix = 0; fix < FIXES_PER_MINUTE; fix++) {
+            for (int course = 0; course < ACTIVE_COURSES; course++) {
+                uploader.add(point("UIT" + course, fix));
+            }
+        }
+    }
+
+    private static String point(String uit, int fix) {
+        return "{\"uit\":\"" + uit + "\",\"numar_inmatriculare\":\"B123ABC\",\"lat\":44.43" + fix
+                + ",\"lng\":26.10" + fix + ",\"viteza\":50,\"status\":2}";
+    }
+}
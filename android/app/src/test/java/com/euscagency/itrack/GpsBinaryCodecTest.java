@@ -0,0 +1,334 @@
+package com.euscagency.itrack;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.zip.GZIPOutputStream;
+
+import static org.junit.Assert.*;
+
+public class GpsBinaryCodecTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    @Test
+    public void encoderPayloadsRoundTripExactly() throws Exception {
+        List<String> points = recordedBatch(5, 3);
+        byte[] binary = GpsBinaryCodec.encodeBatch(points);
+        assertNotNull(binary);
+        assertEquals(points, GpsBinaryCodec.decodeBatch(binary));
+    }
+
+    @Test
+    public void reusedBuffersDoNotLeakBetweenBatches() throws Exception {
+        List<String> large = recordedBatch(4, 60);
+        List<String> small = recordedBatch(1, 2);
+        byte[] first = GpsBinaryCodec.encodeBatch(small);
+        GpsBinaryCodec.encodeBatch(large);
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList("{\"uit\":\"X\"}")));
+        byte[] again = GpsBinaryCodec.encodeBatch(small);
+        assertArrayEquals(first, again);
+        assertEquals(small, GpsBinaryCodec.decodeBatch(again));
+        assertEquals(large, GpsBinaryCodec.decodeBatch(GpsBinaryCodec.encodeBatch(large)));
+    }
+
+    @Test
+    public void negativeCoordinatesNullsAndEscapesRoundTrip() throws Exception {
+        GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+        List<String> points = Arrays.asList(
+            encoder.encode("UIT\"1\\", null, new GpsFix(-33.8688197, -151.2092955, 0, 0, -12, 3, 0), -1, null, 3, 0),
+            encoder.encode("Țară ăîșț 🚚", "B\n123", new GpsFix(0.0000001, -0.0000001, 30, 359, 0, 0, 1), 4, "100%", 4, 1000),
+            encoder.encode("UIT\"1\\", null, null, 0, "5%", 2, 1720000000000L));
+        assertEquals(points, GpsBinaryCodec.decodeBatch(GpsBinaryCodec.encodeBatch(points)));
+    }
+
+    @Test
+    public void networkTypeIsOptionalPerPoint() throws Exception {
+        GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+        DeviceTelemetry telemetry = new DeviceTelemetry();
+        telemetry.onBatteryChanged(87, 100, false, 1);
+        telemetry.onTransportChanged(DeviceTelemetry.Transport.CELLULAR, 1);
+        telemetry.onGenerationChanged(DeviceTelemetry.Generation.G4, 1);
+        List<String> points = Arrays.asList(
+            encoder.encode("UIT1", "B1", new GpsFix(44.1, 26.1, 1, 1, 1, 1, 0), telemetry.snapshot(), 2, 0),
+            encoder.encode("UIT1", "B1", new GpsFix(44.2, 26.1, 1, 1, 1, 1, 5000), 3, "86%", 2, 5000), // din jurnal
+            encoder.encode("UIT2", "B2", null, telemetry.snapshot(), 3, 9000));
+        assertEquals(points, GpsBinaryCodec.decodeBatch(GpsBinaryCodec.encodeBatch(points)));
+    }
+
+    @Test
+    public void timestampsAcrossDstAndYearBoundariesRoundTrip() throws Exception {
+        GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+        long[] instants = {
+            0L, 951782400000L, 1711846799000L, 1711846800000L, 1729990800000L, 1735682399000L, 1735682400000L,
+            4102444800000L
+        };
+        List<String> points = new ArrayList<>();
+        for (long instant : instants) {
+            points.add(encoder.encode("UIT1", "B1", new GpsFix(44.1, 26.1, 1, 1, 1, 1, instant), 3, "50%", 2, instant));
+        }
+        assertEquals(points, GpsBinaryCodec.decodeBatch(GpsBinaryCodec.encodeBatch(points)));
+    }
+
+    @Test
+    public void stampedPointsRoundTripNextToUnstampedOnes() throws Exception {
+        GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+        DeviceTelemetry telemetry = new DeviceTelemetry();
+        telemetry.onBatteryChanged(70, 100, false, 1);
+        telemetry.onTransportChanged(DeviceTelemetry.Transport.WIFI, 1);
+        PointSequencer sequencer = new PointSequencer("a1b2c3d4e5f60718", storeStartingAt(9999));
+        List<String> points = new ArrayList<>();
+        for (int i = 0; i < 6; i++) {
+            String uit = "UIT" + (i % 2);
+            points.add(encoder.encode(uit, "B1", new GpsFix(44.1 + i * 1e-4, 26.1, 1, 1, 1, 1, i * 5000L),
+                telemetry.snapshot(), 2, i * 5000L, sequencer.next(uit)));
+        }
+        points.add(encoder.encode("UIT0", "B1", null, 3, "70%", 4, 40000)); // din jurnal, fără numerotare
+        // Alt dispozitiv (ID cu cratimă) în același batch - prefixul e doar până la ultima cratimă
+        points.add(encoder.encode("UIT1", "B1", null, telemetry.snapshot(), 3, 45000,
+            new PointSequencer("alt-device", storeStartingAt(0)).next("UIT1")));
+
+        byte[] binary = GpsBinaryCodec.encodeBatch(points);
+        assertNotNull(binary);
+        assertEquals(points, GpsBinaryCodec.decodeBatch(binary));
+    }
+
+    @Test
+    public void pointIdsOutsideThePatternFallBackToJson() {
+        String valid = new GpsPayloadEncoder().encode("UIT1", "B1", null, 0, "1%", 2, 0);
+        String base = valid.substring(0, valid.length() - 1);
+        assertNotNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(base + ",\"seq\":3,\"point_id\":\"d-7\"}")));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(base + ",\"seq\":3,\"point_id\":\"uuid\"}")));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(base + ",\"seq\":3,\"point_id\":\"d-07\"}")));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(base + ",\"seq\":0,\"point_id\":\"d-7\"}")));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(base + ",\"seq\":\"3\"}")));
+    }
+
+    @Test
+    public void legacyJsonObjectPayloadsDecodeToEqualValues() throws Exception {
+        // Puncte din jurnalul offline scrise de versiunea veche (JSONObject, altă ordine a cheilor)
+        JSONObject legacy = new JSONObject();
+        legacy.put("timestamp", "2024-07-03 12:00:05");
+        legacy.put("status", 2);
+        legacy.put("uit", "UIT9");
+        legacy.put("numar_inmatriculare", "CJ-01-ABC");
+        legacy.put("lat", 46.77121);
+        legacy.put("lng", 23.6236);
+        legacy.put("viteza", 54);
+        legacy.put("directie", 90);
+        legacy.put("altitudine", 340);
+        legacy.put("hdop", 5);
+        legacy.put("gsm_signal", 3);
+        legacy.put("baterie", "61%");
+
+        List<String> decoded = GpsBinaryCodec.decodeBatch(
+            GpsBinaryCodec.encodeBatch(Collections.singletonList(legacy.toString())));
+        JSONObject roundTripped = new JSONObject(decoded.get(0));
+        for (String key : JSONObject.getNames(legacy)) {
+            assertEquals(key, legacy.get(key).toString(), roundTripped.get(key).toString());
+        }
+    }
+
+    @Test
+    public void pointsOutsideTheSchemaFallBackToJson() {
+        String valid = new GpsPayloadEncoder().encode("UIT1", "B1", null, 0, "1%", 2, 0);
+        assertNull(GpsBinaryCodec.encodeBatch(Arrays.asList(valid, "{\"uit\":\"UIT1\",\"extra\":true}")));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(valid.replace("\"viteza\":0", "\"viteza\":1.5"))));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(valid.replace("\"lat\":0", "\"lat\":44.123456789"))));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(valid.replace("\"viteza\":0", "\"viteza\":07"))));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList(valid.replace(",\"hdop\":0", ""))));
+        assertNull(GpsBinaryCodec.encodeBatch(Collections.singletonList("[" + valid + "]")));
+    }
+
+    @Test(expected = IOException.class)
+    public void corruptBodyIsRejected() throws Exception {
+        byte[] binary = GpsBinaryCodec.encodeBatch(recordedBatch(2, 2));
+        GpsBinaryCodec.decodeBatch(Arrays.copyOf(binary, binary.length / 2));
+    }
+
+    @Test
+    public void varintsAndZigzagRoundTrip() throws Exception {
+        java.io.ByteArrayOutputStream out = new java.io.ByteArrayOutputStream();
+        long[] values = {0, 1, -1, 63, -64, 64, 300, -300, Integer.MAX_VALUE, Long.MIN_VALUE, Long.MAX_VALUE};
+        for (long value : values) {
+            GpsBinaryCodec.writeSigned(out, value);
+        }
+        byte[] bytes = out.toByteArray();
+        int[] position = {0};
+        for (long value : values) {
+            assertEquals(value, GpsBinaryCodec.readSigned(bytes, position));
+        }
+        assertEquals(bytes.length, position[0]);
+    }
+
+    @Test
+    public void uploaderSendsBinaryAndFallsBackWhenServerRefuses() throws Exception {
+        MockGpsServer server = new MockGpsServer();
+        OkHttpGpsTransport transport = new OkHttpGpsTransport(server.url());
+        final List<String> delivered = new ArrayList<>();
+        GpsBatchUploader.Listener listener = new GpsBatchUploader.Listener() {
+            @Override
+            public void onPointsDelivered(List<String> points, int responseCode) {
+                delivered.addAll(points);
+            }
+
+            @Override
+            public void onPointsFailed(List<String> points, int responseCode, Exception error) {
+                fail("eșec neașteptat " + responseCode);
+            }
+        };
+        try {
+            GpsBatchUploader uploader = new GpsBatchUploader(transport, 15, 60000, DIRECT, listener);
+            uploader.enableBinaryMode();
+            List<String> batch = recordedBatch(5, 3);
+            for (String point : batch) {
+                uploader.add(point);
+            }
+            assertEquals(1, server.getBinaryRequestCount());
+            assertEquals(GpsBatchUploader.toJsonArray(batch), server.getBodies().get(0));
+            assertEquals(batch, delivered);
+
+            server.setRejectBinary(true);
+            for (String point : batch) {
+                uploader.add(point);
+            }
+            assertFalse(uploader.isBinaryMode());
+            assertEquals(2, server.getBinaryRequestCount());
+            assertEquals(3, server.getRequestCount()); // binar refuzat + același batch ca JSON array
+            assertEquals(30, server.getReceivedPointCount());
+            assertEquals(30, delivered.size());
+        } finally {
+            transport.shutdown();
+            server.stop();
+        }
+    }
+
+    @Test
+    public void liveBatchIsSmallerThanJsonAndGzipJson() throws Exception {
+        // Batch-ul live: 5 curse × 3 fix-uri (flush la 15 puncte)
+        assertSmallerThanJson(recordedBatch(5, 3), 0.1);
+    }
+
+    @Test
+    public void offlineBacklogBatchIsAFractionOfJson() throws Exception {
+        // Batch de drenare offline: 50 de puncte consecutive ale aceleiași curse
+        assertSmallerThanJson(recordedBatch(1, 50), 0.1);
+    }
+
+    private static void assertSmallerThanJson(List<String> batch, double maxJsonRatio) throws Exception {
+        String json = GpsBatchUploader.toJsonArray(batch);
+        int jsonBytes = json.getBytes(StandardCharsets.UTF_8).length;
+        int gzipBytes = gzip(json).length;
+        int binaryBytes = GpsBinaryCodec.encodeBatch(batch).length;
+        assertTrue("binar " + binaryBytes + " B vs gzip " + gzipBytes + " B", binaryBytes < gzipBytes);
+        assertTrue("binar " + binaryBytes + " B vs json " + jsonBytes + " B", binaryBytes < jsonBytes * maxJsonRatio);
+    }
+
+    private static byte[] gzip(String json) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(json.getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    @Test
+    public void uploaderSwitchesToBinaryOnlyAfterTheServerAdvertisesIt() throws Exception {
+        MockGpsServer server = new MockGpsServer();
+        OkHttpGpsTransport transport = new OkHttpGpsTransport(server.url());
+        final List<String> delivered = new ArrayList<>();
+        GpsBatchUploader.Listener listener = new GpsBatchUploader.Listener() {
+            @Override
+            public void onPointsDelivered(List<String> points, int responseCode) {
+                delivered.addAll(points);
+            }
+
+            @Override
+            public void onPointsFailed(List<String> points, int responseCode, Exception error) {
+                fail("eșec neașteptat " + responseCode);
+            }
+        };
+        try {
+            GpsBatchUploader uploader = new GpsBatchUploader(transport, 5, 60000, DIRECT, listener);
+            uploader.allowBinaryNegotiation();
+            List<String> batch = recordedBatch(5, 1);
+
+            // Serverul nu anunță nimic - rămâne JSON
+            for (String point : batch) {
+                uploader.add(point);
+            }
+            assertFalse(uploader.isBinaryMode());
+
+            // Primul răspuns cu anunț activează binarul pentru batch-ul următor
+            server.setAdvertiseBinary(true);
+            for (int round = 0; round < 2; round++) {
+                for (String point : batch) {
+                    uploader.add(point);
+                }
+            }
+            assertEquals(1, server.getBinaryRequestCount());
+
+            // Refuzat o dată cu 415 - anunțurile ulterioare nu îl mai reactivează
+            server.setRejectBinary(true);
+            for (int round = 0; round < 2; round++) {
+                for (String point : batch) {
+                    uploader.add(point);
+                }
+            }
+            assertFalse(uploader.isBinaryMode());
+            assertEquals(2, server.getBinaryRequestCount());
+            assertEquals(25, delivered.size());
+        } finally {
+            transport.shutdown();
+            server.stop();
+        }
+    }
+
+    // Contorul de point_id pornește de la pointIdsFrom, secvențele curselor de la 0
+    private static PointSequencer.Store storeStartingAt(final long pointIdsFrom) {
+        return new PointSequencer.Store() {
+            @Override
+            public long load(String key) {
+                return key.startsWith("seq:") ? 0 : pointIdsFrom;
+            }
+
+            @Override
+            public void save(String key, long reservedUpTo) {
+            }
+
+            @Override
+            public void remove(String key) {
+            }
+        };
+    }
+
+    // Batch tipic: mai multe curse, câte câteva fix-uri consecutive fiecare
+    static List<String> recordedBatch(int courses, int fixesPerCourse) {
+        GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+        List<String> points = new ArrayList<>();
+        List<GpsFix> track = SyntheticTracks.cityOnly(9, fixesPerCourse * 10);
+        for (int fix = 0; fix < fixesPerCourse; fix++) {
+            for (int course = 0; course < courses; course++) {
+                GpsFix base = track.get(fix * 10);
+                GpsFix shifted = new GpsFix(base.latitude + course * 0.01, base.longitude, base.speedMps, base.bearing,
+                    base.altitude, base.accuracy, base.timeMillis);
+                points.add(encoder.encode("RO2024UIT00" + course, "B-10" + course + "-ITR", shifted, 4, "87%", 2,
+                    shifted.timeMillis));
+            }
+        }
+        return points;
+    }
+}
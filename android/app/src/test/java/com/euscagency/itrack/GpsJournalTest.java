@@ -0,0 +1,196 @@
+package com.euscagency.itrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GpsJournalTest {
+
+    private File dir;
+
+    @Before
+    public void setUp() throws Exception {
+        dir = Files.createTempDirectory("gps-journal").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        File[] files = dir.listFiles();
+        if (files != null) {
+            for (File f : files) f.delete();
+        }
+        dir.delete();
+    }
+
+    @Test
+    public void replaysUnacknowledgedPointsAfterReopen() throws Exception {
+        File file = new File(dir, "gps.journal");
+        GpsJournal journal = GpsJournal.open(file, 1 << 20);
+        List<Long> ids = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            ids.add(journal.append(point(i), 1000L + i));
+        }
+        for (int i = 0; i < 10; i += 2) {
+            journal.ack(ids.get(i));
+        }
+        journal.close();
+
+        GpsJournal reopened = GpsJournal.open(file, 1 << 20);
+        List<GpsJournal.Entry> pending = reopened.pending();
+        assertEquals(5, pending.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals((long) ids.get(2 * i + 1), pending.get(i).id);
+            assertEquals(point(2 * i + 1), pending.get(i).payload);
+            assertEquals(1000L + 2 * i + 1, pending.get(i).createdAt);
+        }
+        // Id-urile noi continuă după cele existente
+        assertTrue(reopened.append(point(99), 0) > ids.get(9));
+        reopened.close();
+    }
+
+    @Test
+    public void survivesProcessDeathWithoutClose() throws Exception {
+        File file = new File(dir, "gps.journal");
+        GpsJournal killed = GpsJournal.open(file, 1 << 20);
+        long first = killed.append(point(1), 1);
+        killed.append(point(2), 2);
+        killed.ack(first);
+        // Fără close() - procesul a fost omorât
+
+        GpsJournal reopened = GpsJournal.open(file, 1 << 20);
+        assertEquals(1, reopened.size());
+        assertEquals(point(2), reopened.pending().get(0).payload);
+        reopened.close();
+    }
+
+    @Test
+    public void tornWriteAtAnyOffsetLosesNothingCommitted() throws Exception {
+        File file = new File(dir, "gps.journal");
+        GpsJournal journal = GpsJournal.open(file, 1 << 20);
+        long[] ids = new long[5];
+        for (int i = 0; i < 5; i++) {
+            ids[i] = journal.append(point(i), i);
+        }
+        journal.ack(ids[0]);
+        journal.ack(ids[2]);
+        long committedBytes = journal.getFileBytes();
+        long sixth = journal.append(point(5), 5);
+        long afterPoint = journal.getFileBytes();
+        journal.ack(ids[1]);
+        long afterAck = journal.getFileBytes();
+        journal.close();
+        byte[] full = Files.readAllBytes(file.toPath());
+
+        for (long cut = committedBytes; cut <= afterAck; cut++) {
+            File torn = new File(dir, "torn-" + cut + ".journal");
+            try (FileOutputStream out = new FileOutputStream(torn)) {
+                out.write(full, 0, (int) cut);
+            }
+
+            GpsJournal reopened = GpsJournal.open(torn, 1 << 20);
+            List<Long> expected;
+            if (cut < afterPoint) {
+                expected = Arrays.asList(ids[1], ids[3], ids[4]);
+            } else if (cut < afterAck) {
+                expected = Arrays.asList(ids[1], ids[3], ids[4], sixth);
+            } else {
+                expected = Arrays.asList(ids[3], ids[4], sixth);
+            }
+            assertEquals("cut=" + cut, expected, idsOf(reopened.pending()));
+
+            // Coada tăiată nu strică scrierile următoare
+            long next = reopened.append(point(42), 42);
+            reopened.close();
+            GpsJournal again = GpsJournal.open(torn, 1 << 20);
+            assertTrue("cut=" + cut, again.contains(next));
+            assertEquals(0, again.getTruncatedBytes());
+            again.close();
+            torn.delete();
+        }
+    }
+
+    @Test
+    public void evictsOldestWhenByteBudgetExceeded() throws Exception {
+        File file = new File(dir, "gps.journal");
+        GpsJournal journal = GpsJournal.open(file, 2000);
+        long first = journal.append(point(0), 0);
+        for (int i = 1; i < 100; i++) {
+            journal.append(point(i), i);
+        }
+
+        assertTrue(journal.getLiveBytes() <= 2000);
+        assertTrue(journal.getEvictedCount() > 0);
+        assertFalse(journal.contains(first));
+        List<GpsJournal.Entry> pending = journal.pending();
+        assertEquals(point(99), pending.get(pending.size() - 1).payload);
+        journal.close();
+
+        GpsJournal reopened = GpsJournal.open(file, 2000);
+        assertEquals(idsOf(pending), idsOf(reopened.pending()));
+        reopened.close();
+    }
+
+    @Test
+    public void compactsAsAcknowledgementsArrive() throws Exception {
+        File file = new File(dir, "gps.journal");
+        GpsJournal journal = GpsJournal.open(file, 1 << 20);
+        long keep = journal.append(point(-1), 0);
+        for (int i = 0; i < 5000; i++) {
+            journal.ack(journal.append(point(i), i));
+        }
+
+        assertEquals(1, journal.size());
+        assertTrue("file=" + journal.getFileBytes(), journal.getFileBytes() < 128 * 1024);
+        journal.close();
+
+        GpsJournal reopened = GpsJournal.open(file, 1 << 20);
+        assertEquals(Arrays.asList(keep), idsOf(reopened.pending()));
+        reopened.close();
+    }
+
+    @Test
+    public void ignoresInterruptedCompaction() throws Exception {
+        File file = new File(dir, "gps.journal");
+        GpsJournal journal = GpsJournal.open(file, 1 << 20);
+        long id = journal.append(point(1), 1);
+        journal.close();
+        File tmp = new File(file.getPath() + ".tmp");
+        try (FileOutputStream out = new FileOutputStream(tmp)) {
+            out.write(new byte[]{1, 2, 3});
+        }
+
+        GpsJournal reopened = GpsJournal.open(file, 1 << 20);
+        assertFalse(tmp.exists());
+        assertTrue(reopened.contains(id));
+        reopened.close();
+    }
+
+    @Test(expected = IOException.class)
+    public void rejectsForeignFiles() throws Exception {
+        File file = new File(dir, "gps.journal");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write("not a journal".getBytes("UTF-8"));
+        }
+        GpsJournal.open(file, 1 << 20);
+    }
+
+    private static List<Long> idsOf(List<GpsJournal.Entry> entries) {
+        List<Long> ids = new ArrayList<>();
+        for (GpsJournal.Entry entry : entries) ids.add(entry.id);
+        return ids;
+    }
+
+    private static String point(int i) {
+        return "{\"uit\":\"UIT" + i + "\",\"lat\":44.4" + i + ",\"lng\":26.1" + i + ",\"status\":2}";
+    }
+}
@@ -0,0 +1,98 @@
+package com.euscagency.itrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class GpsLogTest {
+
+    // Colectează ce ar ajunge în logcat
+    private static class CollectingOutput implements GpsLog.Output {
+        final List<String> lines = new ArrayList<>();
+        final List<Throwable> errors = new ArrayList<>();
+
+        @Override
+        public void write(int level, String tag, String message, Throwable error) {
+            lines.add(level + "/" + tag + ": " + message);
+            errors.add(error);
+        }
+    }
+
+    private CollectingOutput output;
+
+    @Before
+    public void setUp() {
+        output = new CollectingOutput();
+        GpsLog.recorder().clear();
+    }
+
+    @After
+    public void tearDown() {
+        GpsLog.configure(GpsLog.WARN, null);
+        GpsLog.recorder().clear();
+    }
+
+    @Test
+    public void releaseLevelKeepsLogcatQuietButRecordsInfo() {
+        GpsLog.configure(GpsLog.WARN, output);
+        GpsLog.d("GPS", "fix {}, {}", 44.4268, 26.1025);
+        GpsLog.i("GPS", "transmis pentru {} curse", 3);
+        GpsLog.w("GPS", "fix respins: {} ({}m)", "ACCURACY", 48);
+        GpsLog.e("GPS", "batch eșuat - cod {}", 503);
+
+        assertEquals(2, output.lines.size());
+        assertEquals("5/GPS: fix respins: ACCURACY (48m)", output.lines.get(0));
+        assertEquals("6/GPS: batch eșuat - cod 503", output.lines.get(1));
+
+        // DEBUG nu intră în recorder; INFO da, chiar dacă logcat îl filtrează
+        assertEquals(3, GpsLog.recorder().size());
+        assertTrue(GpsLog.recorder().dump().contains("I/GPS: transmis pentru 3 curse"));
+    }
+
+    @Test
+    public void debugLevelFormatsOnlyWhenEnabled() {
+        GpsLog.configure(GpsLog.DEBUG, output);
+        GpsLog.d("GPS", "fix {}, {}", 44.5, 26.25);
+        GpsLog.d("GPS", "precizie {}m, age {}ms", 12, 340L);
+        GpsLog.i("GPS", "pornit");
+        assertEquals("3/GPS: fix 44.5, 26.25", output.lines.get(0));
+        assertEquals("3/GPS: precizie 12m, age 340ms", output.lines.get(1));
+        assertEquals("4/GPS: pornit", output.lines.get(2));
+        assertFalse(GpsLog.isLoggable(GpsLog.VERBOSE));
+    }
+
+    @Test
+    public void disabledPathNeverRendersArguments() {
+        GpsLog.configure(GpsLog.WARN, output);
+        Object exploding = new Object() {
+            @Override
+            public String toString() {
+                throw new AssertionError("argumentul nu trebuia formatat");
+            }
+        };
+        GpsLog.d("GPS", "debug {}", exploding);
+        assertTrue(output.lines.isEmpty());
+    }
+
+    @Test
+    public void errorsCarryTheThrowable() {
+        GpsLog.configure(GpsLog.WARN, output);
+        IllegalStateException failure = new IllegalStateException("boom");
+        GpsLog.e("GPS", "eroare journal", failure);
+        assertSame(failure, output.errors.get(0));
+        assertTrue(GpsLog.recorder().dump().contains("E/GPS: eroare journal"));
+    }
+
+    @Test
+    public void withoutOutputOnlyTheRecorderWorks() {
+        GpsLog.configure(GpsLog.DEBUG, null);
+        assertFalse(GpsLog.isLoggable(GpsLog.ERROR));
+        GpsLog.e("GPS", "fără logcat");
+        assertEquals(1, GpsLog.recorder().size());
+    }
+}
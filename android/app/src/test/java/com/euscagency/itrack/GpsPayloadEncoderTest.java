@@ -0,0 +1,281 @@
+package com.euscagency.itrack;
+
+import org.json.JSONObject;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.TimeZone;
+
+import static org.junit.Assert.*;
+
+public class GpsPayloadEncoderTest {
+
+    private static final long SUMMER_NOON_UTC = 1720000800000L; // 2024-07-03 10:00:00 UTC
+    private final GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+
+    @Test
+    public void payloadMatchesTheJsonObjectSchemaFieldForField() throws Exception {
+        GpsFix fix = new GpsFix(44.4267674, 26.1025384, 13.9f, 187.6f, 81.9, 4.8f, SUMMER_NOON_UTC);
+        String payload = encoder.encode("UIT12345ABC", "B-123-ABC", fix, 4, "87%", 2, SUMMER_NOON_UTC);
+
+        JSONObject decoded = new JSONObject(payload);
+        String[] expectedOrder = {"uit", "numar_inmatriculare", "lat", "lng", "viteza", "directie",
+                "altitudine", "hdop", "gsm_signal", "baterie", "status", "timestamp"};
+        assertEquals(expectedOrder.length, decoded.length());
+        int index = 0;
+        for (String key : expectedOrder) {
+            assertTrue("Lipsește " + key, decoded.has(key));
+            assertTrue("Ordinea câmpurilor", payload.indexOf("\"" + key + "\"") > index);
+            index = payload.indexOf("\"" + key + "\"");
+        }
+
+        assertEquals("UIT12345ABC", decoded.getString("uit"));
+        assertEquals("B-123-ABC", decoded.getString("numar_inmatriculare"));
+        assertEquals(44.4267674, decoded.getDouble("lat"), 1e-9);
+        assertEquals(26.1025384, decoded.getDouble("lng"), 1e-9);
+        assertEquals((int) (13.9f * 3.6), decoded.getInt("viteza"));
+        assertEquals(187, decoded.getInt("directie"));
+        assertEquals(81, decoded.getInt("altitudine"));
+        assertEquals(4, decoded.getInt("hdop"));
+        assertEquals(4, decoded.getInt("gsm_signal"));
+        assertEquals("87%", decoded.getString("baterie"));
+        assertEquals(2, decoded.getInt("status"));
+        assertEquals(legacyTimestamp(SUMMER_NOON_UTC), decoded.getString("timestamp"));
+    }
+
+    @Test
+    public void timestampMatchesSimpleDateFormatAcrossDstTransitions() {
+        long[] instants = {
+                0L,
+                SUMMER_NOON_UTC,
+                1711846799000L, // 2024-03-31 00:59:59 UTC - înainte de trecerea la ora de vară
+                1711846800000L, // 2024-03-31 01:00:00 UTC - după
+                1729990799000L, // 2024-10-27 00:59:59 UTC - înainte de trecerea la ora de iarnă
+                1729990800000L, // 2024-10-27 01:00:00 UTC - după
+                1709208000000L, // 2024-02-29 - an bisect
+                4102444799000L  // 2099-12-31 23:59:59 UTC
+        };
+        for (long instant : instants) {
+            assertEquals("instant " + instant, legacyTimestamp(instant), encoder.formatTimestamp(instant));
+        }
+        long start = 1704067200000L; // 2024-01-01
+        for (long t = start; t < start + 366L * 24 * 3600 * 1000; t += 7 * 3600 * 1000L + 1234) {
+            assertEquals(legacyTimestamp(t), encoder.formatTimestamp(t));
+        }
+    }
+
+    @Test
+    public void coordinatesKeepSevenDecimalsWithoutTrailingZeros() throws Exception {
+        assertEquals("44.4268", field(encoder.encode("u", "v", fix(44.4268, -26.5), 0, "0%", 2, 0), "lat"));
+        assertEquals("-26.5", field(encoder.encode("u", "v", fix(44.4268, -26.5), 0, "0%", 2, 0), "lng"));
+        assertEquals("45", field(encoder.encode("u", "v", fix(45.0, 0.00000004), 0, "0%", 2, 0), "lat"));
+        assertEquals("0", field(encoder.encode("u", "v", fix(45.0, -0.00000004), 0, "0%", 2, 0), "lng"));
+        assertEquals("0.0000001", field(encoder.encode("u", "v", fix(0.00000006, 0), 0, "0%", 2, 0), "lat"));
+        assertEquals("0", field(encoder.encode("u", "v", fix(Double.NaN, 0), 0, "0%", 2, 0), "lat"));
+    }
+
+    @Test
+    public void missingFixWritesZeroCoordinatesLikeTheStatusFallback() throws Exception {
+        JSONObject decoded = new JSONObject(encoder.encode("UIT1", "B01XYZ", null, 1, "50%", 4, SUMMER_NOON_UTC));
+        assertEquals(0, decoded.getInt("lat"));
+        assertEquals(0, decoded.getInt("lng"));
+        assertEquals(0, decoded.getInt("hdop"));
+        assertEquals(4, decoded.getInt("status"));
+    }
+
+    @Test
+    public void telemetrySnapshotFillsSignalBatteryAndNetworkType() throws Exception {
+        DeviceTelemetry telemetry = new DeviceTelemetry();
+        telemetry.onBatteryChanged(41, 50, true, 1);
+        telemetry.onSignalChanged(2, -101, 1);
+        telemetry.onTransportChanged(DeviceTelemetry.Transport.CELLULAR, 1);
+        telemetry.onGenerationChanged(DeviceTelemetry.Generation.G5, 1);
+        JSONObject decoded = new JSONObject(encoder.encode("UIT1", "B01XYZ", fix(44.1, 26.1), telemetry.snapshot(), 2, SUMMER_NOON_UTC));
+        assertEquals(2, decoded.getInt("gsm_signal"));
+        assertEquals("82%", decoded.getString("baterie"));
+        assertEquals("5G", decoded.getString("tip_retea"));
+        assertEquals("2024-07-03 13:00:00", decoded.getString("timestamp"));
+    }
+
+    @Test
+    public void stringsAreEscapedAndUtf8Encoded() throws Exception {
+        String tricky = "Ș\"\\\n\u0001😀/é";
+        String payload = encoder.encode(tricky, null, null, 0, "ăîâ", 2, 0);
+        JSONObject decoded = new JSONObject(payload);
+        assertEquals(tricky, decoded.getString("uit"));
+        assertTrue(decoded.isNull("numar_inmatriculare"));
+        assertEquals("ăîâ", decoded.getString("baterie"));
+    }
+
+    @Test
+    public void identifiersExtendTheLastPayloadWithoutReparsing() throws Exception {
+        String payload = encoder.encode("UIT9", "CJ-01-AAA", fix(46.77, 23.59), 3, "20%", 2, SUMMER_NOON_UTC);
+        String analytics = encoder.appendIdentifiers("UIT9", "v_12_UIT9", "12");
+
+        JSONObject base = new JSONObject(payload);
+        JSONObject enriched = new JSONObject(analytics);
+        Iterator<String> keys = base.keys();
+        while (keys.hasNext()) {
+            String key = keys.next();
+            assertEquals(String.valueOf(base.get(key)), String.valueOf(enriched.get(key)));
+        }
+        assertEquals("UIT9", enriched.getString("realUit"));
+        assertEquals("v_12_UIT9", enriched.getString("uniqueKey"));
+        assertEquals("12", enriched.getString("ikRoTrans"));
+    }
+
+    @Test
+    public void stampFollowsTheSchemaFields() throws Exception {
+        DeviceTelemetry telemetry = new DeviceTelemetry();
+        telemetry.onBatteryChanged(64, 100, false, 1);
+        PointSequencer sequencer = new PointSequencer("a1b2c3d4e5f60718", new PointSequencer.Store() {
+            @Override
+            public long load(String key) {
+                return 41;
+            }
+
+            @Override
+            public void save(String key, long reservedUpTo) {
+            }
+
+            @Override
+            public void remove(String key) {
+            }
+        });
+        GpsFix fix = new GpsFix(44.43, 26.1, 10, 90, 80, 5, SUMMER_NOON_UTC - 4000);
+        String payload = encoder.encode("UIT7", "B-07-ABC", fix, telemetry.snapshot(), 2, fix.timeMillis,
+            sequencer.next("UIT7"));
+
+        JSONObject decoded = new JSONObject(payload);
+        assertEquals(42, decoded.getLong("seq"));
+        assertEquals("a1b2c3d4e5f60718-42", decoded.getString("point_id"));
+        assertTrue(payload.endsWith(",\"seq\":42,\"point_id\":\"a1b2c3d4e5f60718-42\"}"));
+        // Momentul capturii (Location.getTime()), nu al trimiterii
+        assertEquals(legacyTimestamp(SUMMER_NOON_UTC - 4000), decoded.getString("timestamp"));
+    }
+
+    @Test
+    public void bufferIsReusedAcrossPoints() {
+        encoder.encode("UIT1", "B01XYZ", fix(44.1, 26.1), 4, "99%", 2, SUMMER_NOON_UTC);
+        byte[] first = encoder.getBuffer();
+        for (int i = 0; i < 1000; i++) {
+            encoder.encode("UIT" + i, "B01XYZ", fix(44.1 + i * 1e-5, 26.1), 4, "99%", 2, SUMMER_NOON_UTC + i * 1000L);
+        }
+        assertSame(first, encoder.getBuffer());
+    }
+
+    @Test
+    public void encoderAllocatesLessThanTheJsonObjectPath() throws Exception {
+        com.sun.management.ThreadMXBean threads = allocationBean();
+        Assume.assumeTrue("JVM fără măsurare de alocări per thread", threads != null);
+        final GpsFix fix = new GpsFix(44.42676741234, 26.10253849876, 13.9f, 187.6f, 81.9, 4.8f, SUMMER_NOON_UTC);
+
+        double legacyBytes = allocatedBytesPerOp(threads, new Operation() {
+            @Override
+            public int run() throws Exception {
+                // Calea veche: TimeZone + SimpleDateFormat + Date + JSONObject + toString + getBytes
+                // + re-parsare pentru GPS_ANALYTICS
+                JSONObject gpsData = new JSONObject();
+                gpsData.put("uit", "UIT12345ABC");
+                gpsData.put("numar_inmatriculare", "B-123-ABC");
+                gpsData.put("lat", fix.latitude);
+                gpsData.put("lng", fix.longitude);
+                gpsData.put("viteza", (int) (fix.speedMps * 3.6));
+                gpsData.put("directie", (int) fix.bearing);
+                gpsData.put("altitudine", (int) fix.altitude);
+                gpsData.put("hdop", (int) fix.accuracy);
+                gpsData.put("gsm_signal", 4);
+                gpsData.put("baterie", "87%");
+                gpsData.put("status", 2);
+                gpsData.put("timestamp", legacyTimestamp(fix.timeMillis));
+                byte[] body = gpsData.toString().getBytes("utf-8");
+
+                JSONObject enrichedData = new JSONObject(gpsData.toString());
+                enrichedData.put("realUit", "UIT12345ABC");
+                enrichedData.put("uniqueKey", "v_12_UIT12345ABC");
+                enrichedData.put("ikRoTrans", "12");
+                return body.length + enrichedData.toString().length();
+            }
+        });
+        double encoderBytes = allocatedBytesPerOp(threads, new Operation() {
+            @Override
+            public int run() {
+                String payload = encoder.encode("UIT12345ABC", "B-123-ABC", fix, 4, "87%", 2, fix.timeMillis);
+                String analytics = encoder.appendIdentifiers("UIT12345ABC", "v_12_UIT12345ABC", "12");
+                return payload.length() + analytics.length();
+            }
+        });
+
+        // Encoder-ul alocă doar cele două String-uri finale (+ array-urile lor de bytes)
+        assertTrue("encoder " + encoderBytes + " B/op vs legacy " + legacyBytes, encoderBytes * 4 < legacyBytes);
+    }
+
+    @Test
+    public void payloadBytesAreComparable() throws Exception {
+        GpsFix fix = new GpsFix(44.42676741234, 26.10253849876, 13.9f, 187.6f, 81.9, 4.8f, 0);
+        String payload = encoder.encode("UIT12345ABC", "B-123-ABC", fix, 4, "87%", 2, 0);
+        JSONObject legacy = new JSONObject(payload);
+        legacy.put("lat", fix.latitude);
+        legacy.put("lng", fix.longitude);
+        int encodedBytes = payload.getBytes(StandardCharsets.UTF_8).length;
+        int legacyBytes = legacy.toString().getBytes(StandardCharsets.UTF_8).length;
+        assertTrue("encoder " + encodedBytes + " B vs legacy " + legacyBytes + " B", encodedBytes <= legacyBytes);
+    }
+
+    private interface Operation {
+        int run() throws Exception;
+    }
+
+    // Alocările sunt deterministe după încălzire - timpii se măsoară în PayloadBenchmark (JMH)
+    private static double allocatedBytesPerOp(com.sun.management.ThreadMXBean threads, Operation operation) throws Exception {
+        int ops = 2000;
+        long sink = 0;
+        for (int i = 0; i < ops; i++) {
+            sink += operation.run();
+        }
+        long threadId = Thread.currentThread().getId();
+        long before = threads.getThreadAllocatedBytes(threadId);
+        for (int i = 0; i < ops; i++) {
+            sink += operation.run();
+        }
+        long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+        assertTrue(sink > 0);
+        return allocated / (double) ops;
+    }
+
+    private static com.sun.management.ThreadMXBean allocationBean() {
+        try {
+            java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+            if (bean instanceof com.sun.management.ThreadMXBean
+                    && ((com.sun.management.ThreadMXBean) bean).isThreadAllocatedMemorySupported()) {
+                ((com.sun.management.ThreadMXBean) bean).setThreadAllocatedMemoryEnabled(true);
+                return (com.sun.management.ThreadMXBean) bean;
+            }
+        } catch (Throwable ignored) {
+            // JVM fără com.sun.management
+        }
+        return null;
+    }
+
+    private static GpsFix fix(double lat, double lng) {
+        return new GpsFix(lat, lng, 0, 0, 0, 0, 0);
+    }
+
+    private static String field(String payload, String key) {
+        int start = payload.indexOf("\"" + key + "\":") + key.length() + 3;
+        int end = payload.indexOf(',', start);
+        return payload.substring(start, end);
+    }
+
+    // Calea veche din BackgroundGPSService
+    private static String legacyTimestamp(long millis) {
+        SimpleDateFormat sdf = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss");
+        sdf.setTimeZone(TimeZone.getTimeZone("Europe/Bucharest"));
+        return sdf.format(new Date(millis));
+    }
+}
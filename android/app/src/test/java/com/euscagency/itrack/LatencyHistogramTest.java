@@ -0,0 +1,69 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LatencyHistogramTest {
+
+    @Test
+    public void percentilesStayWithinRelativeErrorOfExactValues() {
+        Random random = new Random(17);
+        LatencyHistogram histogram = new LatencyHistogram();
+        long[] values = new long[20000];
+        for (int i = 0; i < values.length; i++) {
+            // Latențe HTTP realiste: majoritatea 80-300 ms, coadă lungă până la timeout (15 s)
+            values[i] = random.nextInt(10) == 0 ? 1000 + random.nextInt(14000) : 80 + random.nextInt(220);
+            histogram.record(values[i]);
+        }
+        Arrays.sort(values);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(values.length, snapshot.count);
+        assertEquals(values[values.length - 1], snapshot.max);
+        for (double percentile : new double[] {50, 90, 99, 99.9}) {
+            long exact = values[(int) Math.ceil(percentile / 100 * values.length) - 1];
+            long reported = snapshot.percentile(percentile);
+            assertTrue("p" + percentile + " " + reported + " vs " + exact, reported >= exact);
+            assertTrue("p" + percentile + " " + reported + " vs " + exact, reported <= exact * 1.032);
+        }
+        double exactMean = 0;
+        for (long value : values) {
+            exactMean += value;
+        }
+        assertEquals(exactMean / values.length, snapshot.mean(), 1e-6);
+    }
+
+    @Test
+    public void smallValuesAreExactAndBucketsAreContiguous() {
+        for (long value = 0; value < 64; value++) {
+            assertEquals(value, LatencyHistogram.indexOf(value));
+            assertEquals(value, LatencyHistogram.highestValueIn((int) value));
+        }
+        // Fiecare valoare cade într-un bucket al cărui maxim o acoperă, iar bucket-urile nu au goluri
+        long previousHighest = 63;
+        for (int index = 64; index <= LatencyHistogram.indexOf(LatencyHistogram.MAX_VALUE); index++) {
+            long lowest = previousHighest + 1;
+            assertEquals(index, LatencyHistogram.indexOf(lowest));
+            previousHighest = LatencyHistogram.highestValueIn(index);
+            assertEquals(index, LatencyHistogram.indexOf(previousHighest));
+            assertTrue((previousHighest - lowest) / (double) lowest < 0.032);
+        }
+        assertEquals(LatencyHistogram.MAX_VALUE, previousHighest);
+    }
+
+    @Test
+    public void emptyNegativeAndHugeValuesAreSafe() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.snapshot().percentile(99));
+        assertEquals("{\"count\":0,\"mean\":0,\"p50\":0,\"p90\":0,\"p99\":0,\"max\":0}", histogram.snapshot().toJson());
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        assertEquals(2, snapshot.count);
+        assertEquals(0, snapshot.percentile(50));
+        assertEquals(LatencyHistogram.MAX_VALUE, snapshot.percentile(100));
+    }
+}
@@ -0,0 +1,156 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class LocationFilterPipelineTest {
+
+    private static final double METERS_PER_DEG_LAT = Math.toRadians(GeoMath.EARTH_RADIUS_METERS);
+
+    @Test
+    public void staleCachedFixIsRejected() {
+        LocationFilterPipeline pipeline = LocationFilterPipeline.standard(false);
+        long now = 1000000;
+        assertNull(pipeline.accept(fix(44.0, 26.0, 10, now - 31000), now));
+        assertEquals(LocationFilterPipeline.Rejection.STALE, pipeline.getLastRejection());
+        assertNotNull(pipeline.accept(fix(44.0, 26.0, 10, now - 29000), now));
+        assertNull(pipeline.getLastRejection());
+    }
+
+    @Test
+    public void batchedDeliveryWidensTheStaleWindow() {
+        LocationFilterPipeline pipeline = LocationFilterPipeline.standard(false, 60000);
+        long now = 1000000;
+        assertNotNull(pipeline.accept(fix(44.0, 26.0, 10, now - 45000), now)); // primul fix dintr-un batch de 30s
+        assertNull(pipeline.accept(fix(44.0, 26.0, 10, now - 61000), now));
+        assertEquals(LocationFilterPipeline.Rejection.STALE, pipeline.getLastRejection());
+    }
+
+    @Test
+    public void duplicateAndOutOfOrderFixesAreRejected() {
+        LocationFilterPipeline pipeline = LocationFilterPipeline.standard(false);
+        long now = 1000000;
+        assertNotNull(pipeline.accept(fix(44.0, 26.0, 10, now), now));
+        assertNull(pipeline.accept(fix(44.0, 26.0, 10, now), now));
+        assertNull(pipeline.accept(fix(44.0001, 26.0, 10, now - 5000), now));
+        assertEquals(2, pipeline.getRejectedCount(LocationFilterPipeline.Rejection.DUPLICATE));
+    }
+
+    @Test
+    public void cellTowerAccuracyIsRejected() {
+        LocationFilterPipeline pipeline = LocationFilterPipeline.standard(false);
+        assertNull(pipeline.accept(fix(44.0, 26.0, 800, 1000), 1000));
+        assertEquals(LocationFilterPipeline.Rejection.INACCURATE, pipeline.getLastRejection());
+        assertNotNull(pipeline.accept(fix(44.0, 26.0, 100, 2000), 2000));
+    }
+
+    @Test
+    public void impossibleJumpIsRejectedAndDoesNotMoveTheReference() {
+        LocationFilterPipeline pipeline = LocationFilterPipeline.standard(false);
+        assertNotNull(pipeline.accept(fix(44.0, 26.0, 5, 0), 0));
+        // 2 km în 10 secunde = 720 km/h
+        assertNull(pipeline.accept(fix(44.018, 26.0, 20, 10000), 10000));
+        assertEquals(LocationFilterPipeline.Rejection.IMPOSSIBLE_SPEED, pipeline.getLastRejection());
+        // 200 m în 20 secunde față de referință - plauzibil
+        assertNotNull(pipeline.accept(fix(44.0018, 26.0, 5, 20000), 20000));
+        assertEquals(1, pipeline.getRejectedCount(LocationFilterPipeline.Rejection.IMPOSSIBLE_SPEED));
+    }
+
+    @Test
+    public void wrongReferenceIsAbandonedAfterConsecutiveRejections() {
+        LocationFilterPipeline pipeline = LocationFilterPipeline.standard(false);
+        assertNotNull(pipeline.accept(fix(45.0, 26.0, 5, 0), 0)); // primul fix era deja un salt
+        int rejectedRun = 0;
+        GpsFix accepted = null;
+        for (int i = 1; i <= 10 && accepted == null; i++) {
+            accepted = pipeline.accept(fix(44.0, 26.0 + i * 0.0001, 5, i * 10000L), i * 10000L);
+            if (accepted == null) {
+                rejectedRun++;
+            }
+        }
+        assertNotNull(accepted);
+        assertEquals(LocationFilterPipeline.ImpliedSpeedFilter.MAX_CONSECUTIVE_REJECTIONS, rejectedRun);
+    }
+
+    @Test
+    public void injectedOutliersOnRecordedRouteAreCountedPerReason() {
+        List<GpsFix> route = SyntheticTracks.cityOnly(4, 20 * 60);
+        LocationFilterPipeline pipeline = LocationFilterPipeline.standard(false);
+        int injected = 0;
+        for (int i = 0; i < route.size(); i += 5) {
+            GpsFix fix = route.get(i);
+            long now = fix.timeMillis + 500;
+            if (i % 200 == 100) {
+                // Salt de celulă: 3 km lateral, precizie declarată bună
+                assertNull(pipeline.accept(new GpsFix(fix.latitude + 0.027, fix.longitude, fix.speedMps,
+                    fix.bearing, 0, 20, fix.timeMillis - 1), now));
+                injected++;
+            }
+            assertNotNull("fix valid respins la " + i, pipeline.accept(fix, now));
+        }
+        assertEquals(injected, pipeline.getRejectedCount(LocationFilterPipeline.Rejection.IMPOSSIBLE_SPEED));
+        assertEquals(240, pipeline.getAcceptedCount());
+        assertEquals("240/0/0/0/" + injected, pipeline.toBridgeString());
+    }
+
+    @Test
+    public void kalmanSmoothingReducesNoiseOnAStraightLine() {
+        Random random = new Random(5);
+        LocationFilterPipeline raw = LocationFilterPipeline.standard(false);
+        LocationFilterPipeline smoothed = LocationFilterPipeline.standard(true);
+        double rawError = 0;
+        double smoothedError = 0;
+        int samples = 0;
+        for (int i = 0; i < 600; i++) {
+            double trueLat = 44.0 + i * 10.0 / METERS_PER_DEG_LAT; // 10 m/s spre nord
+            long time = i * 1000L;
+            GpsFix noisy = new GpsFix(trueLat + random.nextGaussian() * 8 / METERS_PER_DEG_LAT, 26.0,
+                10, 0, 0, 8, time);
+            GpsFix a = raw.accept(noisy, time);
+            GpsFix b = smoothed.accept(noisy, time);
+            if (i >= 30) {
+                rawError += Math.abs(a.latitude - trueLat) * METERS_PER_DEG_LAT;
+                smoothedError += Math.abs(b.latitude - trueLat) * METERS_PER_DEG_LAT;
+                samples++;
+            }
+        }
+        assertTrue("eroare medie netezită " + smoothedError / samples + " m vs brută " + rawError / samples + " m",
+            smoothedError < rawError * 0.8);
+    }
+
+    @Test
+    public void customStageIsPluggedIntoTheChain() {
+        final List<GpsFix> seen = new ArrayList<>();
+        LocationFilterPipeline pipeline = new LocationFilterPipeline()
+            .addStage(new LocationFilterPipeline.AccuracyFilter(50))
+            .addStage(new LocationFilterPipeline.Stage() {
+                @Override
+                public GpsFix apply(GpsFix fix, long nowMillis) {
+                    seen.add(fix);
+                    return fix;
+                }
+
+                @Override
+                public LocationFilterPipeline.Rejection rejection() {
+                    return null;
+                }
+
+                @Override
+                public void onAccepted(GpsFix fix) {
+                }
+            });
+        pipeline.accept(fix(44.0, 26.0, 60, 0), 0);
+        pipeline.accept(fix(44.0, 26.0, 40, 1000), 1000);
+        assertEquals(1, seen.size());
+        assertEquals(1, pipeline.getRejectedCount(LocationFilterPipeline.Rejection.INACCURATE));
+    }
+
+    private static GpsFix fix(double lat, double lng, float accuracy, long time) {
+        return new GpsFix(lat, lng, 10, 0, 0, accuracy, time);
+    }
+}
@@ -0,0 +1,71 @@
+package com.euscagency.itrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.*;
+
+public class MeteredGpsTransportTest {
+
+    private MockGpsServer server;
+    private MetricsRegistry metrics;
+    private GpsTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockGpsServer();
+        metrics = new MetricsRegistry(0);
+        transport = new MeteredGpsTransport(new OkHttpGpsTransport(server.url()), metrics);
+        transport.setAuthToken("token");
+    }
+
+    @After
+    public void tearDown() {
+        transport.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void countsBytesOnTheWireAndLatencyPerRequest() throws Exception {
+        String json = "[{\"uit\":\"UIT-ț\",\"lat\":44.4268}]";
+        transport.post(json, "test");
+        byte[] binary = GpsBinaryCodec.encodeBatch(GpsBinaryCodecTest.recordedBatch(2, 3));
+        transport.postBinary(binary, GpsBinaryCodec.CONTENT_TYPE, "test");
+
+        assertEquals(2, metrics.counterValue("http.requests"));
+        assertEquals(2, metrics.counterValue("http.2xx"));
+        assertEquals(server.getReceivedBytes(), metrics.counterValue("http.bytes_sent"));
+        assertEquals(json.getBytes(StandardCharsets.UTF_8).length + binary.length, metrics.counterValue("http.bytes_sent"));
+        assertEquals(2, metrics.histogram("http.latency_ms").snapshot().count);
+    }
+
+    @Test
+    public void classifiesErrorResponsesAndNetworkFailures() throws Exception {
+        server.setForcedResponseCode(503);
+        assertEquals(503, transport.post("{}", "test").code);
+        server.setForcedResponseCode(422);
+        assertEquals(422, transport.post("{}", "test").code);
+        server.stop();
+        try {
+            transport.post("{}", "test");
+            fail("serverul oprit trebuia să arunce IOException");
+        } catch (IOException expected) {
+            // rețea indisponibilă
+        }
+        assertEquals(1, metrics.counterValue("http.5xx"));
+        assertEquals(1, metrics.counterValue("http.4xx"));
+        assertEquals(1, metrics.counterValue("http.network_errors"));
+        assertEquals(3, metrics.counterValue("http.requests"));
+        assertEquals(3, metrics.histogram("http.latency_ms").snapshot().count);
+    }
+
+    @Test
+    public void utf8LengthMatchesEncoder() {
+        String text = "GPS ț ș 🚚 € abc";
+        assertEquals(text.getBytes(StandardCharsets.UTF_8).length, MeteredGpsTransport.utf8Length(text));
+    }
+}
@@ -0,0 +1,94 @@
+package com.euscagency.itrack;
+
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class MetricsRegistryTest {
+
+    @Test
+    public void stripedCounterSumsEveryThreadExactly() throws Exception {
+        final StripedCounter counter = new StripedCounter();
+        final int threads = 8;
+        final int perThread = 100000;
+        final CountDownLatch start = new CountDownLatch(1);
+        List<Thread> workers = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            Thread worker = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                    } catch (InterruptedException e) {
+                        return;
+                    }
+                    for (int i = 0; i < perThread; i++) {
+                        counter.increment();
+                    }
+                    counter.add(10);
+                }
+            });
+            workers.add(worker);
+            worker.start();
+        }
+        start.countDown();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        assertEquals(threads * (perThread + 10L), counter.sum());
+    }
+
+    @Test
+    public void snapshotContainsCountersGaugesAndHistograms() throws Exception {
+        MetricsRegistry metrics = new MetricsRegistry(1000);
+        metrics.counter("fixes.received").add(12);
+        metrics.counter("fixes.filtered").increment();
+        assertSame(metrics.counter("fixes.received"), metrics.counter("fixes.received"));
+
+        final AtomicLong queueDepth = new AtomicLong(7);
+        metrics.gauge("queue.offline", new MetricsRegistry.Gauge() {
+            @Override
+            public long read() {
+                return queueDepth.get();
+            }
+        });
+        metrics.gauge("queue.http", new MetricsRegistry.Gauge() {
+            @Override
+            public long read() {
+                throw new IllegalStateException("pool oprit");
+            }
+        });
+        for (int i = 1; i <= 100; i++) {
+            metrics.histogram("http.latency_ms").record(i);
+        }
+
+        JSONObject json = new JSONObject(metrics.toJson(61000));
+        assertEquals(60000, json.getLong("uptimeMs"));
+        assertEquals(12, json.getJSONObject("counters").getLong("fixes.received"));
+        assertEquals(1, json.getJSONObject("counters").getLong("fixes.filtered"));
+        assertEquals(7, json.getJSONObject("gauges").getLong("queue.offline"));
+        assertEquals(-1, json.getJSONObject("gauges").getLong("queue.http"));
+        JSONObject latency = json.getJSONObject("histograms").getJSONObject("http.latency_ms");
+        assertEquals(100, latency.getLong("count"));
+        assertEquals(50, latency.getLong("p50"));
+        assertEquals(99, latency.getLong("p99"));
+        assertEquals(100, latency.getLong("max"));
+
+        // Gauge-ul e citit la fiecare snapshot, nu la înregistrare
+        queueDepth.set(0);
+        assertEquals(0, new JSONObject(metrics.toJson(61000)).getJSONObject("gauges").getLong("queue.offline"));
+        assertEquals(12, metrics.counterValue("fixes.received"));
+        assertEquals(0, metrics.counterValue("inexistent"));
+        assertEquals(-1, metrics.gaugeValue("queue.http", -1));
+
+        metrics.clearGauges();
+        assertEquals(5, metrics.gaugeValue("queue.offline", 5));
+        assertEquals(0, new JSONObject(metrics.toJson(61000)).getJSONObject("gauges").length());
+    }
+}
@@ -0,0 +1,174 @@
+package com.euscagency.itrack;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Server local care imită gps.php pentru testele JVM - numără cererile și păstrează body-urile primite.
+ */
+public class MockGpsServer implements HttpHandler {
+
+    private final HttpServer server;
+    private final AtomicInteger requestCount = new AtomicInteger();
+    private final List<String> bodies = new CopyOnWriteArrayList<>();
+    private final Set<Integer> clientPorts = ConcurrentHashMap.newKeySet();
+    private final List<String> authorizations = new CopyOnWriteArrayList<>();
+    private volatile boolean rejectArrays = false;
+    private volatile boolean rejectBinary = false;
+    private volatile boolean rejectSinglePoints = false;
+    private volatile boolean advertiseBinary = false;
+    private final AtomicInteger binaryRequestCount = new AtomicInteger();
+    private final AtomicLong receivedBytes = new AtomicLong();
+    private volatile int forcedResponseCode = 0;
+
+    public MockGpsServer() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/gps.php", this);
+        server.start();
+    }
+
+    public String url() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/gps.php";
+    }
+
+    // Simulează un server vechi care acceptă doar un obiect JSON per cerere
+    public void setRejectArrays(boolean rejectArrays) {
+        this.rejectArrays = rejectArrays;
+    }
+
+    // Simulează gps.php fără suport pentru GpsBinaryCodec
+    public void setRejectBinary(boolean rejectBinary) {
+        this.rejectBinary = rejectBinary;
+    }
+
+    // Simulează puncte invalide - serverul refuză cu 400 și fiecare obiect JSON trimis singur
+    public void setRejectSinglePoints(boolean rejectSinglePoints) {
+        this.rejectSinglePoints = rejectSinglePoints;
+    }
+
+    // Simulează gps.php nou - răspunde la anunțul clientului cu versiunea GpsBinaryCodec acceptată
+    public void setAdvertiseBinary(boolean advertiseBinary) {
+        this.advertiseBinary = advertiseBinary;
+    }
+
+    public int getBinaryRequestCount() {
+        return binaryRequestCount.get();
+    }
+
+    // Bytes de body primiți pe fir (binar sau JSON)
+    public long getReceivedBytes() {
+        return receivedBytes.get();
+    }
+
+    // 0 = comportament normal; altfel fiecare cerere primește acest cod
+    public void setForcedResponseCode(int forcedResponseCode) {
+        this.forcedResponseCode = forcedResponseCode;
+    }
+
+    public int getRequestCount() {
+        return requestCount.get();
+    }
+
+    // Porturi client distincte = conexiuni TCP deschise (keep-alive le refolosește)
+    public int getConnectionCount() {
+        return clientPorts.size();
+    }
+
+    public List<String> getAuthorizations() {
+        return authorizations;
+    }
+
+    public List<String> getBodies() {
+        return bodies;
+    }
+
+    // Numărul total de puncte GPS primite, indiferent dacă au venit ca array sau obiect
+    public int getReceivedPointCount() {
+        int points = 0;
+        for (String body : bodies) {
+            if (body.startsWith("[")) {
+                int depth = 0;
+                for (int i = 0; i < body.length(); i++) {
+                    char c = body.charAt(i);
+                    if (c == '{' && depth++ == 0) points++;
+                    else if (c == '}') depth--;
+                }
+            } else {
+                points++;
+            }
+        }
+        return points;
+    }
+
+    public void stop() {
+        server.stop(0);
+    }
+
+    @Override
+    public void handle(HttpExchange exchange) throws IOException {
+        requestCount.incrementAndGet();
+        clientPorts.add(exchange.getRemoteAddress().getPort());
+        authorizations.add(String.valueOf(exchange.getRequestHeaders().getFirst("Authorization")));
+        byte[] raw = readBody(exchange.getRequestBody());
+        receivedBytes.addAndGet(raw.length);
+        String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+        boolean binary = contentType != null && contentType.startsWith(GpsBinaryCodec.CONTENT_TYPE);
+
+        int code = 200;
+        String body;
+        if (binary) {
+            binaryRequestCount.incrementAndGet();
+            // Batch-ul binar e stocat ca JSON array decodat - testele numără punctele la fel
+            body = rejectBinary ? "" : GpsBatchUploader.toJsonArray(GpsBinaryCodec.decodeBatch(raw));
+            if (rejectBinary) {
+                code = 415;
+            }
+        } else {
+            body = new String(raw, StandardCharsets.UTF_8);
+        }
+        if (forcedResponseCode != 0) {
+            code = forcedResponseCode;
+        } else if (rejectArrays && body.startsWith("[")) {
+            code = 400;
+        } else if (rejectSinglePoints && body.startsWith("{")) {
+            code = 400;
+        }
+        if (code >= 200 && code < 300) {
+            bodies.add(body);
+        }
+
+        byte[] response = "{\"status\":\"ok\"}".getBytes(StandardCharsets.UTF_8);
+        String offered = exchange.getRequestHeaders().getFirst(GpsBinaryCodec.CAPABILITY_HEADER);
+        if (advertiseBinary && offered != null) {
+            exchange.getResponseHeaders().add(GpsBinaryCodec.CAPABILITY_HEADER, offered);
+        }
+        exchange.sendResponseHeaders(code, response.length);
+        try (OutputStream os = exchange.getResponseBody()) {
+            os.write(response);
+        }
+    }
+
+    private static byte[] readBody(InputStream is) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[1024];
+        int read;
+        while ((read = is.read(buffer)) != -1) {
+            out.write(buffer, 0, read);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,188 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class MotionStateMachineTest {
+
+    private static final long MINUTE = 60 * 1000;
+
+    @Test
+    public void depotWaitDropsToLowPowerWithinMinutes() {
+        List<GpsFix> raw = SyntheticTracks.depot(3, 2 * 3600);
+        Replay replay = replay(raw, SyntheticTracks.accelerometer(raw, 3, 5));
+
+        assertEquals(MotionStateMachine.State.STATIONARY, replay.machine.getState());
+        assertTrue("low power after " + (replay.firstLowPowerAt - raw.get(0).timeMillis),
+                replay.firstLowPowerAt - raw.get(0).timeMillis <= 6 * MINUTE);
+        assertTrue(replay.gnssOnMs <= 6 * MINUTE);
+        assertTrue(replay.lowPowerMs >= 114 * MINUTE);
+        assertTrue(replay.fixes < 60);
+        // Cererea se re-emite doar la tranziții (treaptă, low-power), nu la fiecare eșantion de accelerometru
+        assertTrue("request changes " + replay.requestChanges, replay.requestChanges <= 3);
+    }
+
+    @Test
+    public void deliveryDayResumesHighAccuracyAsSoonAsTheTruckMoves() {
+        List<GpsFix> raw = SyntheticTracks.deliveryDay(7);
+        Replay replay = replay(raw, SyntheticTracks.accelerometer(raw, 7, 5));
+        long dayMs = raw.get(raw.size() - 1).timeMillis - raw.get(0).timeMillis;
+
+        // Depozit + descărcare = 3h din 4h10 - GNSS pornit cam cât se conduce
+        assertTrue("gnss-on " + replay.gnssOnMs + "ms din " + dayMs + "ms", replay.gnssOnMs < dayMs / 2);
+        assertTrue("resume delay " + replay.worstResumeDelayMs, replay.worstResumeDelayMs <= 3000);
+        assertEquals(0, replay.lowPowerWhileDriving);
+        assertEquals(MotionStateMachine.State.STATIONARY, replay.machine.getState());
+    }
+
+    @Test
+    public void withoutAccelerometerTheFixPolicyAloneDecides() {
+        List<GpsFix> raw = SyntheticTracks.depot(3, 3600);
+        Replay replay = replay(raw, Collections.<SyntheticTracks.AccelSample>emptyList());
+
+        assertEquals(MotionStateMachine.State.MOVING, replay.machine.getState());
+        assertEquals(AdaptiveSamplingPolicy.Tier.PARKED, replay.machine.getTier());
+        assertEquals(-1, replay.firstLowPowerAt);
+    }
+
+    @Test
+    public void singleBumpDoesNotWakeButSignificantMotionDoes() {
+        MotionStateMachine machine = new MotionStateMachine(new AdaptiveSamplingPolicy());
+        long t = parkUntilLowPower(machine);
+
+        // Ușă trântită: două vârfuri, apoi liniște
+        assertFalse(machine.onAccelerometer(t, 0, 0, 12.5f));
+        assertFalse(machine.onAccelerometer(t + 200, 0, 0, 7.5f));
+        assertFalse(machine.onAccelerometer(t + MotionStateMachine.MOTION_WINDOW_MS + 500, 0, 0, 9.81f));
+        assertTrue(machine.isLowPower());
+
+        assertTrue(machine.onSignificantMotion(t + 10000));
+        assertEquals(MotionStateMachine.State.MOVING, machine.getState());
+        assertEquals(AdaptiveSamplingPolicy.Tier.NORMAL, machine.getTier());
+        assertFalse(machine.onSignificantMotion(t + 11000));
+    }
+
+    @Test
+    public void heartbeatFixBeyondBothAccuraciesResumes() {
+        MotionStateMachine machine = new MotionStateMachine(new AdaptiveSamplingPolicy());
+        long t = parkUntilLowPower(machine);
+
+        // Heartbeat WiFi imprecis, dar în cercul opririi - rămâne pe consum redus
+        assertFalse(machine.onFix(new GpsFix(44.0003, 26.0, 0, 0, 0, 40, t + 5 * MINUTE)));
+        assertTrue(machine.isLowPower());
+        // ~330 m mai încolo - a plecat fără ca senzorii să-l prindă
+        assertTrue(machine.onFix(new GpsFix(44.003, 26.0, 0, 0, 0, 40, t + 10 * MINUTE)));
+        assertFalse(machine.isLowPower());
+    }
+
+    @Test
+    public void gnssOnTimeCountsOnlyTrackedHighAccuracyTime() {
+        MotionStateMachine machine = new MotionStateMachine(new AdaptiveSamplingPolicy());
+        machine.startTracking(0);
+        long lowPowerAt = parkUntilLowPower(machine);
+        assertEquals(lowPowerAt, machine.getGnssOnMillis(lowPowerAt + 30 * MINUTE));
+        assertEquals(30 * MINUTE, machine.getLowPowerMillis(lowPowerAt + 30 * MINUTE));
+
+        machine.onSignificantMotion(lowPowerAt + 30 * MINUTE);
+        machine.stopTracking(lowPowerAt + 40 * MINUTE); // Fără curse active - GNSS oprit
+        assertEquals(lowPowerAt + 10 * MINUTE, machine.getGnssOnMillis(lowPowerAt + 90 * MINUTE));
+
+        machine.startTracking(lowPowerAt + 100 * MINUTE);
+        assertEquals(lowPowerAt + 15 * MINUTE, machine.getGnssOnMillis(lowPowerAt + 105 * MINUTE));
+        assertEquals(30 * MINUTE, machine.getLowPowerMillis(lowPowerAt + 105 * MINUTE));
+    }
+
+    @Test
+    public void resetLeavesLowPower() {
+        MotionStateMachine machine = new MotionStateMachine(new AdaptiveSamplingPolicy());
+        long t = parkUntilLowPower(machine);
+        assertTrue(machine.reset(t + 1000));
+        assertEquals(MotionStateMachine.State.MOVING, machine.getState());
+        assertEquals(AdaptiveSamplingPolicy.Tier.NORMAL, machine.getTier());
+        assertFalse(machine.reset(t + 2000));
+    }
+
+    // Fix-uri la 10s și accelerometru liniștit până la consum redus - întoarce momentul comutării
+    private static long parkUntilLowPower(MotionStateMachine machine) {
+        for (long t = 0; t < 30 * MINUTE; t += 1000) {
+            machine.onAccelerometer(t, 0.01f, -0.02f, 9.81f);
+            if (t % 10000 == 0 && machine.onFix(new GpsFix(44.0, 26.0, 0.1f, 0, 0, 10, t)) && machine.isLowPower()) {
+                return t;
+            }
+        }
+        throw new AssertionError("nu a intrat pe consum redus");
+    }
+
+    private static final class Replay {
+        MotionStateMachine machine;
+        long gnssOnMs;
+        long lowPowerMs;
+        long firstLowPowerAt = -1;
+        long worstResumeDelayMs;
+        int lowPowerWhileDriving;
+        int fixes;
+        int requestChanges;
+    }
+
+    // Simulează Fusion + senzorii: fix-urile sosesc la intervalul request-ului curent (treapta sau heartbeat),
+    // accelerometrul curge continuu; pe consum redus fix-ul e WiFi (precizie 40 m)
+    private static Replay replay(List<GpsFix> raw, List<SyntheticTracks.AccelSample> accel) {
+        Replay replay = new Replay();
+        MotionStateMachine machine = new MotionStateMachine(new AdaptiveSamplingPolicy());
+        replay.machine = machine;
+        long start = raw.get(0).timeMillis;
+        machine.startTracking(start);
+
+        long nextDelivery = start;
+        long departedAt = -1;
+        int a = 0;
+        for (GpsFix fix : raw) {
+            while (a < accel.size() && accel.get(a).timeMillis <= fix.timeMillis) {
+                SyntheticTracks.AccelSample sample = accel.get(a++);
+                if (machine.onAccelerometer(sample.timeMillis, sample.x, sample.y, sample.z)) {
+                    replay.requestChanges++;
+                    nextDelivery = sample.timeMillis + machine.getTier().intervalMs;
+                }
+            }
+
+            boolean driving = fix.speedMps >= AdaptiveSamplingPolicy.MOVING_SPEED;
+            if (machine.isLowPower()) {
+                if (driving && departedAt < 0) {
+                    departedAt = fix.timeMillis;
+                }
+                if (driving && fix.speedMps >= 5) {
+                    replay.lowPowerWhileDriving++;
+                }
+            } else if (departedAt >= 0) {
+                replay.worstResumeDelayMs = Math.max(replay.worstResumeDelayMs, fix.timeMillis - departedAt);
+                departedAt = -1;
+            }
+
+            if (fix.timeMillis < nextDelivery) {
+                continue;
+            }
+            replay.fixes++;
+            GpsFix delivered = machine.isLowPower()
+                    ? new GpsFix(fix.latitude, fix.longitude, 0, 0, 0, 40, fix.timeMillis)
+                    : fix;
+            if (machine.onFix(delivered)) {
+                replay.requestChanges++;
+                if (machine.isLowPower() && replay.firstLowPowerAt < 0) {
+                    replay.firstLowPowerAt = fix.timeMillis;
+                }
+            }
+            nextDelivery = fix.timeMillis + (machine.isLowPower()
+                    ? MotionStateMachine.HEARTBEAT_INTERVAL_MS : machine.getTier().intervalMs);
+        }
+
+        long end = raw.get(raw.size() - 1).timeMillis;
+        machine.stopTracking(end);
+        replay.gnssOnMs = machine.getGnssOnMillis(end);
+        replay.lowPowerMs = machine.getLowPowerMillis(end);
+        return replay;
+    }
+}
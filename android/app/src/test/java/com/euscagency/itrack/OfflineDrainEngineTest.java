@@ -0,0 +1,225 @@
+package com.euscagency.itrack;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+public class OfflineDrainEngineTest {
+
+    private final ExecutorService executor = Executors.newCachedThreadPool();
+    private final ConcurrentLinkedQueue<Integer> queue = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicInteger maxInFlight = new AtomicInteger();
+    private final AtomicInteger sentPoints = new AtomicInteger();
+    private final CountDownLatch finished = new CountDownLatch(1);
+    private final List<String> progress = new ArrayList<>();
+
+    private final OfflineDrainEngine.Backlog<Integer> backlog = new OfflineDrainEngine.Backlog<Integer>() {
+        // Atomic ca backlog-ul real - workerii concurenți nu își împart ultimul batch
+        @Override
+        public synchronized List<Integer> takeReady(int max) {
+            List<Integer> batch = new ArrayList<>();
+            Integer item;
+            while (batch.size() < max && (item = queue.poll()) != null) {
+                batch.add(item);
+            }
+            return batch;
+        }
+
+        @Override
+        public int size() {
+            return queue.size();
+        }
+    };
+
+    private final OfflineDrainEngine.ProgressListener listener = new OfflineDrainEngine.ProgressListener() {
+        @Override
+        public synchronized void onProgress(int delivered, int processed, int remaining) {
+            progress.add(delivered + "/" + processed + "/" + remaining);
+        }
+
+        @Override
+        public void onDrainFinished(int delivered, int processed, int remaining) {
+            finished.countDown();
+        }
+    };
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void drainsTunnelBacklogConcurrentlyWithinBudget() throws Exception {
+        fill(700); // ~2 ore de tunel la 10s
+        OfflineDrainEngine<Integer> engine = new OfflineDrainEngine<>(backlog, slowSender(20, true),
+                noLiveTraffic(), listener, executor, 50, 4, 0);
+
+        assertTrue(engine.trigger());
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+
+        assertEquals(700, sentPoints.get());
+        assertEquals(0, queue.size());
+        assertTrue("max in flight " + maxInFlight.get(), maxInFlight.get() <= 4);
+        assertTrue("concurrency used " + maxInFlight.get(), maxInFlight.get() > 1);
+        assertEquals(14, progress.size());
+        assertTrue(progress.contains("700/700/0"));
+        assertFalse(engine.isDraining());
+    }
+
+    @Test
+    public void respectsBatchRateBudget() throws Exception {
+        fill(100);
+        OfflineDrainEngine<Integer> engine = new OfflineDrainEngine<>(backlog, slowSender(0, true),
+                noLiveTraffic(), listener, executor, 10, 4, 20);
+
+        long start = System.nanoTime();
+        engine.trigger();
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+        long elapsedMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(100, sentPoints.get());
+        // 10 batch-uri la 20/s => cel puțin 9 intervale de 50ms
+        assertTrue("elapsed " + elapsedMs, elapsedMs >= 400);
+    }
+
+    @Test
+    public void waitsForLiveTrafficFirst() throws Exception {
+        fill(10);
+        final long liveUntil = System.currentTimeMillis() + 300;
+        final AtomicInteger sentWhileLive = new AtomicInteger();
+        OfflineDrainEngine.LiveTrafficProbe live = new OfflineDrainEngine.LiveTrafficProbe() {
+            @Override
+            public boolean isLiveTrafficPending() {
+                return System.currentTimeMillis() < liveUntil;
+            }
+        };
+        OfflineDrainEngine.BatchSender<Integer> sender = new OfflineDrainEngine.BatchSender<Integer>() {
+            @Override
+            public OfflineDrainEngine.SendResult send(List<Integer> batch) {
+                if (System.currentTimeMillis() < liveUntil) sentWhileLive.incrementAndGet();
+                sentPoints.addAndGet(batch.size());
+                return new OfflineDrainEngine.SendResult(batch.size(), 0, true);
+            }
+        };
+        OfflineDrainEngine<Integer> engine = new OfflineDrainEngine<>(backlog, sender, live, listener, executor, 5, 2, 0);
+
+        engine.trigger();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+
+        assertEquals(0, sentWhileLive.get());
+        assertEquals(10, sentPoints.get());
+    }
+
+    @Test
+    public void stopsWhenNetworkDropsAgainAndResumesOnTrigger() throws Exception {
+        fill(100);
+        final AtomicInteger calls = new AtomicInteger();
+        OfflineDrainEngine.BatchSender<Integer> flaky = new OfflineDrainEngine.BatchSender<Integer>() {
+            @Override
+            public OfflineDrainEngine.SendResult send(List<Integer> batch) {
+                calls.incrementAndGet();
+                queue.addAll(batch); // backlog-ul păstrează elementele nelivrate
+                return new OfflineDrainEngine.SendResult(0, batch.size(), false);
+            }
+        };
+        OfflineDrainEngine<Integer> engine = new OfflineDrainEngine<>(backlog, flaky, noLiveTraffic(), listener, executor, 10, 3, 0);
+
+        engine.trigger();
+        assertTrue(finished.await(5, TimeUnit.SECONDS));
+        assertEquals(3, calls.get());
+        assertEquals(100, queue.size());
+        assertFalse(engine.isDraining());
+    }
+
+    @Test
+    public void triggerRacingTheLastWorkerIsNotLost() throws Exception {
+        // Un punct nou sosește exact când ultimul worker găsește backlog-ul gol - trigger-ul lui nu se pierde
+        final CountDownLatch[] sawEmpty = new CountDownLatch[1];
+        OfflineDrainEngine.Backlog<Integer> racing = new OfflineDrainEngine.Backlog<Integer>() {
+            @Override
+            public List<Integer> takeReady(int max) {
+                List<Integer> batch = backlog.takeReady(max);
+                if (batch.isEmpty()) sawEmpty[0].countDown();
+                return batch;
+            }
+
+            @Override
+            public int size() {
+                return queue.size();
+            }
+        };
+        OfflineDrainEngine<Integer> engine = new OfflineDrainEngine<>(racing, slowSender(0, true), noLiveTraffic(),
+                listener, executor, 10, 1, 0);
+
+        for (int round = 0; round < 2000; round++) {
+            sawEmpty[0] = new CountDownLatch(1);
+            queue.add(round);
+            engine.trigger();
+            assertTrue(sawEmpty[0].await(5, TimeUnit.SECONDS));
+
+            sawEmpty[0] = new CountDownLatch(1);
+            queue.add(-round);
+            engine.trigger();
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while ((!queue.isEmpty() || engine.isDraining()) && System.nanoTime() < deadline) {
+                Thread.yield();
+            }
+            assertTrue("trigger pierdut în runda " + round, queue.isEmpty());
+        }
+        assertEquals(4000, sentPoints.get());
+    }
+
+    @Test
+    public void doesNothingWhenBacklogEmptyOrStopped() {
+        OfflineDrainEngine<Integer> engine = new OfflineDrainEngine<>(backlog, slowSender(0, true), noLiveTraffic(), listener, executor, 10, 3, 0);
+        assertFalse(engine.trigger());
+
+        fill(5);
+        engine.stop();
+        assertFalse(engine.trigger());
+        assertEquals(5, queue.size());
+    }
+
+    private void fill(int count) {
+        for (int i = 0; i < count; i++) queue.add(i);
+    }
+
+    private OfflineDrainEngine.BatchSender<Integer> slowSender(final long latencyMs, final boolean reachable) {
+        return new OfflineDrainEngine.BatchSender<Integer>() {
+            @Override
+            public OfflineDrainEngine.SendResult send(List<Integer> batch) {
+                int now = inFlight.incrementAndGet();
+                maxInFlight.accumulateAndGet(now, Math::max);
+                try {
+                    if (latencyMs > 0) Thread.sleep(latencyMs);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                } finally {
+                    inFlight.decrementAndGet();
+                }
+                sentPoints.addAndGet(batch.size());
+                return new OfflineDrainEngine.SendResult(batch.size(), 0, reachable);
+            }
+        };
+    }
+
+    private static OfflineDrainEngine.LiveTrafficProbe noLiveTraffic() {
+        return new OfflineDrainEngine.LiveTrafficProbe() {
+            @Override
+            public boolean isLiveTrafficPending() {
+                return false;
+            }
+        };
+    }
+}
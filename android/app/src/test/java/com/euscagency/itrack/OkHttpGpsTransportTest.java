@@ -0,0 +1,72 @@
+package com.euscagency.itrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class OkHttpGpsTransportTest {
+
+    private MockGpsServer server;
+    private OkHttpGpsTransport transport;
+
+    @Before
+    public void setUp() throws Exception {
+        server = new MockGpsServer();
+        transport = new OkHttpGpsTransport(server.url());
+        transport.setAuthToken("token-123");
+    }
+
+    @After
+    public void tearDown() {
+        transport.shutdown();
+        server.stop();
+    }
+
+    @Test
+    public void reusesConnectionsAcrossPoolWorkers() throws Exception {
+        // Aceeași configurație ca httpThreadPool: 3 workeri
+        ExecutorService workers = Executors.newFixedThreadPool(3);
+        for (int i = 0; i < 60; i++) {
+            final int point = i;
+            workers.execute(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        assertTrue(transport.post("{\"uit\":\"UIT" + point + "\"}", "iTrack-Test/1.0").isSuccessful());
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+            });
+        }
+        workers.shutdown();
+        assertTrue(workers.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertEquals(60, server.getRequestCount());
+        assertTrue("conexiuni deschise: " + server.getConnectionCount(), server.getConnectionCount() <= 3);
+    }
+
+    @Test
+    public void sendsBearerTokenAndReturnsBody() throws Exception {
+        GpsTransport.Response response = transport.post("{\"uit\":\"UIT1\"}", "iTrack-Test/1.0");
+
+        assertEquals(200, response.code);
+        assertEquals("{\"status\":\"ok\"}", response.body);
+        assertEquals("Bearer token-123", server.getAuthorizations().get(0));
+    }
+
+    @Test
+    public void surfacesServerErrorCodes() throws Exception {
+        server.setForcedResponseCode(503);
+        GpsTransport.Response response = transport.post("{\"uit\":\"UIT1\"}", "iTrack-Test/1.0");
+
+        assertFalse(response.isSuccessful());
+        assertEquals(503, response.code);
+    }
+}
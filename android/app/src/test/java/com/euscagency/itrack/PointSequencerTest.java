@@ -0,0 +1,132 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class PointSequencerTest {
+
+    // SharedPreferences în memorie - numără scrierile ca să verificăm rezervarea în blocuri
+    private static final class MemoryStore implements PointSequencer.Store {
+        final Map<String, Long> values = new HashMap<>();
+        int saves;
+
+        @Override
+        public long load(String key) {
+            Long value = values.get(key);
+            return value != null ? value : 0;
+        }
+
+        @Override
+        public void save(String key, long reservedUpTo) {
+            values.put(key, reservedUpTo);
+            saves++;
+        }
+
+        @Override
+        public void remove(String key) {
+            values.remove(key);
+        }
+    }
+
+    @Test
+    public void sequencesArePerCourseAndPointIdsPerDevice() {
+        PointSequencer sequencer = new PointSequencer("a1b2c3d4e5f60718", new MemoryStore());
+
+        PointSequencer.Stamp first = sequencer.next("UIT-A");
+        PointSequencer.Stamp second = sequencer.next("UIT-B");
+        PointSequencer.Stamp third = sequencer.next("UIT-A");
+
+        assertEquals(1, first.seq);
+        assertEquals(1, second.seq);
+        assertEquals(2, third.seq);
+        assertEquals("a1b2c3d4e5f60718-1", first.pointId);
+        assertEquals("a1b2c3d4e5f60718-2", second.pointId);
+        assertEquals("a1b2c3d4e5f60718-3", third.pointId);
+    }
+
+    @Test
+    public void restartContinuesAboveEveryIssuedValue() {
+        MemoryStore store = new MemoryStore();
+        PointSequencer before = new PointSequencer("dev", store, 10);
+        long lastSeq = 0;
+        Set<String> pointIds = new HashSet<>();
+        for (int i = 0; i < 25; i++) {
+            PointSequencer.Stamp stamp = before.next("UIT-A");
+            lastSeq = stamp.seq;
+            pointIds.add(stamp.pointId);
+        }
+        // Un bloc de 10 rezervat la fiecare a 10-a valoare: 3 scrieri per contor, nu 25
+        assertEquals(6, store.saves);
+
+        // Procesul omorât fără avertisment - instanța nouă pornește de la plafonul salvat
+        PointSequencer after = new PointSequencer("dev", store, 10);
+        PointSequencer.Stamp resumed = after.next("UIT-A");
+        assertTrue(resumed.seq > lastSeq);
+        assertTrue(pointIds.add(resumed.pointId));
+        assertEquals(31, resumed.seq); // gol până la plafonul 30, fără repetare
+    }
+
+    @Test
+    public void stoppedCourseLeavesNoPersistedCounter() {
+        MemoryStore store = new MemoryStore();
+        PointSequencer sequencer = new PointSequencer("dev", store, 100);
+        String lastPointId = null;
+        for (int i = 0; i < 5; i++) {
+            sequencer.next("UIT-A");
+            lastPointId = sequencer.next("UIT-B").pointId;
+        }
+        sequencer.forget("UIT-A"); // STOP
+
+        assertFalse(store.values.containsKey("seq:UIT-A"));
+        assertTrue(store.values.containsKey("seq:UIT-B"));
+        // Repornită după STOP - seq de la capăt, point_id tot nou
+        PointSequencer.Stamp restarted = sequencer.next("UIT-A");
+        assertEquals(1, restarted.seq);
+        assertEquals("dev-11", restarted.pointId);
+        assertEquals("dev-10", lastPointId);
+    }
+
+    @Test
+    public void concurrentCapturesGetDistinctIds() throws Exception {
+        final PointSequencer sequencer = new PointSequencer("dev", new MemoryStore(), 7);
+        final Set<String> pointIds = ConcurrentHashMap.newKeySet();
+        final Map<String, Set<Long>> sequences = new ConcurrentHashMap<>();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        String uit = "UIT-" + (i % 3);
+                        PointSequencer.Stamp stamp = sequencer.next(uit);
+                        pointIds.add(stamp.pointId);
+                        sequences.putIfAbsent(uit, ConcurrentHashMap.<Long>newKeySet());
+                        sequences.get(uit).add(stamp.seq);
+                    }
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(4000, pointIds.size());
+        int total = 0;
+        for (Set<Long> seqs : sequences.values()) {
+            total += seqs.size();
+        }
+        assertEquals(4000, total);
+    }
+}
@@ -0,0 +1,1165 @@
+package com.euscagency.itrack;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Executor;
+
+/**
+ * SIMULATOR DE REPLAY - BackgroundGPSService fără telefon, pe ceas virtual
+ * Un traseu înregistrat (TrackFile: GPX/CSV) trece prin aceeași logică ca serviciul:
+ *   Fusion (interval + livrare grupată) → onLocationResult (filtre, sampling adaptiv) →
+ *   transmitGPSDataToAllActiveCourses (simplificare traseu, encoder) → GpsBatchUploader →
+ *   transport → coada offline (RetryScheduler, backoff) → OfflineDrainEngine,
+ * către un gps.php local (GpsPhpStandIn). Scriptul aduce intent-urile START/UPDATE/STOP,
+ * căderile de rețea și ferestrele de erori ale serverului la momente fixe.
+ * Componentele sunt cele din serviciu; aici e doar cablajul din BackgroundGPSService, cu aceleași
+ * constante implicite (Config.service). Diferențe asumate: jurnalul de pe disc și dead-letter-ul
+ * sunt doar contoare, iar "thread-urile" (HTTP, drenare, timer) sunt evenimente pe același ceas.
+ * Batch-urile live și statusurile trec prin benzile per cursă (StripedExecutor); drenarea offline nu
+ * intră în benzi (ar bloca ceasul), doar rezervă cursele din batch, ca în serviciu.
+ * Raportul: puncte livrate, pierderi pe cauze, catch-up după fiecare cădere, cereri/minut, bytes/oră.
+ */
+final class ReplaySimulator {
+
+    static final long SECOND = 1000;
+    static final long MINUTE = 60 * SECOND;
+    static final long HOUR = 60 * MINUTE;
+
+    private static final long MAX_OFFLINE_AGE_MS = 24 * HOUR;
+
+    // Configurația comparată - implicit constantele din BackgroundGPSService
+    static final class Config {
+        final String name;
+        int batchMaxPoints = 30;
+        long batchMaxAgeMs = 30 * SECOND;
+        boolean binaryUpload = false;
+        boolean trajectory = true;
+        double trajectoryToleranceMeters = 10;
+        long trajectoryMaxGapMs = 60 * SECOND;
+        int trajectoryMaxWindow = 32;
+        AdaptiveSamplingPolicy.Tier fixedTier = null; // null = sampling adaptiv
+        boolean batchedDelivery = true;
+        long staleFixMaxAgeMs = LocationFilterPipeline.DEFAULT_MAX_AGE_MS + AdaptiveSamplingPolicy.BATCH_DELIVERY_WINDOW_MS;
+        int drainBatchSize = 50;
+        int drainMaxConcurrentBatches = 2;
+        int drainMaxBatchesPerSecond = 4;
+        long retryInitialDelayMs = 30 * SECOND;
+        long retryMaxDelayMs = 300 * SECOND;
+        int maxRetries = 10;
+        long serverLatencyMs = 300;
+        boolean serverRejectsArrays = false;
+        boolean serverRejectsBinary = false;
+        long tailMs = 30 * MINUTE; // după ultimul fix - backlog-ul are timp să se golească
+
+        private Config(String name) {
+            this.name = name;
+        }
+
+        static Config service(String name) {
+            return new Config(name);
+        }
+
+        Config batch(int maxPoints, long maxAgeMs) {
+            batchMaxPoints = maxPoints;
+            batchMaxAgeMs = maxAgeMs;
+            return this;
+        }
+
+        Config binary(boolean enabled) {
+            binaryUpload = enabled;
+            return this;
+        }
+
+        Config trajectory(boolean enabled) {
+            trajectory = enabled;
+            return this;
+        }
+
+        // Fără sampling adaptiv și fără livrare grupată - comportamentul dinaintea optimizărilor
+        Config fixedInterval(AdaptiveSamplingPolicy.Tier tier) {
+            fixedTier = tier;
+            batchedDelivery = false;
+            return this;
+        }
+
+        Config drain(int batchSize, int maxConcurrentBatches, int maxBatchesPerSecond) {
+            drainBatchSize = batchSize;
+            drainMaxConcurrentBatches = maxConcurrentBatches;
+            drainMaxBatchesPerSecond = maxBatchesPerSecond;
+            return this;
+        }
+
+        Config retry(long initialDelayMs, long maxDelayMs) {
+            retryInitialDelayMs = initialDelayMs;
+            retryMaxDelayMs = maxDelayMs;
+            return this;
+        }
+
+        Config serverLatency(long latencyMs) {
+            serverLatencyMs = latencyMs;
+            return this;
+        }
+
+        // gps.php vechi: un obiect JSON per cerere, fără format binar
+        Config legacyServer() {
+            serverRejectsArrays = true;
+            serverRejectsBinary = true;
+            return this;
+        }
+    }
+
+    // Intent-uri și evenimente de rețea la momente relative la primul fix al traseului
+    static final class Script {
+        private final List<Step> steps = new ArrayList<>();
+
+        Script start(long atMs, String uit, String vehicle) {
+            steps.add(new Step(atMs, Step.START, uit, vehicle, CourseRegistry.STATUS_ACTIVE, 0));
+            return this;
+        }
+
+        Script status(long atMs, String uit, int status) {
+            steps.add(new Step(atMs, Step.UPDATE, uit, null, status, 0));
+            return this;
+        }
+
+        // STOP_BACKGROUND_GPS (logout) - serviciul golește tot și se oprește
+        Script logout(long atMs) {
+            steps.add(new Step(atMs, Step.LOGOUT, null, null, 0, 0));
+            return this;
+        }
+
+        // Fără rețea: cererile eșuează imediat (IOException), RetryScheduler trece offline
+        Script outage(long fromMs, long durationMs) {
+            steps.add(new Step(fromMs, Step.OUTAGE, null, null, 0, durationMs));
+            return this;
+        }
+
+        // Rețea prezentă, dar gps.php răspunde cu acest cod (ex. 503, 429)
+        Script serverErrors(long fromMs, long durationMs, int responseCode) {
+            steps.add(new Step(fromMs, Step.SERVER_ERRORS, null, null, responseCode, durationMs));
+            return this;
+        }
+
+        // gps.php salvează punctele, dar răspunsul se pierde (timeout) - clientul le retrimite
+        Script lostResponses(long fromMs, long durationMs) {
+            steps.add(new Step(fromMs, Step.LOST_RESPONSES, null, null, 0, durationMs));
+            return this;
+        }
+    }
+
+    private static final class Step {
+        static final int START = 0, UPDATE = 1, LOGOUT = 2, OUTAGE = 3, SERVER_ERRORS = 4, LOST_RESPONSES = 5;
+
+        final long atMs;
+        final int type;
+        final String uit;
+        final String vehicle;
+        final int value;
+        final long durationMs;
+
+        Step(long atMs, int type, String uit, String vehicle, int value, long durationMs) {
+            this.atMs = atMs;
+            this.type = type;
+            this.uit = uit;
+            this.vehicle = vehicle;
+            this.value = value;
+            this.durationMs = durationMs;
+        }
+    }
+
+    static final class Report {
+        final String name;
+        long durationMs;
+        int fixesSampled;
+        int fixesRejected;
+        int produced;          // payload-uri GPS + status predate uploader-ului / trimise direct
+        int statusProduced;
+        int delivered;         // puncte distincte (point_id) ajunse la gps.php
+        int duplicates;        // retrimiteri recunoscute după point_id și ignorate de server
+        int deadLetter;
+        int abandoned;         // peste maxRetries
+        int expired;           // peste 24h în coadă
+        int droppedAtLogout;
+        int stillQueued;       // în coada offline la finalul simulării
+        long requests;
+        long bytes;
+        int peakRequestsPerMinute;
+        final List<Long> catchUpMs = new ArrayList<>();
+        int outagesNotCaughtUp;
+        long latencyP50Ms;
+        long latencyP95Ms;
+        long latencyMaxMs;
+        final List<String> deliveredStatuses = new ArrayList<>(); // "uit:status" în ordinea sosirii
+        final Map<String, List<long[]>> deliveredByCourse = new HashMap<>(); // UIT → {seq, status} în ordinea sosirii
+
+        Report(String name) {
+            this.name = name;
+        }
+
+        int lost() {
+            return produced - delivered;
+        }
+
+        double lossPercent() {
+            return produced == 0 ? 0 : 100.0 * lost() / produced;
+        }
+
+        double requestsPerMinute() {
+            return requests * (double) MINUTE / durationMs;
+        }
+
+        double bytesPerHour() {
+            return bytes * (double) HOUR / durationMs;
+        }
+
+        long maxCatchUpMs() {
+            long max = 0;
+            for (long value : catchUpMs) {
+                max = Math.max(max, value);
+            }
+            return outagesNotCaughtUp > 0 ? -1 : max;
+        }
+
+        @Override
+        public String toString() {
+            return String.format(Locale.US,
+                "ReplaySimulator %-22s livrate %5d/%5d (pierdute %d = %.2f%%: dead-letter %d, abandonate %d, expirate %d, "
+                    + "logout %d, în coadă %d; duplicate %d) | catch-up max %s | "
+                    + "cereri %.2f/min (vârf %d/min) | %.0f KB/h | latență p50 %ds p95 %ds max %ds",
+                name, delivered, produced, lost(), lossPercent(), deadLetter, abandoned, expired,
+                droppedAtLogout, stillQueued, duplicates,
+                maxCatchUpMs() < 0 ? "neatins" : String.format(Locale.US, "%.1fs", maxCatchUpMs() / (double) SECOND),
+                requestsPerMinute(), peakRequestsPerMinute, bytesPerHour() / 1024,
+                latencyP50Ms / SECOND, latencyP95Ms / SECOND, latencyMaxMs / SECOND);
+        }
+    }
+
+    // Element din coada offline - echivalentul OfflineGPSData din serviciu
+    private static final class Queued {
+        final String payload;
+        final long queuedAt;
+        final int retryCount;
+
+        Queued(String payload, long queuedAt, int retryCount) {
+            this.payload = payload;
+            this.queuedAt = queuedAt;
+            this.retryCount = retryCount;
+        }
+    }
+
+    private final Config config;
+    private final List<GpsFix> track;
+    private final Script script;
+    private final VirtualClock clock;
+    private final GpsPhpStandIn server;
+    private final DeviceTelemetry telemetry = new DeviceTelemetry();
+    private final Report report;
+    // Plafoanele numerotării supraviețuiesc logout-ului, ca SharedPreferences în serviciu
+    private final Map<String, Long> sequenceStore = new HashMap<>();
+    private final PointSequencer pointSequencer = new PointSequencer("replay0000000001", new PointSequencer.Store() {
+        @Override
+        public long load(String key) {
+            Long reserved = sequenceStore.get(key);
+            return reserved != null ? reserved : 0;
+        }
+
+        @Override
+        public void save(String key, long reservedUpTo) {
+            sequenceStore.put(key, reservedUpTo);
+        }
+
+        @Override
+        public void remove(String key) {
+            sequenceStore.remove(key);
+        }
+    });
+
+    // Starea serviciului - recreată la START după logout (onCreate)
+    private CourseRegistry courseRegistry;
+    private Map<String, TrajectorySimplifier> trajectories;
+    private LocationFilterPipeline locationFilter;
+    private AdaptiveSamplingPolicy samplingPolicy;
+    private GpsPayloadEncoder gpsPayloadEncoder;
+    private GpsBatchUploader batchUploader;
+    private RetryScheduler<Queued> offlineQueue;
+    private OfflineDrainEngine<Queued> offlineDrainEngine;
+    private boolean serviceLoggingOut;
+    private final Set<String> drainingCourses = new HashSet<>();
+    private StripedExecutor courseLanes;
+    private boolean serviceDestroyed;
+    private GpsFix lastFix;
+
+    // Fusion simulat
+    private boolean locationUpdatesActive;
+    private long lastSampledAt = Long.MIN_VALUE;
+    private final List<GpsFix> fusedPending = new ArrayList<>();
+
+    // Contabilitate
+    private final Map<String, Long> producedAt = new HashMap<>();
+    private final Map<String, Long> receivedAt = new LinkedHashMap<>();
+    private final Map<Long, Integer> requestsByMinute = new HashMap<>();
+    private long catchUpFrom = -1;
+
+    ReplaySimulator(Config config, List<GpsFix> track, Script script) {
+        if (track.isEmpty()) {
+            throw new IllegalArgumentException("traseu gol");
+        }
+        this.config = config;
+        this.track = track;
+        this.script = script;
+        this.clock = new VirtualClock(track.get(0).timeMillis);
+        this.server = new GpsPhpStandIn();
+        this.report = new Report(config.name);
+    }
+
+    Report run() {
+        long start = track.get(0).timeMillis;
+        long end = track.get(track.size() - 1).timeMillis + config.tailMs;
+        onCreate();
+        telemetry.onBatteryChanged(80, 100, false, start);
+        onNetworkAvailable();
+
+        // Intent-urile înaintea fix-urilor cu același timp - START-ul vine înaintea primului fix
+        for (final Step step : script.steps) {
+            clock.scheduleAt(start + step.atMs, new Runnable() {
+                @Override
+                public void run() {
+                    onStep(step);
+                }
+            });
+        }
+        for (final GpsFix fix : track) {
+            clock.scheduleAt(fix.timeMillis, new Runnable() {
+                @Override
+                public void run() {
+                    onTrackFix(fix);
+                }
+            });
+        }
+        clock.addAfterEventHook(new Runnable() {
+            @Override
+            public void run() {
+                observeCatchUp();
+            }
+        });
+        clock.runUntil(end);
+        return finish(end - start);
+    }
+
+    // ---- onCreate / onStartCommand ----
+
+    private void onCreate() {
+        serviceDestroyed = false;
+        courseRegistry = new CourseRegistry();
+        courseLanes = new StripedExecutor(clock);
+        trajectories = new HashMap<>();
+        locationFilter = LocationFilterPipeline.standard(false, config.staleFixMaxAgeMs);
+        samplingPolicy = new AdaptiveSamplingPolicy();
+        gpsPayloadEncoder = new GpsPayloadEncoder();
+        batchUploader = new GpsBatchUploader(server, config.batchMaxPoints, config.batchMaxAgeMs,
+            new Executor() {
+                @Override
+                public void execute(Runnable command) {
+                    if (!serviceLoggingOut) {
+                        // httpThreadPool, prin banda curselor din batch
+                        courseLanes.execute(((GpsBatchUploader.BatchTask) command).getKeys(), command);
+                    }
+                }
+            },
+            new GpsBatchUploader.Listener() {
+                @Override
+                public void onPointsDelivered(List<String> points, int responseCode) {
+                    // Serverul răspunde din nou - drenarea pornește fără să aștepte tick-ul de retry
+                    if (!offlineQueue.isEmpty()) {
+                        offlineDrainEngine.trigger();
+                    }
+                }
+
+                @Override
+                public void onPointsFailed(List<String> points, int responseCode, Exception error) {
+                    handleFailedPayloads(points, responseCode);
+                }
+            },
+            clock);
+        if (config.binaryUpload) {
+            batchUploader.allowBinaryNegotiation();
+        }
+        offlineQueue = new RetryScheduler<>(clock, new RetryScheduler.DueListener() {
+            @Override
+            public void onItemsDue() {
+                if (!serviceLoggingOut && !serviceDestroyed) {
+                    offlineDrainEngine.trigger();
+                }
+            }
+        }, clock);
+        offlineDrainEngine = new OfflineDrainEngine<>(
+            new OfflineDrainEngine.Backlog<Queued>() {
+                @Override
+                public List<Queued> takeReady(int max) {
+                    return takeReadyOfflineBatch(max);
+                }
+
+                @Override
+                public int size() {
+                    return offlineQueue.size();
+                }
+            },
+            new OfflineDrainEngine.BatchSender<Queued>() {
+                @Override
+                public OfflineDrainEngine.SendResult send(List<Queued> batch) {
+                    return sendOfflineBatch(batch);
+                }
+            },
+            new OfflineDrainEngine.LiveTrafficProbe() {
+                @Override
+                public boolean isLiveTrafficPending() {
+                    return batchUploader.getInFlightCount() > 0;
+                }
+            },
+            new OfflineDrainEngine.ProgressListener() {
+                @Override
+                public void onProgress(int delivered, int processed, int remaining) {
+                }
+
+                @Override
+                public void onDrainFinished(int delivered, int processed, int remaining) {
+                }
+            },
+            clock,
+            config.drainBatchSize,
+            config.drainMaxConcurrentBatches,
+            config.drainMaxBatchesPerSecond,
+            clock);
+        if (server.online) {
+            offlineQueue.setOnline(true);
+        }
+    }
+
+    private void onStep(Step step) {
+        switch (step.type) {
+            case Step.START:
+                onStartCourse(step.uit, step.vehicle, step.value);
+                break;
+            case Step.UPDATE:
+                onUpdateCourseStatus(step.uit, step.value);
+                break;
+            case Step.LOGOUT:
+                onLogout();
+                break;
+            case Step.OUTAGE:
+                onNetworkLost();
+                clock.scheduleAt(clock.now() + step.durationMs, new Runnable() {
+                    @Override
+                    public void run() {
+                        onNetworkAvailable();
+                    }
+                });
+                break;
+            case Step.SERVER_ERRORS:
+                server.forcedResponseCode = step.value;
+                clock.scheduleAt(clock.now() + step.durationMs, new Runnable() {
+                    @Override
+                    public void run() {
+                        server.forcedResponseCode = 0;
+                    }
+                });
+                break;
+            case Step.LOST_RESPONSES:
+                server.loseResponses = true;
+                clock.scheduleAt(clock.now() + step.durationMs, new Runnable() {
+                    @Override
+                    public void run() {
+                        server.loseResponses = false;
+                    }
+                });
+                break;
+            default:
+                throw new IllegalStateException("pas necunoscut " + step.type);
+        }
+    }
+
+    // START_BACKGROUND_GPS
+    private void onStartCourse(String uit, String vehicle, int status) {
+        if (serviceDestroyed) {
+            onCreate(); // Serviciul oprit la logout e recreat de startForegroundService
+        }
+        serviceLoggingOut = false;
+        String uniqueKey = vehicle + "_" + uit;
+        courseRegistry.put(uniqueKey, uit, uit, vehicle, status);
+        trajectories.remove(uniqueKey);
+        if (status == CourseRegistry.STATUS_ACTIVE) {
+            ensureLocationUpdatesRegistered();
+        }
+    }
+
+    // UPDATE_COURSE_STATUS
+    private void onUpdateCourseStatus(String uit, int newStatus) {
+        CourseRegistry.Course courseData = courseRegistry.find(uit);
+        if (courseData == null) {
+            return; // Serviciul doar loghează "UIT nu găsit"
+        }
+        String foundKey = courseData.key;
+        if (newStatus == CourseRegistry.STATUS_ACTIVE) {
+            courseRegistry.updateStatus(foundKey, newStatus);
+            sendStatusUpdateToServer(newStatus, foundKey);
+            ensureLocationUpdatesRegistered();
+        } else if (newStatus == CourseRegistry.STATUS_PAUSED) {
+            courseRegistry.updateStatus(foundKey, newStatus);
+            sendStatusUpdateToServer(newStatus, foundKey);
+            if (courseRegistry.getActiveCount() == 0) {
+                stopLocationUpdates();
+            }
+        } else if (newStatus == CourseRegistry.STATUS_STOPPED) {
+            sendStatusUpdateToServer(newStatus, foundKey);
+            courseRegistry.remove(foundKey);
+            pointSequencer.forget(uit);
+            if (courseRegistry.getActiveCount() == 0) {
+                stopLocationUpdates();
+            }
+        }
+    }
+
+    // STOP_BACKGROUND_GPS - tot ce nu a plecat încă se pierde, ca în stopBackgroundGPS()
+    private void onLogout() {
+        serviceLoggingOut = true;
+        stopLocationUpdates();
+        offlineDrainEngine.stop();
+        courseRegistry.clear();
+        trajectories.clear();
+        report.droppedAtLogout += batchUploader.clear().size() + offlineQueue.size();
+        offlineQueue.clear();
+        serviceDestroyed = true;
+    }
+
+    private void onNetworkAvailable() {
+        server.online = true;
+        telemetry.onTransportChanged(DeviceTelemetry.Transport.CELLULAR, clock.now());
+        telemetry.onGenerationChanged(DeviceTelemetry.Generation.G4, clock.now());
+        if (catchUpFrom < 0 && clock.getEventCount() > 0) {
+            catchUpFrom = clock.now();
+        }
+        offlineQueue.setOnline(true);
+    }
+
+    private void onNetworkLost() {
+        server.online = false;
+        telemetry.onTransportChanged(DeviceTelemetry.Transport.NONE, clock.now());
+        offlineQueue.setOnline(false);
+    }
+
+    // ---- Fusion: interval, livrare grupată (setMaxWaitTime) ----
+
+    private void ensureLocationUpdatesRegistered() {
+        if (courseRegistry.getActiveCount() == 0 || locationUpdatesActive) {
+            return;
+        }
+        locationUpdatesActive = true;
+        samplingPolicy.reset();
+        lastSampledAt = Long.MIN_VALUE;
+    }
+
+    private void stopLocationUpdates() {
+        locationUpdatesActive = false;
+        fusedPending.clear();
+    }
+
+    private AdaptiveSamplingPolicy.Tier currentTier() {
+        return config.fixedTier != null ? config.fixedTier : samplingPolicy.getTier();
+    }
+
+    private void onTrackFix(GpsFix fix) {
+        if (!locationUpdatesActive || serviceLoggingOut) {
+            return;
+        }
+        AdaptiveSamplingPolicy.Tier tier = currentTier();
+        if (lastSampledAt != Long.MIN_VALUE && fix.timeMillis - lastSampledAt < tier.intervalMs) {
+            return; // Fusion nu produce fix-uri mai des decât intervalul cerut
+        }
+        lastSampledAt = fix.timeMillis;
+        report.fixesSampled++;
+        fusedPending.add(fix);
+        if (fusedPending.size() > 1) {
+            return;
+        }
+        long maxWaitMs = config.batchedDelivery ? tier.maxWaitMs() : 0;
+        clock.scheduleAt(fix.timeMillis + maxWaitMs, new Runnable() {
+            @Override
+            public void run() {
+                deliverFusedBatch();
+            }
+        });
+    }
+
+    private void deliverFusedBatch() {
+        if (fusedPending.isEmpty()) {
+            return;
+        }
+        List<GpsFix> locations = new ArrayList<>(fusedPending);
+        fusedPending.clear();
+        processLocationResult(locations);
+    }
+
+    // ---- onLocationResult → transmitGPSDataToAllActiveCourses ----
+
+    private void processLocationResult(List<GpsFix> locations) {
+        if (serviceLoggingOut) {
+            return;
+        }
+        for (GpsFix location : locations) {
+            GpsFix fix = locationFilter.accept(location, clock.now());
+            if (fix == null) {
+                report.fixesRejected++;
+                continue;
+            }
+            lastFix = fix;
+            if (config.fixedTier == null) {
+                samplingPolicy.onFix(fix);
+            }
+            if (courseRegistry.getActiveCount() > 0) {
+                transmitGPSDataToAllActiveCourses(fix);
+            }
+        }
+    }
+
+    private void transmitGPSDataToAllActiveCourses(GpsFix fix) {
+        DeviceTelemetry.Snapshot snapshot = telemetry.snapshot();
+        for (CourseRegistry.Course courseData : courseRegistry.snapshot()) {
+            if (courseData.status != CourseRegistry.STATUS_ACTIVE) {
+                continue;
+            }
+            GpsFix keptFix = config.trajectory ? trajectoryFor(courseData.key).offer(fix) : fix;
+            if (keptFix != null) {
+                String gpsPayload = gpsPayloadEncoder.encode(courseData.realUit, courseData.vehicleNumber, keptFix,
+                    snapshot, courseData.status, keptFix.timeMillis, pointSequencer.next(courseData.realUit));
+                queueGPSForBatchUpload(gpsPayload, keptFix.timeMillis);
+            }
+        }
+    }
+
+    private TrajectorySimplifier trajectoryFor(String uniqueKey) {
+        TrajectorySimplifier simplifier = trajectories.get(uniqueKey);
+        if (simplifier == null) {
+            simplifier = new TrajectorySimplifier(config.trajectoryToleranceMeters, config.trajectoryMaxGapMs,
+                config.trajectoryMaxWindow);
+            trajectories.put(uniqueKey, simplifier);
+        }
+        return simplifier;
+    }
+
+    private void queueGPSForBatchUpload(String gpsPayload, long capturedAtMillis) {
+        if (serviceLoggingOut) {
+            return;
+        }
+        produced(gpsPayload, capturedAtMillis);
+        batchUploader.add(gpsPayload, field(gpsPayload, "uit"));
+        // Primul punct dintr-un batch nou - flush garantat la vârsta maximă chiar dacă fix-urile se opresc
+        if (batchUploader.getPendingCount() == 1) {
+            clock.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    if (!serviceLoggingOut) {
+                        batchUploader.flushIfExpired();
+                    }
+                }
+            }, config.batchMaxAgeMs, java.util.concurrent.TimeUnit.MILLISECONDS);
+        }
+    }
+
+    // ---- sendStatusUpdateToServer ----
+
+    private void sendStatusUpdateToServer(int newStatus, String uniqueKey) {
+        if (serviceLoggingOut) {
+            return;
+        }
+        CourseRegistry.Course courseData = courseRegistry.get(uniqueKey);
+        if (courseData == null) {
+            return;
+        }
+        GpsPayloadEncoder statusEncoder = new GpsPayloadEncoder();
+
+        // TRAJECTORY: Ultimul punct dinaintea tranziției intră în batch înaintea statusului
+        TrajectorySimplifier simplifier = trajectories.get(uniqueKey);
+        if (simplifier != null) {
+            if (newStatus == CourseRegistry.STATUS_ACTIVE) {
+                simplifier.reset();
+            } else {
+                GpsFix pendingFix = simplifier.flush();
+                if (pendingFix != null) {
+                    queueGPSForBatchUpload(statusEncoder.encode(courseData.realUit, courseData.vehicleNumber,
+                        pendingFix, telemetry.snapshot(), CourseRegistry.STATUS_ACTIVE, pendingFix.timeMillis,
+                        pointSequencer.next(courseData.realUit)), pendingFix.timeMillis);
+                }
+                if (newStatus == CourseRegistry.STATUS_STOPPED) {
+                    trajectories.remove(uniqueKey);
+                }
+            }
+        }
+        long timestampMillis = clock.now();
+        final String uit = courseData.realUit;
+        final String statusDataJson = statusEncoder.encode(courseData.realUit, courseData.vehicleNumber, lastFix,
+            telemetry.snapshot(), newStatus, timestampMillis, pointSequencer.next(courseData.realUit));
+        batchUploader.flush();
+
+        report.statusProduced++;
+        produced(statusDataJson, timestampMillis);
+        courseLanes.execute(uit, new Runnable() {
+            @Override
+            public void run() {
+                if (serviceLoggingOut) {
+                    return;
+                }
+                if (!sendCourseBacklog(uit)) {
+                    addToOfflineQueue(statusDataJson);
+                    return;
+                }
+                int responseCode = post(statusDataJson, "iTrack-StatusUpdate/1.0");
+                if (responseCode < 200 || responseCode >= 300) {
+                    handleFailedPayloads(Collections.singletonList(statusDataJson), responseCode);
+                }
+            }
+        });
+    }
+
+    // ---- Coada offline: handleFailedPayloads, takeReadyOfflineBatch, sendOfflineBatch ----
+
+    private void handleFailedPayloads(List<String> payloads, int responseCode) {
+        TransmissionOutcome outcome = TransmissionOutcome.classify(responseCode);
+        for (String payload : payloads) {
+            if (outcome == TransmissionOutcome.DEAD_LETTER) {
+                report.deadLetter++;
+            } else {
+                addToOfflineQueue(payload);
+            }
+        }
+    }
+
+    private void addToOfflineQueue(String payload) {
+        if (serviceLoggingOut) {
+            report.droppedAtLogout++;
+            return;
+        }
+        long now = clock.now();
+        offlineQueue.offer(new Queued(payload, now, 0), nextRetryAt(now, 0));
+    }
+
+    private long nextRetryAt(long fromMillis, int retryCount) {
+        return fromMillis + RetryScheduler.backoffDelayMs(retryCount, config.retryInitialDelayMs, config.retryMaxDelayMs);
+    }
+
+    // O PAUZĂ/STOP retrimisă își ia cu ea punctele mai vechi ale cursei; cursele din batch rămân rezervate
+    private List<Queued> takeReadyOfflineBatch(int maxItems) {
+        List<Queued> ready = new ArrayList<>();
+        if (serviceLoggingOut) {
+            return ready;
+        }
+        List<Queued> batch = offlineQueue.takeReady(maxItems, new RetryScheduler.Filter<Queued>() {
+            @Override
+            public boolean matches(Queued item) {
+                return !drainingCourses.contains(courseOf(item));
+            }
+        });
+        Map<String, Long> courseEnds = new LinkedHashMap<>();
+        for (Queued queued : batch) {
+            String uit = courseOf(queued);
+            Long seq = courseEnds.get(uit);
+            if (uit != null && isCourseEnd(queued) && (seq == null || seq < sequenceOf(queued.payload))) {
+                courseEnds.put(uit, sequenceOf(queued.payload));
+            }
+        }
+        for (Map.Entry<String, Long> courseEnd : courseEnds.entrySet()) {
+            final String uit = courseEnd.getKey();
+            final long statusSeq = courseEnd.getValue();
+            int budget = maxItems - batch.size();
+            List<Queued> older = offlineQueue.takeFirst(new RetryScheduler.Filter<Queued>() {
+                @Override
+                public boolean matches(Queued item) {
+                    return uit.equals(courseOf(item)) && sequenceOf(item.payload) < statusSeq;
+                }
+            }, BY_SEQUENCE, budget + 1);
+            if (older.size() > budget) {
+                offlineQueue.offer(older.remove(older.size() - 1), clock.now());
+                for (java.util.Iterator<Queued> iterator = batch.iterator(); iterator.hasNext(); ) {
+                    Queued queued = iterator.next();
+                    if (uit.equals(courseOf(queued)) && isCourseEnd(queued)) {
+                        iterator.remove();
+                        offlineQueue.offer(queued, clock.now());
+                    }
+                }
+            }
+            batch.addAll(older);
+        }
+        Collections.sort(batch, BY_SEQUENCE);
+        for (Queued queued : batch) {
+            if (isSendable(queued)) {
+                ready.add(queued);
+                if (courseOf(queued) != null) {
+                    drainingCourses.add(courseOf(queued));
+                }
+            }
+        }
+        return ready;
+    }
+
+    private boolean isSendable(Queued queued) {
+        if (clock.now() - queued.queuedAt > MAX_OFFLINE_AGE_MS) {
+            report.expired++;
+            return false;
+        }
+        return true;
+    }
+
+    // Înaintea statusului, pe banda cursei: backlog-ul offline în ordinea seq; false = statusul intră după el în coadă
+    private boolean sendCourseBacklog(final String uit) {
+        if (drainingCourses.contains(uit)) {
+            return false;
+        }
+        List<Queued> backlog = offlineQueue.takeFirst(new RetryScheduler.Filter<Queued>() {
+            @Override
+            public boolean matches(Queued item) {
+                return uit.equals(courseOf(item));
+            }
+        }, BY_SEQUENCE, Integer.MAX_VALUE);
+        if (backlog.isEmpty()) {
+            return true;
+        }
+        drainingCourses.add(uit);
+        try {
+            for (int from = 0; from < backlog.size(); from += config.drainBatchSize) {
+                int to = Math.min(backlog.size(), from + config.drainBatchSize);
+                List<Queued> chunk = new ArrayList<>(to - from);
+                for (Queued queued : backlog.subList(from, to)) {
+                    if (isSendable(queued)) {
+                        chunk.add(queued);
+                    }
+                }
+                if (chunk.isEmpty() || sendOfflineBatchNow(chunk).failed == 0) {
+                    continue;
+                }
+                long now = clock.now();
+                for (Queued remaining : backlog.subList(to, backlog.size())) {
+                    offlineQueue.offer(remaining, nextRetryAt(now, remaining.retryCount));
+                }
+                return false;
+            }
+            return true;
+        } finally {
+            drainingCourses.remove(uit);
+        }
+    }
+
+    private static String courseOf(Queued queued) {
+        return field(queued.payload, "uit");
+    }
+
+    private static boolean isCourseEnd(Queued queued) {
+        String status = field(queued.payload, "status");
+        return "3".equals(status) || "4".equals(status);
+    }
+
+    static long sequenceOf(String payload) {
+        String seq = field(payload, "seq");
+        return seq != null ? Long.parseLong(seq) : -1;
+    }
+
+    private static final Comparator<Queued> BY_SEQUENCE = new Comparator<Queued>() {
+        @Override
+        public int compare(Queued a, Queued b) {
+            return Long.compare(sequenceOf(a.payload), sequenceOf(b.payload));
+        }
+    };
+
+    private OfflineDrainEngine.SendResult sendOfflineBatch(List<Queued> batch) {
+        Set<String> uits = new HashSet<>();
+        for (Queued queued : batch) {
+            uits.add(courseOf(queued));
+        }
+        try {
+            return sendOfflineBatchNow(batch);
+        } finally {
+            drainingCourses.removeAll(uits);
+        }
+    }
+
+    private OfflineDrainEngine.SendResult sendOfflineBatchNow(List<Queued> batch) {
+        int delivered = 0;
+        int failed = 0;
+        List<String> payloads = new ArrayList<>(batch.size());
+        for (Queued queued : batch) {
+            payloads.add(queued.payload);
+        }
+
+        int binaryRejectedCode = 0;
+        int arrayRejectedCode = 0;
+        byte[] binaryBody = batchUploader.isBinaryMode() ? GpsBinaryCodec.encodeBatch(payloads) : null;
+        if (binaryBody != null) {
+            int responseCode = postBinary(binaryBody, "iTrack-OfflineRetry/1.0");
+            if (GpsBatchUploader.isArrayRejected(responseCode)) {
+                binaryRejectedCode = responseCode;
+            } else {
+                for (Queued queued : batch) {
+                    if (applyOfflineOutcome(queued, responseCode) == TransmissionOutcome.DELIVERED) {
+                        delivered++;
+                    } else {
+                        failed++;
+                    }
+                }
+                return new OfflineDrainEngine.SendResult(delivered, failed, responseCode > 0);
+            }
+        }
+
+        if (batch.size() > 1 && batchUploader.isArrayMode()) {
+            int responseCode = post(GpsBatchUploader.toJsonArray(payloads), "iTrack-OfflineRetry/1.0");
+            if (GpsBatchUploader.isArrayRejected(responseCode)) {
+                arrayRejectedCode = responseCode;
+            } else {
+                for (Queued queued : batch) {
+                    if (applyOfflineOutcome(queued, responseCode) == TransmissionOutcome.DELIVERED) {
+                        delivered++;
+                    } else {
+                        failed++;
+                    }
+                }
+                batchUploader.settleFallback(binaryRejectedCode, 0, delivered == batch.size());
+                return new OfflineDrainEngine.SendResult(delivered, failed, responseCode > 0);
+            }
+        }
+
+        for (int i = 0; i < batch.size(); i++) {
+            Queued queued = batch.get(i);
+            int responseCode = post(payloads.get(i), "iTrack-OfflineRetry/1.0");
+            if (applyOfflineOutcome(queued, responseCode) == TransmissionOutcome.DELIVERED) {
+                delivered++;
+            } else {
+                failed++;
+            }
+            if (responseCode < 0) {
+                long now = clock.now();
+                for (int j = i + 1; j < batch.size(); j++) {
+                    Queued remaining = batch.get(j);
+                    offlineQueue.offer(remaining, nextRetryAt(now, remaining.retryCount));
+                }
+                batchUploader.settleFallback(binaryRejectedCode, arrayRejectedCode, false);
+                return new OfflineDrainEngine.SendResult(delivered, failed, false);
+            }
+        }
+        batchUploader.settleFallback(binaryRejectedCode, arrayRejectedCode, delivered == batch.size());
+        return new OfflineDrainEngine.SendResult(delivered, failed, true);
+    }
+
+    private TransmissionOutcome applyOfflineOutcome(Queued queued, int responseCode) {
+        TransmissionOutcome outcome = TransmissionOutcome.classify(responseCode);
+        if (outcome == TransmissionOutcome.DEAD_LETTER) {
+            report.deadLetter++;
+        } else if (outcome == TransmissionOutcome.RETRY) {
+            if (queued.retryCount < config.maxRetries) {
+                int retryCount = queued.retryCount + 1;
+                offlineQueue.offer(new Queued(queued.payload, queued.queuedAt, retryCount),
+                    nextRetryAt(clock.now(), retryCount));
+            } else {
+                report.abandoned++;
+            }
+        } else if (outcome == TransmissionOutcome.AUTH) {
+            offlineQueue.offer(queued, nextRetryAt(clock.now(), queued.retryCount));
+        }
+        return outcome;
+    }
+
+    private int post(String body, String userAgent) {
+        try {
+            GpsTransport.Response response = server.post(body, userAgent);
+            batchUploader.onServerResponse(response);
+            return response.code;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    private int postBinary(byte[] body, String userAgent) {
+        try {
+            return server.postBinary(body, GpsBinaryCodec.CONTENT_TYPE, userAgent).code;
+        } catch (IOException e) {
+            return -1;
+        }
+    }
+
+    // ---- Raport ----
+
+    private void produced(String payload, long capturedAtMillis) {
+        if (!producedAt.containsKey(payload)) {
+            producedAt.put(payload, capturedAtMillis);
+            report.produced++;
+        }
+    }
+
+    // Catch-up: de la revenirea rețelei până când coada offline e goală și drenarea s-a oprit
+    private void observeCatchUp() {
+        if (catchUpFrom >= 0 && offlineQueue.isEmpty() && !offlineDrainEngine.isDraining()) {
+            report.catchUpMs.add(clock.now() - catchUpFrom);
+            catchUpFrom = -1;
+        }
+    }
+
+    private Report finish(long durationMs) {
+        report.durationMs = durationMs;
+        report.stillQueued = offlineQueue.size();
+        if (catchUpFrom >= 0) {
+            report.outagesNotCaughtUp++;
+        }
+        for (int count : requestsByMinute.values()) {
+            report.peakRequestsPerMinute = Math.max(report.peakRequestsPerMinute, count);
+        }
+        long[] latencies = new long[receivedAt.size()];
+        int n = 0;
+        for (Map.Entry<String, Long> entry : receivedAt.entrySet()) {
+            Long captured = producedAt.get(entry.getKey());
+            latencies[n++] = captured != null ? Math.max(0, entry.getValue() - captured) : 0;
+        }
+        Arrays.sort(latencies, 0, n);
+        if (n > 0) {
+            report.latencyP50Ms = latencies[(n - 1) / 2];
+            report.latencyP95Ms = latencies[(int) ((n - 1) * 0.95)];
+            report.latencyMaxMs = latencies[n - 1];
+        }
+        return report;
+    }
+
+    // Valoarea unui câmp dintr-un obiect JSON plat (schema gps.php), fără ghilimele
+    static String field(String json, String key) {
+        String marker = "\"" + key + "\":";
+        int at = json.indexOf(marker);
+        if (at < 0) {
+            return null;
+        }
+        int start = at + marker.length();
+        if (json.charAt(start) == '"') {
+            return json.substring(start + 1, json.indexOf('"', start + 1));
+        }
+        int end = start;
+        while (end < json.length() && json.charAt(end) != ',' && json.charAt(end) != '}') {
+            end++;
+        }
+        return json.substring(start, end);
+    }
+
+    // Obiectele unui JSON array de obiecte plate (body-ul batch-urilor)
+    static List<String> splitArray(String json) {
+        List<String> objects = new ArrayList<>();
+        int depth = 0;
+        int start = -1;
+        boolean inString = false;
+        for (int i = 0; i < json.length(); i++) {
+            char c = json.charAt(i);
+            if (inString) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == '"') {
+                    inString = false;
+                }
+            } else if (c == '"') {
+                inString = true;
+            } else if (c == '{') {
+                if (depth++ == 0) {
+                    start = i;
+                }
+            } else if (c == '}') {
+                if (--depth == 0) {
+                    objects.add(json.substring(start, i + 1));
+                }
+            }
+        }
+        return objects;
+    }
+
+    /**
+     * gps.php local - acceptă JSON (obiect/array) și formatul binar, numără cererile și bytes,
+     * reține fiecare punct distinct (după point_id) cu momentul primirii. Fără rețea, cererea eșuează imediat.
+     */
+    private final class GpsPhpStandIn implements GpsTransport {
+        boolean online;
+        int forcedResponseCode;
+        boolean loseResponses;
+        private final Set<String> receivedPointIds = new HashSet<>();
+
+        @Override
+        public Response post(String json, String userAgent) throws IOException {
+            List<String> points = json.startsWith("[") ? splitArray(json) : Collections.singletonList(json);
+            return receive(json.getBytes(StandardCharsets.UTF_8).length, points, json.startsWith("["), false);
+        }
+
+        @Override
+        public Response postBinary(byte[] body, String contentType, String userAgent) throws IOException {
+            return receive(body.length, GpsBinaryCodec.decodeBatch(body), true, true);
+        }
+
+        @Override
+        public void setAuthToken(String authToken) {
+        }
+
+        @Override
+        public void shutdown() {
+        }
+
+        private Response receive(int bodyBytes, List<String> points, boolean array, boolean binary) throws IOException {
+            if (!online) {
+                throw new IOException("Unable to resolve host (simulat)");
+            }
+            report.requests++;
+            report.bytes += bodyBytes;
+            long minute = (clock.now() - track.get(0).timeMillis) / MINUTE;
+            Integer count = requestsByMinute.get(minute);
+            requestsByMinute.put(minute, count == null ? 1 : count + 1);
+
+            int code = 200;
+            if (forcedResponseCode != 0) {
+                code = forcedResponseCode;
+            } else if (binary && config.serverRejectsBinary) {
+                code = 415;
+            } else if (array && config.serverRejectsArrays) {
+                code = 400;
+            } else {
+                for (String point : points) {
+                    // Deduplicare idempotentă: point_id (sau payload-ul întreg pentru punctele fără numerotare)
+                    String pointId = field(point, "point_id");
+                    if (!receivedPointIds.add(pointId != null ? pointId : point)) {
+                        report.duplicates++;
+                        continue;
+                    }
+                    receivedAt.put(point, clock.now());
+                    report.delivered++;
+                    String uit = field(point, "uit");
+                    String status = field(point, "status");
+                    if (!"2".equals(status)) {
+                        report.deliveredStatuses.add(uit + ":" + status);
+                    }
+                    List<long[]> course = report.deliveredByCourse.get(uit);
+                    if (course == null) {
+                        course = new ArrayList<>();
+                        report.deliveredByCourse.put(uit, course);
+                    }
+                    course.add(new long[] {sequenceOf(point), Long.parseLong(status)});
+                }
+            }
+            // Răspunsul vine după latența rețelei - între timp celelalte "thread-uri" avansează
+            if (config.serverLatencyMs > 0) {
+                clock.sleepNanos(config.serverLatencyMs * 1000000L);
+            }
+            if (loseResponses) {
+                throw new IOException("timeout (simulat) - cererea a ajuns, răspunsul nu");
+            }
+            // gps.php nou anunță formatul binar în fiecare răspuns; cel vechi nu știe de header
+            return new Response(code, code == 200 ? "OK" : "Error", "{\"status\":\"ok\"}",
+                config.serverRejectsBinary ? 0 : GpsBinaryCodec.VERSION);
+        }
+    }
+}
@@ -0,0 +1,226 @@
+package com.euscagency.itrack;
+
+import org.junit.Assume;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.OutputStreamWriter;
+import java.io.StringReader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.euscagency.itrack.ReplaySimulator.HOUR;
+import static com.euscagency.itrack.ReplaySimulator.MINUTE;
+import static org.junit.Assert.*;
+
+/**
+ * Scenarii de teren rulate pe ceasul virtual: backlog după tunel, curse de status în timpul unei căderi,
+ * fan-out pe mai multe curse. Aserțiunile verifică invarianții (fără pierderi, catch-up limitat, batch-uri
+ * comune); raportul complet al configurației apare în mesajul aserțiunii care cade.
+ * Un traseu real se poate reda cu ITRACK_REPLAY_TRACK=/cale/traseu.gpx (sau .csv).
+ */
+public class ReplaySimulatorTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void csvAndGpxTracksReplayTheSameFixes() throws Exception {
+        List<GpsFix> recorded = SyntheticTracks.cityOnly(3, 600);
+        File csv = write("traseu.csv", recorded, false);
+        File gpx = write("traseu.gpx", recorded, true);
+
+        List<GpsFix> fromCsv = TrackFile.read(csv);
+        List<GpsFix> fromGpx = TrackFile.read(gpx);
+
+        assertEquals(recorded.size(), fromCsv.size());
+        assertEquals(recorded.size(), fromGpx.size());
+        for (int i = 0; i < recorded.size(); i++) {
+            GpsFix original = recorded.get(i);
+            for (GpsFix parsed : new GpsFix[] {fromCsv.get(i), fromGpx.get(i)}) {
+                assertEquals(original.timeMillis, parsed.timeMillis);
+                assertEquals(original.latitude, parsed.latitude, 1e-7);
+                assertEquals(original.longitude, parsed.longitude, 1e-7);
+                assertEquals(original.speedMps, parsed.speedMps, 0.01);
+                assertEquals(original.accuracy, parsed.accuracy, 0.1);
+            }
+        }
+    }
+
+    @Test
+    public void csvColumnsInAnyOrderWithIsoAndEpochTimes() throws Exception {
+        List<GpsFix> fixes = TrackFile.readCsv(new StringReader(
+            "speed,accuracy,lng,lat,time\n"
+                + "12.5,6,26.1,44.4,2024-07-03T10:00:01.250+03:00\n"
+                + "# pauză în export\n"
+                + "0,8,26.2,44.5,1719990000000\n"));
+
+        assertEquals(2, fixes.size());
+        assertEquals(1719990000000L, fixes.get(0).timeMillis); // sortate după timp
+        assertEquals(1719990001250L, fixes.get(1).timeMillis);
+        assertEquals(12.5f, fixes.get(1).speedMps, 0f);
+        assertEquals(44.4, fixes.get(1).latitude, 0);
+    }
+
+    @Test
+    public void tunnelOutageBacklogIsCaughtUpWithoutLoss() {
+        // 2h pe autostradă și prin oraș; tunel + zonă fără semnal de 25 de minute la mijloc
+        List<GpsFix> track = new ArrayList<>(SyntheticTracks.highwayOnly(11, 3600));
+        track.addAll(shift(SyntheticTracks.cityOnly(12, 3600), track.get(track.size() - 1).timeMillis + 1000));
+        ReplaySimulator.Script script = new ReplaySimulator.Script()
+            .start(0, "UIT-TUNEL", "B123ABC")
+            .outage(50 * MINUTE, 25 * MINUTE)
+            .status(119 * MINUTE, "UIT-TUNEL", CourseRegistry.STATUS_STOPPED);
+
+        ReplaySimulator.Report service = run(ReplaySimulator.Config.service("serviciu"), track, script);
+        ReplaySimulator.Report binary = run(ReplaySimulator.Config.service("serviciu+binar").binary(true), track, script);
+        ReplaySimulator.Report legacy = run(ReplaySimulator.Config.service("fix 10s, gps.php vechi")
+            .fixedInterval(AdaptiveSamplingPolicy.Tier.NORMAL).trajectory(false).legacyServer(), track, script);
+
+        for (ReplaySimulator.Report report : new ReplaySimulator.Report[] {service, binary, legacy}) {
+            assertEquals(report.toString(), 0, report.lost());
+            assertEquals(report.toString(), 1, report.catchUpMs.size());
+            // Backlog-ul pleacă la primul retry după revenire (≤ 5 min backoff), nu după ore
+            assertTrue(report.toString(), report.maxCatchUpMs() <= 5 * MINUTE);
+            assertNoPointOvertakenByStatus(report, "UIT-TUNEL");
+        }
+        // Furtuna de după tunel rămâne în bugetul de drenare - batch-uri de 50, nu un POST per punct
+        assertTrue(service.toString(), service.peakRequestsPerMinute <= 10);
+        assertTrue(legacy.peakRequestsPerMinute > service.peakRequestsPerMinute);
+        assertTrue(binary.bytesPerHour() < service.bytesPerHour() / 3);
+        assertTrue(service.requestsPerMinute() < legacy.requestsPerMinute());
+    }
+
+    @Test
+    public void pauseAndStopDuringOutageReachTheServerInOrder() {
+        List<GpsFix> track = SyntheticTracks.cityOnly(21, 3600);
+        ReplaySimulator.Script script = new ReplaySimulator.Script()
+            .start(0, "UIT-A", "CJ01AAA")
+            .outage(20 * MINUTE, 15 * MINUTE)
+            .status(25 * MINUTE, "UIT-A", CourseRegistry.STATUS_PAUSED)
+            .status(28 * MINUTE, "UIT-A", CourseRegistry.STATUS_ACTIVE)
+            .status(30 * MINUTE, "UIT-A", CourseRegistry.STATUS_STOPPED)
+            .serverErrors(36 * MINUTE, 2 * MINUTE, 503);
+
+        ReplaySimulator.Report report = run(ReplaySimulator.Config.service("status în cădere"), track, script);
+
+        assertEquals(3, report.statusProduced);
+        // Backlog-ul din cădere ajunge întreg, deși cursa e în pauză / oprită când revine rețeaua
+        assertEquals(report.toString(), 0, report.lost());
+        assertEquals(Arrays.asList("UIT-A:3", "UIT-A:4"), report.deliveredStatuses);
+        // Punctele capturate înaintea PAUZEI / STOP-ului ajung înaintea lor
+        assertNoPointOvertakenByStatus(report, "UIT-A");
+        assertEquals(0, report.deadLetter);
+        assertEquals(0, report.stillQueued);
+    }
+
+    @Test
+    public void lostResponsesAreRetriedWithoutDoubleCounting() {
+        // gps.php salvează, dar timeout-ul ajunge la client - retry-ul retrimite aceleași point_id
+        List<GpsFix> track = SyntheticTracks.cityOnly(41, 3600);
+        ReplaySimulator.Script script = new ReplaySimulator.Script()
+            .start(0, "UIT-R", "IS01RRR")
+            .lostResponses(15 * MINUTE, 10 * MINUTE)
+            .status(50 * MINUTE, "UIT-R", CourseRegistry.STATUS_STOPPED);
+
+        ReplaySimulator.Report report = run(ReplaySimulator.Config.service("răspunsuri pierdute"), track, script);
+
+        assertTrue(report.toString(), report.duplicates > 0);
+        assertEquals(report.toString(), 0, report.lost());
+        assertEquals(report.toString(), report.produced, report.delivered);
+        assertEquals(Collections.singletonList("UIT-R:4"), report.deliveredStatuses);
+    }
+
+    @Test
+    public void multiCourseFanOutSharesTheSameBatches() {
+        List<GpsFix> track = SyntheticTracks.deliveryDay(31);
+        ReplaySimulator.Script single = new ReplaySimulator.Script().start(0, "UIT-0", "B01XYZ");
+        ReplaySimulator.Script fanOut = new ReplaySimulator.Script();
+        for (int i = 0; i < 5; i++) {
+            fanOut.start(i * 1000, "UIT-" + i, "B01XYZ");
+        }
+        fanOut.outage(3 * HOUR, 10 * MINUTE).logout(4 * HOUR);
+
+        ReplaySimulator.Report one = run(ReplaySimulator.Config.service("1 cursă"), track, single);
+        ReplaySimulator.Report five = run(ReplaySimulator.Config.service("5 curse"), track, fanOut);
+
+        assertEquals(one.toString(), 0, one.lost());
+        assertEquals(five.toString(), five.droppedAtLogout, five.lost());
+        assertTrue(five.produced > 4 * one.produced * 0.9);
+        // Fan-out-ul pune toate cursele în același POST - cererile cresc mult mai puțin decât punctele
+        assertTrue(five.toString(), five.requests < one.requests * 2);
+    }
+
+    @Test
+    public void replayRecordedTrackFromEnvironment() throws Exception {
+        String path = System.getenv("ITRACK_REPLAY_TRACK");
+        Assume.assumeTrue("ITRACK_REPLAY_TRACK nesetat", path != null && !path.isEmpty());
+        List<GpsFix> track = TrackFile.read(new File(path));
+        long durationMs = track.get(track.size() - 1).timeMillis - track.get(0).timeMillis;
+        ReplaySimulator.Script script = new ReplaySimulator.Script()
+            .start(0, "UIT-TEREN", "TEREN01")
+            .outage(durationMs / 2, 20 * MINUTE);
+
+        ReplaySimulator.Report service = run(ReplaySimulator.Config.service("teren/serviciu"), track, script);
+        ReplaySimulator.Report binary = run(ReplaySimulator.Config.service("teren/binar").binary(true), track, script);
+        ReplaySimulator.Report fixed = run(ReplaySimulator.Config.service("teren/fix 10s")
+            .fixedInterval(AdaptiveSamplingPolicy.Tier.NORMAL).trajectory(false), track, script);
+
+        for (ReplaySimulator.Report report : new ReplaySimulator.Report[] {service, binary, fixed}) {
+            assertEquals(report.toString(), 0, report.lost());
+            assertEquals(report.toString(), 1, report.catchUpMs.size());
+            assertTrue(report.toString(), report.maxCatchUpMs() <= 5 * MINUTE);
+        }
+    }
+
+    private static ReplaySimulator.Report run(ReplaySimulator.Config config, List<GpsFix> track,
+                                              ReplaySimulator.Script script) {
+        return new ReplaySimulator(config, track, script).run();
+    }
+
+    // După un status (PAUZĂ/STOP) nu mai sosește nimic cu seq mai mic al aceleiași curse
+    private static void assertNoPointOvertakenByStatus(ReplaySimulator.Report report, String uit) {
+        List<long[]> arrivals = report.deliveredByCourse.get(uit);
+        for (int i = 0; i < arrivals.size(); i++) {
+            if (arrivals.get(i)[1] == CourseRegistry.STATUS_ACTIVE) {
+                continue;
+            }
+            for (int j = i + 1; j < arrivals.size(); j++) {
+                assertTrue(report + ": seq " + arrivals.get(j)[0] + " după statusul cu seq " + arrivals.get(i)[0],
+                    arrivals.get(j)[0] > arrivals.get(i)[0]);
+            }
+        }
+    }
+
+    private static List<GpsFix> shift(List<GpsFix> fixes, long startMillis) {
+        long offset = startMillis - fixes.get(0).timeMillis;
+        List<GpsFix> shifted = new ArrayList<>(fixes.size());
+        for (GpsFix fix : fixes) {
+            shifted.add(new GpsFix(fix.latitude, fix.longitude, fix.speedMps, fix.bearing, fix.altitude,
+                fix.accuracy, fix.timeMillis + offset));
+        }
+        return shifted;
+    }
+
+    private File write(String name, List<GpsFix> fixes, boolean gpx) throws Exception {
+        File file = folder.newFile(name);
+        Writer out = new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8);
+        try {
+            if (gpx) {
+                TrackFile.writeGpx(fixes, out);
+            } else {
+                TrackFile.writeCsv(fixes, out);
+            }
+        } finally {
+            out.close();
+        }
+        return file;
+    }
+}
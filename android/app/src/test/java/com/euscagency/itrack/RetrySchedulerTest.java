@@ -0,0 +1,151 @@
+package com.euscagency.itrack;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.Assert.*;
+
+public class RetrySchedulerTest {
+
+    private final ScheduledExecutorService timer = Executors.newSingleThreadScheduledExecutor();
+    private final Semaphore due = new Semaphore(0);
+    private final AtomicLong now = new AtomicLong(1000000);
+
+    private final RetryScheduler.DueListener listener = new RetryScheduler.DueListener() {
+        @Override
+        public void onItemsDue() {
+            due.release();
+        }
+    };
+
+    private final RetryScheduler.Clock manualClock = new RetryScheduler.Clock() {
+        @Override
+        public long now() {
+            return now.get();
+        }
+    };
+
+    @After
+    public void tearDown() {
+        timer.shutdownNow();
+    }
+
+    @Test
+    public void takeReadyReturnsOnlyEligibleItemsInEligibilityOrder() {
+        RetryScheduler<String> scheduler = new RetryScheduler<>(timer, listener, manualClock);
+        scheduler.offer("late", now.get() + 60000);
+        scheduler.offer("first", now.get() - 10);
+        scheduler.offer("second", now.get());
+        scheduler.offer("third", now.get());
+
+        assertEquals(Arrays.asList("first", "second"), scheduler.takeReady(2));
+        assertEquals(Arrays.asList("third"), scheduler.takeReady(10));
+        assertTrue(scheduler.takeReady(10).isEmpty());
+        assertEquals(1, scheduler.size());
+        assertEquals(now.get() + 60000, scheduler.nextEligibleAt());
+
+        now.addAndGet(60000);
+        assertEquals(Arrays.asList("late"), scheduler.takeReady(10));
+        assertTrue(scheduler.isEmpty());
+    }
+
+    @Test
+    public void offlineSchedulesNoWakeAndReconnectMakesBacklogEligibleImmediately() throws Exception {
+        RetryScheduler<String> scheduler = new RetryScheduler<>(timer, listener, manualClock);
+        for (int i = 0; i < 100; i++) {
+            scheduler.offer("p" + i, now.get() + 300000);
+        }
+        assertFalse(scheduler.isOnline());
+        assertEquals(0, scheduler.getWakeCount());
+
+        scheduler.setOnline(true);
+        assertTrue("Drenarea trebuie pornită imediat la revenirea rețelei", due.tryAcquire(1, TimeUnit.SECONDS));
+        assertEquals(100, scheduler.takeReady(1000).size());
+    }
+
+    @Test
+    public void wakeFiresWhenTheEarliestItemBecomesEligible() throws Exception {
+        RetryScheduler<String> scheduler = new RetryScheduler<>(timer, listener);
+        scheduler.setOnline(true);
+        long start = System.currentTimeMillis();
+        scheduler.offer("later", start + 5000);
+        scheduler.offer("sooner", start + 200);
+
+        assertTrue(due.tryAcquire(2, TimeUnit.SECONDS));
+        assertTrue(System.currentTimeMillis() - start >= 190);
+        assertEquals(Arrays.asList("sooner"), scheduler.takeReady(10));
+        assertFalse("Următorul wake e la 5s, nu imediat", due.tryAcquire(300, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void goingOfflineCancelsThePendingWake() throws Exception {
+        RetryScheduler<String> scheduler = new RetryScheduler<>(timer, listener);
+        scheduler.setOnline(true);
+        scheduler.offer("p", System.currentTimeMillis() + 200);
+        scheduler.setOnline(false);
+
+        assertFalse(due.tryAcquire(500, TimeUnit.MILLISECONDS));
+        assertEquals(1, scheduler.size());
+    }
+
+    @Test
+    public void removeIfDropsMatchingItems() {
+        RetryScheduler<Integer> scheduler = new RetryScheduler<>(timer, listener, manualClock);
+        for (int i = 0; i < 10; i++) {
+            scheduler.offer(i, now.get());
+        }
+        int removed = scheduler.removeIf(new RetryScheduler.Filter<Integer>() {
+            @Override
+            public boolean matches(Integer item) {
+                return item % 2 == 0;
+            }
+        });
+        assertEquals(5, removed);
+        assertEquals(Arrays.asList(1, 3, 5, 7, 9), scheduler.takeReady(10));
+    }
+
+    @Test
+    public void filteredTakesLeaveOtherItemsQueued() {
+        RetryScheduler<String> scheduler = new RetryScheduler<>(timer, listener, manualClock);
+        scheduler.offer("A-3", now.get());
+        scheduler.offer("B-1", now.get());
+        scheduler.offer("A-1", now.get() + 60000); // backoff lung - nu e eligibil
+        scheduler.offer("A-2", now.get() + 30000);
+        RetryScheduler.Filter<String> courseA = new RetryScheduler.Filter<String>() {
+            @Override
+            public boolean matches(String item) {
+                return item.startsWith("A-");
+            }
+        };
+
+        assertEquals(Arrays.asList("A-3"), scheduler.takeReady(10, courseA));
+        // Backlog-ul cursei în ordinea cerută, fără să aștepte backoff-ul
+        Comparator<String> natural = new Comparator<String>() {
+            @Override
+            public int compare(String a, String b) {
+                return a.compareTo(b);
+            }
+        };
+        assertEquals(Arrays.asList("A-1"), scheduler.takeFirst(courseA, natural, 1));
+        assertEquals(Arrays.asList("A-2"), scheduler.takeFirst(courseA, natural, 10));
+        assertEquals(Arrays.asList("B-1"), scheduler.takeReady(10));
+        assertTrue(scheduler.isEmpty());
+    }
+
+    @Test
+    public void backoffDoublesUpToTheCap() {
+        assertEquals(30000, RetryScheduler.backoffDelayMs(0, 30000, 300000));
+        assertEquals(60000, RetryScheduler.backoffDelayMs(1, 30000, 300000));
+        assertEquals(240000, RetryScheduler.backoffDelayMs(3, 30000, 300000));
+        assertEquals(300000, RetryScheduler.backoffDelayMs(4, 30000, 300000));
+        assertEquals(300000, RetryScheduler.backoffDelayMs(62, 30000, 300000));
+    }
+}
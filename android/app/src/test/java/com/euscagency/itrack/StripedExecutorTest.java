@@ -0,0 +1,379 @@
+package com.euscagency.itrack;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Stres pe benzile per cursă: producători concurenți, latență aleatoare în fiecare "POST",
+ * task-uri cu mai multe curse (batch-ul comun) și drenare inline amestecate pe același pool.
+ * Ordinea per cursă trebuie să rămână exact ordinea predării, indiferent de latențe.
+ */
+public class StripedExecutorTest {
+
+    private static final int POOL_THREADS = 3; // ca httpThreadPool din serviciu
+    private static final int COURSES = 12;
+
+    private ExecutorService pool;
+
+    @Before
+    public void setUp() {
+        pool = Executors.newFixedThreadPool(POOL_THREADS);
+    }
+
+    @After
+    public void tearDown() {
+        pool.shutdownNow();
+    }
+
+    @Test
+    public void perCourseOrderSurvivesRandomLatency() throws Exception {
+        final StripedExecutor lanes = new StripedExecutor(pool);
+        final Map<String, List<Integer>> executed = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        final AtomicReference<String> violation = new AtomicReference<>();
+        final int producers = 4;
+        final int tasksPerProducer = 400;
+        final CountDownLatch done = new CountDownLatch(producers * tasksPerProducer);
+        for (int c = 0; c < COURSES; c++) {
+            running.put(uit(c), new AtomicInteger());
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(producer);
+                    for (int i = 0; i < tasksPerProducer; i++) {
+                        final String uit = uit(random.nextInt(COURSES));
+                        final int seq = producer * tasksPerProducer + i;
+                        final int latencyMicros = random.nextInt(600);
+                        lanes.execute(uit, new Runnable() {
+                            @Override
+                            public void run() {
+                                if (running.get(uit).incrementAndGet() != 1) {
+                                    violation.compareAndSet(null, "două task-uri simultan pe " + uit);
+                                }
+                                record(executed, uit, seq);
+                                sleepMicros(latencyMicros);
+                                running.get(uit).decrementAndGet();
+                                done.countDown();
+                            }
+                        });
+                    }
+                }
+            }));
+        }
+        startAll(threads);
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNull(violation.get());
+        // Fiecare producător predă în ordine - pe fiecare cursă secvențele lui trebuie să apară crescător
+        for (Map.Entry<String, List<Integer>> course : executed.entrySet()) {
+            int[] lastPerProducer = new int[producers];
+            Arrays.fill(lastPerProducer, -1);
+            for (int seq : course.getValue()) {
+                int producer = seq / tasksPerProducer;
+                assertTrue(course.getKey() + " reordonat", seq > lastPerProducer[producer]);
+                lastPerProducer[producer] = seq;
+            }
+        }
+        awaitLanesRetired(lanes);
+    }
+
+    @Test
+    public void batchesStatusesAndInlineRetriesKeepPerCourseOrder() throws Exception {
+        // Firul serviciului predă batch-uri GPS pe mai multe curse și statusuri; doi workeri de drenare
+        // trimit retry-uri sincron, fiecare la rândul lui în benzile curselor din batch
+        final StripedExecutor lanes = new StripedExecutor(pool);
+        final Map<String, List<Integer>> executed = new ConcurrentHashMap<>();
+        final Map<String, AtomicInteger> running = new ConcurrentHashMap<>();
+        final AtomicReference<String> violation = new AtomicReference<>();
+        final AtomicReference<Throwable> failure = new AtomicReference<>();
+        final int producers = 3; // 0 = serviciul, 1..2 = drenarea offline
+        final int operationsPerProducer = 500;
+        final CountDownLatch done = new CountDownLatch(producers * operationsPerProducer);
+        for (int c = 0; c < COURSES; c++) {
+            running.put(uit(c), new AtomicInteger());
+        }
+
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            final int producer = p;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Random random = new Random(100 + producer);
+                    for (int i = 0; i < operationsPerProducer; i++) {
+                        boolean batch = producer > 0 || random.nextInt(10) < 7;
+                        final List<String> uits = randomCourses(random, batch ? 1 + random.nextInt(4) : 1);
+                        final int seq = producer * operationsPerProducer + i;
+                        final int latencyMicros = random.nextInt(800);
+                        Runnable post = new Runnable() {
+                            @Override
+                            public void run() {
+                                for (String uit : uits) {
+                                    if (running.get(uit).incrementAndGet() != 1) {
+                                        violation.compareAndSet(null, "două POST-uri simultan pe " + uit);
+                                    }
+                                    record(executed, uit, seq);
+                                }
+                                sleepMicros(latencyMicros);
+                                for (String uit : uits) {
+                                    running.get(uit).decrementAndGet();
+                                }
+                                done.countDown();
+                            }
+                        };
+                        try {
+                            if (producer == 0) {
+                                lanes.execute(uits, post);
+                            } else {
+                                lanes.runInOrder(uits, post);
+                            }
+                        } catch (Throwable t) {
+                            failure.compareAndSet(null, t);
+                        }
+                    }
+                }
+            }));
+        }
+        startAll(threads);
+
+        assertTrue(done.await(30, TimeUnit.SECONDS));
+        assertNull(failure.get());
+        assertNull(violation.get());
+        // Un STOP predat după un batch nu îl poate depăși; un retry nu ajunge după ce cursa a trecut mai departe
+        for (Map.Entry<String, List<Integer>> course : executed.entrySet()) {
+            int[] lastPerProducer = new int[producers];
+            Arrays.fill(lastPerProducer, -1);
+            for (int seq : course.getValue()) {
+                int producer = seq / operationsPerProducer;
+                assertTrue(course.getKey() + " reordonat", seq > lastPerProducer[producer]);
+                lastPerProducer[producer] = seq;
+            }
+        }
+        awaitLanesRetired(lanes);
+    }
+
+    @Test
+    public void stopWaitsForRetryAlreadyInFlight() throws Exception {
+        final StripedExecutor lanes = new StripedExecutor(pool);
+        final List<String> ran = new CopyOnWriteArrayList<>();
+        final CountDownLatch retryStarted = new CountDownLatch(1);
+        final CountDownLatch releaseRetry = new CountDownLatch(1);
+        Thread drain = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    lanes.runInOrder(Arrays.asList("UIT-A", "UIT-B"), new Runnable() {
+                        @Override
+                        public void run() {
+                            retryStarted.countDown();
+                            try {
+                                releaseRetry.await();
+                            } catch (InterruptedException e) {
+                                Thread.currentThread().interrupt();
+                            }
+                            ran.add("retry");
+                        }
+                    });
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        });
+        drain.start();
+        assertTrue(retryStarted.await(5, TimeUnit.SECONDS));
+
+        final CountDownLatch stopped = new CountDownLatch(2);
+        lanes.execute("UIT-A", counted(ran, "stop-A", stopped));
+        lanes.execute("UIT-C", counted(ran, "stop-C", stopped));
+        Thread.sleep(50);
+        assertEquals(Collections.singletonList("stop-C"), ran); // cursa C nu așteaptă retry-ul lui A/B
+
+        releaseRetry.countDown();
+        assertTrue(stopped.await(5, TimeUnit.SECONDS));
+        drain.join(5000);
+        assertEquals(Arrays.asList("stop-C", "retry", "stop-A"), ran);
+        awaitLanesRetired(lanes);
+    }
+
+    @Test
+    public void differentCoursesUploadInParallel() throws Exception {
+        StripedExecutor lanes = new StripedExecutor(pool);
+        final CountDownLatch bothRunning = new CountDownLatch(POOL_THREADS);
+        final CountDownLatch finished = new CountDownLatch(POOL_THREADS);
+        for (int c = 0; c < POOL_THREADS; c++) {
+            lanes.execute(uit(c), new Runnable() {
+                @Override
+                public void run() {
+                    bothRunning.countDown();
+                    try {
+                        // Trece doar dacă toate cursele rulează în același timp
+                        if (bothRunning.await(5, TimeUnit.SECONDS)) {
+                            finished.countDown();
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+            });
+        }
+        assertTrue(finished.await(10, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledTaskReleasesItsLanes() {
+        final List<Runnable> handedOff = new ArrayList<>();
+        StripedExecutor lanes = new StripedExecutor(new java.util.concurrent.Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handedOff.add(command);
+            }
+        });
+        final List<String> ran = new ArrayList<>();
+        lanes.execute(Arrays.asList("UIT-A", "UIT-B"), named(ran, "batch"));
+        lanes.execute("UIT-A", named(ran, "stop-A"));
+        lanes.execute("UIT-B", named(ran, "stop-B"));
+        assertEquals(1, handedOff.size());
+        assertEquals(2, lanes.getLaneCount());
+
+        // Pool-ul a respins batch-ul - serviciul îl mută offline, cursele merg mai departe
+        StripedExecutor.LaneTask rejected = (StripedExecutor.LaneTask) handedOff.get(0);
+        rejected.cancel();
+        rejected.cancel(); // idempotent
+        assertEquals(3, handedOff.size());
+        handedOff.get(1).run();
+        handedOff.get(2).run();
+
+        assertEquals(Arrays.asList("stop-A", "stop-B"), ran);
+        assertEquals(0, lanes.getLaneCount());
+    }
+
+    @Test
+    public void interruptedInlineWaiterDoesNotBlockTheLane() throws Exception {
+        final List<Runnable> handedOff = new CopyOnWriteArrayList<>();
+        final StripedExecutor lanes = new StripedExecutor(new java.util.concurrent.Executor() {
+            @Override
+            public void execute(Runnable command) {
+                handedOff.add(command);
+            }
+        });
+        final List<String> ran = new CopyOnWriteArrayList<>();
+        lanes.execute("UIT-A", named(ran, "batch"));
+
+        final AtomicReference<Throwable> outcome = new AtomicReference<>();
+        Thread drain = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    lanes.runInOrder(Collections.singletonList("UIT-A"), named(ran, "retry"));
+                } catch (Throwable t) {
+                    outcome.set(t);
+                }
+            }
+        });
+        drain.start();
+        while (drain.isAlive() && drain.getState() != Thread.State.WAITING) {
+            Thread.sleep(1);
+        }
+        lanes.execute("UIT-A", named(ran, "stop"));
+        drain.interrupt(); // Serviciul oprește drenarea
+        drain.join(5000);
+
+        assertTrue(outcome.get() instanceof InterruptedException);
+        handedOff.get(0).run();
+        assertEquals(2, handedOff.size());
+        handedOff.get(1).run();
+        assertEquals(Arrays.asList("batch", "stop"), ran);
+        assertEquals(0, lanes.getLaneCount());
+    }
+
+    private static String uit(int course) {
+        return "UIT-" + course;
+    }
+
+    private static List<String> randomCourses(Random random, int count) {
+        List<String> uits = new ArrayList<>();
+        while (uits.size() < count) {
+            String uit = uit(random.nextInt(COURSES));
+            if (!uits.contains(uit)) {
+                uits.add(uit);
+            }
+        }
+        return uits;
+    }
+
+    private static void record(Map<String, List<Integer>> executed, String uit, int seq) {
+        List<Integer> order = executed.get(uit);
+        if (order == null) {
+            executed.putIfAbsent(uit, new CopyOnWriteArrayList<Integer>());
+            order = executed.get(uit);
+        }
+        order.add(seq);
+    }
+
+    private static Runnable named(final List<String> ran, final String name) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                ran.add(name);
+            }
+        };
+    }
+
+    private static Runnable counted(final List<String> ran, final String name, final CountDownLatch latch) {
+        return new Runnable() {
+            @Override
+            public void run() {
+                ran.add(name);
+                latch.countDown();
+            }
+        };
+    }
+
+    private static void sleepMicros(int micros) {
+        try {
+            TimeUnit.MICROSECONDS.sleep(micros);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void startAll(List<Thread> threads) throws InterruptedException {
+        for (Thread thread : threads) {
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+
+    private static void awaitLanesRetired(StripedExecutor lanes) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (lanes.getLaneCount() > 0 && System.nanoTime() < deadline) {
+            Thread.sleep(1);
+        }
+        assertEquals(0, lanes.getLaneCount());
+    }
+}
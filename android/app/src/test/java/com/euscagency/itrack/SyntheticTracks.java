@@ -0,0 +1,169 @@
+package com.euscagency.itrack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Trasee înregistrate sintetic la 1 Hz (seed fix - reproductibile) pentru testele de replay:
+ * depozit cu jitter GPS, oraș cu viraje și semafoare, autostradă cu curbe lente.
+ * Accelerometrul unui traseu se derivă din viteza lui: vibrații de drum în mers, aproape nimic oprit.
+ */
+final class SyntheticTracks {
+
+    static final long START_MILLIS = 1720000000000L;
+    private static final double METERS_PER_DEG_LAT = Math.toRadians(GeoMath.EARTH_RADIUS_METERS);
+
+    private final Random random;
+    private final List<GpsFix> fixes = new ArrayList<>();
+    private double lat;
+    private double lng;
+    private float bearing;
+    private long time = START_MILLIS;
+
+    private SyntheticTracks(long seed, double lat, double lng) {
+        this.random = new Random(seed);
+        this.lat = lat;
+        this.lng = lng;
+    }
+
+    // O zi tipică: 2h la depozit, 20 min oraș, 40 min autostradă, 10 min oraș, 1h descărcare
+    static List<GpsFix> deliveryDay(long seed) {
+        SyntheticTracks track = new SyntheticTracks(seed, 44.4268, 26.1025);
+        track.parked(2 * 3600);
+        track.city(20 * 60);
+        track.highway(40 * 60);
+        track.city(10 * 60);
+        track.parked(3600);
+        return track.fixes;
+    }
+
+    static List<GpsFix> depot(long seed, int seconds) {
+        SyntheticTracks track = new SyntheticTracks(seed, 44.4268, 26.1025);
+        track.parked(seconds);
+        return track.fixes;
+    }
+
+    static List<GpsFix> cityOnly(long seed, int seconds) {
+        SyntheticTracks track = new SyntheticTracks(seed, 46.7712, 23.6236);
+        track.city(seconds);
+        return track.fixes;
+    }
+
+    static List<GpsFix> highwayOnly(long seed, int seconds) {
+        SyntheticTracks track = new SyntheticTracks(seed, 44.8565, 24.8692);
+        track.highway(seconds);
+        return track.fixes;
+    }
+
+    static final class AccelSample {
+        final long timeMillis;
+        final float x;
+        final float y;
+        final float z;
+
+        AccelSample(long timeMillis, float x, float y, float z) {
+            this.timeMillis = timeMillis;
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+    }
+
+    // Probe de accelerometru la hz pe durata traseului (telefon în suport, z ≈ gravitația)
+    static List<AccelSample> accelerometer(List<GpsFix> track, long seed, int hz) {
+        Random random = new Random(seed);
+        List<AccelSample> samples = new ArrayList<>(track.size() * hz);
+        for (GpsFix fix : track) {
+            // Drum: vibrații de ordinul 1 m/s²; oprit: zgomotul senzorului
+            float sigma = fix.speedMps >= 2.0f ? 1.2f : 0.03f;
+            for (int i = 0; i < hz; i++) {
+                samples.add(new AccelSample(fix.timeMillis + i * 1000L / hz,
+                    (float) random.nextGaussian() * sigma,
+                    (float) random.nextGaussian() * sigma,
+                    9.81f + (float) random.nextGaussian() * sigma));
+            }
+        }
+        return samples;
+    }
+
+    private void parked(int seconds) {
+        double centerLat = lat;
+        double centerLng = lng;
+        for (int i = 0; i < seconds; i++) {
+            double jitterLat = random.nextGaussian() * 4 / METERS_PER_DEG_LAT;
+            double jitterLng = random.nextGaussian() * 4 / metersPerDegLng();
+            emit(centerLat + jitterLat, centerLng + jitterLng, (float) Math.abs(random.nextGaussian() * 0.3),
+                random.nextFloat() * 360f, 8 + random.nextFloat() * 6);
+        }
+        lat = centerLat;
+        lng = centerLng;
+    }
+
+    private void city(int seconds) {
+        float speed = 0;
+        int nextTurn = 40 + random.nextInt(60);
+        int turnLeft = 0;
+        float turnRate = 0;
+        int redLight = 0;
+        for (int i = 0; i < seconds; i++) {
+            if (redLight > 0) {
+                redLight--;
+                speed = Math.max(0, speed - 3);
+            } else {
+                float target = 11 + random.nextFloat() * 3;
+                speed += Math.signum(target - speed) * Math.min(1.5f, Math.abs(target - speed));
+                if (random.nextInt(240) == 0) {
+                    redLight = 20 + random.nextInt(30);
+                }
+            }
+            if (--nextTurn <= 0) {
+                turnLeft = 6;
+                turnRate = (random.nextBoolean() ? 90f : -90f) / turnLeft;
+                nextTurn = 40 + random.nextInt(80);
+                speed = Math.min(speed, 7);
+            }
+            if (turnLeft > 0) {
+                bearing = normalize(bearing + turnRate);
+                turnLeft--;
+            }
+            drive(speed, 1);
+        }
+    }
+
+    private void highway(int seconds) {
+        float speed = 20;
+        float curve = 0;
+        for (int i = 0; i < seconds; i++) {
+            speed += Math.signum(26 - speed) * Math.min(1f, Math.abs(26 - speed));
+            if (random.nextInt(120) == 0) {
+                curve = (random.nextFloat() - 0.5f) * 0.6f; // curbă largă, până la 0.3°/s
+            }
+            bearing = normalize(bearing + curve);
+            drive(speed + (float) random.nextGaussian() * 0.5f, 1);
+        }
+    }
+
+    private void drive(float speed, int dtSeconds) {
+        double distance = speed * dtSeconds;
+        lat += distance * Math.cos(Math.toRadians(bearing)) / METERS_PER_DEG_LAT;
+        lng += distance * Math.sin(Math.toRadians(bearing)) / metersPerDegLng();
+        double noiseLat = random.nextGaussian() * 2 / METERS_PER_DEG_LAT;
+        double noiseLng = random.nextGaussian() * 2 / metersPerDegLng();
+        emit(lat + noiseLat, lng + noiseLng, Math.max(0, speed), bearing, 4 + random.nextFloat() * 4);
+    }
+
+    private void emit(double fixLat, double fixLng, float speed, float fixBearing, float accuracy) {
+        fixes.add(new GpsFix(fixLat, fixLng, speed, fixBearing, 80, accuracy, time));
+        time += 1000;
+    }
+
+    private double metersPerDegLng() {
+        return METERS_PER_DEG_LAT * Math.cos(Math.toRadians(lat));
+    }
+
+    private static float normalize(float degrees) {
+        float value = degrees % 360f;
+        return value < 0 ? value + 360f : value;
+    }
+}
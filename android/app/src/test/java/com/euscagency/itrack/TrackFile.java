@@ -0,0 +1,234 @@
+package com.euscagency.itrack;
+
+import org.w3c.dom.Document;
+import org.w3c.dom.Element;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TimeZone;
+
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * Trasee înregistrate pentru simulatorul de replay - GPX sau CSV exportat de pe telefon.
+ * CSV: antet cu coloanele time, lat, lng, accuracy, speed (obligatorii) și bearing, altitude (opționale),
+ *   în orice ordine; time = epoch millis sau ISO-8601 UTC; speed în m/s.
+ * GPX: trkpt cu lat/lon, time, ele, speed și course (GPX 1.0 sau extensii); precizia din extensia
+ *   accuracy, altfel hdop × 5 m.
+ * Punctele se întorc sortate după timp - exporturile cu segmente amestecate nu strică replay-ul.
+ */
+final class TrackFile {
+
+    static final float DEFAULT_ACCURACY_METERS = 10f;
+    private static final float METERS_PER_HDOP = 5f;
+
+    private TrackFile() {
+    }
+
+    static List<GpsFix> read(File file) throws IOException {
+        InputStream in = new FileInputStream(file);
+        try {
+            if (file.getName().toLowerCase(Locale.US).endsWith(".gpx")) {
+                return readGpx(in);
+            }
+            return readCsv(new InputStreamReader(in, StandardCharsets.UTF_8));
+        } finally {
+            in.close();
+        }
+    }
+
+    static List<GpsFix> readCsv(Reader source) throws IOException {
+        BufferedReader reader = new BufferedReader(source);
+        String header = reader.readLine();
+        if (header == null) {
+            throw new IOException("CSV gol");
+        }
+        Map<String, Integer> columns = new HashMap<>();
+        String[] names = header.split(",");
+        for (int i = 0; i < names.length; i++) {
+            columns.put(names[i].trim().toLowerCase(Locale.US), i);
+        }
+        int time = column(columns, "time");
+        int lat = column(columns, "lat");
+        int lng = column(columns, "lng");
+        int accuracy = column(columns, "accuracy");
+        int speed = column(columns, "speed");
+        Integer bearing = columns.get("bearing");
+        Integer altitude = columns.get("altitude");
+
+        List<GpsFix> fixes = new ArrayList<>();
+        String line;
+        int lineNumber = 1;
+        while ((line = reader.readLine()) != null) {
+            lineNumber++;
+            if (line.trim().isEmpty() || line.startsWith("#")) {
+                continue;
+            }
+            String[] values = line.split(",", -1);
+            try {
+                fixes.add(new GpsFix(
+                    Double.parseDouble(values[lat].trim()),
+                    Double.parseDouble(values[lng].trim()),
+                    Float.parseFloat(values[speed].trim()),
+                    optionalFloat(values, bearing),
+                    optionalFloat(values, altitude),
+                    Float.parseFloat(values[accuracy].trim()),
+                    parseTime(values[time].trim())));
+            } catch (RuntimeException e) {
+                throw new IOException("CSV linia " + lineNumber + " invalidă: " + line, e);
+            }
+        }
+        sortByTime(fixes);
+        return fixes;
+    }
+
+    static List<GpsFix> readGpx(InputStream in) throws IOException {
+        Document document;
+        try {
+            DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+            factory.setNamespaceAware(true);
+            document = factory.newDocumentBuilder().parse(in);
+        } catch (Exception e) {
+            throw new IOException("GPX invalid: " + e.getMessage(), e);
+        }
+        List<GpsFix> fixes = new ArrayList<>();
+        NodeList points = document.getElementsByTagNameNS("*", "trkpt");
+        for (int i = 0; i < points.getLength(); i++) {
+            Element point = (Element) points.item(i);
+            String time = childText(point, "time");
+            if (time == null) {
+                continue; // Fără timp nu se poate reda
+            }
+            String accuracy = childText(point, "accuracy");
+            String hdop = childText(point, "hdop");
+            float fixAccuracy = accuracy != null ? Float.parseFloat(accuracy)
+                : hdop != null ? Float.parseFloat(hdop) * METERS_PER_HDOP : DEFAULT_ACCURACY_METERS;
+            String speed = childText(point, "speed");
+            String course = childText(point, "course");
+            String elevation = childText(point, "ele");
+            try {
+                fixes.add(new GpsFix(
+                    Double.parseDouble(point.getAttribute("lat")),
+                    Double.parseDouble(point.getAttribute("lon")),
+                    speed != null ? Float.parseFloat(speed) : 0f,
+                    course != null ? Float.parseFloat(course) : 0f,
+                    elevation != null ? Double.parseDouble(elevation) : 0,
+                    fixAccuracy,
+                    parseTime(time)));
+            } catch (RuntimeException e) {
+                throw new IOException("GPX trkpt " + i + " invalid", e);
+            }
+        }
+        sortByTime(fixes);
+        return fixes;
+    }
+
+    static void writeCsv(List<GpsFix> fixes, Writer out) throws IOException {
+        out.write("time,lat,lng,accuracy,speed,bearing,altitude\n");
+        for (GpsFix fix : fixes) {
+            out.write(String.format(Locale.US, "%s,%.7f,%.7f,%.1f,%.2f,%.1f,%.1f\n", formatTime(fix.timeMillis),
+                fix.latitude, fix.longitude, fix.accuracy, fix.speedMps, fix.bearing, fix.altitude));
+        }
+        out.flush();
+    }
+
+    static void writeGpx(List<GpsFix> fixes, Writer out) throws IOException {
+        out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+        out.write("<gpx version=\"1.0\" creator=\"iTrack\" xmlns=\"http://www.topografix.com/GPX/1/0\">\n<trk><trkseg>\n");
+        for (GpsFix fix : fixes) {
+            out.write(String.format(Locale.US,
+                "<trkpt lat=\"%.7f\" lon=\"%.7f\"><ele>%.1f</ele><time>%s</time><course>%.1f</course>"
+                    + "<speed>%.2f</speed><hdop>%.2f</hdop></trkpt>\n",
+                fix.latitude, fix.longitude, fix.altitude, formatTime(fix.timeMillis), fix.bearing,
+                fix.speedMps, fix.accuracy / METERS_PER_HDOP));
+        }
+        out.write("</trkseg></trk>\n</gpx>\n");
+        out.flush();
+    }
+
+    // Epoch millis sau ISO-8601 UTC, cu sau fără milisecunde
+    static long parseTime(String value) {
+        if (value.matches("\\d+")) {
+            return Long.parseLong(value);
+        }
+        // Fracțiunea de secundă se normalizează la milisecunde (exporturile au 0-9 zecimale)
+        long millis = 0;
+        String text = value;
+        int dot = value.indexOf('.');
+        if (dot > 0) {
+            int end = dot + 1;
+            while (end < value.length() && Character.isDigit(value.charAt(end))) {
+                end++;
+            }
+            String fraction = (value.substring(dot + 1, end) + "000").substring(0, 3);
+            millis = Long.parseLong(fraction);
+            text = value.substring(0, dot) + value.substring(end);
+        }
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        try {
+            return format.parse(text).getTime() + millis;
+        } catch (ParseException e) {
+            throw new IllegalArgumentException("timp invalid: " + value, e);
+        }
+    }
+
+    private static String formatTime(long millis) {
+        SimpleDateFormat format = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSS'Z'", Locale.US);
+        format.setTimeZone(TimeZone.getTimeZone("UTC"));
+        return format.format(new java.util.Date(millis));
+    }
+
+    private static int column(Map<String, Integer> columns, String name) throws IOException {
+        Integer index = columns.get(name);
+        if (index == null) {
+            throw new IOException("CSV fără coloana " + name);
+        }
+        return index;
+    }
+
+    private static float optionalFloat(String[] values, Integer index) {
+        if (index == null || index >= values.length || values[index].trim().isEmpty()) {
+            return 0f;
+        }
+        return Float.parseFloat(values[index].trim());
+    }
+
+    // Primul descendent cu acest nume local (direct sau în extensions)
+    private static String childText(Element parent, String localName) {
+        NodeList nodes = parent.getElementsByTagNameNS("*", localName);
+        for (int i = 0; i < nodes.getLength(); i++) {
+            Node node = nodes.item(i);
+            String text = node.getTextContent();
+            if (text != null && !text.trim().isEmpty()) {
+                return text.trim();
+            }
+        }
+        return null;
+    }
+
+    private static void sortByTime(List<GpsFix> fixes) {
+        java.util.Collections.sort(fixes, new java.util.Comparator<GpsFix>() {
+            @Override
+            public int compare(GpsFix a, GpsFix b) {
+                return a.timeMillis < b.timeMillis ? -1 : (a.timeMillis == b.timeMillis ? 0 : 1);
+            }
+        });
+    }
+}
@@ -0,0 +1,159 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TrajectorySimplifierTest {
+
+    private static final double TOLERANCE_METERS = 10;
+    private static final long MAX_GAP_MS = 60000;
+    private static final int MAX_WINDOW = 32;
+
+    @Test
+    public void deliveryDaySavesBandwidthWithinTolerance() {
+        List<GpsFix> delivered = everyTenSeconds(SyntheticTracks.deliveryDay(7));
+        Result result = simplify(delivered);
+
+        assertTrue(result.kept.size() < delivered.size() / 2);
+        // Payload-ul JSON scade cel puțin la jumătate (replay-ul dă ~74% economisit)
+        assertTrue(result.keptBytes + " / " + result.rawBytes + " bytes", result.keptBytes < result.rawBytes / 2);
+        assertTrue("dev " + result.maxDeviation, result.maxDeviation <= TOLERANCE_METERS);
+        assertEquals(delivered.get(0), result.kept.get(0));
+        assertEquals(delivered.get(delivered.size() - 1), result.kept.get(result.kept.size() - 1));
+    }
+
+    @Test
+    public void straightHighwayIsReducedToHeartbeatPoints() {
+        List<GpsFix> delivered = everyTenSeconds(SyntheticTracks.highwayOnly(11, 40 * 60));
+        Result result = simplify(delivered);
+
+        assertTrue(result.kept.size() < delivered.size() / 3);
+        assertTrue(result.maxDeviation <= TOLERANCE_METERS);
+        for (int i = 1; i < result.kept.size(); i++) {
+            // Heartbeat: serverul primește un punct cel puțin la pauza maximă + un interval
+            assertTrue(result.kept.get(i).timeMillis - result.kept.get(i - 1).timeMillis <= MAX_GAP_MS + 10000);
+        }
+    }
+
+    @Test
+    public void citySeedsStayWithinTolerance() {
+        for (long seed = 1; seed <= 5; seed++) {
+            List<GpsFix> delivered = everyTenSeconds(SyntheticTracks.cityOnly(seed, 30 * 60));
+            Result result = simplify(delivered);
+            assertTrue("seed " + seed + " dev " + result.maxDeviation, result.maxDeviation <= TOLERANCE_METERS);
+            assertTrue("seed " + seed, result.kept.size() < delivered.size());
+        }
+    }
+
+    @Test
+    public void headingChangeKeepsThePointBeforeTheTurn() {
+        TrajectorySimplifier simplifier = new TrajectorySimplifier(1000, 600000, MAX_WINDOW);
+        GpsFix first = fix(44.0, 26.0, 10, 0, 0);
+        GpsFix beforeTurn = fix(44.001, 26.0, 10, 0, 10000);
+        GpsFix afterTurn = fix(44.001, 26.001, 10, 90, 20000);
+
+        assertSame(first, simplifier.offer(first));
+        assertNull(simplifier.offer(beforeTurn));
+        assertSame(beforeTurn, simplifier.offer(afterTurn));
+    }
+
+    @Test
+    public void flushEmitsThePendingPointOnceForStatusTransition() {
+        TrajectorySimplifier simplifier = new TrajectorySimplifier(TOLERANCE_METERS, MAX_GAP_MS, MAX_WINDOW);
+        simplifier.offer(fix(44.0, 26.0, 10, 0, 0));
+        GpsFix pending = fix(44.0001, 26.0, 10, 0, 10000);
+        assertNull(simplifier.offer(pending));
+
+        assertSame(pending, simplifier.flush());
+        assertNull(simplifier.flush());
+    }
+
+    @Test
+    public void resetKeepsTheFirstFixAfterResume() {
+        TrajectorySimplifier simplifier = new TrajectorySimplifier(TOLERANCE_METERS, MAX_GAP_MS, MAX_WINDOW);
+        simplifier.offer(fix(44.0, 26.0, 10, 0, 0));
+        simplifier.offer(fix(44.0001, 26.0, 10, 0, 10000));
+        simplifier.reset();
+
+        GpsFix resumed = fix(44.0002, 26.0, 10, 0, 600000);
+        assertSame(resumed, simplifier.offer(resumed));
+        assertEquals(3, simplifier.getOfferedCount());
+        assertEquals(2, simplifier.getKeptCount());
+    }
+
+    @Test
+    public void windowIsBoundedWhenNothingElseForcesAPoint() {
+        TrajectorySimplifier simplifier = new TrajectorySimplifier(1000, Long.MAX_VALUE, 4);
+        int kept = 0;
+        for (int i = 0; i < 100; i++) {
+            if (simplifier.offer(fix(44.0, 26.0 + i * 0.00001, 1, 90, i * 1000L)) != null) {
+                kept++;
+            }
+        }
+        // Primul punct + unul la fiecare fereastră plină
+        assertEquals(1 + (99 - 1) / 4, kept);
+    }
+
+    private static GpsFix fix(double lat, double lng, float speed, float bearing, long time) {
+        return new GpsFix(lat, lng, speed, bearing, 0, 5, time);
+    }
+
+    // Fusion la intervalul implicit de 10s
+    private static List<GpsFix> everyTenSeconds(List<GpsFix> raw) {
+        List<GpsFix> delivered = new ArrayList<>();
+        for (int i = 0; i < raw.size(); i += 10) {
+            delivered.add(raw.get(i));
+        }
+        return delivered;
+    }
+
+    private static final class Result {
+        final List<GpsFix> kept = new ArrayList<>();
+        long rawBytes;
+        long keptBytes;
+        double maxDeviation;
+    }
+
+    private static Result simplify(List<GpsFix> delivered) {
+        TrajectorySimplifier simplifier = new TrajectorySimplifier(TOLERANCE_METERS, MAX_GAP_MS, MAX_WINDOW);
+        GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+        Result result = new Result();
+        for (GpsFix fix : delivered) {
+            result.rawBytes += payloadBytes(encoder, fix);
+            GpsFix kept = simplifier.offer(fix);
+            if (kept != null) {
+                result.kept.add(kept);
+                result.keptBytes += payloadBytes(encoder, kept);
+            }
+        }
+        GpsFix last = simplifier.flush();
+        if (last != null) {
+            result.kept.add(last);
+            result.keptBytes += payloadBytes(encoder, last);
+        }
+        assertEquals(result.kept.size(), simplifier.getKeptCount());
+
+        // Fiecare punct livrat față de segmentul trimis care îl încadrează
+        int segment = 0;
+        for (GpsFix fix : delivered) {
+            while (segment + 1 < result.kept.size() && result.kept.get(segment + 1).timeMillis <= fix.timeMillis) {
+                segment++;
+            }
+            if (segment + 1 >= result.kept.size()) {
+                break;
+            }
+            double deviation = GeoMath.distanceToSegmentMeters(fix, result.kept.get(segment), result.kept.get(segment + 1));
+            result.maxDeviation = Math.max(result.maxDeviation, deviation);
+        }
+        return result;
+    }
+
+    private static int payloadBytes(GpsPayloadEncoder encoder, GpsFix fix) {
+        encoder.encode("UIT12345", "B123ABC", fix, 4, "87%", 2, fix.timeMillis);
+        return encoder.getLength();
+    }
+}
@@ -0,0 +1,36 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class TransmissionOutcomeTest {
+
+    @Test
+    public void successCodesAreDelivered() {
+        assertEquals(TransmissionOutcome.DELIVERED, TransmissionOutcome.classify(200));
+        assertEquals(TransmissionOutcome.DELIVERED, TransmissionOutcome.classify(204));
+    }
+
+    @Test
+    public void transientFailuresAreRetried() {
+        assertEquals(TransmissionOutcome.RETRY, TransmissionOutcome.classify(-1));
+        assertEquals(TransmissionOutcome.RETRY, TransmissionOutcome.classify(429));
+        assertEquals(TransmissionOutcome.RETRY, TransmissionOutcome.classify(408));
+        assertEquals(TransmissionOutcome.RETRY, TransmissionOutcome.classify(500));
+        assertEquals(TransmissionOutcome.RETRY, TransmissionOutcome.classify(503));
+    }
+
+    @Test
+    public void authFailuresWaitForANewToken() {
+        assertEquals(TransmissionOutcome.AUTH, TransmissionOutcome.classify(401));
+        assertEquals(TransmissionOutcome.AUTH, TransmissionOutcome.classify(403));
+    }
+
+    @Test
+    public void clientErrorsAreDeadLettered() {
+        assertEquals(TransmissionOutcome.DEAD_LETTER, TransmissionOutcome.classify(400));
+        assertEquals(TransmissionOutcome.DEAD_LETTER, TransmissionOutcome.classify(404));
+        assertEquals(TransmissionOutcome.DEAD_LETTER, TransmissionOutcome.classify(422));
+    }
+}
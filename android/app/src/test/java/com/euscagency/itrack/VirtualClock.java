@@ -0,0 +1,207 @@
+package com.euscagency.itrack;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Ceas virtual cu evenimente discrete pentru simulatorul de replay - timer-ul (RetryScheduler),
+ * executorii (HTTP, drenare) și ceasurile claselor din pipeline citesc toți același timp.
+ * Timpul avansează doar prin runUntil(): evenimentele scadente rulează în ordine (timp, apoi FIFO).
+ * Un sleep virtual (bugetul de drenare, latența serverului) rulează re-entrant evenimentele scadente
+ * între timp - un worker care "doarme" lasă restul "thread-urilor" să progreseze, ca pe telefon.
+ */
+final class VirtualClock extends AbstractExecutorService implements ScheduledExecutorService,
+        RetryScheduler.Clock, GpsBatchUploader.Clock, OfflineDrainEngine.Clock {
+
+    private final PriorityQueue<Task> queue = new PriorityQueue<>();
+    private final List<Runnable> afterEventHooks = new ArrayList<>();
+    private long now;
+    private long nextSequence;
+    private long eventCount;
+    private boolean shutdown;
+
+    VirtualClock(long startMillis) {
+        this.now = startMillis;
+    }
+
+    @Override
+    public long now() {
+        return now;
+    }
+
+    @Override
+    public long nanoTime() {
+        return TimeUnit.MILLISECONDS.toNanos(now);
+    }
+
+    @Override
+    public void sleepNanos(long nanos) {
+        runUntil(now + (nanos + 999999) / 1000000);
+    }
+
+    long getEventCount() {
+        return eventCount;
+    }
+
+    // Rulat după fiecare eveniment - rapoartele observă starea (ex. coada offline s-a golit)
+    void addAfterEventHook(Runnable hook) {
+        afterEventHooks.add(hook);
+    }
+
+    // Rulează evenimentele scadente până la targetMillis inclusiv; timpul nu merge niciodată înapoi
+    void runUntil(long targetMillis) {
+        while (true) {
+            Task head = queue.peek();
+            if (head == null || head.at > targetMillis) {
+                break;
+            }
+            queue.poll();
+            if (head.cancelled) {
+                continue;
+            }
+            now = Math.max(now, head.at);
+            head.done = true;
+            eventCount++;
+            head.task.run();
+            for (Runnable hook : afterEventHooks) {
+                hook.run();
+            }
+        }
+        now = Math.max(now, targetMillis);
+    }
+
+    ScheduledFuture<?> scheduleAt(long atMillis, Runnable task) {
+        Task scheduled = new Task(Math.max(now, atMillis), nextSequence++, task);
+        queue.add(scheduled);
+        return scheduled;
+    }
+
+    // Predare către alt "thread" - rulează la timpul curent, după evenimentul în curs
+    @Override
+    public void execute(Runnable command) {
+        if (shutdown) {
+            throw new java.util.concurrent.RejectedExecutionException("VirtualClock oprit");
+        }
+        scheduleAt(now, command);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (shutdown) {
+            throw new java.util.concurrent.RejectedExecutionException("VirtualClock oprit");
+        }
+        return scheduleAt(now + unit.toMillis(Math.max(0, delay)), command);
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException("Pipeline-ul programează doar Runnable");
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        throw new UnsupportedOperationException("Pipeline-ul folosește doar wake-uri one-shot");
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+        throw new UnsupportedOperationException("Pipeline-ul folosește doar wake-uri one-shot");
+    }
+
+    @Override
+    public void shutdown() {
+        shutdown = true;
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        shutdown = true;
+        List<Runnable> pending = new ArrayList<>();
+        for (Task task : queue) {
+            if (!task.cancelled) {
+                pending.add(task.task);
+            }
+        }
+        queue.clear();
+        return pending;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return shutdown && queue.isEmpty();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) {
+        return isTerminated();
+    }
+
+    private final class Task implements ScheduledFuture<Object> {
+        final long at;
+        final long sequence;
+        final Runnable task;
+        boolean cancelled;
+        boolean done;
+
+        Task(long at, long sequence, Runnable task) {
+            this.at = at;
+            this.sequence = sequence;
+            this.task = task;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(at - now, TimeUnit.MILLISECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            Task that = (Task) other;
+            if (at != that.at) {
+                return at < that.at ? -1 : 1;
+            }
+            return sequence < that.sequence ? -1 : (sequence == that.sequence ? 0 : 1);
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            if (done || cancelled) {
+                return false;
+            }
+            cancelled = true;
+            return true;
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return cancelled;
+        }
+
+        @Override
+        public boolean isDone() {
+            return done || cancelled;
+        }
+
+        @Override
+        public Object get() {
+            return null;
+        }
+
+        @Override
+        public Object get(long timeout, TimeUnit unit) {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,164 @@
+package com.euscagency.itrack;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class WakeLockDutyCycleTest {
+
+    private static final long SAFETY_TIMEOUT_MS = 2 * 60 * 1000;
+    private static final long HOUR = WakeLockDutyCycle.HOUR_MS;
+
+    // Wakelock simulat - ține minte când expiră timeout-ul ca PowerManager
+    private static class FakeLock implements WakeLockDutyCycle.Lock {
+        final List<Long> acquires = new ArrayList<>();
+        int releases;
+        boolean held;
+        long expiresAt;
+        final FakeClock clock;
+
+        FakeLock(FakeClock clock) {
+            this.clock = clock;
+        }
+
+        @Override
+        public void acquire(long timeoutMs) {
+            acquires.add(clock.now);
+            held = true;
+            expiresAt = clock.now + timeoutMs;
+        }
+
+        @Override
+        public void release() {
+            releases++;
+            held = false;
+        }
+
+        boolean isHeld() {
+            return held && clock.now < expiresAt;
+        }
+    }
+
+    private static class FakeClock implements WakeLockDutyCycle.Clock {
+        long now;
+
+        @Override
+        public long now() {
+            return now;
+        }
+    }
+
+    private final FakeClock clock = new FakeClock();
+    private final FakeLock lock = new FakeLock(clock);
+    private final MetricsRegistry metrics = new MetricsRegistry(0);
+
+    @Test
+    public void overlappingWorkHoldsTheLockOnce() {
+        WakeLockDutyCycle cycle = new WakeLockDutyCycle(lock, clock, SAFETY_TIMEOUT_MS, metrics);
+        cycle.acquire();                      // callback GPS
+        Runnable upload = cycle.wrap(noop()); // POST predat workerului
+        clock.now += 200;
+        cycle.release();                      // callback terminat - upload-ul încă ține CPU-ul treaz
+        assertTrue(lock.isHeld());
+        assertEquals(1, cycle.getHolders());
+        clock.now += 800;
+        upload.run();
+
+        assertFalse(lock.held);
+        assertEquals(1, lock.acquires.size());
+        assertEquals(1, lock.releases);
+        assertEquals(1000, metrics.counterValue("wakelock.held_ms"));
+        assertEquals(1, metrics.counterValue("wakelock.acquisitions"));
+        assertEquals(1000, cycle.getHeldMsCurrentHour());
+    }
+
+    @Test
+    public void continuousWorkIsReArmedAcrossAMultiHourShift() {
+        WakeLockDutyCycle cycle = new WakeLockDutyCycle(lock, clock, SAFETY_TIMEOUT_MS, metrics);
+        cycle.setContinuous(true);
+        // 12 ore, un callback la 10s - wakelock-ul nu expiră niciodată între callback-uri
+        for (long t = 0; t < 12 * HOUR; t += 10000) {
+            clock.now = t;
+            assertTrue("wakelock expirat la " + t, lock.isHeld());
+            cycle.acquire();
+            cycle.release();
+        }
+        assertTrue(lock.acquires.size() > 12 * HOUR / SAFETY_TIMEOUT_MS);
+        assertEquals(HOUR, cycle.getHeldMsLastHour());
+
+        clock.now = 12 * HOUR;
+        cycle.setContinuous(false);
+        assertFalse(lock.held);
+        assertEquals(12 * HOUR, metrics.counterValue("wakelock.held_ms"));
+    }
+
+    @Test
+    public void holdSpanningAnHourBoundaryIsSplitBetweenHours() {
+        clock.now = 5 * HOUR - 60000;
+        WakeLockDutyCycle cycle = new WakeLockDutyCycle(lock, clock, SAFETY_TIMEOUT_MS, metrics);
+        cycle.acquire();
+        clock.now = 5 * HOUR + 30000;
+        cycle.release();
+
+        assertEquals(60000, cycle.getHeldMsLastHour());
+        assertEquals(30000, cycle.getHeldMsCurrentHour());
+
+        // Trei ore fără muncă - orele goale intră în histogramă cu 0
+        clock.now = 9 * HOUR + 1;
+        assertEquals(0, cycle.getHeldMsLastHour());
+        assertEquals(5, metrics.histogram("wakelock.held_ms_per_hour").snapshot().count);
+    }
+
+    @Test
+    public void forgottenHolderIsCappedAtTheSafetyTimeout() {
+        WakeLockDutyCycle cycle = new WakeLockDutyCycle(lock, clock, SAFETY_TIMEOUT_MS, metrics);
+        cycle.acquire();
+        clock.now = 30 * 60 * 1000; // PowerManager a eliberat deja wakelock-ul după 2 minute
+        assertFalse(lock.isHeld());
+        assertEquals(SAFETY_TIMEOUT_MS, cycle.getHeldMsCurrentHour());
+        cycle.release();
+        assertEquals(SAFETY_TIMEOUT_MS, metrics.counterValue("wakelock.held_ms"));
+    }
+
+    @Test
+    public void cancelledAndStaleTasksDoNotReleaseNewWork() {
+        WakeLockDutyCycle cycle = new WakeLockDutyCycle(lock, clock, SAFETY_TIMEOUT_MS, metrics);
+        WakeLockDutyCycle.Wakeful rejected = cycle.wrap(noop());
+        rejected.cancel();
+        rejected.cancel();
+        assertEquals(0, cycle.getHolders());
+
+        WakeLockDutyCycle.Wakeful queued = cycle.wrap(noop());
+        cycle.releaseAll(); // logout - task-ul din coadă nu mai rulează înainte de repornire
+        assertFalse(lock.held);
+
+        cycle.acquire(); // tracking repornit
+        queued.run();    // task-ul vechi termină după repornire
+        assertEquals(1, cycle.getHolders());
+        assertTrue(lock.held);
+    }
+
+    @Test
+    public void gaugesExposeHoldTimePerHour() {
+        WakeLockDutyCycle cycle = new WakeLockDutyCycle(lock, clock, SAFETY_TIMEOUT_MS, metrics);
+        cycle.acquire();
+        clock.now = 1500;
+        assertEquals(1, metrics.gaugeValue("wakelock.holders", -1));
+        assertEquals(1500, metrics.gaugeValue("wakelock.held_ms_current_hour", -1));
+        cycle.release();
+        clock.now = HOUR + 10;
+        assertEquals(1500, metrics.gaugeValue("wakelock.held_ms_last_hour", -1));
+        assertEquals(0, metrics.gaugeValue("wakelock.held_ms_current_hour", -1));
+    }
+
+    private static Runnable noop() {
+        return new Runnable() {
+            @Override
+            public void run() {
+            }
+        };
+    }
+}
@@ -0,0 +1,79 @@
+package com.euscagency.itrack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Căutarea cursei din UPDATE_COURSE_STATUS (după ikRoTrans, UIT sau cheie) și tranziția de status
+ * Baseline: scanarea veche a tuturor cheilor hărții de curse, comparând identificatorul cu fiecare intrare.
+ */
+@State(Scope.Thread)
+public class CourseLookupBenchmark {
+
+    @Param({"1", "10", "50"})
+    public int courses;
+
+    private final CourseRegistry registry = new CourseRegistry();
+    private final Map<String, CourseRegistry.Course> legacyCourses = new ConcurrentHashMap<>();
+    private String[] ikRoTrans;
+    private String[] keys;
+    private int next;
+    private boolean paused;
+
+    @Setup
+    public void setUp() {
+        ikRoTrans = new String[courses];
+        keys = new String[courses];
+        for (int i = 0; i < courses; i++) {
+            ikRoTrans[i] = "IK" + (100000 + i);
+            keys[i] = "B-10" + i + "-ITR_" + ikRoTrans[i] + "_device_token" + i;
+            CourseRegistry.Course course = registry.put(keys[i], ikRoTrans[i], "RO2024UIT" + i, "B-10" + i + "-ITR",
+                CourseRegistry.STATUS_ACTIVE);
+            legacyCourses.put(keys[i], course);
+        }
+    }
+
+    private int nextIndex() {
+        int index = next;
+        next = index + 1 == courses ? 0 : index + 1;
+        return index;
+    }
+
+    @Benchmark
+    public CourseRegistry.Course findByIkRoTrans() {
+        return registry.find(ikRoTrans[nextIndex()]);
+    }
+
+    @Benchmark
+    public CourseRegistry.Course findByIkRoTransLegacyScan() {
+        String identifier = ikRoTrans[nextIndex()];
+        CourseRegistry.Course found = legacyCourses.get(identifier);
+        if (found == null) {
+            for (Map.Entry<String, CourseRegistry.Course> entry : legacyCourses.entrySet()) {
+                if (entry.getKey().contains(identifier) || identifier.equals(entry.getValue().ikRoTrans)) {
+                    found = entry.getValue();
+                    break;
+                }
+            }
+        }
+        return found;
+    }
+
+    // PAUSE ↔ ACTIVE pe rând - tranziția condiționată cu CAS și actualizarea contorului de curse active
+    @Benchmark
+    public CourseRegistry.Course updateStatus() {
+        int index = nextIndex();
+        if (index == 0) {
+            paused = !paused;
+        }
+        return paused
+            ? registry.transition(keys[index], CourseRegistry.STATUS_ACTIVE, CourseRegistry.STATUS_PAUSED)
+            : registry.transition(keys[index], CourseRegistry.STATUS_PAUSED, CourseRegistry.STATUS_ACTIVE);
+    }
+}
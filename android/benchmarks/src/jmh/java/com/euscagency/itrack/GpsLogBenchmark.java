@@ -0,0 +1,114 @@
+package com.euscagency.itrack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+/**
+ * Costul logging-ului per fix GPS - înainte (5 linii concatenate trimise mereu la log) și după
+ * (GpsLog: DEBUG dezactivat în release, INFO doar în flight recorder; în debug totul ajunge la logcat).
+ * Destinația "logcat" de aici doar numără caracterele - pe device, scrierea reală adaugă JNI + kernel,
+ * deci diferența măsurată e o limită inferioară.
+ */
+@State(Scope.Thread)
+public class GpsLogBenchmark {
+
+    private static final int FIXES = 64;
+    private static final String TAG = "GPS_Fundal";
+
+    private final GpsFix[] fixes = new GpsFix[FIXES];
+    private final CountingOutput legacyOutput = new CountingOutput();
+    private int next;
+
+    // Destinația logcat simulată - numărul de caractere scrise ține rezultatul viu pentru JIT
+    static final class CountingOutput implements GpsLog.Output {
+        long written;
+
+        @Override
+        public void write(int level, String tag, String message, Throwable error) {
+            written += message.length();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class ReleaseLog {
+        final CountingOutput output = new CountingOutput();
+
+        @Setup
+        public void setUp() {
+            GpsLog.configure(GpsLog.WARN, output);
+        }
+
+        @TearDown
+        public void tearDown() {
+            GpsLog.configure(GpsLog.WARN, null);
+            GpsLog.recorder().clear();
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class DebugLog {
+        final CountingOutput output = new CountingOutput();
+
+        @Setup
+        public void setUp() {
+            GpsLog.configure(GpsLog.DEBUG, output);
+        }
+
+        @TearDown
+        public void tearDown() {
+            GpsLog.configure(GpsLog.WARN, null);
+            GpsLog.recorder().clear();
+        }
+    }
+
+    @Setup
+    public void setUp() {
+        long start = 1720000800000L;
+        for (int i = 0; i < FIXES; i++) {
+            fixes[i] = new GpsFix(44.4268 + i * 0.00013, 26.1025 + i * 0.00021, 13.9f + i % 7, (i * 17) % 360,
+                82 + i % 5, 4 + i % 9, start + i * 10000L);
+        }
+    }
+
+    private GpsFix nextFix() {
+        GpsFix fix = fixes[next];
+        next = (next + 1) & (FIXES - 1);
+        return fix;
+    }
+
+    // Înainte: liniile din processLocationResult/transmit, construite și scrise la fiecare fix
+    @Benchmark
+    public long legacyConcatenatedLines() {
+        GpsFix fix = nextFix();
+        int activeCourses = 1 + next % 3;
+        long age = 120;
+        legacyOutput.write(6, TAG, "🎯 GPS DEBUG: lat=" + fix.latitude + ", lng=" + fix.longitude, null);
+        legacyOutput.write(6, TAG, "📍 GPS CALITATE: precizie=" + (int) fix.accuracy + "m, provider=fused, age=" + age + "ms", null);
+        legacyOutput.write(6, TAG, "🚗 GPS SENZORI: viteza=" + true + ", directie=" + true, null);
+        legacyOutput.write(6, TAG, "📡 FUSION GPS transmite pentru " + activeCourses + " curse ACTIVE", null);
+        legacyOutput.write(6, TAG, "✅ TRANSMIT: UIT " + "UIT-" + activeCourses + " status 2 ACTIVE - TRIMIT LA SERVER", null);
+        return legacyOutput.written;
+    }
+
+    @Benchmark
+    public long gpsLogRelease(ReleaseLog log) {
+        logFix(nextFix(), 1 + next % 3);
+        return log.output.written;
+    }
+
+    @Benchmark
+    public long gpsLogDebug(DebugLog log) {
+        logFix(nextFix(), 1 + next % 3);
+        return log.output.written;
+    }
+
+    private static void logFix(GpsFix fix, int activeCourses) {
+        GpsLog.d(TAG, "🎯 GPS fix: lat={}, lng={}", fix.latitude, fix.longitude);
+        GpsLog.d(TAG, "📍 GPS calitate: precizie={}m, age={}ms", (long) fix.accuracy, 120L);
+        GpsLog.i(TAG, "📡 Fix acceptat - transmit pentru {} curse ACTIVE", activeCourses);
+        GpsLog.d(TAG, "✅ TRANSMIT: UIT {} status 2 ACTIVE", "UIT-1");
+    }
+}
@@ -0,0 +1,89 @@
+package com.euscagency.itrack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+
+/**
+ * Coada offline din addToOfflineQueue / drenarea backlog-ului: un punct intră în jurnalul de pe disc și în
+ * RetryScheduler, apoi iese în batch-uri de DRAIN_BATCH (takeReady) și se confirmă în jurnal.
+ * Rezultatul e per punct (@OperationsPerInvocation).
+ */
+@State(Scope.Thread)
+public class OfflineQueueBenchmark {
+
+    private static final int POINTS = 500;
+    private static final int DRAIN_BATCH = 50; // DRAIN_BATCH_SIZE din serviciu
+    private static final long MAX_JOURNAL_BYTES = 8 * 1024 * 1024;
+
+    private ScheduledExecutorService timer;
+    private RetryScheduler<Long> queue;
+    private GpsJournal journal;
+    private File journalFile;
+    private String payload;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        timer = Executors.newSingleThreadScheduledExecutor();
+        // Offline - nimic programat pe timer, doar structura cozii
+        queue = new RetryScheduler<>(timer, new RetryScheduler.DueListener() {
+            @Override
+            public void onItemsDue() {
+            }
+        });
+        journalFile = File.createTempFile("itrack-offline", ".journal");
+        journal = GpsJournal.open(journalFile, MAX_JOURNAL_BYTES);
+        GpsFix fix = new GpsFix(44.4268, 26.1025, 13.9f, 90, 82, 4, 1720000800000L);
+        payload = new GpsPayloadEncoder().encode("RO2024UIT001", "B-101-ITR", fix, 3, "87%", 2, fix.timeMillis);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        journal.close();
+        journalFile.delete();
+        timer.shutdownNow();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int enqueueAndDrainInMemory() {
+        long now = System.currentTimeMillis();
+        for (long i = 0; i < POINTS; i++) {
+            queue.offer(i, now);
+        }
+        int drained = 0;
+        List<Long> ready;
+        while (!(ready = queue.takeReady(DRAIN_BATCH)).isEmpty()) {
+            drained += ready.size();
+        }
+        return drained;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POINTS)
+    public int enqueueAndDrainJournaled() throws IOException {
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < POINTS; i++) {
+            queue.offer(journal.append(payload, now), now);
+        }
+        int drained = 0;
+        List<Long> ready;
+        while (!(ready = queue.takeReady(DRAIN_BATCH)).isEmpty()) {
+            for (Long id : ready) {
+                journal.ack(id);
+            }
+            drained += ready.size();
+        }
+        return drained;
+    }
+}
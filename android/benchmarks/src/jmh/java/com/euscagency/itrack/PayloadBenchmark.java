@@ -0,0 +1,138 @@
+package com.euscagency.itrack;
+
+import org.json.JSONObject;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.List;
+import java.util.Locale;
+import java.util.TimeZone;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Payload-ul per punct din transmitGPSDataToAllActiveCourses și serializarea batch-ului trimis la gps.php
+ * Baseline: implementarea veche (JSONObject + SimpleDateFormat per punct) - diferența trebuie să rămână vizibilă.
+ * Batch-ul: JSON array, JSON array gzip și GpsBinaryCodec (mărimile pe fir sunt verificate în GpsBinaryCodecTest).
+ * Binarul re-parsează punctele JSON și comprimă - prețul în CPU al celor ~10x mai puțini bytes pe fir;
+ * decodarea e referința pentru gps.php.
+ */
+@State(Scope.Thread)
+public class PayloadBenchmark {
+
+    private static final int FIXES = 64; // Fix-uri diferite - JIT-ul nu poate propaga constante
+    private static final int BATCH_SIZE = 15;
+
+    private final GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+    private final GpsFix[] fixes = new GpsFix[FIXES];
+    private DeviceTelemetry.Snapshot telemetry;
+    private SimpleDateFormat legacyFormat;
+    private List<String> batch;
+    private byte[] binaryBatch;
+    private int next;
+
+    @Setup
+    public void setUp() {
+        long start = 1720000800000L;
+        for (int i = 0; i < FIXES; i++) {
+            fixes[i] = new GpsFix(44.4268 + i * 0.00013, 26.1025 + i * 0.00021, 13.9f + i % 7, (i * 17) % 360,
+                82 + i % 5, 4 + i % 9, start + i * 10000L);
+        }
+        DeviceTelemetry deviceTelemetry = new DeviceTelemetry();
+        deviceTelemetry.onBatteryChanged(87, 100, false, start);
+        deviceTelemetry.onSignalChanged(3, -97, start);
+        deviceTelemetry.onTransportChanged(DeviceTelemetry.Transport.CELLULAR, start);
+        deviceTelemetry.onGenerationChanged(DeviceTelemetry.Generation.G4, start);
+        telemetry = deviceTelemetry.snapshot();
+
+        legacyFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        legacyFormat.setTimeZone(TimeZone.getTimeZone("Europe/Bucharest"));
+
+        batch = new ArrayList<>(BATCH_SIZE);
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            GpsFix fix = fixes[i];
+            batch.add(encoder.encode("RO2024UIT00" + (i % 3), "B-10" + (i % 3) + "-ITR", fix, telemetry, 2, fix.timeMillis));
+        }
+        binaryBatch = GpsBinaryCodec.encodeBatch(batch);
+    }
+
+    private GpsFix nextFix() {
+        GpsFix fix = fixes[next];
+        next = (next + 1) & (FIXES - 1);
+        return fix;
+    }
+
+    @Benchmark
+    public String encodePoint() {
+        GpsFix fix = nextFix();
+        return encoder.encode("RO2024UIT001", "B-101-ITR", fix, telemetry, 2, fix.timeMillis);
+    }
+
+    @Benchmark
+    public String encodePointLegacyJsonObject() throws Exception {
+        GpsFix fix = nextFix();
+        JSONObject gpsData = new JSONObject();
+        gpsData.put("uit", "RO2024UIT001");
+        gpsData.put("numar_inmatriculare", "B-101-ITR");
+        gpsData.put("lat", fix.latitude);
+        gpsData.put("lng", fix.longitude);
+        gpsData.put("viteza", (int) (fix.speedMps * 3.6));
+        gpsData.put("directie", (int) fix.bearing);
+        gpsData.put("altitudine", (int) fix.altitude);
+        gpsData.put("hdop", (int) fix.accuracy);
+        gpsData.put("gsm_signal", telemetry.gsmSignal());
+        gpsData.put("baterie", telemetry.batteryText());
+        gpsData.put("status", 2);
+        gpsData.put("timestamp", legacyFormat.format(new Date(fix.timeMillis)));
+        return gpsData.toString();
+    }
+
+    // Payload-ul trimis + varianta GPS_ANALYTICS extinsă fără re-parsare
+    @Benchmark
+    public String encodePointWithIdentifiers() {
+        GpsFix fix = nextFix();
+        encoder.encode("RO2024UIT001", "B-101-ITR", fix, telemetry, 2, fix.timeMillis);
+        return encoder.appendIdentifiers("RO2024UIT001", "v_12_RO2024UIT001", "12");
+    }
+
+    @Benchmark
+    public String encodePointLegacyWithAnalyticsReparse() throws Exception {
+        String payload = encodePointLegacyJsonObject();
+        JSONObject enrichedData = new JSONObject(payload);
+        enrichedData.put("realUit", "RO2024UIT001");
+        enrichedData.put("uniqueKey", "v_12_RO2024UIT001");
+        enrichedData.put("ikRoTrans", "12");
+        return enrichedData.toString();
+    }
+
+    @Benchmark
+    public String serializeJsonBatch() {
+        return GpsBatchUploader.toJsonArray(batch);
+    }
+
+    @Benchmark
+    public byte[] serializeGzipJsonBatch() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out)) {
+            gzip.write(GpsBatchUploader.toJsonArray(batch).getBytes(StandardCharsets.UTF_8));
+        }
+        return out.toByteArray();
+    }
+
+    @Benchmark
+    public byte[] serializeBinaryBatch() {
+        return GpsBinaryCodec.encodeBatch(batch);
+    }
+
+    @Benchmark
+    public List<String> decodeBinaryBatch() throws IOException {
+        return GpsBinaryCodec.decodeBatch(binaryBatch);
+    }
+}
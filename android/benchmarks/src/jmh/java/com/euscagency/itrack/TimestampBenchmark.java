@@ -0,0 +1,44 @@
+package com.euscagency.itrack;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.TimeZone;
+
+/**
+ * Ora României pentru "timestamp" - calcul aritmetic cu offset cache-uit pe oră vs SimpleDateFormat
+ * Timpul avansează cu 7s per apel, deci cache-ul de oră se schimbă regulat (inclusiv peste DST în timp).
+ */
+@State(Scope.Thread)
+public class TimestampBenchmark {
+
+    private static final long STEP_MS = 7000;
+
+    private final GpsPayloadEncoder encoder = new GpsPayloadEncoder();
+    private SimpleDateFormat legacyFormat;
+    private long timestamp;
+
+    @Setup
+    public void setUp() {
+        legacyFormat = new SimpleDateFormat("yyyy-MM-dd HH:mm:ss", Locale.US);
+        legacyFormat.setTimeZone(TimeZone.getTimeZone("Europe/Bucharest"));
+        timestamp = 1711846000000L; // cu puțin înainte de trecerea la ora de vară 2024
+    }
+
+    @Benchmark
+    public String encoderFormat() {
+        timestamp += STEP_MS;
+        return encoder.formatTimestamp(timestamp);
+    }
+
+    @Benchmark
+    public String simpleDateFormatBaseline() {
+        timestamp += STEP_MS;
+        return legacyFormat.format(new Date(timestamp));
+    }
+}
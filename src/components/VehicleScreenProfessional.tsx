@@ -20,6 +20,14 @@ import OfflineSyncMonitor from "./OfflineSyncMonitor";
 import { courseStateManager } from "../services/courseStateManager";
 import nativeNotificationService from "../services/nativeNotifications";
 
+// Eveniment din canalul nativ - message păstrează formatul vechi al mesajelor GPS
+interface AndroidGPSEvent {
+  seq: number;
+  type: string;
+  time: number;
+  message: string;
+}
+
 // Interfață TypeScript pentru AndroidGPS și iOSGPS bridge
 declare global {
   interface Window {
@@ -29,8 +37,21 @@ declare global {
       updateStatus: (courseId: string, status: number, vehicleNumber: string) => string;
       clearAllOnLogout: () => string;
       markManualPause: (ikRoTrans: string) => string;
+      // Statistici native per cursă (JSON CourseStatistics) - citite la cerere, nu per fix
+      getCourseAnalytics?: (courseId: string) => string;
+      getAllCourseAnalytics?: () => string;
       // Handler pentru mesaje GPS din serviciul Android
       onGPSMessage?: (message: string) => void;
+      // Canal de evenimente: push grupat (un array per fereastră) + pull după cursor
+      onGPSEvents?: (events: AndroidGPSEvent[]) => void;
+      getGPSEvents?: (cursor: number) => string;
+      // Flight recorder: ultimele evenimente ale serviciului GPS, text, pentru diagnostic
+      dumpFlightRecorder?: () => string;
+      // Starea serviciului + metrici (contoare, adâncimi de cozi, percentile latență HTTP / fix-to-ack)
+      getServiceStatus?: () => string;
+      // Trimite acum batch-ul live și pornește drenarea offline ("SUCCESS: ..." / "ERROR: ..." /
+      // "PENDING: ..." = comanda rulează încă și se termină în fundal - nu e eroare)
+      flushGPS?: () => string;
       // Native notification methods
       showPersistentNotification?: (title: string, message: string, persistent: boolean) => Promise<void>;
       hidePersistentNotification?: () => Promise<void>;
@@ -448,64 +469,7 @@ const VehicleScreen: React.FC<VehicleScreenProps> = ({ token, onLogout }) => {
           
         // UNIFIED OFFLINE: Nu mai avem Android queue messages - totul unified în JavaScript
           
-        // CRITICAL GPS→MAP: Interceptează coordonatele GPS pentru hartă
-        } else if (message.startsWith('GPS_ANALYTICS:')) {
-          try {
-            const gpsDataStr = message.replace('GPS_ANALYTICS:', '');
-            const gpsData = JSON.parse(gpsDataStr);
-            
-            // FIXED: Extrage TOATE identificatorii din GPS data
-            const activeUit = gpsData.uit;
-            const realUit = gpsData.realUit || activeUit;
-            const ikRoTrans = gpsData.ikRoTrans || activeUit;
-            const uniqueKey = gpsData.uniqueKey;
-            
-            console.log(`📍 GPS→HARTA: Primesc coordonate pentru UIT=${activeUit}, realUit=${realUit}, ikRoTrans=${ikRoTrans}`);
-            console.log(`📋 Coordonate: (${gpsData.lat}, ${gpsData.lng}) viteză=${gpsData.viteza}km/h`);
-            
-            // CRITICAL FIX: Caută cursa după toate identificatorii posibili
-            const activeCourse = courses.find((course: Course) => 
-              course.uit === activeUit || 
-              course.uit === realUit ||
-              course.ikRoTrans === activeUit ||
-              course.ikRoTrans === ikRoTrans ||
-              course.id === activeUit
-            );
-            
-            console.log(`🔍 Caut cursă pentru UIT=${activeUit}, realUit=${realUit}, ikRoTrans=${ikRoTrans}, uniqueKey=${uniqueKey}`);
-            console.log(`📋 ${courses.length} curse în listă:`, courses.map(c => `${c.id}(uit:${c.uit}, ikRo:${c.ikRoTrans}, status:${c.status})`));
-            if (activeCourse) {
-              // Adaugă coordonatele în courseAnalyticsService pentru vizualizare pe hartă
-              courseAnalyticsService.updateCourseStatistics(
-                activeCourse.id,
-                gpsData.lat,
-                gpsData.lng,
-                gpsData.viteza, // Viteza rămâne în km/h - FIX BUG CRITIC
-                gpsData.hdop,
-                false // not manual pause
-              );
-              console.log(`✅ GPS→HARTA: Coordonate salvate pentru cursa ${activeCourse.id}`);
-            } else {
-              console.warn(`⚠️ GPS→HARTA: Nu găsesc cursa activă pentru UIT ${activeUit}`);
-              console.warn(`📋 Curse în listă:`, courses.map(c => `${c.id}(${c.uit}/${c.ikRoTrans})`));
-              
-              // FALLBACK: încearcă cu primul curs activ (status 2)
-              const firstActiveCourse = courses.find(c => c.status === 2);
-              if (firstActiveCourse) {
-                console.log(`🔄 FALLBACK: Folosesc primul curs activ ${firstActiveCourse.id}`);
-                courseAnalyticsService.updateCourseStatistics(
-                  firstActiveCourse.id,
-                  gpsData.lat,
-                  gpsData.lng,
-                  gpsData.viteza, // Viteza rămâne în km/h - FIX BUG CRITIC
-                  gpsData.hdop,
-                  false
-                );
-              }
-            }
-          } catch (e) {
-            console.error('❌ Eroare GPS→Analytics parsing:', e);
-          }
+        // GPS→HARTA: Coordonatele și statisticile sunt agregate nativ - courseAnalyticsService le citește la cerere
         }
         
         if (message.includes('GPS dezactivat') || message.includes('GPS DEZACTIVAT')) {
@@ -535,10 +499,42 @@ const VehicleScreen: React.FC<VehicleScreenProps> = ({ token, onLogout }) => {
       };
     }
 
+    // BRIDGE EVENTS: Serviciul livrează evenimentele grupate (un array per fereastră) cât timp aplicația e
+    // vizibilă; la revenirea din background JS cere tot ce a apărut după ultimul cursor
+    let eventCursor = 0;
+    const handleGPSEvents = (events: AndroidGPSEvent[]) => {
+      events.forEach((event) => {
+        if (event.seq > eventCursor) {
+          eventCursor = event.seq;
+          window.AndroidGPS?.onGPSMessage?.(event.message);
+        }
+      });
+    };
+    const pullGPSEvents = () => {
+      const bridge = window.AndroidGPS;
+      if (document.visibilityState !== 'visible' || !bridge?.getGPSEvents) {
+        return;
+      }
+      try {
+        const response = JSON.parse(bridge.getGPSEvents(eventCursor));
+        handleGPSEvents(response.events);
+        eventCursor = Math.max(eventCursor, response.cursor);
+      } catch (error) {
+        console.error('❌ Bridge error GPS events pull:', error);
+      }
+    };
+    if (window.AndroidGPS) {
+      window.AndroidGPS.onGPSEvents = handleGPSEvents;
+      pullGPSEvents();
+      document.addEventListener('visibilitychange', pullGPSEvents);
+    }
+
     return () => {
       // Cleanup handler (Android build)
+      document.removeEventListener('visibilitychange', pullGPSEvents);
       if (window.AndroidGPS) {
         window.AndroidGPS.onGPSMessage = undefined;
+        window.AndroidGPS.onGPSEvents = undefined;
       }
     };
   }, []);
@@ -228,10 +228,12 @@ class CourseAnalyticsService {
       analytics.endTime = new Date().toISOString();
       analytics.lastUpdateTime = new Date().toISOString();
 
-      // Final calculations
-      this.updateTimeStatistics(analytics);
-      if (analytics.drivingTime > 0) {
-        analytics.averageSpeed = (analytics.totalDistance / (analytics.drivingTime / 60));
+      // Final calculations - pe Android statisticile vin deja finalizate din serviciul nativ
+      if (!window.AndroidGPS?.getCourseAnalytics) {
+        this.updateTimeStatistics(analytics);
+        if (analytics.drivingTime > 0) {
+          analytics.averageSpeed = (analytics.totalDistance / (analytics.drivingTime / 60));
+        }
       }
 
       await this.saveCourseAnalytics(courseId, analytics);
@@ -251,13 +253,48 @@ class CourseAnalyticsService {
   async getCourseAnalytics(courseId: string): Promise<CourseStatistics | null> {
     try {
       const { value } = await Preferences.get({ key: this.STORAGE_KEY_PREFIX + courseId });
-      return value ? JSON.parse(value) : null;
+      return value ? this.withNativeStatistics(JSON.parse(value)) : null;
     } catch (error) {
       console.error('❌ Error getting course analytics:', error);
       return null;
     }
   }
 
+  /**
+   * Completează statisticile salvate cu instantaneul nativ - serviciul Android agregă fiecare fix
+   * (odometru, timp condus, opriri, pauze) și continuă și cu WebView-ul suspendat
+   */
+  private withNativeStatistics(analytics: CourseStatistics): CourseStatistics {
+    const bridge = window.AndroidGPS;
+    if (!bridge?.getCourseAnalytics || !analytics.uit) {
+      return analytics;
+    }
+    try {
+      const native = JSON.parse(bridge.getCourseAnalytics(analytics.uit));
+      if (!native) {
+        return analytics;
+      }
+      return {
+        ...analytics,
+        totalDistance: native.totalDistance,
+        drivingTime: native.drivingTime,
+        averageSpeed: native.averageSpeed,
+        maxSpeed: native.maxSpeed,
+        totalStops: native.totalStops,
+        stopDuration: native.stopDuration,
+        manualPauses: native.manualPauses,
+        autoPauses: native.autoPauses,
+        gpsPoints: native.gpsPoints.length > 0 ? native.gpsPoints : analytics.gpsPoints,
+        isActive: native.isActive,
+        endTime: native.endTime || analytics.endTime,
+        lastUpdateTime: native.lastUpdateTime
+      };
+    } catch (error) {
+      console.error('❌ Error reading native course analytics:', error);
+      return analytics;
+    }
+  }
+
   /**
    * Get all course analytics (for history)
    */